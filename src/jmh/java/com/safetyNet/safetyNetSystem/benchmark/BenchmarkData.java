@@ -0,0 +1,159 @@
+package com.safetyNet.safetyNetSystem.benchmark;
+
+import com.safetyNet.safetyNetSystem.dao.FirestationDAO;
+import com.safetyNet.safetyNetSystem.dao.MedicalRecordDAO;
+import com.safetyNet.safetyNetSystem.dao.PersonDAO;
+import com.safetyNet.safetyNetSystem.model.DataContainer;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+import com.safetyNet.safetyNetSystem.service.DataLoaderService;
+import com.safetyNet.safetyNetSystem.service.FirestationService;
+import com.safetyNet.safetyNetSystem.service.MedicalRecordService;
+import com.safetyNet.safetyNetSystem.service.PersistenceService;
+import com.safetyNet.safetyNetSystem.service.PersonService;
+import com.safetyNet.safetyNetSystem.util.ChangeLog;
+import com.safetyNet.safetyNetSystem.util.DataLoaderUtil;
+import com.safetyNet.safetyNetSystem.util.FanOutExecutor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Jeu de données synthétique et graphe d'objets complet (DAO, services) pour les benchmarks.
+ * <p>
+ * Le jeu de données est déterministe pour une taille donnée : 4 personnes par foyer, 10 villes,
+ * une station pour 500 adresses, un nom de famille pour 10 personnes et un dossier médical par personne
+ * (environ un quart d'enfants). Le fichier de données et le journal sont placés dans un répertoire
+ * temporaire ; l'écriture de l'instantané complet est désactivée afin de mesurer les DAO seuls.
+ */
+final class BenchmarkData {
+
+    static final int PERSONS_PER_HOUSEHOLD = 4;
+    static final int CITIES = 10;
+    static final int ADDRESSES_PER_STATION = 500;
+    static final int PERSONS_PER_LAST_NAME = 10;
+
+    final int persons;
+    final int addresses;
+    final int stations;
+    final Path directory;
+
+    final PersistenceService persistenceService;
+    final PersonDAO personDAO;
+    final FirestationDAO firestationDAO;
+    final MedicalRecordDAO medicalRecordDAO;
+    final PersonService personService;
+    final FirestationService firestationService;
+    final MedicalRecordService medicalRecordService;
+    final FanOutExecutor fanOutExecutor;
+
+    private final ChangeLog changeLog;
+
+    BenchmarkData(int persons) throws IOException {
+        this.persons = persons;
+        this.addresses = Math.max(1, persons / PERSONS_PER_HOUSEHOLD);
+        this.stations = Math.max(1, addresses / ADDRESSES_PER_STATION);
+        this.directory = Files.createTempDirectory("safetynet-bench");
+
+        DataLoaderUtil dataLoaderUtil = new SyntheticDataLoaderUtil(directory.resolve("data.json"), generate());
+        this.changeLog = new ChangeLog(dataLoaderUtil, false);
+        DataLoaderService dataLoaderService = new DataLoaderService(dataLoaderUtil, changeLog);
+        this.persistenceService = new PersistenceService(dataLoaderService, changeLog, Long.MAX_VALUE / 2, Integer.MAX_VALUE, false);
+
+        this.personDAO = new PersonDAO(dataLoaderService, persistenceService);
+        this.firestationDAO = new FirestationDAO(dataLoaderService, persistenceService);
+        this.medicalRecordDAO = new MedicalRecordDAO(dataLoaderService, persistenceService);
+        this.medicalRecordService = new MedicalRecordService(medicalRecordDAO, dataLoaderUtil);
+        this.personService = new PersonService(personDAO, medicalRecordService);
+        this.fanOutExecutor = new FanOutExecutor(0, 256);
+        this.firestationService = new FirestationService(firestationDAO, fanOutExecutor);
+    }
+
+    static String address(int index) {
+        return index + " Benchmark St";
+    }
+
+    static String city(int index) {
+        return "City" + (index % CITIES);
+    }
+
+    static String station(int index) {
+        return String.valueOf(index + 1);
+    }
+
+    static String lastName(int index) {
+        return "Last" + (index / PERSONS_PER_LAST_NAME);
+    }
+
+    /**
+     * Libère le journal et supprime le répertoire temporaire.
+     */
+    void close() throws IOException {
+        persistenceService.shutdown();
+        fanOutExecutor.shutdown();
+        changeLog.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private DataContainer generate() {
+        Random random = new Random(42);
+        List<Person> personList = new ArrayList<>(persons);
+        List<MedicalRecord> medicalRecords = new ArrayList<>(persons);
+        for (int i = 0; i < persons; i++) {
+            int household = i / PERSONS_PER_HOUSEHOLD;
+            String firstName = "First" + i;
+            String lastName = lastName(i);
+            personList.add(new Person(firstName, lastName, address(household), city(household),
+                    String.format("%05d", household % 1000), String.format("841-%07d", i), "p" + i + "@email.com"));
+            int birthYear = i % 4 == 0 ? 2015 : 1950 + random.nextInt(50);
+            medicalRecords.add(new MedicalRecord(firstName, lastName,
+                    String.format("%02d/%02d/%d", 1 + random.nextInt(12), 1 + random.nextInt(28), birthYear),
+                    new ArrayList<>(List.of("aznol:350mg")), new ArrayList<>(List.of("peanut"))));
+        }
+        List<Firestation> firestations = new ArrayList<>(addresses);
+        for (int a = 0; a < addresses; a++) {
+            firestations.add(new Firestation(address(a), station(a % stations)));
+        }
+
+        DataContainer dataContainer = new DataContainer();
+        dataContainer.setPersons(personList);
+        dataContainer.setFirestations(firestations);
+        dataContainer.setMedicalrecords(medicalRecords);
+        return dataContainer;
+    }
+
+    /**
+     * Chargeur qui fournit le jeu de données généré au lieu de lire un fichier et n'écrit jamais d'instantané.
+     */
+    private static final class SyntheticDataLoaderUtil extends DataLoaderUtil {
+        private final DataContainer dataContainer;
+
+        SyntheticDataLoaderUtil(Path dataFile, DataContainer dataContainer) {
+            super(false, false, dataFile.toString());
+            this.dataContainer = dataContainer;
+        }
+
+        @Override
+        public DataContainer loadData(LoadListener listener) {
+            dataContainer.getPersons().forEach(listener::onPerson);
+            dataContainer.getFirestations().forEach(listener::onFirestation);
+            dataContainer.getMedicalrecords().forEach(listener::onMedicalRecord);
+            return dataContainer;
+        }
+
+        @Override
+        public boolean saveData(DataContainer dataContainer) {
+            return true;
+        }
+    }
+}
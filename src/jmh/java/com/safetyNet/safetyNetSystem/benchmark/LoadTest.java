@@ -0,0 +1,157 @@
+package com.safetyNet.safetyNetSystem.benchmark;
+
+import com.safetyNet.safetyNetSystem.Main;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Test de charge HTTP comparant l'exécution des contrôleurs sur le pool de threads de Tomcat et sur des
+ * threads virtuels (spring.threads.virtual.enabled).
+ * <p>
+ * Pour chaque mode, l'application est démarrée dans la JVM sur un port libre avec les données de
+ * src/main/resources/data.json, puis un nombre fixe de connexions simultanées enchaînent des requêtes GET
+ * pendant la durée demandée, après une phase de chauffe. Le débit et les percentiles de latence
+ * (p50, p99, max) sont affichés par mode.
+ * <p>
+ * Lancement depuis la racine du projet, les options étant de la forme clé=valeur :
+ * {@code mvn -Pbenchmark compile exec:exec -Dbenchmark.main=com.safetyNet.safetyNetSystem.benchmark.LoadTest
+ * -Djmh.args="connections=2000 duration=30"}.
+ * <ul>
+ *     <li>connections : nombre de connexions simultanées (2000 par défaut) ;</li>
+ *     <li>duration, warmup : durées de mesure et de chauffe, en secondes (30 et 10 par défaut) ;</li>
+ *     <li>modes : modes comparés, parmi platform et virtual (les deux par défaut) ;</li>
+ *     <li>paths : requêtes envoyées à tour de rôle, séparées par des points-virgules.</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    private static final String DEFAULT_PATHS = "/fire?address=1509%20Culver%20St;/childAlert?address=1509%20Culver%20St;"
+            + "/firestation?stationNumber=3;/phoneAlert?firestation=2;/flood/stations?stations=1,2,3;"
+            + "/personInfo?lastName=Boyd;/communityEmail?city=Culver";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {  // Les arguments JMH par défaut (-prof gc) sont ignorés
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        int connections = Integer.parseInt(options.getOrDefault("connections", "2000"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        List<String> paths = Arrays.asList(options.getOrDefault("paths", DEFAULT_PATHS).split(";"));
+
+        List<Result> results = new ArrayList<>();
+        for (String mode : options.getOrDefault("modes", "platform,virtual").split(",")) {
+            try (ConfigurableApplicationContext context = start("virtual".equals(mode), connections)) {
+                int port = context.getEnvironment().getProperty("local.server.port", Integer.class);
+                run(mode, port, paths, connections, warmup);
+                Result result = run(mode, port, paths, connections, duration);
+                System.out.println(result);
+                results.add(result);
+            }
+        }
+        System.out.println();
+        results.forEach(System.out::println);
+    }
+
+    /**
+     * Démarre l'application sur un port libre, dans le mode d'exécution demandé. Seul le mode change
+     * entre les deux exécutions : le pool de Tomcat garde sa taille par défaut.
+     */
+    private static ConfigurableApplicationContext start(boolean virtualThreads, int connections) {
+        SpringApplication application = new SpringApplication(Main.class);
+        application.setBannerMode(Banner.Mode.OFF);
+        return application.run("--server.port=0", "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--logging.level.root=WARN", "--server.tomcat.max-connections=" + Math.max(8192, connections + 100));
+    }
+
+    /**
+     * Envoie des requêtes sur un nombre fixe de connexions pendant une durée donnée.
+     */
+    private static Result run(String mode, int port, List<String> paths, int connections, int seconds) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        List<HttpRequest> requests = paths.stream()
+                .map(path -> HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build())
+                .toList();
+        long[][] latencies = new long[connections][];
+        int[] counts = new int[connections];
+        LongAdder errors = new LongAdder();
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                int connection = i;
+                clients.execute(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    for (int n = connection; System.nanoTime() < deadline; n++) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(requests.get(n % requests.size()), HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.increment();
+                            }
+                        } catch (Exception e) {
+                            errors.increment();
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - sent;
+                    }
+                    latencies[connection] = samples;
+                    counts[connection] = count;
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int i = 0; i < connections; i++) {
+            System.arraycopy(latencies[i], 0, all, offset, counts[i]);
+            offset += counts[i];
+        }
+        Arrays.sort(all);
+        return new Result(mode, connections, total, total / (elapsed / 1e9), percentile(all, 0.50),
+                percentile(all, 0.99), total == 0 ? 0 : all[total - 1] / 1e6, errors.sum());
+    }
+
+    private static double percentile(long[] sorted, double rank) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.ceil(rank * sorted.length) - 1)] / 1e6;
+    }
+
+    /**
+     * Mesures d'un mode : débit en requêtes par seconde et latences en millisecondes.
+     */
+    private record Result(String mode, int connections, int requests, double throughput,
+                          double p50, double p99, double max, long errors) {
+        @Override
+        public String toString() {
+            return String.format("%-8s connections=%d requests=%d throughput=%.0f req/s p50=%.2f ms p99=%.2f ms max=%.2f ms errors=%d",
+                    mode, connections, requests, throughput, p50, p99, max, errors);
+        }
+    }
+}
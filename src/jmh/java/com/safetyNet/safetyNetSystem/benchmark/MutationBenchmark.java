@@ -0,0 +1,102 @@
+package com.safetyNet.safetyNetSystem.benchmark;
+
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit des mutations des DAO (index, graphe, dictionnaire et journal compris), sur les mêmes jeux
+ * de données que {@link ServiceBenchmark}. Les ajouts sont suivis de la suppression correspondante
+ * pour garder une taille constante. Le journal est tronqué entre deux itérations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class MutationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int persons;
+
+    private BenchmarkData data;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        data = new BenchmarkData(persons);
+    }
+
+    @Setup(Level.Iteration)
+    public void truncateChangeLog() {
+        data.persistenceService.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        data.close();
+    }
+
+    @Benchmark
+    public boolean addThenDeletePerson() {
+        int household = next++ % data.addresses;
+        data.personDAO.addPerson(new Person("Bench", "Mark", BenchmarkData.address(household), BenchmarkData.city(household),
+                "00000", "841-000-0000", "bench@email.com"));
+        return data.personDAO.deletePerson("Bench", "Mark");
+    }
+
+    @Benchmark
+    public Optional<Person> updatePerson() {
+        int index = next++ % data.persons;
+        int household = (index / BenchmarkData.PERSONS_PER_HOUSEHOLD + 1) % data.addresses;  // Déménagement
+        return data.personDAO.updatePerson("First" + index, BenchmarkData.lastName(index),
+                new Person("First" + index, BenchmarkData.lastName(index), BenchmarkData.address(household),
+                        BenchmarkData.city(household), "00000", "841-000-0000", "moved@email.com"));
+    }
+
+    @Benchmark
+    public Optional<MedicalRecord> updateMedicalRecord() {
+        int index = next++ % data.persons;
+        return data.medicalRecordDAO.updateMedicalRecord("First" + index, BenchmarkData.lastName(index),
+                new MedicalRecord("First" + index, BenchmarkData.lastName(index), "01/01/1980",
+                        List.of("aznol:350mg"), List.of("peanut")));
+    }
+
+    @Benchmark
+    public boolean addThenDeleteMedicalRecord() {
+        data.medicalRecordDAO.addMedicalRecord(new MedicalRecord("Bench", "Mark", "01/01/1980", List.of(), List.of()));
+        return data.medicalRecordDAO.deleteMedicalRecord("Bench", "Mark");
+    }
+
+    @Benchmark
+    public Optional<Firestation> updateFirestation() {
+        int address = next++ % data.addresses;
+        return data.firestationDAO.updateFirestation(BenchmarkData.address(address),
+                new Firestation(BenchmarkData.address(address), BenchmarkData.station((address + 1) % data.stations)));
+    }
+
+    @Benchmark
+    public boolean addThenDeleteFirestation() {
+        data.firestationDAO.addFirestation(new Firestation("Bench Address", BenchmarkData.station(0)));
+        return data.firestationDAO.deleteFirestation("Bench Address");
+    }
+}
@@ -0,0 +1,104 @@
+package com.safetyNet.safetyNetSystem.benchmark;
+
+import com.safetyNet.safetyNetSystem.dto.ChildrenAlertResponse;
+import com.safetyNet.safetyNetSystem.dto.FirestationResponse;
+import com.safetyNet.safetyNetSystem.dto.FirestationResponseNoCount;
+import com.safetyNet.safetyNetSystem.dto.PersonInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit des méthodes de service derrière les endpoints de consultation, sur des jeux de données
+ * synthétiques de 1 000, 100 000 et 1 000 000 de personnes.
+ * Chaque appel porte sur une clé différente (station, adresse, nom, ville) afin de ne pas mesurer
+ * toujours le même foyer. Lancer avec {@code -prof gc} pour obtenir le taux d'allocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int persons;
+
+    private BenchmarkData data;
+
+    /**
+     * Curseur propre à chaque thread de mesure, pour faire varier les clés interrogées.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int bound) {
+            next = next + 7919 < 0 ? 0 : next + 7919;  // Pas premier : parcourt toutes les clés
+            return next % bound;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        data = new BenchmarkData(persons);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        data.close();
+    }
+
+    @Benchmark
+    public FirestationResponse personsCoveredByStation(Cursor cursor) {
+        return data.firestationService.getPersonsCoveredByStation(BenchmarkData.station(cursor.next(data.stations)));
+    }
+
+    @Benchmark
+    public Set<String> phoneNumbersByStation(Cursor cursor) {
+        return data.firestationService.getPhoneNumbersByStation(BenchmarkData.station(cursor.next(data.stations)));
+    }
+
+    @Benchmark
+    public List<FirestationResponseNoCount> floodedStations(Cursor cursor) {
+        int first = cursor.next(data.stations);
+        return data.firestationService.getFloodedStations(List.of(
+                BenchmarkData.station(first), BenchmarkData.station((first + 1) % data.stations)));
+    }
+
+    @Benchmark
+    public FirestationResponseNoCount firestationInfoByAddress(Cursor cursor) {
+        return data.firestationService.getFirestationInfoByAddress(BenchmarkData.address(cursor.next(data.addresses)));
+    }
+
+    @Benchmark
+    public ChildrenAlertResponse childAlertByAddress(Cursor cursor) {
+        return data.personService.getChildAlertByAddress(BenchmarkData.address(cursor.next(data.addresses)));
+    }
+
+    @Benchmark
+    public List<PersonInfo> personInfoByLastName(Cursor cursor) {
+        return data.personService.getPersonInfoByLastName(BenchmarkData.lastName(cursor.next(data.persons)));
+    }
+
+    @Benchmark
+    public Set<String> emailsByCity(Cursor cursor) {
+        return data.personService.getEmailsByCity(BenchmarkData.city(cursor.next(BenchmarkData.CITIES)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.safetyNet.safetyNetSystem.controller;
+
+import com.safetyNet.safetyNetSystem.dao.ChangeEvent;
+import com.safetyNet.safetyNetSystem.service.ChangeFeed;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Contrôleur du flux des modifications des personnes, des casernes et des dossiers médicaux,
+ * diffusé en Server-Sent Events.
+ */
+@RestController
+@RequestMapping("/")
+public class ChangeFeedController {
+
+    private static final Logger logger = LogManager.getLogger(ChangeFeedController.class);
+
+    private final ChangeFeed changeFeed;
+    private final long timeoutMs;
+
+    /**
+     * Constructeur du contrôleur.
+     *
+     * @param changeFeed Le flux des modifications.
+     * @param timeoutMs  Durée maximale d'une connexion, en millisecondes ; le client se reconnecte ensuite
+     *                   avec le dernier identifiant reçu.
+     */
+    public ChangeFeedController(ChangeFeed changeFeed, @Value("${safetynet.feed.timeout-ms:1800000}") long timeoutMs) {
+        this.changeFeed = changeFeed;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * S'abonner aux modifications des données, éventuellement limitées à une station ou à une adresse.
+     * Chaque modification est envoyée comme un événement "change" ; un événement "resync" indique que
+     * des modifications ont été perdues (client trop lent, ou reconnexion trop tardive) et que les données
+     * suivies doivent être relues. Une reconnexion portant l'en-tête Last-Event-ID reprend après le
+     * dernier événement reçu.
+     *
+     * @param station     le numéro de station à suivre (facultatif)
+     * @param address     l'adresse à suivre (facultatif)
+     * @param lastEventId le dernier identifiant reçu avant une reconnexion (facultatif)
+     * @return le flux d'événements, ou 503 si le nombre maximal d'abonnés est atteint
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getChanges(@RequestParam(required = false) String station,
+                                                 @RequestParam(required = false) String address,
+                                                 @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        logger.debug("Received subscription to changes (station: {}, address: {}, last event: {})", station, address, lastEventId);
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        ChangeFeed.Subscription subscription;
+        try {
+            subscription = changeFeed.subscribe(station, address, lastEventId, new EmitterSink(emitter));
+        } catch (IllegalStateException e) {
+            logger.warn("Subscription to changes rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        logger.info("Subscribed to changes (station: {}, address: {})", station, address);
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Envoie les modifications d'un abonné sur sa connexion SSE.
+     */
+    private record EmitterSink(SseEmitter emitter) implements ChangeFeed.Sink {
+
+        @Override
+        public void send(String id, ChangeEvent event) throws IOException {
+            emitter.send(SseEmitter.event().id(id).name("change").data(event, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void resync(String id, long version) throws IOException {
+            emitter.send(SseEmitter.event().id(id).name("resync").data(Map.of("version", version), MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.safetyNet.safetyNetSystem.controller;
+
+import com.safetyNet.safetyNetSystem.service.DataLoaderService;
+import com.safetyNet.safetyNetSystem.service.DataVersions;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filtre des requêtes conditionnelles : chaque requête GET (ou HEAD) sur les endpoints de lecture reçoit
+ * un ETag et un Last-Modified tirés de la version de ses données ({@link DataVersions}), et une requête
+ * If-None-Match ou If-Modified-Since qui correspond reçoit 304 sans que la réponse soit calculée.
+ * <p>
+ * /fire et /childAlert dépendent de la version de l'adresse demandée, /firestation et /phoneAlert de celle
+ * de la station, /flood/stations de celles des stations, /communityEmail de celle de la ville ;
+ * /person et /personInfo dépendent de la version globale des données.
+ * <p>
+ * Last-Modified n'a qu'une précision d'une seconde : tant que la seconde de la dernière modification
+ * n'est pas écoulée, une autre écriture peut encore porter la même date. La réponse ne reçoit alors
+ * que l'ETag, et If-Modified-Since est ignoré.
+ */
+@Component
+public class ConditionalRequestFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LogManager.getLogger(ConditionalRequestFilter.class);
+
+    /**
+     * Endpoints conditionnels : chemin, paramètre déterminant et sa portée (null pour la version globale).
+     */
+    private static final Map<String, Resource> RESOURCES = Map.of(
+            "/firestation", new Resource("stationNumber", DataVersions.Scope.STATION, false),
+            "/phoneAlert", new Resource("firestation", DataVersions.Scope.STATION, false),
+            "/fire", new Resource("address", DataVersions.Scope.ADDRESS, false),
+            "/childAlert", new Resource("address", DataVersions.Scope.ADDRESS, false),
+            "/flood/stations", new Resource("stations", DataVersions.Scope.STATION, true),
+            "/communityEmail", new Resource("city", DataVersions.Scope.CITY, false),
+            "/person", new Resource(null, null, false),
+            "/personInfo", new Resource(null, null, false));
+
+    private final DataLoaderService dataLoaderService;
+    private final DataVersions dataVersions;
+
+    /**
+     * Constructeur du filtre.
+     *
+     * @param dataLoaderService Le service publiant les versions des données.
+     * @param dataVersions      Les versions des données par adresse, station et ville.
+     */
+    public ConditionalRequestFilter(DataLoaderService dataLoaderService, DataVersions dataVersions) {
+        this.dataLoaderService = dataLoaderService;
+        this.dataVersions = dataVersions;
+    }
+
+    /**
+     * Seules les lectures des endpoints conditionnels sont filtrées.
+     *
+     * @param request La requête.
+     * @return true si la requête n'est pas concernée.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))
+                || !RESOURCES.containsKey(request.getServletPath());
+    }
+
+    /**
+     * Ajoute l'ETag et le Last-Modified de la version lue, et répond 304 si le client la connaît déjà.
+     * La version est épinglée pour toute la requête, afin que la réponse corresponde à son ETag.
+     * Last-Modified n'est utilisé que si sa seconde était écoulée avant l'épinglage : la version lue
+     * contient alors toutes les écritures datées de cette seconde.
+     *
+     * @param request     La requête.
+     * @param response    La réponse.
+     * @param filterChain La suite de la chaîne de filtres.
+     * @throws ServletException si un filtre suivant échoue.
+     * @throws IOException      en cas d'erreur d'entrée/sortie.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long pinnedAt = System.currentTimeMillis();
+        try (DataLoaderService.Pin pin = dataLoaderService.pin()) {
+            DataVersions.Tag tag = find(RESOURCES.get(request.getServletPath()), request, pin.getSnapshot().getVersion());
+            if (tag != null) {
+                String eTag = representationTag(tag.eTag(), request);
+                long lastModified = tag.lastModified();
+                ServletWebRequest webRequest = new ServletWebRequest(request, response);
+                boolean notModified = lastModified / 1000 < pinnedAt / 1000
+                        ? webRequest.checkNotModified(eTag, lastModified)
+                        : webRequest.checkNotModified(eTag);  // Seconde en cours : ETag seul
+                if (notModified) {
+                    logger.debug("Not modified: {} {} (version {})", request.getMethod(), request.getRequestURI(), tag.getVersion());
+                    return;
+                }
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * Version des données d'une requête, ou null si elle ne peut pas être déterminée (paramètre absent,
+     * écriture publiée pendant la requête).
+     */
+    private DataVersions.Tag find(Resource resource, HttpServletRequest request, long snapshotVersion) {
+        if (resource.scope() == null) {
+            return dataVersions.find(snapshotVersion);
+        }
+        String[] values = request.getParameterValues(resource.parameter());
+        if (values == null || values.length == 0) {
+            return null;
+        }
+        List<String> parameters = new ArrayList<>();
+        for (String value : values) {
+            parameters.addAll(resource.list() ? List.of(value.split(",")) : List.of(value));
+        }
+        return dataVersions.find(resource.scope(), parameters, snapshotVersion);
+    }
+
+    /**
+     * Les variantes NDJSON partagent le chemin des réponses JSON : leur ETag est distinct.
+     */
+    private static String representationTag(String eTag, HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE)) {
+            return eTag.substring(0, eTag.length() - 1) + ".ndjson\"";
+        }
+        return eTag;
+    }
+
+    /**
+     * Endpoint conditionnel : le paramètre de requête dont dépend sa réponse, sa portée, et s'il s'agit
+     * d'une liste (valeurs répétées ou séparées par des virgules).
+     */
+    private record Resource(String parameter, DataVersions.Scope scope, boolean list) {
+    }
+}
@@ -1,13 +1,18 @@
 package com.safetyNet.safetyNetSystem.controller;
 
+import com.safetyNet.safetyNetSystem.dto.BatchOperation;
+import com.safetyNet.safetyNetSystem.dto.BatchResponse;
 import com.safetyNet.safetyNetSystem.model.Firestation;
 import com.safetyNet.safetyNetSystem.service.FirestationService;
+import com.safetyNet.safetyNetSystem.service.ResponseCache;
+import com.safetyNet.safetyNetSystem.util.SerializedJson;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import com.safetyNet.safetyNetSystem.dto.FirestationResponse;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -20,9 +25,11 @@ public class FirestationController {
     private static final Logger logger = LogManager.getLogger(FirestationController.class);
 
     private final FirestationService firestationService;
+    private final ResponseCache responseCache;
 
-    public FirestationController(FirestationService firestationService) {
+    public FirestationController(FirestationService firestationService, ResponseCache responseCache) {
         this.firestationService = firestationService;
+        this.responseCache = responseCache;
     }
 
     /**
@@ -45,6 +52,32 @@ public class FirestationController {
         }
     }
 
+    /**
+     * Appliquer un lot d'insertions ou mises à jour et de suppressions de casernes, envoyé sous forme
+     * de tableau JSON ou de flux NDJSON (une opération par ligne). Le lot est appliqué en entier ou pas du tout.
+     *
+     * @param operations les opérations du lot
+     * @return le résultat de chaque opération, avec un statut 400 si une opération invalide a fait rejeter le lot
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BatchResponse> applyBatch(@RequestBody List<BatchOperation<Firestation>> operations) {
+        logger.debug("Received request to apply a batch of {} firestation operations", operations.size());
+
+        try {
+            BatchResponse response = firestationService.applyBatch(operations);
+            if (response.isApplied()) {
+                logger.info("Firestation batch applied successfully: {} operations", operations.size());
+                return ResponseEntity.ok(response);
+            } else {
+                logger.warn("Firestation batch rejected: invalid operations");
+                return ResponseEntity.badRequest().body(response);
+            }
+        } catch (Exception e) {
+            logger.error("Error occurred while applying a batch of {} firestation operations", operations.size(), e);
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
     /**
      * Mettre à jour le numéro de caserne d'une adresse existante.
      *
@@ -103,18 +136,20 @@ public class FirestationController {
 
     /**
      * Récupérer les personnes couvertes par une caserne de pompiers donnée.
+     * Une requête If-None-Match portant l'ETag de la réponse reçoit 304, sans corps.
      *
      * @param stationNumber le numéro de la caserne
-     * @return la réponse contenant les personnes couvertes par la caserne
+     * @return la réponse contenant les personnes couvertes par la caserne, déjà sérialisée, avec son ETag
      */
     @GetMapping
-    public FirestationResponse getPersonsCoveredByStation(@RequestParam String stationNumber) {
+    public ResponseEntity<SerializedJson> getPersonsCoveredByStation(@RequestParam String stationNumber) {
         logger.debug("Received request to get persons covered by firestation with stationNumber: {}", stationNumber);
 
         try {
-            FirestationResponse response = firestationService.getPersonsCoveredByStation(stationNumber);
+            SerializedJson response = responseCache.getSerialized(ResponseCache.Endpoint.FIRESTATION, stationNumber,
+                    () -> firestationService.getPersonsCoveredByStation(stationNumber));
             logger.info("Successfully retrieved persons covered by firestation with stationNumber: {}", stationNumber);
-            return response;
+            return ResponseEntity.ok().eTag(response.eTag()).contentType(MediaType.APPLICATION_JSON).body(response);
         } catch (Exception e) {
             logger.error("Error occurred while retrieving persons covered by firestation with stationNumber: {}", stationNumber, e);
             return null;
@@ -1,12 +1,16 @@
 package com.safetyNet.safetyNetSystem.controller;
 
+import com.safetyNet.safetyNetSystem.dto.BatchOperation;
+import com.safetyNet.safetyNetSystem.dto.BatchResponse;
 import com.safetyNet.safetyNetSystem.model.MedicalRecord;
 import com.safetyNet.safetyNetSystem.service.MedicalRecordService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -44,6 +48,32 @@ public class MedicalRecordController {
         }
     }
 
+    /**
+     * Appliquer un lot d'insertions ou mises à jour et de suppressions de dossiers médicaux, envoyé sous forme
+     * de tableau JSON ou de flux NDJSON (une opération par ligne). Le lot est appliqué en entier ou pas du tout.
+     *
+     * @param operations les opérations du lot
+     * @return le résultat de chaque opération, avec un statut 400 si une opération invalide a fait rejeter le lot
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BatchResponse> applyBatch(@RequestBody List<BatchOperation<MedicalRecord>> operations) {
+        logger.debug("Received request to apply a batch of {} medical record operations", operations.size());
+
+        try {
+            BatchResponse response = medicalRecordService.applyBatch(operations);
+            if (response.isApplied()) {
+                logger.info("Medical record batch applied successfully: {} operations", operations.size());
+                return ResponseEntity.ok(response);
+            } else {
+                logger.warn("Medical record batch rejected: invalid operations");
+                return ResponseEntity.badRequest().body(response);
+            }
+        } catch (Exception e) {
+            logger.error("Error occurred while applying a batch of {} medical record operations", operations.size(), e);
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
     /**
      * Mettre à jour un dossier médical existant pour une personne donnée.
      *
@@ -1,13 +1,18 @@
 package com.safetyNet.safetyNetSystem.controller;
 
 import com.safetyNet.safetyNetSystem.service.FirestationService;
+import com.safetyNet.safetyNetSystem.service.ResponseCache;
+import com.safetyNet.safetyNetSystem.util.SerializedJson;
 import com.safetyNet.safetyNetSystem.dto.FirestationResponseNoCount;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Contrôleur pour gérer les opérations liées aux casernes de pompiers.
@@ -19,23 +24,26 @@ public class OtherController {
     private static final Logger logger = LogManager.getLogger(OtherController.class);
 
     private final FirestationService firestationService;
+    private final ResponseCache responseCache;
 
-    public OtherController(FirestationService firestationService) {
+    public OtherController(FirestationService firestationService, ResponseCache responseCache) {
         this.firestationService = firestationService;
+        this.responseCache = responseCache;
     }
 
     /**
      * Récupérer les numéros de téléphone des personnes couvertes par une caserne de pompiers.
      *
      * @param firestationNumber le numéro de la caserne de pompiers
-     * @return une liste de numéros de téléphone des personnes couvertes par la caserne
+     * @return les numéros de téléphone, sans doublon, des personnes couvertes par la caserne
      */
     @GetMapping("/phoneAlert")
-    public ResponseEntity<List<String>> getPhoneNumbersByStation(@RequestParam(name = "firestation") String firestationNumber) {
+    public ResponseEntity<Set<String>> getPhoneNumbersByStation(@RequestParam(name = "firestation") String firestationNumber) {
         logger.debug("Received request to get phone numbers for firestation: {}", firestationNumber);
 
         try {
-            List<String> phoneNumbers = firestationService.getPhoneNumbersByStation(firestationNumber);
+            Set<String> phoneNumbers = responseCache.get(ResponseCache.Endpoint.PHONE_ALERT, firestationNumber,
+                    () -> firestationService.getPhoneNumbersByStation(firestationNumber));
             logger.info("Successfully retrieved phone numbers for firestation: {}", firestationNumber);
             return ResponseEntity.ok(phoneNumbers);
         } catch (Exception e) {
@@ -46,18 +54,20 @@ public class OtherController {
 
     /**
      * Récupérer les informations sur la caserne de pompiers et les habitants associés à une adresse donnée.
+     * Une requête If-None-Match portant l'ETag de la réponse reçoit 304, sans corps.
      *
      * @param address l'adresse pour laquelle récupérer les informations
-     * @return les informations sur la caserne et les habitants associés
+     * @return les informations sur la caserne et les habitants associés, déjà sérialisées, avec leur ETag
      */
     @GetMapping("/fire")
-    public FirestationResponseNoCount getFirestationInfoByAddress(@RequestParam String address) {
+    public ResponseEntity<SerializedJson> getFirestationInfoByAddress(@RequestParam String address) {
         logger.debug("Received request to get firestation info for address: {}", address);
 
         try {
-            FirestationResponseNoCount response = firestationService.getFirestationInfoByAddress(address);
+            SerializedJson response = responseCache.getSerialized(ResponseCache.Endpoint.FIRE, address,
+                    () -> firestationService.getFirestationInfoByAddress(address));
             logger.info("Successfully retrieved firestation info for address: {}", address);
-            return response;
+            return ResponseEntity.ok().eTag(response.eTag()).contentType(MediaType.APPLICATION_JSON).body(response);
         } catch (Exception e) {
             logger.error("Error occurred while retrieving firestation info for address: {}", address, e);
             return null; // Vous pouvez aussi retourner une réponse personnalisée en cas d'erreur
@@ -83,4 +93,18 @@ public class OtherController {
             return null; // Vous pouvez aussi retourner une réponse personnalisée en cas d'erreur
         }
     }
+
+    /**
+     * Récupérer les foyers desservis par plusieurs casernes au format NDJSON (un foyer par ligne).
+     * Chaque foyer est écrit dès qu'il est construit, station après station.
+     *
+     * @param stations la liste des numéros de casernes à vérifier
+     * @return le flux des foyers desservis par les casernes spécifiées
+     */
+    @GetMapping(value = "/flood/stations", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Stream<FirestationResponseNoCount> streamFloodedStations(@RequestParam List<String> stations) {
+        logger.debug("Received request to stream flooded stations for stations: {}", stations);
+
+        return firestationService.streamFloodedStations(stations);
+    }
 }
@@ -1,16 +1,23 @@
 package com.safetyNet.safetyNetSystem.controller;
 
+import com.safetyNet.safetyNetSystem.dto.BatchOperation;
+import com.safetyNet.safetyNetSystem.dto.BatchResponse;
+import com.safetyNet.safetyNetSystem.dto.CursorPage;
 import com.safetyNet.safetyNetSystem.dto.PersonInfo;
 import com.safetyNet.safetyNetSystem.model.Person;
 import com.safetyNet.safetyNetSystem.service.PersonService;
+import com.safetyNet.safetyNetSystem.service.ResponseCache;
+import com.safetyNet.safetyNetSystem.util.SerializedJson;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import com.safetyNet.safetyNetSystem.dto.ChildrenAlertResponse;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Contrôleur pour gérer les opérations liées aux personnes dans le système.
@@ -22,9 +29,11 @@ public class PersonController {
     private static final Logger logger = LogManager.getLogger(PersonController.class);
 
     private final PersonService personService;
+    private final ResponseCache responseCache;
 
-    public PersonController(PersonService personService) {
+    public PersonController(PersonService personService, ResponseCache responseCache) {
         this.personService = personService;
+        this.responseCache = responseCache;
     }
 
     /**
@@ -41,6 +50,44 @@ public class PersonController {
         return persons;
     }
 
+    /**
+     * Récupérer une page de personnes, dans l'ordre alphabétique des noms. La page suivante s'obtient en
+     * renvoyant le curseur reçu ; elle reprend juste après la dernière personne lue, même si des personnes
+     * ont été ajoutées entre-temps.
+     *
+     * @param limit le nombre maximal de personnes de la page
+     * @param cursor le curseur renvoyé avec la page précédente, absent pour la première page
+     * @return la page de personnes, ou un statut 400 si le curseur ou la taille de page est invalide
+     */
+    @GetMapping(value = "/person", params = "limit")
+    public ResponseEntity<CursorPage<Person>> getPersonsPage(
+            @RequestParam("limit") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        logger.debug("Received request to get a page of {} persons", limit);
+
+        try {
+            CursorPage<Person> page = personService.getPersonsPage(cursor, limit);
+            logger.info("Successfully retrieved a page of {} persons", page.getItems().size());
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid page request for persons: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Récupérer toutes les personnes au format NDJSON (une personne par ligne), écrites au fur et à mesure
+     * sans construire la réponse complète en mémoire.
+     *
+     * @return le flux de toutes les personnes
+     */
+    @GetMapping(value = "/person", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Stream<Person> streamAllPersons() {
+        logger.debug("Received request to stream all persons");
+
+        return personService.streamAllPersons();
+    }
+
     /**
      * Ajouter une nouvelle personne dans le système.
      *
@@ -56,6 +103,28 @@ public class PersonController {
         return ResponseEntity.ok("Person added successfully.");
     }
 
+    /**
+     * Appliquer un lot d'insertions ou mises à jour et de suppressions de personnes, envoyé sous forme
+     * de tableau JSON ou de flux NDJSON (une opération par ligne). Le lot est appliqué en entier ou pas du tout.
+     *
+     * @param operations les opérations du lot
+     * @return le résultat de chaque opération, avec un statut 400 si une opération invalide a fait rejeter le lot
+     */
+    @PostMapping(value = "/person/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BatchResponse> applyBatch(@RequestBody List<BatchOperation<Person>> operations) {
+        logger.debug("Received request to apply a batch of {} person operations", operations.size());
+
+        BatchResponse response = personService.applyBatch(operations);
+
+        if (response.isApplied()) {
+            logger.info("Person batch applied successfully: {} operations", operations.size());
+            return ResponseEntity.ok(response);
+        } else {
+            logger.warn("Person batch rejected: invalid operations");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     /**
      * Mettre à jour les informations d'une personne existante.
      *
@@ -108,17 +177,19 @@ public class PersonController {
 
     /**
      * Récupérer les alertes concernant les enfants d'une adresse spécifique.
+     * Une requête If-None-Match portant l'ETag de la réponse reçoit 304, sans corps.
      *
      * @param address l'adresse pour laquelle récupérer les alertes enfants
-     * @return une réponse contenant les alertes pour les enfants à cette adresse
+     * @return une réponse contenant les alertes pour les enfants à cette adresse, déjà sérialisée, avec son ETag
      */
     @GetMapping("/childAlert")
-    public ChildrenAlertResponse getChildAlert(@RequestParam String address) {
+    public ResponseEntity<SerializedJson> getChildAlert(@RequestParam String address) {
         logger.debug("Received request to get child alert for address: {}", address);
 
-        ChildrenAlertResponse response = personService.getChildAlertByAddress(address);
+        SerializedJson response = responseCache.getSerialized(ResponseCache.Endpoint.CHILD_ALERT, address,
+                () -> personService.getChildAlertByAddress(address));
         logger.info("Successfully retrieved child alert for address: {}", address);
-        return response;
+        return ResponseEntity.ok().eTag(response.eTag()).contentType(MediaType.APPLICATION_JSON).body(response);
     }
 
     /**
@@ -141,18 +212,45 @@ public class PersonController {
         }
     }
 
+    /**
+     * Récupérer une page des informations des personnes portant un nom de famille, dans l'ordre alphabétique
+     * des prénoms. La page suivante s'obtient en renvoyant le curseur reçu.
+     *
+     * @param lastName le nom de famille pour lequel récupérer les informations
+     * @param limit le nombre maximal de personnes de la page
+     * @param cursor le curseur renvoyé avec la page précédente, absent pour la première page
+     * @return la page d'informations, ou un statut 400 si le curseur ou la taille de page est invalide
+     */
+    @GetMapping(value = "/personInfo", params = "limit")
+    public ResponseEntity<CursorPage<PersonInfo>> getPersonInfoPageByLastName(
+            @RequestParam("lastName") String lastName,
+            @RequestParam("limit") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        logger.debug("Received request to get a page of {} person info for last name: {}", limit, lastName);
+
+        try {
+            CursorPage<PersonInfo> page = personService.getPersonInfoPageByLastName(lastName, cursor, limit);
+            logger.info("Successfully retrieved a page of {} person info for last name: {}", page.getItems().size(), lastName);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid page request for last name {}: {}", lastName, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Récupérer les emails des habitants d'une ville donnée.
      *
-     * @param city le nom de la ville pour laquelle récupérer les emails
-     * @return une liste des emails des habitants de la ville
+     * @param city le nom de la ville pour laquelle récupérer les emails (sans tenir compte de la casse)
+     * @return les emails des habitants de la ville, sans doublon
      */
     @GetMapping("/communityEmail")
-    public List<String> getEmailsByCity(@RequestParam("city") String city) {
+    public Set<String> getEmailsByCity(@RequestParam("city") String city) {
         logger.debug("Received request to get emails for city: {}", city);
 
         try {
-            List<String> emails = personService.getEmailsByCity(city);
+            Set<String> emails = responseCache.get(ResponseCache.Endpoint.COMMUNITY_EMAIL, city,
+                    () -> personService.getEmailsByCity(city));
             logger.info("Successfully retrieved emails for city: {}", city);
             return emails;
         } catch (Exception e) {
@@ -160,4 +258,19 @@ public class PersonController {
             return null; // Vous pouvez aussi retourner une réponse personnalisée en cas d'erreur
         }
     }
+
+    /**
+     * Récupérer les emails des habitants d'une ville au format NDJSON (un email par ligne, sans doublon),
+     * écrits au fur et à mesure du parcours de l'ensemble tenu par l'index, pour les villes trop peuplées
+     * pour une réponse en un seul bloc.
+     *
+     * @param city le nom de la ville pour laquelle récupérer les emails
+     * @return le flux des emails des habitants de la ville
+     */
+    @GetMapping(value = "/communityEmail", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Stream<String> streamEmailsByCity(@RequestParam("city") String city) {
+        logger.debug("Received request to stream emails for city: {}", city);
+
+        return personService.streamEmailsByCity(city);
+    }
 }
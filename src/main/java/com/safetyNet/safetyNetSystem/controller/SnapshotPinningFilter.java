@@ -0,0 +1,53 @@
+package com.safetyNet.safetyNetSystem.controller;
+
+import com.safetyNet.safetyNetSystem.service.DataLoaderService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filtre qui épingle une version des données pour toute la durée de chaque requête.
+ * Les requêtes en plusieurs étapes (par exemple /flood/stations, qui parcourt une station après l'autre)
+ * lisent ainsi un état cohérent, sans verrou, même si des modifications sont publiées entre deux étapes.
+ */
+@Component
+public class SnapshotPinningFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LogManager.getLogger(SnapshotPinningFilter.class);
+
+    private final DataLoaderService dataLoaderService;
+
+    /**
+     * Constructeur du filtre.
+     *
+     * @param dataLoaderService Le service publiant les versions des données.
+     */
+    public SnapshotPinningFilter(DataLoaderService dataLoaderService) {
+        this.dataLoaderService = dataLoaderService;
+    }
+
+    /**
+     * Traite la requête avec la dernière version publiée épinglée, puis libère la version.
+     *
+     * @param request     La requête.
+     * @param response    La réponse.
+     * @param filterChain La suite de la chaîne de filtres.
+     * @throws ServletException si un filtre suivant échoue.
+     * @throws IOException      en cas d'erreur d'entrée/sortie.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (DataLoaderService.Pin pin = dataLoaderService.pin()) {
+            logger.debug("Requête {} {} sur la version {}", request.getMethod(), request.getRequestURI(), pin.getSnapshot().getVersion());
+            filterChain.doFilter(request, response);
+        }
+    }
+}
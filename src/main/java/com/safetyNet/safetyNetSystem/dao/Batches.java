@@ -0,0 +1,45 @@
+package com.safetyNet.safetyNetSystem.dao;
+
+import com.safetyNet.safetyNetSystem.dto.BatchItemResult;
+import com.safetyNet.safetyNetSystem.dto.BatchOperation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Validation commune des lots de modifications des DAO. Un lot est validé en entier avant la moindre
+ * modification : si une opération est invalide, aucune n'est appliquée.
+ */
+final class Batches {
+
+    private Batches() {
+    }
+
+    /**
+     * Valide toutes les opérations d'un lot.
+     *
+     * @param operations Les opérations du lot.
+     * @param problem    Contrôle propre à l'entité : retourne la raison du rejet d'une opération, ou null si elle est valide.
+     * @param <T>        Le type des entités.
+     * @return null si le lot est valide, sinon le résultat de chaque opération (INVALID ou REJECTED).
+     */
+    static <T> List<BatchItemResult> validate(List<BatchOperation<T>> operations, Function<BatchOperation<T>, String> problem) {
+        List<BatchItemResult> results = new ArrayList<>(operations.size());
+        boolean valid = true;
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation<T> operation = operations.get(i);
+            String message;
+            if (operation == null || operation.getAction() == null) {
+                message = "Action requise (UPSERT ou DELETE)";
+            } else if (operation.getValue() == null) {
+                message = "Valeur requise";
+            } else {
+                message = problem.apply(operation);
+            }
+            valid &= message == null;
+            results.add(new BatchItemResult(i, message == null ? BatchItemResult.Status.REJECTED : BatchItemResult.Status.INVALID, message));
+        }
+        return valid ? null : results;
+    }
+}
@@ -0,0 +1,41 @@
+package com.safetyNet.safetyNetSystem.dao;
+
+import java.util.Set;
+
+/**
+ * Modification d'une entité dans une écriture publiée : ajout, mise à jour ou suppression d'une personne,
+ * d'une caserne ou d'un dossier médical, avec les adresses et les stations qu'elle touche
+ * (voir {@link DataChanges}).
+ *
+ * @param version   La version publiée par l'écriture.
+ * @param entity    Le type de l'entité modifiée.
+ * @param action    La modification.
+ * @param id        L'identifiant de l'entité : "prénom nom" pour une personne ou un dossier médical,
+ *                  l'adresse pour une caserne.
+ * @param addresses Les adresses touchées.
+ * @param stations  Les numéros de station touchés.
+ */
+public record ChangeEvent(long version, Entity entity, Action action, String id,
+                          Set<String> addresses, Set<String> stations) {
+
+    /**
+     * Type de l'entité modifiée.
+     */
+    public enum Entity { PERSON, FIRESTATION, MEDICAL_RECORD }
+
+    /**
+     * Modification apportée à l'entité.
+     */
+    public enum Action { ADDED, UPDATED, REMOVED }
+
+    /**
+     * Indique si la modification touche une station et une adresse données.
+     *
+     * @param station Le numéro de station, ou null pour toutes les stations.
+     * @param address L'adresse, ou null pour toutes les adresses.
+     * @return true si la modification touche la station et l'adresse.
+     */
+    public boolean matches(String station, String address) {
+        return (station == null || stations.contains(station)) && (address == null || addresses.contains(address));
+    }
+}
@@ -0,0 +1,35 @@
+package com.safetyNet.safetyNetSystem.dao;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Portée d'une écriture publiée : les adresses, les stations et les villes dont les données ont changé
+ * entre une version et la précédente. Une modification d'une personne touche son adresse, la ou les
+ * stations qui couvrent cette adresse et sa ville ; une modification de dossier médical touche l'adresse
+ * et les stations des personnes portant ce nom ; une modification de caserne touche son adresse et ses
+ * stations (avant et après la modification).
+ * <p>
+ * Le détail des modifications, entité par entité, est conservé dans l'ordre des opérations
+ * ({@link ChangeEvent}).
+ *
+ * @param version   La version publiée par l'écriture.
+ * @param addresses Les adresses touchées.
+ * @param stations  Les numéros de station touchés.
+ * @param cities    Les villes touchées, en minuscules (voir {@link #cityKey(String)}).
+ * @param events    Les modifications de l'écriture, dans l'ordre.
+ */
+public record DataChanges(long version, Set<String> addresses, Set<String> stations, Set<String> cities,
+                          List<ChangeEvent> events) {
+
+    /**
+     * Clé d'une ville, sans tenir compte de la casse, comme dans l'index des villes.
+     *
+     * @param city La ville.
+     * @return La ville en minuscules, ou null.
+     */
+    public static String cityKey(String city) {
+        return city == null ? null : city.toLowerCase(Locale.ROOT);
+    }
+}
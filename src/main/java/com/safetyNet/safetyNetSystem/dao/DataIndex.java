@@ -0,0 +1,584 @@
+package com.safetyNet.safetyNetSystem.dao;
+
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+import com.safetyNet.safetyNetSystem.util.SnapshotMap;
+import com.safetyNet.safetyNetSystem.util.SnapshotMultiset;
+import com.safetyNet.safetyNetSystem.util.SnapshotSortedSet;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Index en mémoire construit au-dessus des listes du DataContainer.
+ * Chaque index associe une clé (nom complet, adresse, nom de famille, numéro de station)
+ * à la liste des entités correspondantes, dans l'ordre d'insertion, afin d'éviter les parcours
+ * complets des listes à chaque recherche.
+ * L'index est versionné : une version figée n'est plus modifiée et peut être lue sans verrou ;
+ * {@link #edit()} crée une version modifiable qui partage les tables et les listes de la précédente
+ * et ne copie que ce qu'elle modifie. Les DAO modifient une telle version puis la publient avec les
+ * autres structures (voir {@link DataSnapshot}). Une écriture coûte la copie d'une partition de chaque
+ * table touchée (environ racine carrée de sa taille), plus celle de chaque liste touchée en entier :
+ * les listes d'une clé (homonymes, habitants d'une adresse, porteurs d'un nom de famille, adresses
+ * d'une station) ne sont pas découpées, si bien qu'une écriture est en O(taille de la liste) pour une
+ * clé très fréquente, comme un nom de famille courant.
+ * Les personnes sont aussi rangées dans l'ordre alphabétique des noms, pour les parcourir page par page
+ * à partir d'une position sans trier ni parcourir toute la liste. Chaque personne y reçoit à son indexation
+ * un numéro unique et croissant qui départage les homonymes exacts : une position reste valable même si des
+ * personnes sont ajoutées ou retirées avant elle.
+ * Les emails distincts de chaque ville sont tenus à jour au fil des modifications des personnes et
+ * partagés par toutes les lectures d'une version, pour que /communityEmail n'ait rien à calculer.
+ * Les index des personnes, des casernes et des dossiers médicaux sont indépendants : au chargement,
+ * chaque section alimente les siens sans toucher à ceux des autres.
+ */
+public class DataIndex {
+
+    /**
+     * Clé composée du prénom et du nom, utilisée pour les personnes et les dossiers médicaux.
+     *
+     * @param firstName Le prénom.
+     * @param lastName  Le nom de famille.
+     */
+    public record NameKey(String firstName, String lastName) {
+    }
+
+    /**
+     * Position d'une personne dans l'ordre alphabétique des noms.
+     *
+     * @param lastName  Le nom de famille.
+     * @param firstName Le prénom.
+     * @param sequence  Le numéro d'indexation de la personne, qui départage les homonymes exacts.
+     */
+    public record PersonPosition(String lastName, String firstName, long sequence) {
+    }
+
+    /**
+     * Parcours de personnes qui donne la position de la dernière personne lue, pour le reprendre juste après.
+     */
+    public interface PersonCursor extends Iterator<Person> {
+
+        /**
+         * Position de la dernière personne renvoyée par {@link #next()}.
+         *
+         * @return La position, ou null si aucune personne n'a encore été lue.
+         */
+        PersonPosition position();
+    }
+
+    /**
+     * Personne rangée dans l'ordre alphabétique ; sans personne, sert de borne de recherche.
+     */
+    private record PersonEntry(String lastName, String firstName, long sequence, Person person) {
+    }
+
+    /**
+     * Ordre des personnes par nom de famille seul, sans tenir compte de la casse : regroupe les homonymes.
+     */
+    private static final Comparator<PersonEntry> LAST_NAME_ORDER =
+            (first, second) -> compareText(first.lastName(), second.lastName(), true);
+
+    /**
+     * Ordre alphabétique des personnes : nom de famille puis prénom sans tenir compte de la casse, puis
+     * en tenant compte de la casse pour départager les noms qui ne diffèrent que par elle, puis numéro
+     * d'indexation pour les homonymes exacts.
+     */
+    private static final Comparator<PersonEntry> PERSON_ORDER = (first, second) -> {
+        int comparison = compareNames(first, second);
+        return comparison != 0 ? comparison : Long.compare(first.sequence(), second.sequence());
+    };
+
+    private static final Comparator<String> EMAIL_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final SnapshotMap<NameKey, List<Person>> personsByName;
+    private final SnapshotSortedSet<PersonEntry> personOrder;              // Personnes dans l'ordre PERSON_ORDER
+    private final SnapshotMap<String, List<Person>> personsByAddress;
+    private final SnapshotMap<String, List<Person>> personsByLastName;      // Clé en minuscules
+    private final SnapshotMap<String, SnapshotMultiset<String>> emailsByCity;  // Clé en minuscules ; nombre d'habitants par email
+    private final Set<String> emailChanges = new HashSet<>();              // Villes dont les emails sont modifiables par cette version
+    private final SnapshotMap<String, List<Firestation>> firestationsByAddress;
+    private final SnapshotMap<String, List<Firestation>> firestationsByStation;
+    private final SnapshotMap<NameKey, List<MedicalRecord>> medicalRecordsByName;
+    private long nextSequence;  // Numéro d'indexation de la prochaine personne
+    private Object owner;  // Jeton des listes modifiables par cette version, null une fois figée
+
+    /**
+     * Construit un index vide et modifiable, alimenté au fil du chargement des données.
+     */
+    public DataIndex() {
+        this(SnapshotMap.empty(), SnapshotSortedSet.empty(PERSON_ORDER), SnapshotMap.empty(), SnapshotMap.empty(),
+                SnapshotMap.empty(), SnapshotMap.empty(), SnapshotMap.empty(), SnapshotMap.empty(), 0);
+    }
+
+    private DataIndex(SnapshotMap<NameKey, List<Person>> personsByName, SnapshotSortedSet<PersonEntry> personOrder,
+                      SnapshotMap<String, List<Person>> personsByAddress,
+                      SnapshotMap<String, List<Person>> personsByLastName,
+                      SnapshotMap<String, SnapshotMultiset<String>> emailsByCity,
+                      SnapshotMap<String, List<Firestation>> firestationsByAddress,
+                      SnapshotMap<String, List<Firestation>> firestationsByStation,
+                      SnapshotMap<NameKey, List<MedicalRecord>> medicalRecordsByName, long nextSequence) {
+        this.personsByName = personsByName.edit();
+        this.personOrder = personOrder.edit();
+        this.personsByAddress = personsByAddress.edit();
+        this.personsByLastName = personsByLastName.edit();
+        this.emailsByCity = emailsByCity.edit();
+        this.firestationsByAddress = firestationsByAddress.edit();
+        this.firestationsByStation = firestationsByStation.edit();
+        this.medicalRecordsByName = medicalRecordsByName.edit();
+        this.nextSequence = nextSequence;
+        this.owner = new Object();
+    }
+
+    /**
+     * Crée une version modifiable de cet index, qui partage ses tables et ses listes.
+     *
+     * @return La nouvelle version, modifiable jusqu'à {@link #freeze()}.
+     */
+    public DataIndex edit() {
+        return new DataIndex(personsByName, personOrder, personsByAddress, personsByLastName,
+                emailsByCity, firestationsByAddress, firestationsByStation, medicalRecordsByName, nextSequence);
+    }
+
+    /**
+     * Fige cet index : il ne peut plus être modifié et peut être lu par plusieurs threads sans verrou.
+     *
+     * @return Cet index.
+     */
+    public DataIndex freeze() {
+        for (String city : emailChanges) {
+            if (emailsByCity.get(city).freeze().isEmpty()) {
+                emailsByCity.remove(city);
+            }
+        }
+        emailChanges.clear();
+        personsByName.freeze();
+        personOrder.freeze();
+        personsByAddress.freeze();
+        personsByLastName.freeze();
+        emailsByCity.freeze();
+        firestationsByAddress.freeze();
+        firestationsByStation.freeze();
+        medicalRecordsByName.freeze();
+        owner = null;
+        return this;
+    }
+
+    // ----- Personnes -----
+
+    /**
+     * Ajoute une personne dans tous les index qui la concernent.
+     *
+     * @param person La personne à indexer.
+     */
+    public void indexPerson(Person person) {
+        checkEditable();
+        personOrder.add(new PersonEntry(person.getLastName(), person.getFirstName(), nextSequence++, person));
+        add(personsByName, new NameKey(person.getFirstName(), person.getLastName()), person);
+        add(personsByAddress, person.getAddress(), person);
+        add(personsByLastName, fold(person.getLastName()), person);
+        ownEmails(fold(person.getCity())).add(person.getEmail());
+    }
+
+    /**
+     * Retire une personne de tous les index. Doit être appelé avant toute modification
+     * des champs indexés de la personne.
+     *
+     * @param person La personne à retirer.
+     */
+    public void unindexPerson(Person person) {
+        NameKey name = new NameKey(person.getFirstName(), person.getLastName());
+        if (indexOf(get(personsByName, name), person) < 0) {
+            return;  // Personne non indexée : les compteurs d'emails ne doivent pas bouger
+        }
+        remove(personsByName, name, person);
+        removeFromOrder(person);
+        remove(personsByAddress, person.getAddress(), person);
+        remove(personsByLastName, fold(person.getLastName()), person);
+        ownEmails(fold(person.getCity())).remove(person.getEmail());
+    }
+
+    /**
+     * Recherche les personnes portant exactement ce prénom et ce nom.
+     *
+     * @param firstName Le prénom.
+     * @param lastName  Le nom de famille.
+     * @return Les personnes correspondantes, dans l'ordre d'insertion.
+     */
+    public List<Person> findPersonsByName(String firstName, String lastName) {
+        return get(personsByName, new NameKey(firstName, lastName));
+    }
+
+    /**
+     * Recherche la première personne portant ce prénom et ce nom.
+     *
+     * @param firstName Le prénom.
+     * @param lastName  Le nom de famille.
+     * @return La personne trouvée, ou un Optional vide.
+     */
+    public Optional<Person> findPerson(String firstName, String lastName) {
+        return first(findPersonsByName(firstName, lastName));
+    }
+
+    /**
+     * Recherche les personnes habitant à une adresse.
+     *
+     * @param address L'adresse exacte.
+     * @return Les personnes habitant à cette adresse.
+     */
+    public List<Person> findPersonsByAddress(String address) {
+        return get(personsByAddress, address);
+    }
+
+    /**
+     * Recherche les emails des habitants d'une ville, sans tenir compte de la casse.
+     *
+     * @param city La ville.
+     * @return Une vue non modifiable, partagée par toutes les lectures de cette version, des emails sans
+     * doublon dans l'ordre alphabétique.
+     */
+    public Set<String> findEmailsByCity(String city) {
+        SnapshotMultiset<String> emails = emailsByCity.get(fold(city));
+        return emails == null ? Collections.emptySet() : emails.elementSet();
+    }
+
+    /**
+     * Recherche les personnes par nom de famille, sans tenir compte de la casse.
+     *
+     * @param lastName Le nom de famille.
+     * @return Les personnes portant ce nom.
+     */
+    public List<Person> findPersonsByLastName(String lastName) {
+        return get(personsByLastName, fold(lastName));
+    }
+
+    /**
+     * Parcourt les personnes dans l'ordre alphabétique des noms (nom de famille puis prénom, sans tenir
+     * compte de la casse ; les homonymes exacts dans l'ordre d'indexation), à partir d'une position.
+     * Seules les personnes lues sont parcourues : le coût ne dépend pas du nombre total de personnes.
+     *
+     * @param after La position de départ (exclue), ou null pour partir du début.
+     * @return Un itérateur sur les personnes qui suivent cette position.
+     */
+    public PersonCursor iteratePersonsByName(PersonPosition after) {
+        PersonEntry bound = after == null ? null : new PersonEntry(after.lastName(), after.firstName(), after.sequence(), null);
+        return new PersonsByName(personOrder.iteratorFrom(bound), bound, null);
+    }
+
+    /**
+     * Parcourt, dans l'ordre alphabétique des prénoms, les personnes portant un nom de famille
+     * (sans tenir compte de la casse), à partir d'une position.
+     *
+     * @param lastName Le nom de famille.
+     * @param after    La position de départ (exclue), ou null pour partir de la première personne portant ce nom.
+     * @return Un itérateur sur les personnes portant ce nom qui suivent cette position.
+     */
+    public PersonCursor iteratePersonsByLastName(String lastName, PersonPosition after) {
+        PersonEntry family = new PersonEntry(lastName, null, Long.MIN_VALUE, null);
+        if (after == null) {
+            return new PersonsByName(personOrder.iteratorFrom(family, LAST_NAME_ORDER), null, family);
+        }
+        PersonEntry bound = new PersonEntry(after.lastName(), after.firstName(), after.sequence(), null);
+        return new PersonsByName(personOrder.iteratorFrom(bound), bound, family);
+    }
+
+    /**
+     * Retire une personne de l'ordre alphabétique, en la cherchant parmi ses homonymes exacts.
+     */
+    private void removeFromOrder(Person person) {
+        Iterator<PersonEntry> homonyms = personOrder.iteratorFrom(
+                new PersonEntry(person.getLastName(), person.getFirstName(), Long.MIN_VALUE, null));
+        while (homonyms.hasNext()) {
+            PersonEntry entry = homonyms.next();
+            if (entry.person() == person) {
+                personOrder.remove(entry);
+                return;
+            }
+            if (!Objects.equals(entry.lastName(), person.getLastName()) || !Objects.equals(entry.firstName(), person.getFirstName())) {
+                return;
+            }
+        }
+    }
+
+    // ----- Casernes -----
+
+    /**
+     * Ajoute une caserne dans les index par adresse et par numéro de station.
+     *
+     * @param firestation La caserne à indexer.
+     */
+    public void indexFirestation(Firestation firestation) {
+        add(firestationsByAddress, firestation.getAddress(), firestation);
+        add(firestationsByStation, firestation.getStation(), firestation);
+    }
+
+    /**
+     * Retire une caserne des index. Doit être appelé avant toute modification de son adresse ou de sa station.
+     *
+     * @param firestation La caserne à retirer.
+     */
+    public void unindexFirestation(Firestation firestation) {
+        remove(firestationsByAddress, firestation.getAddress(), firestation);
+        remove(firestationsByStation, firestation.getStation(), firestation);
+    }
+
+    /**
+     * Recherche les casernes associées à une adresse.
+     *
+     * @param address L'adresse.
+     * @return Les casernes couvrant cette adresse, dans l'ordre d'insertion.
+     */
+    public List<Firestation> findFirestationsByAddress(String address) {
+        return get(firestationsByAddress, address);
+    }
+
+    /**
+     * Recherche les casernes portant un numéro de station.
+     *
+     * @param station Le numéro de station.
+     * @return Les casernes de cette station, dans l'ordre d'insertion.
+     */
+    public List<Firestation> findFirestationsByStation(String station) {
+        return get(firestationsByStation, station);
+    }
+
+    // ----- Dossiers médicaux -----
+
+    /**
+     * Ajoute un dossier médical dans l'index par nom complet.
+     *
+     * @param medicalRecord Le dossier médical à indexer.
+     */
+    public void indexMedicalRecord(MedicalRecord medicalRecord) {
+        add(medicalRecordsByName, new NameKey(medicalRecord.getFirstName(), medicalRecord.getLastName()), medicalRecord);
+    }
+
+    /**
+     * Remplace un dossier médical par sa nouvelle version, à la même position dans l'index.
+     * Les deux dossiers doivent porter le même nom.
+     *
+     * @param existing Le dossier médical indexé.
+     * @param updated  Sa nouvelle version.
+     */
+    public void replaceMedicalRecord(MedicalRecord existing, MedicalRecord updated) {
+        NameKey key = new NameKey(existing.getFirstName(), existing.getLastName());
+        List<MedicalRecord> bucket = medicalRecordsByName.get(key);
+        int position = bucket == null ? -1 : indexOf(bucket, existing);
+        if (position >= 0) {
+            own(medicalRecordsByName, key, bucket).set(position, updated);
+        }
+    }
+
+    /**
+     * Retire un dossier médical de l'index.
+     *
+     * @param medicalRecord Le dossier médical à retirer.
+     */
+    public void unindexMedicalRecord(MedicalRecord medicalRecord) {
+        remove(medicalRecordsByName, new NameKey(medicalRecord.getFirstName(), medicalRecord.getLastName()), medicalRecord);
+    }
+
+    /**
+     * Recherche les dossiers médicaux d'une personne.
+     *
+     * @param firstName Le prénom.
+     * @param lastName  Le nom de famille.
+     * @return Les dossiers médicaux correspondants.
+     */
+    public List<MedicalRecord> findMedicalRecordsByName(String firstName, String lastName) {
+        return get(medicalRecordsByName, new NameKey(firstName, lastName));
+    }
+
+    /**
+     * Recherche le premier dossier médical d'une personne.
+     *
+     * @param firstName Le prénom.
+     * @param lastName  Le nom de famille.
+     * @return Le dossier médical trouvé, ou un Optional vide.
+     */
+    public Optional<MedicalRecord> findMedicalRecord(String firstName, String lastName) {
+        return first(findMedicalRecordsByName(firstName, lastName));
+    }
+
+    // ----- Utilitaires -----
+
+    private <K, V> void add(SnapshotMap<K, List<V>> index, K key, V value) {
+        own(index, key, index.get(key)).add(value);
+    }
+
+    /**
+     * Retire une valeur d'un index par identité (les modèles ne redéfinissent pas equals).
+     */
+    private <K, V> void remove(SnapshotMap<K, List<V>> index, K key, V value) {
+        List<V> bucket = index.get(key);
+        int position = bucket == null ? -1 : indexOf(bucket, value);
+        if (position < 0) {
+            return;
+        }
+        if (bucket.size() == 1) {
+            checkEditable();
+            index.remove(key);
+        } else {
+            own(index, key, bucket).remove(position);
+        }
+    }
+
+    /**
+     * Retourne la liste d'une clé modifiable par cette version, en copiant entièrement à sa première
+     * modification la liste partagée avec une version précédente.
+     */
+    private <K, V> List<V> own(SnapshotMap<K, List<V>> index, K key, List<V> bucket) {
+        checkEditable();
+        if (bucket instanceof Bucket<V> owned && owned.owner == owner) {
+            return owned;
+        }
+        Bucket<V> owned = new Bucket<>(owner, bucket);
+        index.put(key, owned);
+        return owned;
+    }
+
+    /**
+     * Retourne les emails d'une ville modifiables par cette version : la première modification crée une
+     * version modifiable qui partage les partitions et les blocs de la précédente.
+     */
+    private SnapshotMultiset<String> ownEmails(String city) {
+        checkEditable();
+        SnapshotMultiset<String> emails = emailsByCity.get(city);
+        if (emailChanges.add(city)) {  // Première modification de la ville dans cette version
+            emails = (emails == null ? SnapshotMultiset.<String>empty(EMAIL_ORDER) : emails).edit();
+            emailsByCity.put(city, emails);
+        }
+        return emails;
+    }
+
+    private void checkEditable() {
+        if (owner == null) {
+            throw new IllegalStateException("Index figé : utiliser edit() avant de le modifier");
+        }
+    }
+
+    private static <V> int indexOf(List<V> bucket, V value) {
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static <K, V> List<V> get(SnapshotMap<K, List<V>> index, K key) {
+        List<V> bucket = index.get(key);
+        return bucket == null ? Collections.emptyList() : Collections.unmodifiableList(bucket);
+    }
+
+    private static <V> Optional<V> first(List<V> values) {
+        return values.isEmpty() ? Optional.empty() : Optional.of(values.getFirst());
+    }
+
+    private static int compareNames(PersonEntry first, PersonEntry second) {
+        int comparison = compareText(first.lastName(), second.lastName(), true);
+        if (comparison == 0) {
+            comparison = compareText(first.firstName(), second.firstName(), true);
+        }
+        if (comparison == 0) {
+            comparison = compareText(first.lastName(), second.lastName(), false);
+        }
+        if (comparison == 0) {
+            comparison = compareText(first.firstName(), second.firstName(), false);
+        }
+        return comparison;
+    }
+
+    /**
+     * Compare deux textes, les valeurs null en premier.
+     */
+    private static int compareText(String first, String second, boolean ignoreCase) {
+        if (first == null || second == null) {
+            return first == null ? (second == null ? 0 : -1) : 1;
+        }
+        return ignoreCase ? first.compareToIgnoreCase(second) : first.compareTo(second);
+    }
+
+    private static String fold(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parcours des personnes dans l'ordre de {@link #personOrder}, après une position.
+     */
+    private static final class PersonsByName implements PersonCursor {
+        private final Iterator<PersonEntry> entries;
+        private final PersonEntry after;   // Position de départ (exclue), ou null
+        private final PersonEntry family;  // Nom de famille auquel le parcours se limite, ou null
+        private PersonEntry next;
+        private PersonEntry last;
+        private boolean done;
+
+        private PersonsByName(Iterator<PersonEntry> entries, PersonEntry after, PersonEntry family) {
+            this.entries = entries;
+            this.after = after;
+            this.family = family;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!done && next == null) {
+                if (!entries.hasNext()) {
+                    done = true;
+                    break;
+                }
+                PersonEntry entry = entries.next();
+                if (family != null && LAST_NAME_ORDER.compare(entry, family) != 0) {
+                    done = true;  // Fin des personnes portant ce nom de famille
+                    break;
+                }
+                if (after == null || PERSON_ORDER.compare(entry, after) > 0) {
+                    next = entry;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Person next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = null;
+            return last.person();
+        }
+
+        @Override
+        public PersonPosition position() {
+            return last == null ? null : new PersonPosition(last.lastName(), last.firstName(), last.sequence());
+        }
+    }
+
+    /**
+     * Liste des entités d'une clé, modifiable uniquement par la version de l'index qui l'a créée.
+     */
+    private static final class Bucket<V> extends ArrayList<V> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Object owner;
+
+        private Bucket(Object owner, List<V> values) {
+            super(values == null ? 1 : values.size() + 1);
+            this.owner = owner;
+            if (values != null) {
+                addAll(values);
+            }
+        }
+    }
+}
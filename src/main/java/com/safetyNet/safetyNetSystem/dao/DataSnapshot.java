@@ -0,0 +1,383 @@
+package com.safetyNet.safetyNetSystem.dao;
+
+import com.safetyNet.safetyNetSystem.model.DataContainer;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+import com.safetyNet.safetyNetSystem.util.SnapshotList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Version immuable de l'ensemble des données : listes de personnes, de casernes et de dossiers médicaux,
+ * index de recherche et graphe des stations, cohérents entre eux.
+ * <p>
+ * Une version publiée n'est jamais modifiée : les lecteurs la consultent sans verrou, même pendant
+ * une écriture. Une écriture passe par un {@link Builder}, qui partage la structure de la version
+ * précédente et ne copie que les parties modifiées ; la nouvelle version est ensuite publiée en
+ * une seule fois par le DataLoaderService. Les entités publiées ne sont pas modifiées non plus :
+ * une mise à jour remplace l'entité par une nouvelle instance.
+ * <p>
+ * Chaque version porte un numéro croissant. Une version n'est retenue que par les requêtes qui la
+ * consultent encore : elle est récupérée par le ramasse-miettes dès la fin de la dernière d'entre elles,
+ * sans registre des versions à purger.
+ */
+public final class DataSnapshot {
+
+    private final long version;
+    private final List<Person> persons;
+    private final List<Firestation> firestations;
+    private final List<MedicalRecord> medicalRecords;
+    private final DataIndex dataIndex;
+    private final StationGraph stationGraph;
+    private final DataContainer dataContainer;
+
+    /**
+     * Construit une version à partir de structures figées.
+     *
+     * @param version        Le numéro de la version.
+     * @param dataContainer  Le conteneur exposant les listes de cette version (sérialisation, compatibilité).
+     * @param persons        Les personnes.
+     * @param firestations   Les casernes.
+     * @param medicalRecords Les dossiers médicaux.
+     * @param dataIndex      L'index figé construit sur ces listes.
+     * @param stationGraph   Le graphe figé construit sur ces listes.
+     */
+    public DataSnapshot(long version, DataContainer dataContainer, List<Person> persons, List<Firestation> firestations,
+                        List<MedicalRecord> medicalRecords, DataIndex dataIndex, StationGraph stationGraph) {
+        this.version = version;
+        this.dataContainer = dataContainer;
+        this.persons = persons;
+        this.firestations = firestations;
+        this.medicalRecords = medicalRecords;
+        this.dataIndex = dataIndex;
+        this.stationGraph = stationGraph;
+    }
+
+    /**
+     * Récupère le numéro de cette version, incrémenté à chaque écriture publiée.
+     *
+     * @return Le numéro de version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Récupère les personnes de cette version.
+     *
+     * @return La liste non modifiable des personnes.
+     */
+    public List<Person> getPersons() {
+        return persons;
+    }
+
+    /**
+     * Récupère les casernes de cette version.
+     *
+     * @return La liste non modifiable des casernes.
+     */
+    public List<Firestation> getFirestations() {
+        return firestations;
+    }
+
+    /**
+     * Récupère les dossiers médicaux de cette version.
+     *
+     * @return La liste non modifiable des dossiers médicaux.
+     */
+    public List<MedicalRecord> getMedicalRecords() {
+        return medicalRecords;
+    }
+
+    /**
+     * Récupère l'index de recherche de cette version.
+     *
+     * @return L'index figé.
+     */
+    public DataIndex getDataIndex() {
+        return dataIndex;
+    }
+
+    /**
+     * Récupère le graphe station → foyers → habitants de cette version.
+     *
+     * @return Le graphe figé.
+     */
+    public StationGraph getStationGraph() {
+        return stationGraph;
+    }
+
+    /**
+     * Récupère le conteneur exposant les listes de cette version, tel qu'il est sérialisé à la sauvegarde.
+     *
+     * @return Le DataContainer de cette version, à ne pas modifier.
+     */
+    public DataContainer getDataContainer() {
+        return dataContainer;
+    }
+
+    /**
+     * Prépare une nouvelle version à partir de celle-ci.
+     *
+     * @return Un builder partageant la structure de cette version.
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * Modifications d'une version en cours de préparation. Chaque opération met à jour ensemble la liste,
+     * l'index et le graphe concernés, et note les adresses, stations et villes qu'elle touche ainsi
+     * que la modification de l'entité (voir {@link DataChanges}). Un builder n'est utilisé que par le thread qui détient le verrou
+     * d'écriture.
+     */
+    public static final class Builder {
+        private final DataSnapshot base;
+        private final SnapshotList<Person> persons;
+        private final SnapshotList<Firestation> firestations;
+        private final SnapshotList<MedicalRecord> medicalRecords;
+        private final DataIndex dataIndex;
+        private final StationGraph stationGraph;
+        private final Set<String> addresses = new LinkedHashSet<>();
+        private final Set<String> stations = new LinkedHashSet<>();
+        private final Set<String> cities = new LinkedHashSet<>();
+        private final List<ChangeEvent> events = new ArrayList<>();
+        private final Set<String> eventAddresses = new LinkedHashSet<>();  // Portée de l'opération en cours
+        private final Set<String> eventStations = new LinkedHashSet<>();
+        private boolean modified;
+        private DataChanges changes;
+
+        private Builder(DataSnapshot base) {
+            this.base = base;
+            this.persons = SnapshotList.copyOf(base.persons).edit();
+            this.firestations = SnapshotList.copyOf(base.firestations).edit();
+            this.medicalRecords = SnapshotList.copyOf(base.medicalRecords).edit();
+            this.dataIndex = base.dataIndex.edit();
+            this.stationGraph = base.stationGraph.edit(dataIndex);
+        }
+
+        /**
+         * Récupère l'index de la version en préparation, qui reflète les opérations déjà effectuées.
+         *
+         * @return L'index en cours de modification.
+         */
+        public DataIndex getDataIndex() {
+            return dataIndex;
+        }
+
+        /**
+         * Ajoute une personne.
+         *
+         * @param person La personne à ajouter.
+         */
+        public void addPerson(Person person) {
+            touchPerson(person);
+            recordEvent(ChangeEvent.Entity.PERSON, ChangeEvent.Action.ADDED, name(person.getFirstName(), person.getLastName()));
+            persons.add(person);
+            dataIndex.indexPerson(person);
+            stationGraph.addPerson(person);
+            modified = true;
+        }
+
+        /**
+         * Remplace une personne par sa nouvelle version, à la même position dans la liste.
+         *
+         * @param existing La personne à remplacer.
+         * @param updated  Sa nouvelle version.
+         */
+        public void replacePerson(Person existing, Person updated) {
+            touchPerson(existing);
+            touchPerson(updated);
+            recordEvent(ChangeEvent.Entity.PERSON, ChangeEvent.Action.UPDATED, name(existing.getFirstName(), existing.getLastName()));
+            dataIndex.unindexPerson(existing);  // Les clés d'index peuvent changer
+            stationGraph.removePerson(existing);
+            persons.replaceInstance(existing, updated);
+            dataIndex.indexPerson(updated);
+            stationGraph.addPerson(updated);
+            modified = true;
+        }
+
+        /**
+         * Retire une personne.
+         *
+         * @param person La personne à retirer.
+         */
+        public void removePerson(Person person) {
+            touchPerson(person);
+            recordEvent(ChangeEvent.Entity.PERSON, ChangeEvent.Action.REMOVED, name(person.getFirstName(), person.getLastName()));
+            dataIndex.unindexPerson(person);
+            stationGraph.removePerson(person);
+            persons.removeInstance(person);
+            modified = true;
+        }
+
+        /**
+         * Ajoute une caserne.
+         *
+         * @param firestation La caserne à ajouter.
+         */
+        public void addFirestation(Firestation firestation) {
+            touchFirestation(firestation);
+            recordEvent(ChangeEvent.Entity.FIRESTATION, ChangeEvent.Action.ADDED, firestation.getAddress());
+            firestations.add(firestation);
+            dataIndex.indexFirestation(firestation);
+            stationGraph.addFirestation(firestation);
+            modified = true;
+        }
+
+        /**
+         * Remplace une caserne par sa nouvelle version, à la même position dans la liste.
+         *
+         * @param existing La caserne à remplacer.
+         * @param updated  Sa nouvelle version.
+         */
+        public void replaceFirestation(Firestation existing, Firestation updated) {
+            touchFirestation(existing);
+            touchFirestation(updated);
+            recordEvent(ChangeEvent.Entity.FIRESTATION, ChangeEvent.Action.UPDATED, existing.getAddress());
+            dataIndex.unindexFirestation(existing);  // Le numéro de station est une clé d'index
+            stationGraph.removeFirestation(existing);
+            firestations.replaceInstance(existing, updated);
+            dataIndex.indexFirestation(updated);
+            stationGraph.addFirestation(updated);
+            modified = true;
+        }
+
+        /**
+         * Retire une caserne.
+         *
+         * @param firestation La caserne à retirer.
+         */
+        public void removeFirestation(Firestation firestation) {
+            touchFirestation(firestation);
+            recordEvent(ChangeEvent.Entity.FIRESTATION, ChangeEvent.Action.REMOVED, firestation.getAddress());
+            dataIndex.unindexFirestation(firestation);
+            stationGraph.removeFirestation(firestation);
+            firestations.removeInstance(firestation);
+            modified = true;
+        }
+
+        /**
+         * Ajoute un dossier médical et le rattache aux habitants portant ce nom.
+         *
+         * @param medicalRecord Le dossier médical à ajouter.
+         */
+        public void addMedicalRecord(MedicalRecord medicalRecord) {
+            touchMedicalRecord(medicalRecord);
+            recordEvent(ChangeEvent.Entity.MEDICAL_RECORD, ChangeEvent.Action.ADDED, name(medicalRecord.getFirstName(), medicalRecord.getLastName()));
+            medicalRecords.add(medicalRecord);
+            dataIndex.indexMedicalRecord(medicalRecord);
+            stationGraph.refreshMedicalRecord(medicalRecord.getFirstName(), medicalRecord.getLastName());
+            modified = true;
+        }
+
+        /**
+         * Remplace un dossier médical par sa nouvelle version, portant le même nom, à la même position.
+         *
+         * @param existing Le dossier médical à remplacer.
+         * @param updated  Sa nouvelle version.
+         */
+        public void replaceMedicalRecord(MedicalRecord existing, MedicalRecord updated) {
+            touchMedicalRecord(existing);
+            recordEvent(ChangeEvent.Entity.MEDICAL_RECORD, ChangeEvent.Action.UPDATED, name(existing.getFirstName(), existing.getLastName()));
+            medicalRecords.replaceInstance(existing, updated);
+            dataIndex.replaceMedicalRecord(existing, updated);
+            stationGraph.refreshMedicalRecord(existing.getFirstName(), existing.getLastName());
+            modified = true;
+        }
+
+        /**
+         * Retire un dossier médical et le détache des habitants portant ce nom.
+         *
+         * @param medicalRecord Le dossier médical à retirer.
+         */
+        public void removeMedicalRecord(MedicalRecord medicalRecord) {
+            touchMedicalRecord(medicalRecord);
+            recordEvent(ChangeEvent.Entity.MEDICAL_RECORD, ChangeEvent.Action.REMOVED, name(medicalRecord.getFirstName(), medicalRecord.getLastName()));
+            dataIndex.unindexMedicalRecord(medicalRecord);
+            medicalRecords.removeInstance(medicalRecord);
+            stationGraph.refreshMedicalRecord(medicalRecord.getFirstName(), medicalRecord.getLastName());
+            modified = true;
+        }
+
+        /**
+         * Fige la version préparée.
+         *
+         * @return La nouvelle version, ou la version de départ si aucune opération n'a été effectuée.
+         */
+        public DataSnapshot build() {
+            if (!modified) {
+                return base;
+            }
+            DataContainer dataContainer = new DataContainer();
+            dataContainer.setPersons(persons.freeze());
+            dataContainer.setFirestations(firestations.freeze());
+            dataContainer.setMedicalrecords(medicalRecords.freeze());
+            changes = new DataChanges(base.version + 1, Collections.unmodifiableSet(addresses),
+                    Collections.unmodifiableSet(stations), Collections.unmodifiableSet(cities),
+                    Collections.unmodifiableList(events));
+            return new DataSnapshot(base.version + 1, dataContainer, persons, firestations, medicalRecords,
+                    dataIndex.freeze(), stationGraph.freeze());
+        }
+
+        /**
+         * Récupère la portée de la version construite par {@link #build()}.
+         *
+         * @return Les adresses, stations et villes touchées et les modifications, ou null si aucune version
+         * n'a été construite.
+         */
+        public DataChanges getChanges() {
+            return changes;
+        }
+
+        /**
+         * Note l'adresse, les stations qui la couvrent et la ville d'une personne.
+         */
+        private void touchPerson(Person person) {
+            touchAddress(person.getAddress());
+            cities.add(DataChanges.cityKey(person.getCity()));
+        }
+
+        /**
+         * Note l'adresse et les stations des personnes concernées par un dossier médical.
+         */
+        private void touchMedicalRecord(MedicalRecord medicalRecord) {
+            for (Person person : dataIndex.findPersonsByName(medicalRecord.getFirstName(), medicalRecord.getLastName())) {
+                touchAddress(person.getAddress());
+            }
+        }
+
+        private void touchFirestation(Firestation firestation) {
+            eventAddresses.add(firestation.getAddress());
+            eventStations.add(firestation.getStation());
+        }
+
+        private void touchAddress(String address) {
+            eventAddresses.add(address);
+            eventStations.addAll(stationGraph.getStationsByAddress(address));
+        }
+
+        /**
+         * Enregistre la modification d'une entité avec la portée notée depuis l'opération précédente,
+         * et ajoute cette portée à celle de l'écriture.
+         */
+        private void recordEvent(ChangeEvent.Entity entity, ChangeEvent.Action action, String id) {
+            addresses.addAll(eventAddresses);
+            stations.addAll(eventStations);
+            events.add(new ChangeEvent(base.version + 1, entity, action, id,
+                    Collections.unmodifiableSet(new LinkedHashSet<>(eventAddresses)),
+                    Collections.unmodifiableSet(new LinkedHashSet<>(eventStations))));
+            eventAddresses.clear();
+            eventStations.clear();
+        }
+
+        private static String name(String firstName, String lastName) {
+            return firstName + " " + lastName;
+        }
+    }
+}
@@ -1,34 +1,44 @@
 package com.safetyNet.safetyNetSystem.dao;
 
+import com.safetyNet.safetyNetSystem.dto.BatchItemResult;
+import com.safetyNet.safetyNetSystem.dto.BatchOperation;
+import com.safetyNet.safetyNetSystem.dto.BatchResponse;
 import com.safetyNet.safetyNetSystem.model.Firestation;
 import com.safetyNet.safetyNetSystem.service.DataLoaderService;
+import com.safetyNet.safetyNetSystem.service.PersistenceService;
+import com.safetyNet.safetyNetSystem.util.ChangeLog;
+import com.safetyNet.safetyNetSystem.util.StringDictionary;
 import org.springframework.stereotype.Repository;
-import com.safetyNet.safetyNetSystem.model.DataContainer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * DAO (Data Access Object) pour gérer les casernes de pompiers.
  * Ce DAO permet de récupérer, ajouter, mettre à jour et supprimer des casernes dans la base de données.
- * Utilise le DataLoaderService pour charger et sauvegarder les données.
+ * Utilise le DataLoaderService pour charger les données et le PersistenceService pour journaliser les modifications et planifier leur sauvegarde.
+ * Les lectures portent sur la version courante des données, sans verrou ; les modifications passent par
+ * {@link DataLoaderService#write} et remplacent les casernes modifiées par de nouvelles instances.
  */
 @Repository
 public class FirestationDAO {
 
     private final DataLoaderService dataLoaderService;
-
-    private final DataContainer dataContainer;
+    private final PersistenceService persistenceService;
+    private final StringDictionary stringDictionary;
 
     /**
      * Constructeur pour initialiser DataLoaderUtil et DataLoaderService.
-     * Charge les données via le DataLoaderService pour initialiser le DataContainer.
+     * Le DataLoaderService donne accès à la version courante des données.
      *
      * @param dataLoaderService Service de gestion du chargement et de la sauvegarde des données.
+     * @param persistenceService Service de persistance asynchrone des modifications.
      */
-    public FirestationDAO(DataLoaderService dataLoaderService) {
+    public FirestationDAO(DataLoaderService dataLoaderService, PersistenceService persistenceService) {
         this.dataLoaderService = dataLoaderService;
-        // Charger les données via le DataLoaderService
-        this.dataContainer = dataLoaderService.getDataContainer(); // Utilisation de DataLoaderService pour obtenir le DataContainer
+        this.persistenceService = persistenceService;
+        this.stringDictionary = dataLoaderService.getStringDictionary();
     }
 
     /**
@@ -37,7 +47,77 @@ public class FirestationDAO {
      * @return Une liste de toutes les casernes.
      */
     public List<Firestation> getAllFirestations() {
-        return dataContainer.getFirestations();
+        return dataLoaderService.getSnapshot().getFirestations();
+    }
+
+    /**
+     * Récupère la première caserne associée à une adresse.
+     *
+     * @param address L'adresse recherchée.
+     * @return Un objet Optional contenant la caserne si trouvée, sinon un Optional vide.
+     */
+    public Optional<Firestation> getFirestationByAddress(String address) {
+        return firstByAddress(dataLoaderService.getSnapshot().getDataIndex(), address);
+    }
+
+    /**
+     * Récupère les casernes portant un numéro de station donné.
+     *
+     * @param stationNumber Le numéro de la station.
+     * @return La liste des casernes de cette station.
+     */
+    public List<Firestation> getFirestationsByStation(String stationNumber) {
+        return dataLoaderService.getSnapshot().getDataIndex().findFirestationsByStation(stationNumber);
+    }
+
+    /**
+     * Récupère les adresses couvertes par une station.
+     *
+     * @param stationNumber Le numéro de la station.
+     * @return Une vue non modifiable des adresses de cette station, sans doublon.
+     */
+    public Set<String> getAddressesByStation(String stationNumber) {
+        return dataLoaderService.getSnapshot().getStationGraph().getAddressesByStation(stationNumber);
+    }
+
+    /**
+     * Récupère les stations qui couvrent une adresse.
+     *
+     * @param address L'adresse recherchée.
+     * @return Une vue non modifiable des numéros de station de cette adresse, sans doublon.
+     */
+    public Set<String> getStationsByAddress(String address) {
+        return dataLoaderService.getSnapshot().getStationGraph().getStationsByAddress(address);
+    }
+
+    /**
+     * Récupère les numéros de téléphone des habitants couverts par une station.
+     *
+     * @param stationNumber Le numéro de la station.
+     * @return Une vue non modifiable des numéros de cette station, sans doublon.
+     */
+    public Set<String> getPhonesByStation(String stationNumber) {
+        return dataLoaderService.getSnapshot().getStationGraph().getPhonesByStation(stationNumber);
+    }
+
+    /**
+     * Récupère les foyers couverts par une station, avec leurs habitants et leurs dossiers médicaux.
+     *
+     * @param stationNumber Le numéro de la station.
+     * @return La liste des foyers de cette station.
+     */
+    public List<StationGraph.Household> getHouseholdsByStation(String stationNumber) {
+        return dataLoaderService.getSnapshot().getStationGraph().getHouseholdsByStation(stationNumber);
+    }
+
+    /**
+     * Récupère les habitants d'une adresse, avec leurs dossiers médicaux.
+     *
+     * @param address L'adresse recherchée.
+     * @return La liste des habitants de cette adresse.
+     */
+    public List<StationGraph.Resident> getResidentsByAddress(String address) {
+        return dataLoaderService.getSnapshot().getStationGraph().getResidents(address);
     }
 
     /**
@@ -46,8 +126,12 @@ public class FirestationDAO {
      * @param firestation La caserne à ajouter.
      */
     public void addFirestation(Firestation firestation) {
-        dataContainer.getFirestations().add(firestation);
-        dataLoaderService.saveData();  // Sauvegarder les données après modification
+        dataLoaderService.write(data -> {
+            stringDictionary.intern(firestation);  // Partager l'adresse et le numéro de station
+            data.addFirestation(firestation);
+            persistenceService.recordChange(ChangeLog.Entry.addFirestation(firestation));  // Journaliser et planifier la sauvegarde des données après modification
+            return null;
+        });
     }
 
     /**
@@ -58,19 +142,17 @@ public class FirestationDAO {
      * @return Un objet Optional contenant la caserne mise à jour si trouvée, sinon un Optional vide.
      */
     public Optional<Firestation> updateFirestation(String address, Firestation updatedFirestation) {
-        List<Firestation> firestations = dataContainer.getFirestations();
-        Optional<Firestation> existingFirestation = firestations.stream()
-                .filter(f -> f.getAddress().equals(address))
-                .findFirst();
-
-        if (existingFirestation.isPresent()) {
-            Firestation firestation = existingFirestation.get();
-            firestation.setStation(updatedFirestation.getStation());
-            dataLoaderService.saveData();  // Sauvegarder les données après modification
-            return Optional.of(firestation);
-        }
+        return dataLoaderService.write(data -> {
+            Optional<Firestation> existingFirestation = firstByAddress(data.getDataIndex(), address);
 
-        return Optional.empty();
+            if (existingFirestation.isPresent()) {
+                Firestation updated = replace(data, existingFirestation.get(), updatedFirestation);
+                persistenceService.recordChange(ChangeLog.Entry.updateFirestation(address, updatedFirestation));  // Journaliser et planifier la sauvegarde des données après modification
+                return Optional.of(updated);
+            }
+
+            return Optional.empty();
+        });
     }
 
     /**
@@ -80,17 +162,96 @@ public class FirestationDAO {
      * @return true si la caserne a été supprimée, false sinon.
      */
     public boolean deleteFirestation(String address) {
-        List<Firestation> firestations = dataContainer.getFirestations();
+        return dataLoaderService.write(data -> {
+            // Supprimer immédiatement les stations de pompiers correspondantes
+            boolean removed = remove(data, address);
 
-        // Supprimer immédiatement la station de pompiers correspondante
-        boolean removed = firestations.removeIf(f -> f.getAddress().equals(address));
+            if (removed) {
+                // Journaliser et planifier la sauvegarde des données dans le fichier JSON
+                persistenceService.recordChange(ChangeLog.Entry.deleteFirestation(address));
+            }
 
-        if (removed) {
-            // Sauvegarder immédiatement les données dans le fichier JSON
-            dataLoaderService.saveData();
+            return removed;
+        });
+    }
+
+    /**
+     * Applique un lot d'insertions ou mises à jour et de suppressions de casernes, identifiées par leur adresse.
+     * Le lot est appliqué en entier ou pas du tout : il est d'abord validé, puis appliqué en une seule
+     * écriture, qui ne publie les index et le graphe qu'une fois et est journalisée en une seule entrée.
+     *
+     * @param operations Les opérations, dans l'ordre où elles doivent être appliquées.
+     * @return Le résultat de chaque opération.
+     */
+    public BatchResponse applyBatch(List<BatchOperation<Firestation>> operations) {
+        List<BatchItemResult> rejected = Batches.validate(operations, operation -> {
+            Firestation value = operation.getValue();
+            if (value.getAddress() == null) {
+                return "Adresse requise";
+            }
+            return operation.getAction() == BatchOperation.Action.UPSERT && value.getStation() == null ? "Numéro de station requis" : null;
+        });
+        if (rejected != null) {
+            return new BatchResponse(false, rejected);
         }
 
-        return removed;
+        return dataLoaderService.write(data -> {
+            List<BatchItemResult> results = new ArrayList<>(operations.size());
+            List<ChangeLog.Entry> entries = new ArrayList<>(operations.size());
+            for (int i = 0; i < operations.size(); i++) {
+                Firestation value = operations.get(i).getValue();
+                String address = value.getAddress();
+                BatchItemResult.Status status;
+
+                if (operations.get(i).getAction() == BatchOperation.Action.DELETE) {
+                    status = remove(data, address) ? BatchItemResult.Status.DELETED : BatchItemResult.Status.NOT_FOUND;
+                    if (status == BatchItemResult.Status.DELETED) {
+                        entries.add(ChangeLog.Entry.deleteFirestation(address));
+                    }
+                } else {
+                    Optional<Firestation> existingFirestation = firstByAddress(data.getDataIndex(), address);
+                    if (existingFirestation.isPresent()) {
+                        replace(data, existingFirestation.get(), value);
+                        entries.add(ChangeLog.Entry.updateFirestation(address, value));
+                        status = BatchItemResult.Status.UPDATED;
+                    } else {
+                        stringDictionary.intern(value);
+                        data.addFirestation(value);
+                        entries.add(ChangeLog.Entry.addFirestation(value));
+                        status = BatchItemResult.Status.CREATED;
+                    }
+                }
+                results.add(new BatchItemResult(i, status, null));
+            }
+            persistenceService.recordChanges(entries);  // Une seule entrée de journal pour tout le lot
+            return new BatchResponse(true, results);
+        });
+    }
+
+    /**
+     * Remplace une caserne par une nouvelle instance portant le nouveau numéro de station :
+     * les lecteurs de la version précédente gardent la caserne inchangée.
+     */
+    private Firestation replace(DataSnapshot.Builder data, Firestation existing, Firestation updatedFirestation) {
+        Firestation updated = new Firestation(existing.getAddress(), stringDictionary.intern(updatedFirestation.getStation()));
+        data.replaceFirestation(existing, updated);
+        return updated;
+    }
+
+    /**
+     * Retire toutes les casernes associées à une adresse.
+     */
+    private static boolean remove(DataSnapshot.Builder data, String address) {
+        List<Firestation> matches = List.copyOf(data.getDataIndex().findFirestationsByAddress(address));
+        for (Firestation firestation : matches) {
+            data.removeFirestation(firestation);
+        }
+        return !matches.isEmpty();
+    }
+
+    private static Optional<Firestation> firstByAddress(DataIndex dataIndex, String address) {
+        List<Firestation> firestations = dataIndex.findFirestationsByAddress(address);
+        return firestations.isEmpty() ? Optional.empty() : Optional.of(firestations.getFirst());
     }
 
 }
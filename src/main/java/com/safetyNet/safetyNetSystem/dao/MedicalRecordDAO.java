@@ -1,33 +1,44 @@
 package com.safetyNet.safetyNetSystem.dao;
 
+import com.safetyNet.safetyNetSystem.dto.BatchItemResult;
+import com.safetyNet.safetyNetSystem.dto.BatchOperation;
+import com.safetyNet.safetyNetSystem.dto.BatchResponse;
 import com.safetyNet.safetyNetSystem.model.MedicalRecord;
-import com.safetyNet.safetyNetSystem.model.DataContainer;
 import com.safetyNet.safetyNetSystem.service.DataLoaderService;
+import com.safetyNet.safetyNetSystem.service.PersistenceService;
+import com.safetyNet.safetyNetSystem.util.ChangeLog;
+import com.safetyNet.safetyNetSystem.util.StringDictionary;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * DAO (Data Access Object) pour gérer les enregistrements médicaux.
  * Ce DAO permet de récupérer, ajouter, mettre à jour et supprimer des enregistrements médicaux dans la base de données.
- * Utilise le DataLoaderService pour charger et sauvegarder les données.
+ * Utilise le DataLoaderService pour charger les données et le PersistenceService pour journaliser les modifications et planifier leur sauvegarde.
+ * Les lectures portent sur la version courante des données, sans verrou ; les modifications passent par
+ * {@link DataLoaderService#write} et remplacent les dossiers modifiés par de nouvelles instances.
  */
 @Repository
 public class MedicalRecordDAO {
 
     private final DataLoaderService dataLoaderService;
-    private final DataContainer dataContainer;
+    private final PersistenceService persistenceService;
+    private final StringDictionary stringDictionary;
 
     /**
-     * Constructeur pour initialiser DataLoaderService et charger les données dans le DataContainer.
-     * Le DataContainer est utilisé pour accéder à tous les enregistrements médicaux.
+     * Constructeur pour initialiser DataLoaderService et le PersistenceService.
+     * Le DataLoaderService donne accès à la version courante des données.
      *
      * @param dataLoaderService Service de gestion du chargement et de la sauvegarde des données.
+     * @param persistenceService Service de persistance asynchrone des modifications.
      */
-    public MedicalRecordDAO(DataLoaderService dataLoaderService) {
+    public MedicalRecordDAO(DataLoaderService dataLoaderService, PersistenceService persistenceService) {
         this.dataLoaderService = dataLoaderService;
-        this.dataContainer = dataLoaderService.getDataContainer();  // Chargement du DataContainer via DataLoaderService
+        this.persistenceService = persistenceService;
+        this.stringDictionary = dataLoaderService.getStringDictionary();
     }
 
     /**
@@ -36,7 +47,7 @@ public class MedicalRecordDAO {
      * @return Une liste de tous les enregistrements médicaux.
      */
     public List<MedicalRecord> getAllMedicalRecords() {
-        return dataContainer.getMedicalrecords();
+        return dataLoaderService.getSnapshot().getMedicalRecords();
     }
 
     /**
@@ -45,8 +56,12 @@ public class MedicalRecordDAO {
      * @param medicalRecord L'enregistrement médical à ajouter.
      */
     public void addMedicalRecord(MedicalRecord medicalRecord) {
-        dataContainer.getMedicalrecords().add(medicalRecord);  // Ajoute l'enregistrement à la liste
-        dataLoaderService.saveData();  // Sauvegarde les données mises à jour dans le fichier JSON
+        dataLoaderService.write(data -> {
+            stringDictionary.intern(medicalRecord);  // Partager les médicaments et allergies
+            data.addMedicalRecord(medicalRecord);  // Ajoute l'enregistrement à la liste
+            persistenceService.recordChange(ChangeLog.Entry.addMedicalRecord(medicalRecord));  // Journalise et planifie la sauvegarde des données mises à jour
+            return null;
+        });
     }
 
     /**
@@ -59,20 +74,16 @@ public class MedicalRecordDAO {
      * @return Un objet Optional contenant l'enregistrement médical mis à jour si trouvé, sinon un Optional vide.
      */
     public Optional<MedicalRecord> updateMedicalRecord(String firstName, String lastName, MedicalRecord updatedRecord) {
-        List<MedicalRecord> medicalRecords = dataContainer.getMedicalrecords();
-        Optional<MedicalRecord> existingRecord = medicalRecords.stream()
-                .filter(record -> record.getFirstName().equals(firstName) && record.getLastName().equals(lastName))
-                .findFirst();
-
-        if (existingRecord.isPresent()) {
-            MedicalRecord medicalRecord = existingRecord.get();
-            medicalRecord.setBirthdate(updatedRecord.getBirthdate());
-            medicalRecord.setMedications(updatedRecord.getMedications());
-            medicalRecord.setAllergies(updatedRecord.getAllergies());
-            dataLoaderService.saveData();  // Sauvegarde les données après modification
-            return Optional.of(medicalRecord);
-        }
-        return Optional.empty();
+        return dataLoaderService.write(data -> {
+            Optional<MedicalRecord> existingRecord = data.getDataIndex().findMedicalRecord(firstName, lastName);
+
+            if (existingRecord.isPresent()) {
+                MedicalRecord medicalRecord = replace(data, existingRecord.get(), updatedRecord);
+                persistenceService.recordChange(ChangeLog.Entry.updateMedicalRecord(firstName, lastName, updatedRecord));  // Journalise et planifie la sauvegarde après modification
+                return Optional.of(medicalRecord);
+            }
+            return Optional.empty();
+        });
     }
 
     /**
@@ -84,17 +95,17 @@ public class MedicalRecordDAO {
      * @return true si l'enregistrement médical a été supprimé, false sinon.
      */
     public boolean deleteMedicalRecord(String firstName, String lastName) {
-        List<MedicalRecord> medicalRecords = dataContainer.getMedicalrecords();
-
-        // Supprimer le dossier médical en utilisant removeIf
-        boolean removed = medicalRecords.removeIf(record -> record.getFirstName().equals(firstName) && record.getLastName().equals(lastName));
+        return dataLoaderService.write(data -> {
+            // Supprimer les dossiers médicaux trouvés via l'index
+            boolean removed = remove(data, firstName, lastName);
 
-        // Si un dossier a été supprimé, on sauvegarde les nouvelles données
-        if (removed) {
-            dataLoaderService.saveData();  // Sauvegarde les données après suppression
-        }
+            // Si un dossier a été supprimé, on sauvegarde les nouvelles données
+            if (removed) {
+                persistenceService.recordChange(ChangeLog.Entry.deleteMedicalRecord(firstName, lastName));  // Journalise et planifie la sauvegarde après suppression
+            }
 
-        return removed;
+            return removed;
+        });
     }
 
     /**
@@ -105,14 +116,81 @@ public class MedicalRecordDAO {
      * @return Un objet Optional contenant l'enregistrement médical trouvé, ou un Optional vide si aucun enregistrement n'est trouvé.
      */
     public Optional<MedicalRecord> getMedicalRecordByPerson(String firstName, String lastName) {
-        // Récupérer la liste des enregistrements médicaux depuis le DataContainer
-        List<MedicalRecord> medicalRecords = dataContainer.getMedicalrecords();
+        // Recherche directe dans l'index par prénom et nom
+        return dataLoaderService.getSnapshot().getDataIndex().findMedicalRecord(firstName, lastName);
+    }
 
-        // Chercher un enregistrement médical correspondant au prénom et au nom
+    /**
+     * Applique un lot d'insertions ou mises à jour et de suppressions de dossiers médicaux, identifiés par
+     * le prénom et le nom. Le lot est appliqué en entier ou pas du tout : il est d'abord validé, puis
+     * appliqué en une seule écriture, qui ne publie les index et le graphe qu'une fois et est journalisée
+     * en une seule entrée.
+     *
+     * @param operations Les opérations, dans l'ordre où elles doivent être appliquées.
+     * @return Le résultat de chaque opération.
+     */
+    public BatchResponse applyBatch(List<BatchOperation<MedicalRecord>> operations) {
+        List<BatchItemResult> rejected = Batches.validate(operations, operation ->
+                operation.getValue().getFirstName() == null || operation.getValue().getLastName() == null
+                        ? "Prénom et nom requis" : null);
+        if (rejected != null) {
+            return new BatchResponse(false, rejected);
+        }
 
-        // Retourner l'enregistrement trouvé, ou un Optional vide si aucun résultat
-        return medicalRecords.stream()
-                .filter(record -> record.getFirstName().equals(firstName) && record.getLastName().equals(lastName))
-                .findFirst();
+        return dataLoaderService.write(data -> {
+            List<BatchItemResult> results = new ArrayList<>(operations.size());
+            List<ChangeLog.Entry> entries = new ArrayList<>(operations.size());
+            for (int i = 0; i < operations.size(); i++) {
+                MedicalRecord value = operations.get(i).getValue();
+                String firstName = value.getFirstName();
+                String lastName = value.getLastName();
+                BatchItemResult.Status status;
+
+                if (operations.get(i).getAction() == BatchOperation.Action.DELETE) {
+                    status = remove(data, firstName, lastName) ? BatchItemResult.Status.DELETED : BatchItemResult.Status.NOT_FOUND;
+                    if (status == BatchItemResult.Status.DELETED) {
+                        entries.add(ChangeLog.Entry.deleteMedicalRecord(firstName, lastName));
+                    }
+                } else {
+                    Optional<MedicalRecord> existingRecord = data.getDataIndex().findMedicalRecord(firstName, lastName);
+                    if (existingRecord.isPresent()) {
+                        replace(data, existingRecord.get(), value);
+                        entries.add(ChangeLog.Entry.updateMedicalRecord(firstName, lastName, value));
+                        status = BatchItemResult.Status.UPDATED;
+                    } else {
+                        stringDictionary.intern(value);
+                        data.addMedicalRecord(value);
+                        entries.add(ChangeLog.Entry.addMedicalRecord(value));
+                        status = BatchItemResult.Status.CREATED;
+                    }
+                }
+                results.add(new BatchItemResult(i, status, null));
+            }
+            persistenceService.recordChanges(entries);  // Une seule entrée de journal pour tout le lot
+            return new BatchResponse(true, results);
+        });
+    }
+
+    /**
+     * Remplace un dossier médical par une nouvelle instance portant les informations mises à jour :
+     * les lecteurs de la version précédente gardent le dossier inchangé.
+     */
+    private MedicalRecord replace(DataSnapshot.Builder data, MedicalRecord existing, MedicalRecord updatedRecord) {
+        MedicalRecord medicalRecord = new MedicalRecord(existing.getFirstName(), existing.getLastName(),
+                updatedRecord.getBirthdate(), updatedRecord.getMedications(), updatedRecord.getAllergies());
+        stringDictionary.intern(medicalRecord);
+        data.replaceMedicalRecord(existing, medicalRecord);
+        return medicalRecord;
+    }
+
+    /**
+     * Retire tous les dossiers médicaux portant ce prénom et ce nom.
+     */
+    private static boolean remove(DataSnapshot.Builder data, String firstName, String lastName) {
+        List<MedicalRecord> matches = List.copyOf(data.getDataIndex().findMedicalRecordsByName(firstName, lastName));
+        for (MedicalRecord record : matches) {
+            data.removeMedicalRecord(record);
+        }
+        return !matches.isEmpty();
     }
 }
@@ -1,33 +1,48 @@
 package com.safetyNet.safetyNetSystem.dao;
 
+import com.safetyNet.safetyNetSystem.dto.BatchItemResult;
+import com.safetyNet.safetyNetSystem.dto.BatchOperation;
+import com.safetyNet.safetyNetSystem.dto.BatchResponse;
 import com.safetyNet.safetyNetSystem.model.Person;
 import com.safetyNet.safetyNetSystem.service.DataLoaderService;
+import com.safetyNet.safetyNetSystem.service.PersistenceService;
+import com.safetyNet.safetyNetSystem.util.ChangeLog;
+import com.safetyNet.safetyNetSystem.util.StringDictionary;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.springframework.stereotype.Repository;
-import com.safetyNet.safetyNetSystem.model.DataContainer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * DAO (Data Access Object) pour gérer les personnes.
  * Ce DAO permet de récupérer, ajouter, mettre à jour et supprimer des personnes dans la base de données.
- * Utilise le DataLoaderService pour charger et sauvegarder les données.
+ * Utilise le DataLoaderService pour charger les données et le PersistenceService pour journaliser les modifications et planifier leur sauvegarde.
+ * Les lectures portent sur la version courante des données, sans verrou ; les modifications passent par
+ * {@link DataLoaderService#write} et remplacent les personnes modifiées par de nouvelles instances.
  */
 @Repository
 public class PersonDAO {
 
+    private static final Logger logger = LogManager.getLogger(PersonDAO.class);
+
     private final DataLoaderService dataLoaderService;
-    private final DataContainer dataContainer;
+    private final PersistenceService persistenceService;
+    private final StringDictionary stringDictionary;
 
     /**
      * Constructeur pour initialiser DataLoaderUtil et DataLoaderService.
-     * Le DataContainer est utilisé pour accéder à la liste des personnes.
+     * Le DataLoaderService donne accès à la version courante des données.
      *
      * @param dataLoaderService Service de gestion du chargement et de la sauvegarde des données.
+     * @param persistenceService Service de persistance asynchrone des modifications.
      */
-    public PersonDAO(DataLoaderService dataLoaderService) {
+    public PersonDAO(DataLoaderService dataLoaderService, PersistenceService persistenceService) {
         this.dataLoaderService = dataLoaderService;
-        // Charger les données via DataLoaderService
-        this.dataContainer = dataLoaderService.getDataContainer();  // Utilisation de DataLoaderService pour obtenir le DataContainer
+        this.persistenceService = persistenceService;
+        this.stringDictionary = dataLoaderService.getStringDictionary();
     }
 
     /**
@@ -36,7 +51,70 @@ public class PersonDAO {
      * @return Une liste de toutes les personnes.
      */
     public List<Person> getAllPersons() {
-        return dataContainer.getPersons();
+        return dataLoaderService.getSnapshot().getPersons();
+    }
+
+    /**
+     * Récupère une personne par son prénom et son nom.
+     *
+     * @param firstName Le prénom de la personne.
+     * @param lastName Le nom de famille de la personne.
+     * @return Un objet Optional contenant la personne si trouvée, sinon un Optional vide.
+     */
+    public Optional<Person> getPersonByName(String firstName, String lastName) {
+        return dataLoaderService.getSnapshot().getDataIndex().findPerson(firstName, lastName);
+    }
+
+    /**
+     * Récupère les personnes habitant à une adresse donnée.
+     *
+     * @param address L'adresse recherchée.
+     * @return La liste des personnes habitant à cette adresse.
+     */
+    public List<Person> getPersonsByAddress(String address) {
+        return dataLoaderService.getSnapshot().getDataIndex().findPersonsByAddress(address);
+    }
+
+    /**
+     * Récupère les emails des habitants d'une ville donnée (sans tenir compte de la casse).
+     *
+     * @param city La ville recherchée.
+     * @return Une vue non modifiable des emails de cette ville, sans doublon.
+     */
+    public Set<String> getEmailsByCity(String city) {
+        return dataLoaderService.getSnapshot().getDataIndex().findEmailsByCity(city);
+    }
+
+    /**
+     * Récupère les personnes portant un nom de famille donné (sans tenir compte de la casse).
+     *
+     * @param lastName Le nom de famille recherché.
+     * @return La liste des personnes portant ce nom.
+     */
+    public List<Person> getPersonsByLastName(String lastName) {
+        return dataLoaderService.getSnapshot().getDataIndex().findPersonsByLastName(lastName);
+    }
+
+    /**
+     * Parcourt les personnes dans l'ordre alphabétique des noms, à partir d'une position.
+     *
+     * @param after La position de départ (exclue), ou null pour partir du début.
+     * @return Un itérateur sur les personnes de la version courante des données.
+     */
+    public DataIndex.PersonCursor iteratePersonsByName(DataIndex.PersonPosition after) {
+        return dataLoaderService.getSnapshot().getDataIndex().iteratePersonsByName(after);
+    }
+
+    /**
+     * Parcourt les personnes portant un nom de famille (sans tenir compte de la casse), dans l'ordre
+     * alphabétique des prénoms, à partir d'une position.
+     *
+     * @param lastName Le nom de famille recherché.
+     * @param after    La position de départ (exclue), ou null pour partir du début.
+     * @return Un itérateur sur les personnes de la version courante des données.
+     */
+    public DataIndex.PersonCursor iteratePersonsByLastName(String lastName, DataIndex.PersonPosition after) {
+        return dataLoaderService.getSnapshot().getDataIndex().iteratePersonsByLastName(lastName, after);
     }
 
     /**
@@ -45,8 +123,12 @@ public class PersonDAO {
      * @param person L'objet Person à ajouter.
      */
     public void addPerson(Person person) {
-        dataContainer.getPersons().add(person);
-        dataLoaderService.saveData();  // Sauvegarder les données après ajout
+        dataLoaderService.write(data -> {
+            stringDictionary.intern(person);  // Partager les valeurs répétées (adresse, ville, code postal)
+            data.addPerson(person);
+            persistenceService.recordChange(ChangeLog.Entry.addPerson(person));  // Journaliser et planifier la sauvegarde des données après ajout
+            return null;
+        });
     }
 
     /**
@@ -59,25 +141,17 @@ public class PersonDAO {
      * @return Un objet Optional contenant la personne mise à jour si trouvée, sinon un Optional vide.
      */
     public Optional<Person> updatePerson(String firstName, String lastName, Person updatedPerson) {
-        List<Person> persons = dataContainer.getPersons();
-        Optional<Person> existingPerson = persons.stream()
-                .filter(p -> p.getFirstName().equals(firstName) && p.getLastName().equals(lastName))
-                .findFirst();
-
-        if (existingPerson.isPresent()) {
-            Person person = existingPerson.get();
-            person.setFirstName(updatedPerson.getFirstName());
-            person.setLastName(updatedPerson.getLastName());
-            person.setAddress(updatedPerson.getAddress());
-            person.setCity(updatedPerson.getCity());
-            person.setZip(updatedPerson.getZip());
-            person.setPhone(updatedPerson.getPhone());
-            person.setEmail(updatedPerson.getEmail());
-            dataLoaderService.saveData();  // Sauvegarder les données après mise à jour
-            return Optional.of(person);
-        }
+        return dataLoaderService.write(data -> {
+            Optional<Person> existingPerson = data.getDataIndex().findPerson(firstName, lastName);
+
+            if (existingPerson.isPresent()) {
+                Person person = replace(data, existingPerson.get(), updatedPerson);
+                persistenceService.recordChange(ChangeLog.Entry.updatePerson(firstName, lastName, updatedPerson));  // Journaliser et planifier la sauvegarde des données après mise à jour
+                return Optional.of(person);
+            }
 
-        return Optional.empty();
+            return Optional.empty();
+        });
     }
 
     /**
@@ -89,19 +163,88 @@ public class PersonDAO {
      * @return true si la personne a été supprimée, false sinon.
      */
     public boolean deletePerson(String firstName, String lastName) {
-        List<Person> persons = dataContainer.getPersons();
-        boolean removed = persons.removeIf(p -> {
-            boolean match = p.getFirstName().equals(firstName) && p.getLastName().equals(lastName);
-            if (match) {
-                System.out.println("Suppression de: " + p.getFirstName() + " " + p.getLastName());
+        return dataLoaderService.write(data -> {
+            boolean removed = remove(data, firstName, lastName);
+
+            if (removed) {
+                persistenceService.recordChange(ChangeLog.Entry.deletePerson(firstName, lastName));  // Journaliser et planifier la sauvegarde des données après suppression
             }
-            return match;
+            return removed;
         });
+    }
 
-        if (removed) {
-            dataLoaderService.saveData();  // Sauvegarder les données après suppression
+
+    /**
+     * Applique un lot d'insertions ou mises à jour et de suppressions de personnes, identifiées par leur
+     * prénom et leur nom. Le lot est appliqué en entier ou pas du tout : il est d'abord validé, puis
+     * appliqué en une seule écriture, qui ne publie les index qu'une fois et est journalisée en une seule entrée.
+     *
+     * @param operations Les opérations, dans l'ordre où elles doivent être appliquées.
+     * @return Le résultat de chaque opération.
+     */
+    public BatchResponse applyBatch(List<BatchOperation<Person>> operations) {
+        List<BatchItemResult> rejected = Batches.validate(operations, operation ->
+                operation.getValue().getFirstName() == null || operation.getValue().getLastName() == null
+                        ? "Prénom et nom requis" : null);
+        if (rejected != null) {
+            return new BatchResponse(false, rejected);
         }
-        return removed;
+
+        return dataLoaderService.write(data -> {
+            List<BatchItemResult> results = new ArrayList<>(operations.size());
+            List<ChangeLog.Entry> entries = new ArrayList<>(operations.size());
+            for (int i = 0; i < operations.size(); i++) {
+                Person value = operations.get(i).getValue();
+                String firstName = value.getFirstName();
+                String lastName = value.getLastName();
+                BatchItemResult.Status status;
+
+                if (operations.get(i).getAction() == BatchOperation.Action.DELETE) {
+                    status = remove(data, firstName, lastName) ? BatchItemResult.Status.DELETED : BatchItemResult.Status.NOT_FOUND;
+                    if (status == BatchItemResult.Status.DELETED) {
+                        entries.add(ChangeLog.Entry.deletePerson(firstName, lastName));
+                    }
+                } else {
+                    Optional<Person> existingPerson = data.getDataIndex().findPerson(firstName, lastName);
+                    if (existingPerson.isPresent()) {
+                        replace(data, existingPerson.get(), value);
+                        entries.add(ChangeLog.Entry.updatePerson(firstName, lastName, value));
+                        status = BatchItemResult.Status.UPDATED;
+                    } else {
+                        stringDictionary.intern(value);
+                        data.addPerson(value);
+                        entries.add(ChangeLog.Entry.addPerson(value));
+                        status = BatchItemResult.Status.CREATED;
+                    }
+                }
+                results.add(new BatchItemResult(i, status, null));
+            }
+            persistenceService.recordChanges(entries);  // Une seule entrée de journal pour tout le lot
+            return new BatchResponse(true, results);
+        });
     }
 
+    /**
+     * Remplace une personne par une nouvelle instance portant les informations mises à jour :
+     * les lecteurs de la version précédente gardent la personne inchangée.
+     */
+    private Person replace(DataSnapshot.Builder data, Person existing, Person updatedPerson) {
+        Person person = new Person(updatedPerson.getFirstName(), updatedPerson.getLastName(), updatedPerson.getAddress(),
+                updatedPerson.getCity(), updatedPerson.getZip(), updatedPerson.getPhone(), updatedPerson.getEmail());
+        stringDictionary.intern(person);
+        data.replacePerson(existing, person);
+        return person;
+    }
+
+    /**
+     * Retire toutes les personnes portant ce prénom et ce nom.
+     */
+    private boolean remove(DataSnapshot.Builder data, String firstName, String lastName) {
+        List<Person> matches = List.copyOf(data.getDataIndex().findPersonsByName(firstName, lastName));
+        for (Person p : matches) {
+            logger.debug("Removing person: {} {}", p.getFirstName(), p.getLastName());
+            data.removePerson(p);
+        }
+        return !matches.isEmpty();
+    }
 }
@@ -0,0 +1,421 @@
+package com.safetyNet.safetyNetSystem.dao;
+
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+import com.safetyNet.safetyNetSystem.util.SnapshotMap;
+import com.safetyNet.safetyNetSystem.util.SnapshotMultiset;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Graphe matérialisé station → foyers (adresses) → habitants, chaque habitant portant
+ * directement son dossier médical.
+ * Les endpoints /firestation, /fire et /flood/stations parcourent ce graphe au lieu de
+ * croiser les listes de casernes, de personnes et de dossiers médicaux à chaque requête.
+ * Une station peut couvrir plusieurs adresses et une adresse dépendre de plusieurs stations :
+ * les deux sens de la relation sont indexés ({@link #getAddressesByStation(String)},
+ * {@link #getStationsByAddress(String)}). Les numéros de téléphone de chaque station sont tenus à jour
+ * au fil des modifications, pour que /phoneAlert n'ait rien à calculer ({@link #getPhonesByStation(String)}).
+ * Comme le {@link DataIndex}, le graphe est versionné : les foyers et les habitants sont immuables,
+ * une version figée peut être lue sans verrou et {@link #edit(DataIndex)} crée une version modifiable
+ * qui ne recrée que les foyers touchés. Les DAO le mettent à jour après le DataIndex.
+ */
+public class StationGraph {
+
+    /**
+     * Habitant d'un foyer, avec son dossier médical s'il existe.
+     */
+    public static class Resident {
+        private final Person person;
+        private final MedicalRecord medicalRecord;
+
+        /**
+         * Constructeur d'un habitant.
+         *
+         * @param person        La personne.
+         * @param medicalRecord Son dossier médical, ou null s'il n'en a pas.
+         */
+        public Resident(Person person, MedicalRecord medicalRecord) {
+            this.person = person;
+            this.medicalRecord = medicalRecord;
+        }
+
+        /**
+         * Récupère la personne.
+         *
+         * @return La personne.
+         */
+        public Person getPerson() {
+            return person;
+        }
+
+        /**
+         * Récupère le dossier médical de l'habitant.
+         *
+         * @return Le dossier médical, ou null s'il n'en a pas.
+         */
+        public MedicalRecord getMedicalRecord() {
+            return medicalRecord;
+        }
+    }
+
+    /**
+     * Foyer situé à une adresse, regroupant ses habitants dans l'ordre d'insertion.
+     */
+    public static class Household {
+        private final String address;
+        private final List<Resident> residents;
+
+        /**
+         * Constructeur d'un foyer.
+         *
+         * @param address   L'adresse du foyer.
+         * @param residents Les habitants du foyer.
+         */
+        public Household(String address, List<Resident> residents) {
+            this.address = address;
+            this.residents = residents;
+        }
+
+        /**
+         * Récupère l'adresse du foyer.
+         *
+         * @return L'adresse.
+         */
+        public String getAddress() {
+            return address;
+        }
+
+        /**
+         * Récupère les habitants du foyer.
+         *
+         * @return Une vue non modifiable des habitants.
+         */
+        public List<Resident> getResidents() {
+            return Collections.unmodifiableList(residents);
+        }
+    }
+
+    private static final Comparator<String> PHONE_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final DataIndex dataIndex;
+    private final SnapshotMap<String, Household> householdsByAddress;
+    // Adresses de chaque station, avec le nombre de lignes de caserne qui les référencent
+    private final SnapshotMap<String, Map<String, Integer>> addressesByStation;
+    // Stations de chaque adresse, avec le nombre de lignes de caserne qui les référencent
+    private final SnapshotMap<String, Map<String, Integer>> stationsByAddress;
+    // Numéros de téléphone de chaque station, avec le nombre d'habitants couverts qui les portent
+    private final SnapshotMap<String, SnapshotMultiset<String>> phonesByStation;
+    private final Set<String> phoneChanges = new HashSet<>();  // Stations dont les numéros sont modifiables par cette version
+    private Object owner;  // Jeton des tables d'adresses modifiables par cette version, null une fois figée
+
+    /**
+     * Construit le graphe à partir des données chargées et de l'index déjà construit.
+     *
+     * @param persons      Les personnes.
+     * @param firestations Les casernes.
+     * @param dataIndex    L'index utilisé pour rattacher les dossiers médicaux aux habitants.
+     */
+    public StationGraph(List<Person> persons, List<Firestation> firestations, DataIndex dataIndex) {
+        this(dataIndex, SnapshotMap.empty(), SnapshotMap.empty(), SnapshotMap.empty(), SnapshotMap.empty());
+        persons.forEach(this::addPerson);
+        firestations.forEach(this::addFirestation);
+        freeze();
+    }
+
+    private StationGraph(DataIndex dataIndex, SnapshotMap<String, Household> householdsByAddress,
+                         SnapshotMap<String, Map<String, Integer>> addressesByStation,
+                         SnapshotMap<String, Map<String, Integer>> stationsByAddress,
+                         SnapshotMap<String, SnapshotMultiset<String>> phonesByStation) {
+        this.dataIndex = dataIndex;
+        this.householdsByAddress = householdsByAddress.edit();
+        this.addressesByStation = addressesByStation.edit();
+        this.stationsByAddress = stationsByAddress.edit();
+        this.phonesByStation = phonesByStation.edit();
+        this.owner = new Object();
+    }
+
+    /**
+     * Crée une version modifiable de ce graphe, qui partage ses foyers.
+     *
+     * @param dataIndex La version de l'index modifiée en même temps que le graphe.
+     * @return La nouvelle version, modifiable jusqu'à {@link #freeze()}.
+     */
+    public StationGraph edit(DataIndex dataIndex) {
+        return new StationGraph(dataIndex, householdsByAddress, addressesByStation, stationsByAddress,
+                phonesByStation);
+    }
+
+    /**
+     * Fige ce graphe : il ne peut plus être modifié et peut être lu par plusieurs threads sans verrou.
+     *
+     * @return Ce graphe.
+     */
+    public StationGraph freeze() {
+        for (String station : phoneChanges) {
+            if (phonesByStation.get(station).freeze().isEmpty()) {
+                phonesByStation.remove(station);
+            }
+        }
+        phoneChanges.clear();
+        householdsByAddress.freeze();
+        addressesByStation.freeze();
+        stationsByAddress.freeze();
+        phonesByStation.freeze();
+        owner = null;
+        return this;
+    }
+
+    // ----- Mises à jour -----
+
+    /**
+     * Ajoute une personne dans le foyer de son adresse.
+     *
+     * @param person La personne à ajouter.
+     */
+    public void addPerson(Person person) {
+        Resident resident = new Resident(person, dataIndex.findMedicalRecord(person.getFirstName(), person.getLastName()).orElse(null));
+        Household household = householdsByAddress.get(person.getAddress());
+        List<Resident> residents = new ArrayList<>(household == null ? 1 : household.residents.size() + 1);
+        if (household != null) {
+            residents.addAll(household.residents);
+        }
+        residents.add(resident);
+        householdsByAddress.put(person.getAddress(), new Household(person.getAddress(), residents));
+        for (String station : getStationsByAddress(person.getAddress())) {
+            addPhone(station, person.getPhone());
+        }
+    }
+
+    /**
+     * Retire une personne de son foyer, telle qu'elle y a été ajoutée.
+     *
+     * @param person La personne à retirer.
+     */
+    public void removePerson(Person person) {
+        Household household = householdsByAddress.get(person.getAddress());
+        if (household == null) {
+            return;
+        }
+        List<Resident> residents = new ArrayList<>(household.residents);
+        if (!residents.removeIf(resident -> resident.person == person)) {
+            return;
+        }
+        for (String station : getStationsByAddress(person.getAddress())) {
+            releasePhone(station, person.getPhone());
+        }
+        if (residents.isEmpty()) {
+            householdsByAddress.remove(person.getAddress());
+        } else {
+            householdsByAddress.put(person.getAddress(), new Household(person.getAddress(), residents));
+        }
+    }
+
+    /**
+     * Rattache à nouveau le dossier médical courant aux habitants portant ce nom.
+     * Doit être appelé après l'ajout, la modification ou la suppression d'un dossier médical dans le DataIndex.
+     *
+     * @param firstName Le prénom.
+     * @param lastName  Le nom de famille.
+     */
+    public void refreshMedicalRecord(String firstName, String lastName) {
+        MedicalRecord medicalRecord = dataIndex.findMedicalRecord(firstName, lastName).orElse(null);
+        for (Person person : dataIndex.findPersonsByName(firstName, lastName)) {
+            Household household = householdsByAddress.get(person.getAddress());
+            if (household == null) {
+                continue;
+            }
+            List<Resident> residents = new ArrayList<>(household.residents);
+            residents.replaceAll(resident -> resident.person == person ? new Resident(person, medicalRecord) : resident);
+            householdsByAddress.put(person.getAddress(), new Household(person.getAddress(), residents));
+        }
+    }
+
+    /**
+     * Rattache une adresse à la station d'une caserne, et la station à l'adresse.
+     *
+     * @param firestation La caserne ajoutée.
+     */
+    public void addFirestation(Firestation firestation) {
+        int links = owned(addressesByStation, firestation.getStation()).merge(firestation.getAddress(), 1, Integer::sum);
+        owned(stationsByAddress, firestation.getAddress()).merge(firestation.getStation(), 1, Integer::sum);
+        if (links == 1) {  // Nouvelle adresse pour la station : ses habitants sont désormais couverts
+            for (Resident resident : getResidents(firestation.getAddress())) {
+                addPhone(firestation.getStation(), resident.person.getPhone());
+            }
+        }
+    }
+
+    /**
+     * Détache une adresse de la station d'une caserne, et la station de l'adresse, telles qu'elles y ont été rattachées.
+     *
+     * @param firestation La caserne retirée.
+     */
+    public void removeFirestation(Firestation firestation) {
+        boolean unlinked = release(addressesByStation, firestation.getStation(), firestation.getAddress());
+        release(stationsByAddress, firestation.getAddress(), firestation.getStation());
+        if (unlinked) {  // Plus aucune caserne ne rattache l'adresse à la station
+            for (Resident resident : getResidents(firestation.getAddress())) {
+                releasePhone(firestation.getStation(), resident.person.getPhone());
+            }
+        }
+    }
+
+    // ----- Parcours -----
+
+    /**
+     * Récupère les adresses couvertes par une station.
+     *
+     * @param station Le numéro de station.
+     * @return Une vue non modifiable des adresses, dans l'ordre où elles ont été rattachées, éventuellement vide.
+     */
+    public Set<String> getAddressesByStation(String station) {
+        return keys(addressesByStation, station);
+    }
+
+    /**
+     * Récupère les stations qui couvrent une adresse.
+     *
+     * @param address L'adresse.
+     * @return Une vue non modifiable des numéros de station, dans l'ordre où ils ont été rattachés, éventuellement vide.
+     */
+    public Set<String> getStationsByAddress(String address) {
+        return keys(stationsByAddress, address);
+    }
+
+    /**
+     * Récupère les numéros de téléphone des habitants couverts par une station.
+     *
+     * @param station Le numéro de station.
+     * @return Une vue non modifiable, partagée par toutes les lectures de cette version, des numéros sans
+     * doublon dans l'ordre alphabétique, éventuellement vide.
+     */
+    public Set<String> getPhonesByStation(String station) {
+        SnapshotMultiset<String> phones = phonesByStation.get(station);
+        return phones == null ? Collections.emptySet() : phones.elementSet();
+    }
+
+    /**
+     * Récupère les habitants d'une adresse.
+     *
+     * @param address L'adresse.
+     * @return Les habitants de cette adresse, éventuellement vide.
+     */
+    public List<Resident> getResidents(String address) {
+        Household household = householdsByAddress.get(address);
+        return household == null ? Collections.emptyList() : household.getResidents();
+    }
+
+    /**
+     * Récupère les foyers couverts par une station, dans l'ordre où leurs adresses ont été rattachées.
+     *
+     * @param station Le numéro de station.
+     * @return Les foyers de la station, y compris ceux sans habitant.
+     */
+    public List<Household> getHouseholdsByStation(String station) {
+        Map<String, Integer> addresses = addressesByStation.get(station);
+        if (addresses == null) {
+            return Collections.emptyList();
+        }
+        List<Household> households = new ArrayList<>(addresses.size());
+        for (String address : addresses.keySet()) {
+            Household household = householdsByAddress.get(address);
+            households.add(household != null ? household : new Household(address, Collections.emptyList()));
+        }
+        return households;
+    }
+
+    private static Set<String> keys(SnapshotMap<String, Map<String, Integer>> links, String key) {
+        Map<String, Integer> values = links.get(key);
+        return values == null ? Collections.emptySet() : Collections.unmodifiableSet(values.keySet());
+    }
+
+    private void addPhone(String station, String phone) {
+        ownedPhones(station).add(phone);
+    }
+
+    private void releasePhone(String station, String phone) {
+        if (phonesByStation.get(station) != null) {
+            ownedPhones(station).remove(phone);
+        }
+    }
+
+    /**
+     * Retourne les numéros d'une station modifiables par cette version : la première modification crée
+     * une version modifiable qui partage les partitions et les blocs de la précédente.
+     */
+    private SnapshotMultiset<String> ownedPhones(String station) {
+        if (owner == null) {
+            throw new IllegalStateException("Graphe figé : utiliser edit() avant de le modifier");
+        }
+        SnapshotMultiset<String> phones = phonesByStation.get(station);
+        if (phoneChanges.add(station)) {  // Première modification de la station dans cette version
+            phones = (phones == null ? SnapshotMultiset.<String>empty(PHONE_ORDER) : phones).edit();
+            phonesByStation.put(station, phones);
+        }
+        return phones;
+    }
+
+    /**
+     * Décrémente un rattachement, et retire la clé qui n'a plus aucun rattachement.
+     *
+     * @return true si la valeur n'est plus rattachée à la clé.
+     */
+    private boolean release(SnapshotMap<String, Map<String, Integer>> links, String key, String value) {
+        Map<String, Integer> current = links.get(key);
+        if (current == null || !current.containsKey(value)) {
+            return false;
+        }
+        Map<String, Integer> values = owned(links, key);
+        boolean released = values.computeIfPresent(value, (linked, count) -> count > 1 ? count - 1 : null) == null;
+        if (values.isEmpty()) {
+            links.remove(key);
+        }
+        return released;
+    }
+
+    /**
+     * Retourne la table des rattachements d'une clé (adresses d'une station, ou stations d'une adresse)
+     * modifiable par cette version, en copiant à sa première modification la table partagée avec une
+     * version précédente.
+     */
+    private Map<String, Integer> owned(SnapshotMap<String, Map<String, Integer>> links, String key) {
+        if (owner == null) {
+            throw new IllegalStateException("Graphe figé : utiliser edit() avant de le modifier");
+        }
+        Map<String, Integer> values = links.get(key);
+        if (values instanceof Links owned && owned.owner == owner) {
+            return owned;
+        }
+        Links owned = new Links(owner, values);
+        links.put(key, owned);
+        return owned;
+    }
+
+    /**
+     * Rattachements d'une clé, avec leur nombre de lignes de caserne, modifiables uniquement par la
+     * version du graphe qui les a créés.
+     */
+    private static final class Links extends LinkedHashMap<String, Integer> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Object owner;
+
+        private Links(Object owner, Map<String, Integer> values) {
+            this.owner = owner;
+            if (values != null) {
+                putAll(values);
+            }
+        }
+    }
+}
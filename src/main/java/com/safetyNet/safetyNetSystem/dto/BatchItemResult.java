@@ -0,0 +1,99 @@
+package com.safetyNet.safetyNetSystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Résultat d'une opération d'un lot de modifications, repérée par sa position dans le lot.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    /**
+     * Issue de l'opération.
+     */
+    public enum Status {
+        CREATED,    // Entité ajoutée
+        UPDATED,    // Entité existante mise à jour
+        DELETED,    // Entité supprimée
+        NOT_FOUND,  // Suppression d'une entité absente, sans effet
+        INVALID,    // Opération incomplète : le lot entier est rejeté
+        REJECTED    // Opération valide, non appliquée car le lot a été rejeté
+    }
+
+    private int index;       // Position de l'opération dans le lot
+    private Status status;   // Issue de l'opération
+    private String message;  // Explication, pour une opération invalide
+
+    /**
+     * Constructeur par défaut, requis pour la sérialisation avec Jackson.
+     */
+    public BatchItemResult() {
+    }
+
+    /**
+     * Constructeur pour initialiser le résultat d'une opération.
+     *
+     * @param index   La position de l'opération dans le lot.
+     * @param status  L'issue de l'opération.
+     * @param message L'explication, ou null.
+     */
+    public BatchItemResult(int index, Status status, String message) {
+        this.index = index;
+        this.status = status;
+        this.message = message;
+    }
+
+    /**
+     * Récupère la position de l'opération dans le lot.
+     *
+     * @return La position, à partir de 0.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Définit la position de l'opération dans le lot.
+     *
+     * @param index La position à définir.
+     */
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * Récupère l'issue de l'opération.
+     *
+     * @return L'issue.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Définit l'issue de l'opération.
+     *
+     * @param status L'issue à définir.
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Récupère l'explication de l'issue.
+     *
+     * @return L'explication, ou null.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Définit l'explication de l'issue.
+     *
+     * @param message L'explication à définir.
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,73 @@
+package com.safetyNet.safetyNetSystem.dto;
+
+/**
+ * Opération d'un lot de modifications : l'insertion ou mise à jour (upsert) d'une entité, ou sa suppression.
+ * Pour une suppression, seules les clés de l'entité (nom complet ou adresse) sont utilisées.
+ *
+ * @param <T> Le type de l'entité visée.
+ */
+public class BatchOperation<T> {
+
+    /**
+     * Type d'opération.
+     */
+    public enum Action {
+        UPSERT, DELETE
+    }
+
+    private Action action; // Opération à effectuer
+    private T value;       // Entité à insérer ou mettre à jour, ou clés de l'entité à supprimer
+
+    /**
+     * Constructeur par défaut, requis pour la désérialisation avec Jackson.
+     */
+    public BatchOperation() {
+    }
+
+    /**
+     * Constructeur pour initialiser l'opération et l'entité visée.
+     *
+     * @param action L'opération à effectuer.
+     * @param value  L'entité visée.
+     */
+    public BatchOperation(Action action, T value) {
+        this.action = action;
+        this.value = value;
+    }
+
+    /**
+     * Récupère l'opération à effectuer.
+     *
+     * @return L'opération.
+     */
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * Définit l'opération à effectuer.
+     *
+     * @param action L'opération à définir.
+     */
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    /**
+     * Récupère l'entité visée.
+     *
+     * @return L'entité.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Définit l'entité visée.
+     *
+     * @param value L'entité à définir.
+     */
+    public void setValue(T value) {
+        this.value = value;
+    }
+}
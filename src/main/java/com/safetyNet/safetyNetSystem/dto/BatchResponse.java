@@ -0,0 +1,65 @@
+package com.safetyNet.safetyNetSystem.dto;
+
+import java.util.List;
+
+/**
+ * Réponse à un lot de modifications : le lot est appliqué en entier ou pas du tout,
+ * avec le résultat de chaque opération.
+ */
+public class BatchResponse {
+    private boolean applied;              // true si le lot a été appliqué
+    private List<BatchItemResult> results; // Résultat de chaque opération, dans l'ordre du lot
+
+    /**
+     * Constructeur par défaut, requis pour la sérialisation avec Jackson.
+     */
+    public BatchResponse() {
+    }
+
+    /**
+     * Constructeur pour initialiser la réponse.
+     *
+     * @param applied true si le lot a été appliqué.
+     * @param results Le résultat de chaque opération.
+     */
+    public BatchResponse(boolean applied, List<BatchItemResult> results) {
+        this.applied = applied;
+        this.results = results;
+    }
+
+    /**
+     * Indique si le lot a été appliqué.
+     *
+     * @return true si toutes les opérations ont été appliquées, false si aucune ne l'a été.
+     */
+    public boolean isApplied() {
+        return applied;
+    }
+
+    /**
+     * Définit si le lot a été appliqué.
+     *
+     * @param applied La valeur à définir.
+     */
+    public void setApplied(boolean applied) {
+        this.applied = applied;
+    }
+
+    /**
+     * Récupère le résultat de chaque opération.
+     *
+     * @return Les résultats, dans l'ordre du lot.
+     */
+    public List<BatchItemResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Définit le résultat de chaque opération.
+     *
+     * @param results Les résultats à définir.
+     */
+    public void setResults(List<BatchItemResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,66 @@
+package com.safetyNet.safetyNetSystem.dto;
+
+import java.util.List;
+
+/**
+ * Page d'une réponse paginée par curseur : les éléments de la page et le curseur de la page suivante.
+ *
+ * @param <T> Le type des éléments.
+ */
+public class CursorPage<T> {
+    private List<T> items;       // Éléments de la page, dans l'ordre
+    private String nextCursor;   // Curseur à renvoyer pour obtenir la page suivante, null après la dernière page
+
+    /**
+     * Constructeur par défaut, requis pour la sérialisation avec Jackson.
+     */
+    public CursorPage() {
+    }
+
+    /**
+     * Constructeur pour initialiser la page.
+     *
+     * @param items      Les éléments de la page.
+     * @param nextCursor Le curseur de la page suivante, ou null s'il n'y en a pas.
+     */
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Récupère les éléments de la page.
+     *
+     * @return Les éléments, dans l'ordre.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Définit les éléments de la page.
+     *
+     * @param items Les éléments à définir.
+     */
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    /**
+     * Récupère le curseur de la page suivante.
+     *
+     * @return Le curseur opaque, ou null s'il n'y a plus de page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Définit le curseur de la page suivante.
+     *
+     * @param nextCursor Le curseur à définir.
+     */
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
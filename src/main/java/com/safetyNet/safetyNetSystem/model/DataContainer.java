@@ -10,6 +10,7 @@ public class DataContainer {
     private List<Person> persons;          // Liste des personnes du système
     private List<Firestation> firestations; // Liste des casernes de pompiers
     private List<MedicalRecord> medicalrecords; // Liste des dossiers médicaux
+    private long changeLogSegment;         // Dernier segment du journal des modifications couvert par ces données (0 si aucun)
 
     /**
      * Récupère la liste des personnes.
@@ -64,4 +65,23 @@ public class DataContainer {
     public void setMedicalrecords(List<MedicalRecord> medicalrecords) {
         this.medicalrecords = medicalrecords;
     }
+
+    /**
+     * Récupère l'identifiant du dernier segment du journal des modifications couvert par ces données.
+     * Les segments jusqu'à celui-ci inclus ne doivent pas être rejoués par-dessus ces données.
+     *
+     * @return L'identifiant du segment, ou 0 si aucun segment n'est couvert.
+     */
+    public long getChangeLogSegment() {
+        return changeLogSegment;
+    }
+
+    /**
+     * Définit l'identifiant du dernier segment du journal des modifications couvert par ces données.
+     *
+     * @param changeLogSegment L'identifiant du segment, ou 0 si aucun segment n'est couvert.
+     */
+    public void setChangeLogSegment(long changeLogSegment) {
+        this.changeLogSegment = changeLogSegment;
+    }
 }
@@ -1,5 +1,8 @@
 package com.safetyNet.safetyNetSystem.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.safetyNet.safetyNetSystem.util.DateUtil;
+
 import java.util.List;
 
 /**
@@ -11,6 +14,7 @@ public class MedicalRecord {
     private String firstName;  // Prénom de la personne
     private String lastName;   // Nom de la personne
     private String birthdate;  // Date de naissance de la personne
+    private int birthEpochDay = DateUtil.INVALID_DATE;  // Date de naissance analysée une fois, en jours depuis le 01/01/1970
     private List<String> medications;  // Liste des médicaments de la personne
     private List<String> allergies;    // Liste des allergies de la personne
 
@@ -35,6 +39,7 @@ public class MedicalRecord {
         this.firstName = firstName;
         this.lastName = lastName;
         this.birthdate = birthdate;
+        this.birthEpochDay = DateUtil.toEpochDay(birthdate);
         this.medications = medications;
         this.allergies = allergies;
     }
@@ -91,6 +96,37 @@ public class MedicalRecord {
      */
     public void setBirthdate(String birthdate) {
         this.birthdate = birthdate;
+        this.birthEpochDay = DateUtil.toEpochDay(birthdate);
+    }
+
+    /**
+     * Récupère la date de naissance analysée lors de sa définition.
+     *
+     * @return Le nombre de jours depuis le 01/01/1970, ou {@link DateUtil#INVALID_DATE} si la date est invalide.
+     */
+    @JsonIgnore
+    public int getBirthEpochDay() {
+        return birthEpochDay;
+    }
+
+    /**
+     * Calcule l'âge de la personne à partir de la date de naissance déjà analysée.
+     *
+     * @return L'âge en années, ou -1 si la date de naissance est invalide.
+     */
+    @JsonIgnore
+    public int getAge() {
+        return DateUtil.calculateAge(getBirthEpochDay());
+    }
+
+    /**
+     * Indique si la personne est un enfant (moins de 18 ans, ou date de naissance invalide).
+     *
+     * @return true si la personne est un enfant.
+     */
+    @JsonIgnore
+    public boolean isChild() {
+        return DateUtil.isChild(getBirthEpochDay());
     }
 
     /**
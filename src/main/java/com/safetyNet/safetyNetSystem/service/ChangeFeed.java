@@ -0,0 +1,385 @@
+package com.safetyNet.safetyNetSystem.service;
+
+import com.safetyNet.safetyNetSystem.dao.ChangeEvent;
+import com.safetyNet.safetyNetSystem.dao.DataChanges;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flux des modifications publiées ({@link ChangeEvent}), diffusé aux abonnés de l'endpoint /changes.
+ * <p>
+ * Les modifications sont ajoutées par le thread qui écrit dans un tampon circulaire de taille fixe,
+ * sans attendre aucun abonné : chaque abonné garde sa position dans le tampon et ses modifications lui
+ * sont envoyées par un thread de diffusion. Un abonné trop lent, dont les modifications non envoyées ont
+ * été écrasées par les suivantes, reçoit une demande de resynchronisation et reprend aux modifications
+ * les plus récentes ; un abonné dont l'envoi échoue est retiré. Le tampon permet aussi à un client
+ * reconnecté de reprendre après le dernier identifiant reçu (Last-Event-ID).
+ * <p>
+ * Un envoi est une écriture bloquante sur la connexion du client. Chaque diffusion a donc son propre
+ * thread, pris dans un pool sans taille fixe (au plus un thread par abonné, libéré après une minute
+ * d'inactivité) : un client qui ne lit plus ne bloque que sa propre diffusion. Un abonné dont l'envoi
+ * dépasse le délai d'envoi est retiré du flux ; sa connexion est fermée dès que l'envoi bloqué rend la main.
+ * Les threads de diffusion ne sont pas virtuels, même en mode threads virtuels : l'envoi d'un SseEmitter
+ * est synchronized et un envoi bloqué immobiliserait le thread porteur.
+ */
+@Service
+public class ChangeFeed implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeed.class);
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);  // Distingue les identifiants des démarrages successifs
+    private final AtomicReferenceArray<Slot> ring;
+    private final int mask;
+    private final int maxSubscribers;
+    private final long sendTimeoutNanos;
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService watchdog;  // Retire les abonnés dont l'envoi dépasse le délai
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private volatile long published;  // Numéro de la dernière modification ajoutée au tampon (0 si aucune)
+    private volatile long publishedVersion;  // Version de la dernière écriture ajoutée au tampon
+
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Constructeur, abonné aux écritures publiées.
+     *
+     * @param dataLoaderService Le service publiant les versions des données.
+     * @param capacity          Nombre de modifications conservées dans le tampon (arrondi à la puissance de 2 supérieure).
+     * @param maxSubscribers    Nombre maximal d'abonnés simultanés.
+     * @param sendTimeoutMs     Délai d'envoi, en millisecondes, au-delà duquel un abonné est retiré.
+     */
+    public ChangeFeed(DataLoaderService dataLoaderService,
+                      @Value("${safetynet.feed.capacity:4096}") int capacity,
+                      @Value("${safetynet.feed.max-subscribers:1000}") int maxSubscribers,
+                      @Value("${safetynet.feed.send-timeout-ms:10000}") long sendTimeoutMs) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.maxSubscribers = maxSubscribers;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        // Au plus une diffusion en attente ou en cours par abonné : le nombre de threads reste borné par maxSubscribers
+        this.dispatcher = Executors.newCachedThreadPool(Thread.ofPlatform().name("change-feed-", 1).daemon().factory());
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("change-feed-watchdog").daemon().factory());
+        long period = Math.max(1, sendTimeoutMs / 4);
+        watchdog.scheduleWithFixedDelay(this::expireStalledSends, period, period, TimeUnit.MILLISECONDS);
+        this.publishedVersion = dataLoaderService.getPublishedVersion();
+        dataLoaderService.addChangeListener(this::publish);
+        logger.info("Flux des modifications activé (tampon : {} modifications, {} abonnés au plus, délai d'envoi : {} ms)",
+                size, maxSubscribers, sendTimeoutMs);
+    }
+
+    /**
+     * Abonne un client aux modifications qui touchent une station et une adresse.
+     *
+     * @param station     Le numéro de station, ou null pour toutes les stations.
+     * @param address     L'adresse, ou null pour toutes les adresses.
+     * @param lastEventId Le dernier identifiant reçu par le client avant sa reconnexion, ou null pour ne
+     *                    recevoir que les modifications à venir.
+     * @param sink        La destination des modifications.
+     * @return L'abonnement, à fermer quand le client se déconnecte.
+     * @throws IllegalStateException si le nombre maximal d'abonnés est atteint.
+     */
+    public Subscription subscribe(String station, String address, String lastEventId, Sink sink) {
+        if (subscriptions.size() >= maxSubscribers) {
+            throw new IllegalStateException("Nombre maximal d'abonnés atteint : " + maxSubscribers);
+        }
+        long current = published;
+        Subscription subscription = new Subscription(station, address, sink, current);
+        if (lastEventId != null) {
+            long sequence = parseEventId(lastEventId);
+            if (sequence >= 0 && sequence <= current) {
+                subscription.cursor = sequence;  // Reprise, ou resynchronisation si le tampon a été écrasé depuis
+            } else {
+                subscription.resync = true;
+            }
+        }
+        subscriptions.add(subscription);
+        subscription.signal();  // Une modification a pu être ajoutée avant l'enregistrement de l'abonné
+        return subscription;
+    }
+
+    /**
+     * Ajoute les modifications d'une écriture au tampon et réveille les abonnés. Appelé par le thread
+     * qui écrit : n'attend jamais un abonné.
+     */
+    private void publish(DataChanges changes) {
+        long sequence = published;
+        for (ChangeEvent event : changes.events()) {
+            sequence++;
+            ring.set((int) (sequence & mask), new Slot(sequence, event));
+        }
+        publishedVersion = changes.version();
+        published = sequence;
+        for (Subscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    /**
+     * Retire les abonnés dont l'envoi en cours a commencé depuis plus que le délai d'envoi.
+     */
+    private void expireStalledSends() {
+        long now = System.nanoTime();
+        for (Subscription subscription : subscriptions) {
+            long since = subscription.sendingSince;
+            if (since != 0 && now - since > sendTimeoutNanos) {
+                subscription.expire();
+            }
+        }
+    }
+
+    /**
+     * Identifiant d'une modification dans le flux : démarrage et position dans le tampon.
+     */
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * Position désignée par un identifiant du flux, ou -1 s'il vient d'un autre démarrage ou est invalide.
+     */
+    private long parseEventId(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Nombre d'abonnés.
+     *
+     * @return Le nombre d'abonnés connectés.
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Nombre de demandes de resynchronisation envoyées aux abonnés trop lents.
+     *
+     * @return Le nombre de resynchronisations depuis le démarrage.
+     */
+    public long getResyncCount() {
+        return resyncs.sum();
+    }
+
+    /**
+     * Nombre d'abonnés retirés après un échec d'envoi ou un envoi plus long que le délai d'envoi.
+     *
+     * @return Le nombre d'abonnés retirés depuis le démarrage.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Expose le nombre d'abonnés, de modifications diffusées et de resynchronisations.
+     *
+     * @param registry Le registre de métriques.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("safetynet.feed.subscribers", this, ChangeFeed::getSubscriberCount)
+                .description("Nombre d'abonnés au flux des modifications")
+                .register(registry);
+        FunctionCounter.builder("safetynet.feed.events", this, feed -> feed.published)
+                .description("Modifications ajoutées au flux")
+                .register(registry);
+        FunctionCounter.builder("safetynet.feed.resyncs", this, ChangeFeed::getResyncCount)
+                .description("Resynchronisations demandées aux abonnés trop lents")
+                .register(registry);
+        FunctionCounter.builder("safetynet.feed.dropped", this, ChangeFeed::getDroppedCount)
+                .description("Abonnés retirés après un échec d'envoi ou un dépassement du délai d'envoi")
+                .register(registry);
+    }
+
+    /**
+     * Ferme les abonnements et arrête les threads de diffusion avant l'arrêt de l'application.
+     */
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        dispatcher.shutdownNow();
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    /**
+     * Destination des modifications d'un abonné, par exemple une connexion SSE.
+     */
+    public interface Sink {
+
+        /**
+         * Envoie une modification.
+         *
+         * @param id    L'identifiant de la modification dans le flux.
+         * @param event La modification.
+         * @throws IOException si l'envoi échoue : l'abonné est alors retiré.
+         */
+        void send(String id, ChangeEvent event) throws IOException;
+
+        /**
+         * Demande au client de relire les données : des modifications lui ont échappé.
+         *
+         * @param id      L'identifiant à partir duquel le flux reprend.
+         * @param version La dernière version publiée.
+         * @throws IOException si l'envoi échoue : l'abonné est alors retiré.
+         */
+        void resync(String id, long version) throws IOException;
+
+        /**
+         * Termine la connexion, lorsque l'abonné est retiré par le flux.
+         */
+        void close();
+    }
+
+    /**
+     * Modification conservée dans le tampon, avec sa position : une case écrasée porte une position plus récente.
+     */
+    private record Slot(long sequence, ChangeEvent event) {
+    }
+
+    /**
+     * Abonnement d'un client : ses filtres et sa position dans le tampon. Ses modifications sont envoyées
+     * par un seul thread de diffusion à la fois, dans l'ordre.
+     */
+    public final class Subscription {
+        private final String station;
+        private final String address;
+        private final Sink sink;
+        private final AtomicBoolean scheduled = new AtomicBoolean();  // Une diffusion est en attente ou en cours
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean sinkClosed = new AtomicBoolean();
+        private volatile long sendingSince;  // Début de l'envoi en cours (System.nanoTime), 0 hors envoi
+        private long cursor;      // Dernière position traitée, lue et écrite par le thread de diffusion
+        private boolean resync;   // Resynchronisation à envoyer avant toute modification
+
+        private Subscription(String station, String address, Sink sink, long cursor) {
+            this.station = station;
+            this.address = address;
+            this.sink = sink;
+            this.cursor = cursor;
+        }
+
+        /**
+         * Ferme l'abonnement. Sans effet s'il est déjà fermé.
+         */
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscriptions.remove(this);
+                closeSink();
+            }
+        }
+
+        /**
+         * Retire l'abonné dont l'envoi dépasse le délai. La connexion n'est pas fermée ici : l'envoi bloqué
+         * la verrouille ; elle est fermée par le thread de diffusion dès que l'envoi rend la main.
+         */
+        private void expire() {
+            if (closed.compareAndSet(false, true)) {
+                subscriptions.remove(this);
+                dropped.increment();
+                logger.debug("Abonné retiré : envoi bloqué depuis plus de {} ms", TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+            }
+        }
+
+        private void closeSink() {
+            if (sinkClosed.compareAndSet(false, true)) {
+                sink.close();
+            }
+        }
+
+        /**
+         * Programme une diffusion, sauf si une diffusion est déjà en attente ou en cours.
+         */
+        private void signal() {
+            if (!closed.get() && scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    close();  // Arrêt de l'application
+                }
+            }
+        }
+
+        /**
+         * Envoie les modifications ajoutées depuis la dernière diffusion, puis se reprogramme si d'autres
+         * ont été ajoutées entre-temps.
+         */
+        private void drain() {
+            do {
+                try {
+                    drainAvailable();
+                } catch (IOException | RuntimeException e) {
+                    if (closed.compareAndSet(false, true)) {  // Sinon déjà retiré, par le client ou le délai d'envoi
+                        subscriptions.remove(this);
+                        dropped.increment();
+                        logger.debug("Abonné retiré après un échec d'envoi : {}", e.getMessage());
+                    }
+                    closeSink();
+                    return;
+                }
+                scheduled.set(false);
+            } while (!closed.get() && published > cursor && scheduled.compareAndSet(false, true));
+            if (closed.get()) {
+                closeSink();  // Abonné retiré pendant un envoi bloqué
+            }
+        }
+
+        private void drainAvailable() throws IOException {
+            long end = published;
+            while (!closed.get() && (resync || cursor < end)) {
+                Slot slot = resync ? null : ring.get((int) ((cursor + 1) & mask));
+                if (slot == null || slot.sequence() != cursor + 1) {
+                    // Modifications écrasées avant d'avoir été envoyées : reprendre aux plus récentes
+                    end = published;
+                    resync = false;
+                    cursor = end;
+                    resyncs.increment();
+                    sendingSince = System.nanoTime();
+                    try {
+                        sink.resync(eventId(end), publishedVersion);
+                    } finally {
+                        sendingSince = 0;
+                    }
+                    continue;
+                }
+                cursor = slot.sequence();
+                if (slot.event().matches(station, address)) {
+                    sendingSince = System.nanoTime();
+                    try {
+                        sink.send(eventId(cursor), slot.event());
+                    } finally {
+                        sendingSince = 0;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,68 +1,482 @@
 package com.safetyNet.safetyNetSystem.service;
 
+import com.safetyNet.safetyNetSystem.dao.DataChanges;
+import com.safetyNet.safetyNetSystem.dao.DataIndex;
+import com.safetyNet.safetyNetSystem.dao.DataSnapshot;
+import com.safetyNet.safetyNetSystem.dao.StationGraph;
 import com.safetyNet.safetyNetSystem.model.DataContainer;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+import com.safetyNet.safetyNetSystem.util.ChangeLog;
 import com.safetyNet.safetyNetSystem.util.DataLoaderUtil;
+import com.safetyNet.safetyNetSystem.util.SnapshotList;
+import com.safetyNet.safetyNetSystem.util.StringDictionary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
 /**
  * Service permettant de charger et de sauvegarder les données dans un conteneur de données.
  * Il utilise un utilitaire de chargement et de sauvegarde des données pour gérer l'accès à celles-ci.
+ * <p>
+ * Les données sont publiées sous forme de versions immuables ({@link DataSnapshot}) via une référence
+ * volatile : les lectures ne prennent aucun verrou et ne voient jamais une modification partielle.
+ * Les écritures passent par {@link #write(Function)}, qui les exécute une par une sous un verrou
+ * unique puis publie la nouvelle version : elles sont linéarisables, dans l'ordre du journal.
+ * <p>
+ * Une requête peut épingler une version avec {@link #pin()} : toutes ses lectures portent alors sur
+ * cette même version, même si des écritures sont publiées entre deux étapes de la requête. Ses propres
+ * écritures déplacent l'épingle sur la version qu'elles publient.
+ * <p>
+ * Après chaque publication, les abonnés ({@link #addChangeListener(Consumer)}) reçoivent la portée de
+ * l'écriture ({@link DataChanges}), dans l'ordre des versions.
  */
 @Service
 public class DataLoaderService {
 
     private final DataLoaderUtil dataLoaderUtil;  // Utilitaire pour charger et sauvegarder les données
-    private DataContainer dataContainer;  // Conteneur de données
+    private final ChangeLog changeLog;  // Journal des modifications non encore couvertes par le fichier de données
+    private volatile DataSnapshot snapshot;  // Version courante des données, index et graphe compris
+    private final ThreadLocal<DataSnapshot> pinned = new ThreadLocal<>();  // Version épinglée par la requête en cours
+    private final ReentrantLock writeLock = new ReentrantLock();  // Sérialise les écritures, jamais pris en lecture
+    private final int replayedChangeCount;  // Nombre de modifications rejouées depuis le journal au démarrage
+    private final boolean readOnly;  // Jeu de données projeté en mémoire, non modifiable
+    private final StringDictionary stringDictionary = new StringDictionary();  // Valeurs répétées partagées
+    private final List<Consumer<DataChanges>> changeListeners = new CopyOnWriteArrayList<>();  // Abonnés aux écritures publiées
 
     // Création d'un logger pour la classe
     private static final Logger logger = LoggerFactory.getLogger(DataLoaderService.class);
 
     /**
      * Constructeur de DataLoaderService qui initialise le service avec l'utilitaire de chargement des données.
-     * Il charge les données une seule fois à l'initialisation.
+     * Il charge les données une seule fois à l'initialisation, puis rejoue par-dessus les modifications
+     * journalisées depuis le dernier instantané. Les entités sont décodées en parallèle et indexées au fil de la lecture ;
+     * le bean n'est disponible, et l'application prête à recevoir du trafic, qu'une fois les index construits.
      *
      * @param dataLoaderUtil L'utilitaire utilisé pour charger et sauvegarder les données.
+     * @param changeLog      Le journal des modifications non encore couvertes par le fichier de données.
      */
-    public DataLoaderService(DataLoaderUtil dataLoaderUtil) {
+    public DataLoaderService(DataLoaderUtil dataLoaderUtil, ChangeLog changeLog) {
         this.dataLoaderUtil = dataLoaderUtil;
+        this.changeLog = changeLog;
         logger.info("Initialisation de DataLoaderService...");
+        long start = System.nanoTime();
 
-        // Charger les données au démarrage
-        this.dataContainer = dataLoaderUtil.loadData();
+        // Charger les données au démarrage, en construisant les index au fil de la lecture
+        this.readOnly = dataLoaderUtil.isReadOnly();
+        DataIndex index = new DataIndex();
+        DataContainer dataContainer = dataLoaderUtil.loadData(indexingListener(index));
 
         // Si les données sont nulles, un DataContainer vide est créé
         if (dataContainer == null) {
             dataContainer = new DataContainer();  // Créer un DataContainer vide si les données sont vides
+            index = new DataIndex();  // Écarter ce qui a pu être indexé avant l'erreur de lecture
             logger.warn("Les données sont vides, un DataContainer vide a été créé.");
         } else {
             logger.info("Les données ont été chargées avec succès.");
         }
+
+        // Listes de la première version : copiées dans des listes versionnées si les données sont modifiables
+        List<Person> persons = initialList(dataContainer.getPersons());
+        List<Firestation> firestations = initialList(dataContainer.getFirestations());
+        List<MedicalRecord> medicalRecords = initialList(dataContainer.getMedicalrecords());
+        dataContainer.setPersons(persons);
+        dataContainer.setFirestations(firestations);
+        dataContainer.setMedicalrecords(medicalRecords);
+        index.freeze();
+        this.snapshot = new DataSnapshot(1, dataContainer, persons, firestations, medicalRecords, index,
+                new StationGraph(persons, firestations, index));
+
+        // Rejouer le journal par-dessus le fichier de données, en une seule nouvelle version
+        // (sauf en lecture seule : l'instantané projeté fait foi et ne peut pas être modifié)
+        if (readOnly) {
+            this.replayedChangeCount = 0;
+        } else {
+            DataSnapshot.Builder replay = snapshot.toBuilder();
+            long coveredSegment = dataContainer.getChangeLogSegment();
+            this.replayedChangeCount = changeLog.replay(coveredSegment, entry -> applyChange(replay, entry));
+            this.snapshot = replay.build();
+            changeLog.deleteSegmentsBefore(coveredSegment + 1);  // Segments déjà couverts, laissés par un arrêt brutal
+        }
+        if (replayedChangeCount > 0) {
+            logger.info("{} modification(s) rejouée(s) depuis le journal.", replayedChangeCount);
+        }
+
+        DataSnapshot loaded = snapshot;
+        logger.info("Démarrage des données en {} ms : {} personnes, {} casernes, {} dossiers médicaux, {} valeurs distinctes dans le dictionnaire ({}).",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), loaded.getPersons().size(),
+                loaded.getFirestations().size(), loaded.getMedicalRecords().size(), stringDictionary.size(), memoryUsage());
+    }
+
+    /**
+     * Récupère la version des données à lire. Ne prend aucun verrou : la version retournée reste
+     * cohérente et inchangée même si une écriture est publiée ensuite.
+     *
+     * @return La version épinglée par le thread courant, ou à défaut la dernière version publiée.
+     */
+    public DataSnapshot getSnapshot() {
+        DataSnapshot current = pinned.get();
+        return current != null ? current : snapshot;
+    }
+
+    /**
+     * Récupère le numéro de la dernière version publiée, sans tenir compte de l'épingle du thread courant.
+     *
+     * @return Le numéro de la dernière version publiée.
+     */
+    public long getPublishedVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * Abonne un composant aux écritures publiées. L'abonné est appelé par le thread qui écrit, juste après
+     * la publication et avant la fin de l'écriture : il doit être rapide et ne pas écrire lui-même.
+     *
+     * @param listener L'abonné, qui reçoit la portée de chaque écriture publiée.
+     */
+    public void addChangeListener(Consumer<DataChanges> listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Épingle la dernière version publiée pour le thread courant, jusqu'à la fermeture de l'épingle.
+     * Un appel imbriqué conserve la version déjà épinglée.
+     *
+     * @return L'épingle, à fermer en fin de requête (try-with-resources).
+     */
+    public Pin pin() {
+        if (pinned.get() != null) {
+            return new Pin(false);
+        }
+        pinned.set(snapshot);
+        return new Pin(true);
     }
 
     /**
-     * Récupère le DataContainer contenant les données chargées.
+     * Récupère le DataContainer de la version courante des données.
      *
-     * @return L'instance de DataContainer avec les données chargées.
+     * @return L'instance de DataContainer de la dernière version publiée.
      */
     public DataContainer getDataContainer() {
         logger.debug("Récupération du DataContainer.");
-        return dataContainer;  // Renvoie l'instance partagée de DataContainer
+        return getSnapshot().getDataContainer();
+    }
+
+    /**
+     * Récupère l'index de recherche de la version courante.
+     *
+     * @return L'instance de DataIndex de la dernière version publiée.
+     */
+    public DataIndex getDataIndex() {
+        return getSnapshot().getDataIndex();
+    }
+
+    /**
+     * Récupère le graphe station → foyers → habitants de la version courante.
+     *
+     * @return L'instance de StationGraph de la dernière version publiée.
+     */
+    public StationGraph getStationGraph() {
+        return getSnapshot().getStationGraph();
+    }
+
+    /**
+     * Exécute une écriture sur les données. Les écritures sont exécutées une par une : la modification
+     * est préparée sur une nouvelle version à partir de la version courante, puis publiée en une fois
+     * si elle se termine sans exception. Les lectures concurrentes continuent sur la version précédente.
+     * La modification doit être journalisée à l'intérieur de l'écriture, pour que l'ordre du journal
+     * soit celui des versions publiées. Si le thread courant a épinglé une version, l'épingle passe
+     * sur la version publiée, pour que la suite de la requête lise ses propres écritures. Les abonnés
+     * sont prévenus avant que l'écriture ne rende la main.
+     *
+     * @param mutation La modification, appliquée au builder de la nouvelle version.
+     * @param <T>      Le type du résultat de la modification.
+     * @return Le résultat de la modification.
+     * @throws UnsupportedOperationException si le jeu de données est en lecture seule.
+     */
+    public <T> T write(Function<DataSnapshot.Builder, T> mutation) {
+        checkWritable();
+        writeLock.lock();
+        try {
+            DataSnapshot.Builder builder = snapshot.toBuilder();
+            T result = mutation.apply(builder);
+            DataSnapshot previous = snapshot;
+            snapshot = builder.build();
+            if (pinned.get() != null) {
+                pinned.set(snapshot);
+            }
+            if (snapshot != previous) {
+                notifyChange(builder.getChanges());
+            }
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Transmet la portée d'une écriture publiée aux abonnés. L'écriture étant déjà publiée, l'erreur d'un
+     * abonné est journalisée sans être propagée.
+     */
+    private void notifyChange(DataChanges changes) {
+        for (Consumer<DataChanges> listener : changeListeners) {
+            try {
+                listener.accept(changes);
+            } catch (RuntimeException e) {
+                logger.error("Erreur d'un abonné aux modifications (version {}).", changes.version(), e);
+            }
+        }
+    }
+
+    /**
+     * Récupère le dictionnaire des valeurs répétées, utilisé par les DAO pour encoder les entités modifiées.
+     *
+     * @return Le dictionnaire partagé.
+     */
+    public StringDictionary getStringDictionary() {
+        return stringDictionary;
+    }
+
+    /**
+     * Vérifie que le jeu de données accepte les modifications.
+     *
+     * @throws UnsupportedOperationException si le jeu de données est projeté en mémoire, en lecture seule.
+     */
+    public void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Le jeu de données est en lecture seule");
+        }
+    }
+
+    /**
+     * Récupère le nombre de modifications rejouées depuis le journal au démarrage.
+     *
+     * @return Le nombre d'entrées du journal appliquées sur le fichier de données.
+     */
+    public int getReplayedChangeCount() {
+        return replayedChangeCount;
     }
 
     /**
      * Sauvegarde les données dans le DataContainer.
      * Utilise l'utilitaire de chargement des données pour effectuer la sauvegarde.
      * En cas d'erreur, un message d'erreur est enregistré.
+     * Cette méthode écrit immédiatement : les DAO passent par le PersistenceService,
+     * qui regroupe les modifications avant d'appeler cette méthode.
+     * Un nouveau segment de journal est ouvert et la version à écrire est lue ensemble, sous le verrou
+     * d'écriture : les segments antérieurs contiennent exactement les modifications de cette version ;
+     * les modifications suivantes vont dans le nouveau segment. Le dernier segment couvert est écrit
+     * dans l'instantané même, si bien qu'un arrêt avant la suppression des segments couverts ne les
+     * fait pas rejouer au démarrage suivant.
+     *
+     * @return true si la sauvegarde a réussi, false sinon.
      */
-    public void saveData() {
+    public boolean saveData() {
+        DataSnapshot saved;
+        long firstUncoveredSegment;
+        writeLock.lock();
+        try {
+            firstUncoveredSegment = changeLog.rotate();
+            saved = snapshot;
+        } finally {
+            writeLock.unlock();
+        }
+        DataContainer published = saved.getDataContainer();
+        DataContainer dataContainer = new DataContainer();  // La version publiée n'est pas modifiée
+        dataContainer.setPersons(published.getPersons());
+        dataContainer.setFirestations(published.getFirestations());
+        dataContainer.setMedicalrecords(published.getMedicalrecords());
+        dataContainer.setChangeLogSegment(firstUncoveredSegment - 1);
         try {
-            dataLoaderUtil.saveData(dataContainer);  // Sauvegarde des données après modifications
-            logger.info("Les données ont été sauvegardées avec succès.");
+            boolean result = dataLoaderUtil.saveData(dataContainer);  // Sauvegarde des données après modifications
+            if (result) {
+                changeLog.deleteSegmentsBefore(firstUncoveredSegment);
+                logger.info("Les données ont été sauvegardées avec succès.");
+            }
+            return result;
         } catch (Exception e) {
             // En cas d'erreur, le message d'erreur est loggé
             logger.error("Erreur lors de la sauvegarde des données : {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Applique une entrée du journal sur la version en préparation, avec la même sémantique que les DAO.
+     * Les segments rejoués ne contiennent que des modifications absentes du fichier de données
+     * (voir {@link #saveData()}) : chaque entrée est appliquée telle quelle, un ajout répété produisant
+     * deux entités, comme lors de l'écriture d'origine.
+     *
+     * @param data  La version en préparation.
+     * @param entry L'entrée à appliquer.
+     */
+    private void applyChange(DataSnapshot.Builder data, ChangeLog.Entry entry) {
+        DataIndex index = data.getDataIndex();
+        switch (entry.op()) {
+            case ADD_PERSON -> {
+                Person person = entry.person();
+                stringDictionary.intern(person);
+                data.addPerson(person);
+            }
+            case UPDATE_PERSON -> index.findPerson(entry.firstName(), entry.lastName()).ifPresent(person -> {
+                Person updated = entry.person();
+                stringDictionary.intern(updated);
+                data.replacePerson(person, updated);
+            });
+            case DELETE_PERSON -> {
+                for (Person person : List.copyOf(index.findPersonsByName(entry.firstName(), entry.lastName()))) {
+                    data.removePerson(person);
+                }
+            }
+            case ADD_FIRESTATION -> {
+                Firestation firestation = entry.firestation();
+                stringDictionary.intern(firestation);
+                data.addFirestation(firestation);
+            }
+            case UPDATE_FIRESTATION -> index.findFirestationsByAddress(entry.address()).stream().findFirst().ifPresent(firestation -> {
+                Firestation updated = new Firestation(firestation.getAddress(), entry.firestation().getStation());
+                stringDictionary.intern(updated);
+                data.replaceFirestation(firestation, updated);
+            });
+            case DELETE_FIRESTATION -> {
+                for (Firestation firestation : List.copyOf(index.findFirestationsByAddress(entry.address()))) {
+                    data.removeFirestation(firestation);
+                }
+            }
+            case ADD_MEDICAL_RECORD -> {
+                MedicalRecord medicalRecord = entry.medicalRecord();
+                stringDictionary.intern(medicalRecord);
+                data.addMedicalRecord(medicalRecord);
+            }
+            case UPDATE_MEDICAL_RECORD -> index.findMedicalRecord(entry.firstName(), entry.lastName()).ifPresent(medicalRecord -> {
+                MedicalRecord updated = entry.medicalRecord();
+                updated = new MedicalRecord(medicalRecord.getFirstName(), medicalRecord.getLastName(),
+                        updated.getBirthdate(), updated.getMedications(), updated.getAllergies());
+                stringDictionary.intern(updated);
+                data.replaceMedicalRecord(medicalRecord, updated);
+            });
+            case DELETE_MEDICAL_RECORD -> {
+                for (MedicalRecord medicalRecord : List.copyOf(index.findMedicalRecordsByName(entry.firstName(), entry.lastName()))) {
+                    data.removeMedicalRecord(medicalRecord);
+                }
+            }
+            case BATCH -> entry.entries().forEach(batchEntry -> applyChange(data, batchEntry));
+        }
+    }
+
+    /**
+     * Liste de la première version des données : une liste versionnée, sauf en lecture seule où la liste
+     * chargée (projetée en mémoire) est conservée telle quelle.
+     *
+     * @param loaded La liste chargée, éventuellement null.
+     * @param <T>    Le type des entités.
+     * @return La liste à publier.
+     */
+    private <T> List<T> initialList(List<T> loaded) {
+        if (loaded == null) {
+            return readOnly ? List.of() : SnapshotList.copyOf(List.of());
+        }
+        return readOnly ? loaded : SnapshotList.copyOf(loaded);
+    }
+
+    /**
+     * Listener de chargement qui encode les valeurs répétées de chaque entité lue dans le dictionnaire,
+     * puis l'ajoute dans l'index. En lecture seule, les entités projetées partagent déjà leurs chaînes
+     * et ne sont pas modifiables : elles sont seulement indexées.
+     *
+     * @param index L'index à alimenter.
+     * @return Le listener à transmettre au chargement.
+     */
+    private DataLoaderUtil.LoadListener indexingListener(DataIndex index) {
+        return new DataLoaderUtil.LoadListener() {
+            @Override
+            public void onPerson(Person person) {
+                if (!readOnly) {
+                    stringDictionary.intern(person);
+                }
+                index.indexPerson(person);
+            }
+
+            @Override
+            public void onFirestation(Firestation firestation) {
+                if (!readOnly) {
+                    stringDictionary.intern(firestation);
+                }
+                index.indexFirestation(firestation);
+            }
+
+            @Override
+            public void onMedicalRecord(MedicalRecord medicalRecord) {
+                if (!readOnly) {
+                    stringDictionary.intern(medicalRecord);
+                }
+                index.indexMedicalRecord(medicalRecord);
+            }
+        };
+    }
+
+    /**
+     * Décrit l'occupation mémoire du processus : pic de mémoire résidente (lu dans /proc sous Linux)
+     * et tas utilisé.
+     *
+     * @return La description à journaliser.
+     */
+    private static String memoryUsage() {
+        long heapUsedMb = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / (1024 * 1024);
+        String peakRss = "inconnu";
+        try (Stream<String> lines = Files.lines(Path.of("/proc/self/status"))) {
+            peakRss = lines.filter(line -> line.startsWith("VmHWM:"))
+                    .map(line -> line.substring("VmHWM:".length()).trim())
+                    .findFirst()
+                    .orElse(peakRss);
+        } catch (IOException | UncheckedIOException e) {
+            logger.debug("Pic de mémoire résidente indisponible : {}", e.getMessage());
+        }
+        return "pic RSS : " + peakRss + ", tas utilisé : " + heapUsedMb + " Mo";
+    }
+
+    /**
+     * Épingle d'une version sur le thread courant. La fermeture libère la version, qui peut alors être
+     * récupérée dès qu'aucune autre requête ne la lit.
+     */
+    public final class Pin implements AutoCloseable {
+        private final boolean owner;  // false pour une épingle imbriquée, qui ne libère rien
+
+        private Pin(boolean owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * Récupère la version épinglée.
+         *
+         * @return La version lue par le thread courant.
+         */
+        public DataSnapshot getSnapshot() {
+            return DataLoaderService.this.getSnapshot();
+        }
+
+        /**
+         * Libère la version épinglée.
+         */
+        @Override
+        public void close() {
+            if (owner) {
+                pinned.remove();
+            }
         }
     }
 }
@@ -0,0 +1,187 @@
+package com.safetyNet.safetyNetSystem.service;
+
+import com.safetyNet.safetyNetSystem.dao.DataChanges;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versions des données par adresse, par station et par ville : pour chacune, la dernière version publiée
+ * qui l'a touchée et sa date de publication, tenues à jour par les écritures des DAO (voir {@link DataChanges}).
+ * <p>
+ * Ces versions servent d'ETag et de Last-Modified aux requêtes GET : tant qu'aucune écriture ne touche
+ * l'adresse, la station ou la ville demandée, la réponse est inchangée. La date du jour entre aussi dans
+ * l'ETag, car les âges calculés changent chaque jour, ainsi que l'instant de démarrage, car les versions
+ * repartent de zéro à chaque démarrage.
+ */
+@Service
+public class DataVersions {
+
+    /**
+     * Portée d'un paramètre de requête : adresse, numéro de station ou ville.
+     */
+    public enum Scope { ADDRESS, STATION, CITY }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);  // Distingue les démarrages successifs
+    private final Map<Scope, ConcurrentHashMap<String, Tag>> tags = new EnumMap<>(Scope.class);
+    private final Tag initial;
+    private volatile Tag latest;  // Dernière version publiée dont la portée est enregistrée
+
+    /**
+     * Constructeur, abonné aux écritures publiées.
+     *
+     * @param dataLoaderService Le service publiant les versions des données.
+     */
+    public DataVersions(DataLoaderService dataLoaderService) {
+        for (Scope scope : Scope.values()) {
+            tags.put(scope, new ConcurrentHashMap<>());
+        }
+        dataLoaderService.addChangeListener(this::record);
+        initial = new Tag(dataLoaderService.getPublishedVersion(), System.currentTimeMillis());
+        latest = initial;
+    }
+
+    /**
+     * Dernière version publiée dont la portée est enregistrée. Une version plus récente est en cours
+     * de publication : ses modifications ne sont pas encore visibles ici.
+     *
+     * @return Le numéro de version.
+     */
+    public long getVersion() {
+        return latest.version;
+    }
+
+    /**
+     * Dernière version qui a touché un paramètre.
+     *
+     * @param scope     La portée du paramètre.
+     * @param parameter Le paramètre (adresse, numéro de station ou ville, sans tenir compte de la casse).
+     * @return Le numéro de version, ou 0 si aucune écriture ne l'a touché depuis le démarrage.
+     */
+    public long getVersion(Scope scope, String parameter) {
+        Tag tag = parameter == null ? null : tags.get(scope).get(key(scope, parameter));
+        return tag == null ? 0 : tag.version;
+    }
+
+    /**
+     * Version de l'ensemble des données lues par une requête.
+     *
+     * @param snapshotVersion La version lue par la requête.
+     * @return La version et sa date, ou null si une écriture plus récente a été publiée ou est en cours.
+     */
+    public Tag find(long snapshotVersion) {
+        Tag tag = latest;
+        return tag.version == snapshotVersion ? tag : null;
+    }
+
+    /**
+     * Version des données d'un paramètre lues par une requête : la dernière version qui l'a touché.
+     *
+     * @param scope           La portée du paramètre.
+     * @param parameter       Le paramètre.
+     * @param snapshotVersion La version lue par la requête.
+     * @return La version et sa date, ou null si elle ne peut pas être déterminée pour la version lue.
+     */
+    public Tag find(Scope scope, String parameter, long snapshotVersion) {
+        return find(scope, Collections.singletonList(parameter), snapshotVersion);
+    }
+
+    /**
+     * Version des données de plusieurs paramètres lues par une requête : la plus récente des dernières
+     * versions qui les ont touchés.
+     *
+     * @param scope           La portée des paramètres.
+     * @param parameters      Les paramètres.
+     * @param snapshotVersion La version lue par la requête.
+     * @return La version et sa date, ou null si elle ne peut pas être déterminée pour la version lue :
+     * la portée de cette version n'est pas encore enregistrée, ou un paramètre a été touché depuis.
+     */
+    public Tag find(Scope scope, Collection<String> parameters, long snapshotVersion) {
+        if (snapshotVersion > latest.version) {
+            return null;
+        }
+        Tag result = initial;
+        for (String parameter : parameters) {
+            Tag tag = parameter == null ? initial : tags.get(scope).getOrDefault(key(scope, parameter), initial);
+            if (tag.version > snapshotVersion) {
+                return null;
+            }
+            if (tag.version > result.version) {
+                result = tag;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Enregistre la portée d'une écriture publiée, avant de la rendre visible par {@link #getVersion()}.
+     */
+    private void record(DataChanges changes) {
+        Tag tag = new Tag(changes.version(), System.currentTimeMillis());
+        record(Scope.ADDRESS, changes.addresses(), tag);
+        record(Scope.STATION, changes.stations(), tag);
+        record(Scope.CITY, changes.cities(), tag);
+        latest = tag;
+    }
+
+    private void record(Scope scope, Set<String> parameters, Tag tag) {
+        for (String parameter : parameters) {
+            if (parameter != null) {
+                tags.get(scope).merge(parameter, tag, (previous, current) -> current.version > previous.version ? current : previous);
+            }
+        }
+    }
+
+    private static String key(Scope scope, String parameter) {
+        return scope == Scope.CITY ? DataChanges.cityKey(parameter) : parameter;
+    }
+
+    /**
+     * Version des données d'une réponse, avec sa date de publication.
+     */
+    public final class Tag {
+        private final long version;
+        private final long modifiedAt;
+
+        private Tag(long version, long modifiedAt) {
+            this.version = version;
+            this.modifiedAt = modifiedAt;
+        }
+
+        /**
+         * Récupère le numéro de version.
+         *
+         * @return Le numéro de version.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * ETag fort de la réponse (entre guillemets) : démarrage, version et date du jour.
+         *
+         * @return L'ETag.
+         */
+        public String eTag() {
+            return "\"" + epoch + "." + version + "." + LocalDate.now().toEpochDay() + "\"";
+        }
+
+        /**
+         * Date de dernière modification de la réponse : la publication de la version, ou le début du jour
+         * s'il est plus récent (les âges ont pu changer).
+         *
+         * @return La date, en millisecondes depuis l'epoch.
+         */
+        public long lastModified() {
+            long startOfDay = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return Math.max(modifiedAt, startOfDay);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.safetyNet.safetyNetSystem.service;
 
 import com.safetyNet.safetyNetSystem.dao.FirestationDAO;
+import com.safetyNet.safetyNetSystem.dao.StationGraph.Household;
+import com.safetyNet.safetyNetSystem.dao.StationGraph.Resident;
+import com.safetyNet.safetyNetSystem.dto.BatchOperation;
+import com.safetyNet.safetyNetSystem.dto.BatchResponse;
 import com.safetyNet.safetyNetSystem.dto.FirestationResponse;
 import com.safetyNet.safetyNetSystem.dto.FirestationResponseNoCount;
 import com.safetyNet.safetyNetSystem.dto.MedicalInfo;
@@ -8,16 +12,20 @@ import com.safetyNet.safetyNetSystem.dto.PersonInfo;
 import com.safetyNet.safetyNetSystem.model.Firestation;
 import com.safetyNet.safetyNetSystem.model.Person;
 import com.safetyNet.safetyNetSystem.model.MedicalRecord;
-import com.safetyNet.safetyNetSystem.util.DateUtil;
+import com.safetyNet.safetyNetSystem.util.FanOutExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class FirestationService {
@@ -25,18 +33,12 @@ public class FirestationService {
     private static final Logger logger = LoggerFactory.getLogger(FirestationService.class);
 
     private final FirestationDAO firestationDAO;
-
-    @Lazy
-    private final PersonService personService;
-
-    @Lazy
-    private final MedicalRecordService medicalRecordService;
+    private final FanOutExecutor fanOutExecutor;  // Construit en parallèle les foyers de /flood/stations
 
     @Autowired
-    public FirestationService(FirestationDAO firestationDAO, @Lazy MedicalRecordService medicalRecordService, @Lazy PersonService personService) {
+    public FirestationService(FirestationDAO firestationDAO, FanOutExecutor fanOutExecutor) {
         this.firestationDAO = firestationDAO;
-        this.medicalRecordService = medicalRecordService;
-        this.personService = personService;
+        this.fanOutExecutor = fanOutExecutor;
     }
 
     /**
@@ -97,8 +99,27 @@ public class FirestationService {
         return isDeleted;
     }
 
+    /**
+     * Applique un lot d'insertions ou mises à jour et de suppressions de casernes, en entier ou pas du tout.
+     *
+     * @param operations les opérations du lot.
+     * @return le résultat de chaque opération.
+     */
+    public BatchResponse applyBatch(List<BatchOperation<Firestation>> operations) {
+        logger.info("Applying a batch of {} firestation operations", operations.size());
+        BatchResponse response = firestationDAO.applyBatch(operations);
+        if (response.isApplied()) {
+            logger.info("Firestation batch applied successfully");
+        } else {
+            logger.warn("Firestation batch rejected: invalid operations");
+        }
+        return response;
+    }
+
     /**
      * Récupère les personnes couvertes par une caserne de pompiers en fonction du numéro de la caserne.
+     * Tous les foyers des adresses couvertes par la station sont parcourus, dans l'ordre où leurs adresses
+     * ont été rattachées à la station.
      *
      * @param stationNumber le numéro de la caserne de pompiers.
      * @return une réponse contenant les informations des personnes couvertes par la caserne.
@@ -106,46 +127,35 @@ public class FirestationService {
     public FirestationResponse getPersonsCoveredByStation(String stationNumber) {
         logger.info("Fetching persons covered by firestation with station number: {}", stationNumber);
 
-        List<Person> allPersons = personService.getAllPersons();
-        List<Firestation> firestations = firestationDAO.getAllFirestations();
-
-        String addressForStation = firestations.stream()
-                .filter(firestation -> firestation.getStation().equals(stationNumber))
-                .map(Firestation::getAddress)
-                .findFirst()
-                .orElse(null);
+        List<Household> households = firestationDAO.getHouseholdsByStation(stationNumber);
 
-        if (addressForStation == null) {
+        if (households.isEmpty()) {
             logger.warn("No firestation found for station number: {}", stationNumber);
             return new FirestationResponse(new ArrayList<>(), 0, 0);
         }
 
-        List<Person> personsCoveredByStation = allPersons.stream()
-                .filter(person -> person.getAddress().equals(addressForStation))
-                .toList();
-
         List<PersonInfo> personInfoList = new ArrayList<>();
         int numberOfAdults = 0;
         int numberOfChildren = 0;
 
-        for (Person person : personsCoveredByStation) {
-            Optional<MedicalRecord> medicalRecordOptional = medicalRecordService.getMedicalRecordByPerson(person);
-            if (medicalRecordOptional.isPresent()) {
-                MedicalRecord medicalRecord = medicalRecordOptional.get();
-                int age = DateUtil.calculateAge(medicalRecord.getBirthdate());
-
-                PersonInfo personInfo = new PersonInfo(
-                        person.getFirstName(),
-                        person.getLastName(),
-                        person.getAddress(),
-                        person.getPhone()
-                );
-                personInfoList.add(personInfo);
-
-                if (age < 18) {
-                    numberOfChildren++;
-                } else {
-                    numberOfAdults++;
+        for (Household household : households) {
+            for (Resident resident : household.getResidents()) {
+                MedicalRecord medicalRecord = resident.getMedicalRecord();
+                if (medicalRecord != null) {
+                    Person person = resident.getPerson();
+                    PersonInfo personInfo = new PersonInfo(
+                            person.getFirstName(),
+                            person.getLastName(),
+                            person.getAddress(),
+                            person.getPhone()
+                    );
+                    personInfoList.add(personInfo);
+
+                    if (medicalRecord.isChild()) {  // Sans analyse de la date de naissance à chaque requête
+                        numberOfChildren++;
+                    } else {
+                        numberOfAdults++;
+                    }
                 }
             }
         }
@@ -158,24 +168,12 @@ public class FirestationService {
      * Récupère les numéros de téléphone des personnes couvertes par une caserne de pompiers en fonction du numéro de la caserne.
      *
      * @param stationNumber le numéro de la caserne de pompiers.
-     * @return une liste des numéros de téléphone des personnes couvertes par la caserne.
+     * @return une vue non modifiable des numéros de téléphone, sans doublon, des personnes couvertes par la caserne.
      */
-    public List<String> getPhoneNumbersByStation(String stationNumber) {
+    public Set<String> getPhoneNumbersByStation(String stationNumber) {
         logger.info("Fetching phone numbers for persons covered by firestation with station number: {}", stationNumber);
 
-        List<Person> allPersons = personService.getAllPersons();
-        List<Firestation> firestations = firestationDAO.getAllFirestations();
-
-        List<String> addressesForStation = firestations.stream()
-                .filter(firestation -> firestation.getStation().equals(stationNumber))
-                .map(Firestation::getAddress)
-                .toList();
-
-        List<String> phoneNumbers = allPersons.stream()
-                .filter(person -> addressesForStation.contains(person.getAddress()))
-                .map(Person::getPhone)
-                .distinct()
-                .toList();
+        Set<String> phoneNumbers = firestationDAO.getPhonesByStation(stationNumber);  // Tenue à jour par le graphe, sans calcul par requête
 
         logger.info("Found {} phone numbers for firestation with station number: {}", phoneNumbers.size(), stationNumber);
         return phoneNumbers;
@@ -190,11 +188,7 @@ public class FirestationService {
     public FirestationResponseNoCount getFirestationInfoByAddress(String address) {
         logger.info("Fetching firestation info for address: {}", address);
 
-        List<Firestation> firestations = firestationDAO.getAllFirestations();
-        Firestation firestation = firestations.stream()
-                .filter(f -> f.getAddress().equals(address))
-                .findFirst()
-                .orElse(null);
+        Firestation firestation = firestationDAO.getFirestationByAddress(address).orElse(null);
 
         if (firestation == null) {
             logger.warn("No firestation found for address: {}", address);
@@ -202,7 +196,16 @@ public class FirestationService {
         }
 
         String stationNumber = firestation.getStation();
-        List<PersonInfo> personsInfo = personService.getPersonsWithMedicalInfoByAddress(address, true);
+        List<PersonInfo> personsInfo = new ArrayList<>();
+
+        for (Resident resident : firestationDAO.getResidentsByAddress(address)) {
+            PersonInfo personInfo = toPersonInfo(resident.getPerson());
+            MedicalRecord medicalRecord = resident.getMedicalRecord();
+            if (medicalRecord != null) {
+                personInfo.setMedicalInfo(new MedicalInfo(medicalRecord.getMedications(), medicalRecord.getAllergies()));
+            }
+            personsInfo.add(personInfo);
+        }
 
         logger.info("Found firestation and persons info for address: {}", address);
         return new FirestationResponseNoCount(personsInfo, stationNumber);
@@ -210,6 +213,9 @@ public class FirestationService {
 
     /**
      * Récupère les casernes de pompiers inondées en fonction des numéros de station.
+     * Les foyers de toutes les stations sont d'abord relevés sur la version des données lue par la requête,
+     * puis leurs réponses sont construites en parallèle au-delà d'un certain nombre de foyers
+     * ({@link FanOutExecutor}) ; l'ordre des stations et des foyers est conservé.
      *
      * @param stations une liste de numéros de stations de pompiers.
      * @return une liste des casernes inondées avec les informations des personnes couvertes.
@@ -217,55 +223,80 @@ public class FirestationService {
     public List<FirestationResponseNoCount> getFloodedStations(List<String> stations) {
         logger.info("Fetching flooded stations for station numbers: {}", stations);
 
-        List<Firestation> firestations = firestationDAO.getAllFirestations();
-        List<FirestationResponseNoCount> floodedStations = new ArrayList<>();
-
         if (stations.isEmpty()) {
             logger.warn("No stations provided for flooding");
-            return floodedStations;
+            return new ArrayList<>();
         }
 
-        for (Firestation firestation : firestations) {
-            String stationNumber = firestation.getStation();
-            if (stations.contains(stationNumber)) {
-                String stationAddress = firestation.getAddress();
-
-                List<Person> allPersons = personService.getAllPersons();
-                List<Person> personsCoveredByStation = allPersons.stream()
-                        .filter(person -> person.getAddress().equals(stationAddress))
-                        .toList();
-
-                List<PersonInfo> personInfoList = new ArrayList<>();
-
-                for (Person person : personsCoveredByStation) {
-                    Optional<MedicalRecord> medicalRecordOptional = medicalRecordService.getMedicalRecordByPerson(person);
-                    if (medicalRecordOptional.isPresent()) {
-                        MedicalRecord medicalRecord = medicalRecordOptional.get();
-                        int age = DateUtil.calculateAge(medicalRecord.getBirthdate());
+        List<StationHousehold> households = new ArrayList<>();
+        for (String stationNumber : new LinkedHashSet<>(stations)) {
+            for (Household household : firestationDAO.getHouseholdsByStation(stationNumber)) {
+                households.add(new StationHousehold(stationNumber, household));
+            }
+        }
+        List<FirestationResponseNoCount> floodedStations = fanOutExecutor
+                .map(households, entry -> toFloodedHousehold(entry.stationNumber(), entry.household())).stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
 
-                        List<String> medications = medicalRecord.getMedications();
-                        List<String> allergies = medicalRecord.getAllergies();
+        logger.info("Found {} flooded stations", floodedStations.size());
+        return floodedStations;
+    }
 
-                        PersonInfo personInfo = new PersonInfo(
-                                person.getFirstName(),
-                                person.getLastName(),
-                                person.getAddress(),
-                                person.getPhone()
-                        );
-                        personInfo.setMedicalInfo(new MedicalInfo(medications, allergies));
+    /**
+     * Parcourt les foyers couverts par plusieurs stations, dans le même ordre que {@link #getFloodedStations(List)}.
+     * Les foyers sont construits un par un au fil du parcours, station après station, sans liste intermédiaire.
+     *
+     * @param stations une liste de numéros de stations de pompiers.
+     * @return un flux des foyers ayant au moins un habitant avec un dossier médical.
+     */
+    public Stream<FirestationResponseNoCount> streamFloodedStations(List<String> stations) {
+        return new LinkedHashSet<>(stations).stream()
+                .flatMap(stationNumber -> firestationDAO.getHouseholdsByStation(stationNumber).stream()
+                        .map(household -> toFloodedHousehold(stationNumber, household))
+                        .filter(Objects::nonNull));
+    }
 
-                        personInfoList.add(personInfo);
-                    }
-                }
+    /**
+     * Construit la réponse d'un foyer : ses habitants ayant un dossier médical, avec leurs informations médicales.
+     *
+     * @param stationNumber le numéro de la station qui couvre le foyer.
+     * @param household le foyer.
+     * @return la réponse du foyer, ou null si aucun habitant n'a de dossier médical.
+     */
+    private FirestationResponseNoCount toFloodedHousehold(String stationNumber, Household household) {
+        List<PersonInfo> personInfoList = new ArrayList<>();
 
-                if (!personInfoList.isEmpty()) {
-                    FirestationResponseNoCount firestationResponse = new FirestationResponseNoCount(personInfoList, stationNumber);
-                    floodedStations.add(firestationResponse);
-                }
+        for (Resident resident : household.getResidents()) {
+            MedicalRecord medicalRecord = resident.getMedicalRecord();
+            if (medicalRecord != null) {
+                PersonInfo personInfo = toPersonInfo(resident.getPerson());
+                personInfo.setMedicalInfo(new MedicalInfo(medicalRecord.getMedications(), medicalRecord.getAllergies()));
+                personInfoList.add(personInfo);
             }
         }
 
-        logger.info("Found {} flooded stations", floodedStations.size());
-        return floodedStations;
+        return personInfoList.isEmpty() ? null : new FirestationResponseNoCount(personInfoList, stationNumber);
+    }
+
+    /**
+     * Foyer couvert par l'une des stations demandées.
+     */
+    private record StationHousehold(String stationNumber, Household household) {
+    }
+
+    /**
+     * Construit les informations de base (nom, adresse, téléphone) d'une personne.
+     *
+     * @param person la personne.
+     * @return les informations de la personne, sans informations médicales.
+     */
+    private PersonInfo toPersonInfo(Person person) {
+        return new PersonInfo(
+                person.getFirstName(),
+                person.getLastName(),
+                person.getAddress(),
+                person.getPhone()
+        );
     }
 }
@@ -1,6 +1,8 @@
 package com.safetyNet.safetyNetSystem.service;
 
 import com.safetyNet.safetyNetSystem.dao.MedicalRecordDAO;
+import com.safetyNet.safetyNetSystem.dto.BatchOperation;
+import com.safetyNet.safetyNetSystem.dto.BatchResponse;
 import com.safetyNet.safetyNetSystem.model.MedicalRecord;
 import com.safetyNet.safetyNetSystem.model.Person;
 import com.safetyNet.safetyNetSystem.util.DataLoaderUtil;
@@ -104,6 +106,22 @@ public class MedicalRecordService {
         }
     }
 
+    /**
+     * Applique un lot d'insertions ou mises à jour et de suppressions d'enregistrements médicaux,
+     * en entier ou pas du tout.
+     *
+     * @param operations Les opérations du lot
+     * @return Le résultat de chaque opération
+     * @throws IllegalArgumentException Si le lot est null
+     */
+    public BatchResponse applyBatch(List<BatchOperation<MedicalRecord>> operations) {
+        if (operations == null) {
+            throw new IllegalArgumentException("Le lot ne peut pas être null");
+        }
+
+        return medicalRecordDAO.applyBatch(operations);
+    }
+
     /**
      * Récupère l'enregistrement médical d'une personne donnée.
      *
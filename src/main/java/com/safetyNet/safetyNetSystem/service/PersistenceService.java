@@ -0,0 +1,196 @@
+package com.safetyNet.safetyNetSystem.service;
+
+import com.safetyNet.safetyNetSystem.util.ChangeLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service de persistance asynchrone (write-behind) des données.
+ * Les DAO signalent chaque modification via {@link #recordChange(ChangeLog.Entry)} : la modification est
+ * ajoutée au journal (une petite écriture séquentielle, durable dès le retour de l'appel) et le fichier
+ * complet n'est pas réécrit immédiatement. Un instantané complet est écrit par un thread dédié, soit à
+ * intervalle régulier, soit dès que le nombre de modifications en attente atteint un seuil ; les segments
+ * de journal couverts par l'instantané sont alors supprimés.
+ * Les données en attente sont écrites à l'arrêt de l'application.
+ * <p>
+ * En mode threads virtuels (spring.threads.virtual.enabled), le thread d'écriture est lui aussi virtuel.
+ */
+@Service
+public class PersistenceService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistenceService.class);
+
+    private final DataLoaderService dataLoaderService;
+    private final ChangeLog changeLog;
+    private final int maxDirtyCount;
+    private final ScheduledExecutorService executor;
+    private final ReentrantLock flushLock = new ReentrantLock();  // Un seul instantané à la fois, sans bloquer le porteur d'un thread virtuel
+
+    private final AtomicInteger dirtyCount = new AtomicInteger();        // Modifications non encore écrites
+    private final AtomicLong oldestDirtyNanos = new AtomicLong();        // Date de la plus ancienne modification non écrite (0 si aucune)
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();    // Évite d'empiler les écritures déclenchées par le seuil
+
+    /**
+     * Constructeur du service de persistance.
+     *
+     * @param dataLoaderService Service effectuant l'écriture effective des données.
+     * @param changeLog         Journal dans lequel chaque modification est ajoutée avant l'instantané.
+     * @param flushIntervalMs   Intervalle maximal, en millisecondes, entre deux instantanés lorsque des modifications sont en attente.
+     * @param maxDirtyCount     Nombre de modifications en attente déclenchant un instantané anticipé.
+     * @param virtualThreads    Si true, les instantanés sont écrits par un thread virtuel.
+     */
+    public PersistenceService(DataLoaderService dataLoaderService, ChangeLog changeLog,
+                              @Value("${safetynet.persistence.flush-interval-ms:30000}") long flushIntervalMs,
+                              @Value("${safetynet.persistence.max-dirty-count:10000}") int maxDirtyCount,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.dataLoaderService = dataLoaderService;
+        this.changeLog = changeLog;
+        this.maxDirtyCount = maxDirtyCount;
+        this.executor = Executors.newSingleThreadScheduledExecutor(virtualThreads
+                ? Thread.ofVirtual().name("data-persister").factory()
+                : Thread.ofPlatform().name("data-persister").daemon().factory());
+        executor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (dataLoaderService.getReplayedChangeCount() > 0) {
+            markDirty();  // Intégrer au prochain instantané les modifications rejouées depuis le journal
+        }
+        logger.info("Persistance asynchrone activée (intervalle : {} ms, seuil : {} modifications, thread {})",
+                flushIntervalMs, maxDirtyCount, virtualThreads ? "virtuel" : "dédié");
+    }
+
+    /**
+     * Journalise une modification des données puis la signale comme en attente d'instantané.
+     *
+     * @param entry L'entrée décrivant la modification.
+     * @throws java.io.UncheckedIOException si l'ajout au journal échoue.
+     */
+    public void recordChange(ChangeLog.Entry entry) {
+        changeLog.append(entry);
+        markDirty();
+    }
+
+    /**
+     * Journalise un lot de modifications en une seule entrée, rejouée en entier ou pas du tout,
+     * puis le signale comme en attente d'instantané.
+     *
+     * @param entries Les entrées décrivant les modifications du lot, dans l'ordre.
+     * @throws java.io.UncheckedIOException si l'ajout au journal échoue.
+     */
+    public void recordChanges(List<ChangeLog.Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        changeLog.append(entries.size() == 1 ? entries.getFirst() : ChangeLog.Entry.batch(entries));
+        markDirty(entries.size());
+    }
+
+    /**
+     * Signale une modification des données à persister.
+     * Ne réalise aucune écriture de fichier complet sur le thread appelant.
+     */
+    public void markDirty() {
+        markDirty(1);
+    }
+
+    private void markDirty(int count) {
+        oldestDirtyNanos.compareAndSet(0, System.nanoTime());
+        if (dirtyCount.addAndGet(count) >= maxDirtyCount && flushScheduled.compareAndSet(false, true)) {
+            executor.execute(this::flush);
+        }
+    }
+
+    /**
+     * Écrit un instantané des données si des modifications sont en attente.
+     * Les compteurs sont remis à zéro avant l'écriture : une modification concurrente sera donc toujours
+     * couverte par l'écriture suivante. La rotation du journal est faite par {@link DataLoaderService#saveData()},
+     * sous le même verrou que la lecture de la version écrite ; en cas d'échec, les modifications restent
+     * marquées comme en attente.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushScheduled.set(false);
+            int pending = dirtyCount.getAndSet(0);
+            if (pending == 0) {
+                return;
+            }
+            long since = oldestDirtyNanos.getAndSet(0);
+
+            long start = System.nanoTime();
+            if (dataLoaderService.saveData()) {
+                logger.debug("{} modification(s) écrite(s) en {} ms, retard de {} ms",
+                        pending, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), TimeUnit.NANOSECONDS.toMillis(start - since));
+            } else {
+                dirtyCount.addAndGet(pending);
+                oldestDirtyNanos.compareAndSet(0, since);
+                logger.warn("Échec de l'écriture de {} modification(s), nouvelle tentative au prochain intervalle", pending);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Retard de persistance : ancienneté de la plus ancienne modification non encore écrite.
+     *
+     * @return Le retard en millisecondes, ou 0 si toutes les modifications sont écrites.
+     */
+    public long getFlushLagMillis() {
+        long since = oldestDirtyNanos.get();
+        return since == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since);
+    }
+
+    /**
+     * Nombre de modifications en attente d'écriture.
+     *
+     * @return Le nombre de modifications non encore écrites.
+     */
+    public int getDirtyCount() {
+        return dirtyCount.get();
+    }
+
+    /**
+     * Expose le retard de persistance et le nombre de modifications en attente sous forme de métriques.
+     *
+     * @param registry Le registre de métriques.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("safetynet.persistence.flush.lag", this, PersistenceService::getFlushLagMillis)
+                .description("Ancienneté de la plus ancienne modification non encore écrite")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("safetynet.persistence.dirty", this, PersistenceService::getDirtyCount)
+                .description("Nombre de modifications en attente d'écriture")
+                .register(registry);
+    }
+
+    /**
+     * Arrête le thread d'écriture et écrit les modifications en attente avant l'arrêt de l'application.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        logger.info("Persistance asynchrone arrêtée, données écrites.");
+    }
+}
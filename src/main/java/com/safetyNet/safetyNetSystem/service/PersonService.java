@@ -1,16 +1,20 @@
 package com.safetyNet.safetyNetSystem.service;
 
+import com.safetyNet.safetyNetSystem.dao.DataIndex;
 import com.safetyNet.safetyNetSystem.dao.PersonDAO;
 import com.safetyNet.safetyNetSystem.dto.*;
 import com.safetyNet.safetyNetSystem.model.Person;
-import com.safetyNet.safetyNetSystem.util.DateUtil;
 import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.util.PageCursor;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
@@ -24,6 +28,11 @@ import org.springframework.context.annotation.Lazy;
 @Service
 public class PersonService {
 
+    /**
+     * Nombre maximal d'éléments d'une page.
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final PersonDAO personDAO;
 
     @Lazy
@@ -48,6 +57,14 @@ public class PersonService {
         return personDAO.getAllPersons();
     }
 
+    /**
+     * Parcourt toutes les personnes, sans copier la liste.
+     * @return Un flux de toutes les personnes.
+     */
+    public Stream<Person> streamAllPersons() {
+        return personDAO.getAllPersons().stream();
+    }
+
     /**
      * Ajoute une nouvelle personne.
      * @param person La personne à ajouter.
@@ -77,15 +94,22 @@ public class PersonService {
         return personDAO.deletePerson(firstName, lastName);
     }
 
+    /**
+     * Applique un lot d'insertions ou mises à jour et de suppressions de personnes, en entier ou pas du tout.
+     * @param operations Les opérations du lot.
+     * @return Le résultat de chaque opération.
+     */
+    public BatchResponse applyBatch(List<BatchOperation<Person>> operations) {
+        return personDAO.applyBatch(operations);
+    }
+
     /**
      * Récupère les enfants et les adultes à une adresse donnée.
      * @param address L'adresse à vérifier.
      * @return Un objet ChildrenAlertResponse contenant les enfants et les adultes.
      */
     public ChildrenAlertResponse getChildAlertByAddress(String address) {
-        List<Person> personsAtAddress = personDAO.getAllPersons().stream()
-                .filter(person -> person.getAddress().equals(address))
-                .toList();
+        List<Person> personsAtAddress = personDAO.getPersonsByAddress(address);
 
         List<ChildInfo> children = new ArrayList<>();
         List<PersonInfo> adults = new ArrayList<>();
@@ -94,7 +118,7 @@ public class PersonService {
             Optional<MedicalRecord> medicalRecordOptional = medicalRecordService.getMedicalRecordByPerson(person);
             if (medicalRecordOptional.isPresent()) {
                 MedicalRecord medicalRecord = medicalRecordOptional.get();
-                int age = DateUtil.calculateAge(medicalRecord.getBirthdate());
+                int age = medicalRecord.getAge();  // Date de naissance déjà analysée au chargement
 
                 if (age < 18) {
                     ChildInfo childInfo = new ChildInfo(
@@ -127,9 +151,16 @@ public class PersonService {
      * @return Une personne si elle existe, sinon un Optional vide.
      */
     public Optional<Person> getPersonByFirstNameAndLastName(String firstName, String lastName) {
-        return personDAO.getAllPersons().stream()
-                .filter(person -> person.getFirstName().equals(firstName) && person.getLastName().equals(lastName))
-                .findFirst();
+        return personDAO.getPersonByName(firstName, lastName);
+    }
+
+    /**
+     * Récupère les personnes habitant à une adresse donnée.
+     * @param address L'adresse à vérifier.
+     * @return La liste des personnes habitant à cette adresse.
+     */
+    public List<Person> getPersonsByAddress(String address) {
+        return personDAO.getPersonsByAddress(address);
     }
 
     /**
@@ -139,9 +170,7 @@ public class PersonService {
      * @return Une liste d'objets PersonInfo contenant les informations des personnes.
      */
     public List<PersonInfo> getPersonsWithMedicalInfoByAddress(String address, boolean includeMedicalInfo) {
-        List<Person> personsAtAddress = personDAO.getAllPersons().stream()
-                .filter(person -> person.getAddress().equals(address))
-                .toList();
+        List<Person> personsAtAddress = personDAO.getPersonsByAddress(address);
 
         return personsAtAddress.stream()
                 .map(person -> {
@@ -174,47 +203,116 @@ public class PersonService {
      * @return Une liste d'objets PersonInfo contenant les informations des personnes correspondantes.
      */
     public List<PersonInfo> getPersonInfoByLastName(String lastName) {
-        List<Person> filteredPersons = personDAO.getAllPersons().stream()
-                .filter(person -> person.getLastName().equalsIgnoreCase(lastName))
-                .toList();
+        List<Person> filteredPersons = personDAO.getPersonsByLastName(lastName);
 
         List<PersonInfo> personInfoList = new ArrayList<>();
 
         for (Person person : filteredPersons) {
-            Optional<MedicalRecord> medicalRecordOptional = medicalRecordService.getMedicalRecordByPerson(person);
-            if (medicalRecordOptional.isPresent()) {
-                MedicalRecord medicalRecord = medicalRecordOptional.get();
-                int age = DateUtil.calculateAge(medicalRecord.getBirthdate());
+            toPersonInfoWithMedicalInfo(person).ifPresent(personInfoList::add);
+        }
 
-                List<String> medications = medicalRecord.getMedications();
-                List<String> allergies = medicalRecord.getAllergies();
+        return personInfoList;
+    }
 
-                PersonInfo personInfo = new PersonInfo(
-                        person.getFirstName(),
-                        person.getLastName(),
-                        person.getAddress(),
-                        person.getEmail()
-                );
+    /**
+     * Récupère une page de toutes les personnes, dans l'ordre alphabétique des noms.
+     * @param cursor Le curseur renvoyé avec la page précédente, ou null pour la première page.
+     * @param limit Le nombre maximal de personnes de la page, ramené à {@value #MAX_PAGE_SIZE} au plus.
+     * @return La page, avec le curseur de la page suivante.
+     * @throws IllegalArgumentException Si le curseur est invalide ou la taille de page n'est pas positive.
+     */
+    public CursorPage<Person> getPersonsPage(String cursor, int limit) {
+        DataIndex.PersonCursor persons = personDAO.iteratePersonsByName(decodeCursor(cursor, limit));
+        return page(persons, limit, Optional::of);
+    }
 
-                personInfo.setMedicalInfo(new MedicalInfo(medications, allergies));
-                personInfoList.add(personInfo);
-            }
+    /**
+     * Récupère une page des informations des personnes portant un nom de famille, dans l'ordre alphabétique des prénoms.
+     * @param lastName Le nom de famille à rechercher.
+     * @param cursor Le curseur renvoyé avec la page précédente, ou null pour la première page.
+     * @param limit Le nombre maximal de personnes de la page, ramené à {@value #MAX_PAGE_SIZE} au plus.
+     * @return La page, avec le curseur de la page suivante.
+     * @throws IllegalArgumentException Si le curseur est invalide ou la taille de page n'est pas positive.
+     */
+    public CursorPage<PersonInfo> getPersonInfoPageByLastName(String lastName, String cursor, int limit) {
+        DataIndex.PersonCursor persons = personDAO.iteratePersonsByLastName(lastName, decodeCursor(cursor, limit));
+        return page(persons, limit, this::toPersonInfoWithMedicalInfo);
+    }
+
+    /**
+     * Construit les informations d'une personne avec ses informations médicales.
+     * @param person La personne.
+     * @return Les informations de la personne, ou un Optional vide si elle n'a pas de dossier médical.
+     */
+    private Optional<PersonInfo> toPersonInfoWithMedicalInfo(Person person) {
+        return medicalRecordService.getMedicalRecordByPerson(person).map(medicalRecord -> {
+            PersonInfo personInfo = new PersonInfo(
+                    person.getFirstName(),
+                    person.getLastName(),
+                    person.getAddress(),
+                    person.getEmail()
+            );
+
+            personInfo.setMedicalInfo(new MedicalInfo(medicalRecord.getMedications(), medicalRecord.getAllergies()));
+            return personInfo;
+        });
+    }
+
+    /**
+     * Vérifie la taille de page et décode le curseur reçu.
+     * @return La position de la dernière personne lue, ou null pour la première page.
+     */
+    private static DataIndex.PersonPosition decodeCursor(String cursor, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("La taille de page doit être positive");
+        }
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
         }
+        PageCursor start = PageCursor.decode(cursor);
+        return new DataIndex.PersonPosition(start.lastName(), start.firstName(), start.sequence());
+    }
 
-        return personInfoList;
+    /**
+     * Lit une page de personnes à partir d'un curseur. Toutes les personnes lues font avancer le curseur,
+     * y compris celles que la conversion écarte.
+     * @param persons Les personnes à partir de la position du curseur.
+     * @param limit Le nombre maximal d'éléments de la page.
+     * @param converter La conversion d'une personne en élément de la page, vide pour l'écarter.
+     * @return La page, avec le curseur de la page suivante, ou null si toutes les personnes ont été lues.
+     */
+    private static <T> CursorPage<T> page(DataIndex.PersonCursor persons, int limit,
+                                          Function<Person, Optional<T>> converter) {
+        int size = Math.min(limit, MAX_PAGE_SIZE);
+        List<T> items = new ArrayList<>(size);
+
+        while (items.size() < size && persons.hasNext()) {
+            converter.apply(persons.next()).ifPresent(items::add);
+        }
+
+        String nextCursor = null;
+        if (persons.hasNext()) {
+            DataIndex.PersonPosition last = persons.position();
+            nextCursor = new PageCursor(last.lastName(), last.firstName(), last.sequence()).encode();
+        }
+        return new CursorPage<>(items, nextCursor);
     }
 
     /**
-     * Récupère les emails des habitants d'une ville donnée.
+     * Récupère les emails des habitants d'une ville donnée, sans tenir compte de la casse de la ville.
      * @param city La ville à vérifier.
-     * @return Une liste des emails des habitants de la ville.
+     * @return Une vue non modifiable des emails des habitants de la ville, sans doublon.
      */
-    public List<String> getEmailsByCity(String city) {
-        List<Person> allPersons = personDAO.getAllPersons();
+    public Set<String> getEmailsByCity(String city) {
+        return personDAO.getEmailsByCity(city);  // Tenue à jour par l'index, sans parcours des habitants
+    }
 
-        return allPersons.stream()
-                .filter(person -> person.getCity().equalsIgnoreCase(city))
-                .map(Person::getEmail)
-                .collect(Collectors.toList());
+    /**
+     * Parcourt les emails des habitants d'une ville donnée, sans doublon, au fil de l'ensemble tenu par l'index.
+     * @param city La ville à vérifier.
+     * @return Un flux des emails des habitants de la ville.
+     */
+    public Stream<String> streamEmailsByCity(String city) {
+        return personDAO.getEmailsByCity(city).stream();
     }
 }
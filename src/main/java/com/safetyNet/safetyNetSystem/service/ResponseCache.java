@@ -0,0 +1,438 @@
+package com.safetyNet.safetyNetSystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.safetyNet.safetyNetSystem.dao.DataChanges;
+import com.safetyNet.safetyNetSystem.dto.ChildrenAlertResponse;
+import com.safetyNet.safetyNetSystem.dto.FirestationResponse;
+import com.safetyNet.safetyNetSystem.dto.FirestationResponseNoCount;
+import com.safetyNet.safetyNetSystem.util.SerializedJson;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache des réponses des endpoints de lecture les plus sollicités pendant un incident, indexé par
+ * endpoint et paramètre.
+ * <p>
+ * Le cache est borné en nombre d'entrées et en poids (nombre approximatif d'éléments des réponses) ;
+ * au-delà, les entrées les moins récemment lues sont évincées (algorithme de l'horloge : une entrée lue
+ * depuis le dernier passage obtient un sursis). Chaque endpoint a sa propre durée de vie ; une durée
+ * nulle désactive le cache pour cet endpoint.
+ * <p>
+ * Chaque écriture publiée invalide exactement les entrées qu'elle touche (voir {@link DataChanges}) :
+ * une modification d'une personne à l'adresse X invalide /fire et /childAlert pour X, /firestation et
+ * /phoneAlert pour les stations de X et /communityEmail pour sa ville. Une entrée calculée sur une version
+ * antérieure à la dernière qui a touché son paramètre ({@link DataVersions}) n'est plus jamais servie,
+ * même si elle a été ajoutée pendant l'écriture. Tant que la portée d'une version publiée n'est pas
+ * enregistrée, les requêtes qui lisent cette version contournent le cache.
+ * <p>
+ * Les réponses peuvent être conservées déjà sérialisées en JSON ({@link #getSerialized}) : une réponse
+ * lue depuis le cache est alors écrite telle quelle, sans repasser par Jackson, avec l'ETag de la version
+ * de ses données. Les réponses en cache
+ * sont partagées entre les requêtes et ne doivent pas être modifiées.
+ */
+@Service
+public class ResponseCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+    /**
+     * Endpoints mis en cache, avec la portée de leur paramètre.
+     */
+    public enum Endpoint {
+        FIRESTATION(DataVersions.Scope.STATION),
+        PHONE_ALERT(DataVersions.Scope.STATION),
+        FIRE(DataVersions.Scope.ADDRESS),
+        CHILD_ALERT(DataVersions.Scope.ADDRESS),
+        COMMUNITY_EMAIL(DataVersions.Scope.CITY);
+
+        private final DataVersions.Scope scope;
+
+        Endpoint(DataVersions.Scope scope) {
+            this.scope = scope;
+        }
+
+        /**
+         * Récupère la portée du paramètre de l'endpoint.
+         *
+         * @return La portée.
+         */
+        public DataVersions.Scope getScope() {
+            return scope;
+        }
+    }
+
+    private final DataLoaderService dataLoaderService;
+    private final DataVersions dataVersions;
+    private final ObjectWriter writer;
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Map<Endpoint, Long> ttlNanos = new EnumMap<>(Endpoint.class);
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<>();  // Ordre d'éviction
+    private final AtomicInteger queued = new AtomicInteger();   // Taille de l'horloge, entrées retirées comprises
+    private final AtomicLong weight = new AtomicLong();         // Poids total des entrées présentes
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Constructeur du cache, abonné aux écritures publiées.
+     *
+     * @param dataLoaderService     Le service publiant les versions des données.
+     * @param dataVersions          Les versions des données par adresse, station et ville.
+     * @param objectMapper          Le mapper Jackson de l'application, pour les réponses sérialisées.
+     * @param maxEntries            Nombre maximal d'entrées.
+     * @param maxWeight             Poids maximal de l'ensemble des entrées (nombre approximatif d'éléments des réponses).
+     * @param firestationTtlMs      Durée de vie des réponses de /firestation?stationNumber=, en millisecondes.
+     * @param phoneAlertTtlMs       Durée de vie des réponses de /phoneAlert, en millisecondes.
+     * @param fireTtlMs             Durée de vie des réponses de /fire, en millisecondes.
+     * @param childAlertTtlMs       Durée de vie des réponses de /childAlert, en millisecondes.
+     * @param communityEmailTtlMs   Durée de vie des réponses de /communityEmail, en millisecondes.
+     */
+    public ResponseCache(DataLoaderService dataLoaderService, DataVersions dataVersions, ObjectMapper objectMapper,
+                         @Value("${safetynet.cache.max-entries:10000}") int maxEntries,
+                         @Value("${safetynet.cache.max-weight:1000000}") long maxWeight,
+                         @Value("${safetynet.cache.ttl-ms.firestation:60000}") long firestationTtlMs,
+                         @Value("${safetynet.cache.ttl-ms.phone-alert:60000}") long phoneAlertTtlMs,
+                         @Value("${safetynet.cache.ttl-ms.fire:30000}") long fireTtlMs,
+                         @Value("${safetynet.cache.ttl-ms.child-alert:30000}") long childAlertTtlMs,
+                         @Value("${safetynet.cache.ttl-ms.community-email:300000}") long communityEmailTtlMs) {
+        this.dataLoaderService = dataLoaderService;
+        this.dataVersions = dataVersions;
+        this.writer = objectMapper.writer();
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        ttlNanos.put(Endpoint.FIRESTATION, TimeUnit.MILLISECONDS.toNanos(firestationTtlMs));
+        ttlNanos.put(Endpoint.PHONE_ALERT, TimeUnit.MILLISECONDS.toNanos(phoneAlertTtlMs));
+        ttlNanos.put(Endpoint.FIRE, TimeUnit.MILLISECONDS.toNanos(fireTtlMs));
+        ttlNanos.put(Endpoint.CHILD_ALERT, TimeUnit.MILLISECONDS.toNanos(childAlertTtlMs));
+        ttlNanos.put(Endpoint.COMMUNITY_EMAIL, TimeUnit.MILLISECONDS.toNanos(communityEmailTtlMs));
+        dataLoaderService.addChangeListener(this::invalidate);
+        logger.info("Cache des réponses activé ({} entrées, poids {} au plus)", maxEntries, maxWeight);
+    }
+
+    /**
+     * Récupère la réponse d'un endpoint pour un paramètre, en la calculant si elle n'est pas en cache.
+     * Une réponse null, ou demandée sans paramètre, n'est pas mise en cache.
+     *
+     * @param endpoint  L'endpoint.
+     * @param parameter Le paramètre de la requête (numéro de station, adresse ou ville).
+     * @param loader    Le calcul de la réponse, sur la version des données de la requête.
+     * @param <T>       Le type de la réponse.
+     * @return La réponse, éventuellement partagée avec d'autres requêtes.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Endpoint endpoint, String parameter, Supplier<T> loader) {
+        return (T) lookup(endpoint, parameter, loader, Function.identity());
+    }
+
+    /**
+     * Récupère la réponse d'un endpoint pour un paramètre, déjà sérialisée en JSON, en la calculant et en la
+     * sérialisant si elle n'est pas en cache. Son ETag est celui de la version de ses données (voir
+     * {@link DataVersions.Tag#eTag()}), ou à défaut celui de son contenu. Un endpoint est mis en cache sous
+     * une seule forme : sérialisée ou non.
+     *
+     * @param endpoint  L'endpoint.
+     * @param parameter Le paramètre de la requête (numéro de station, adresse ou ville).
+     * @param loader    Le calcul de la réponse, sur la version des données de la requête.
+     * @return La réponse sérialisée, ou null si la réponse calculée est null.
+     */
+    public SerializedJson getSerialized(Endpoint endpoint, String parameter, Supplier<?> loader) {
+        DataVersions.Tag tag = dataVersions.find(endpoint.getScope(), parameter, dataLoaderService.getSnapshot().getVersion());
+        return (SerializedJson) lookup(endpoint, parameter, loader,
+                value -> tag != null ? SerializedJson.of(writer, value, tag.eTag()) : SerializedJson.of(writer, value));
+    }
+
+    /**
+     * Cherche une réponse en cache, sinon la calcule, la met sous sa forme conservée et l'ajoute au cache.
+     * Le poids est celui de la réponse calculée, avant sa mise en forme.
+     */
+    private <T> Object lookup(Endpoint endpoint, String parameter, Supplier<T> loader, Function<? super T, ?> form) {
+        long ttl = ttlNanos.get(endpoint);
+        if (ttl <= 0 || parameter == null) {
+            return formOf(loader.get(), form);
+        }
+        long version = dataLoaderService.getSnapshot().getVersion();
+        if (version > dataVersions.getVersion()) {
+            misses.increment();  // Portée de cette version pas encore enregistrée
+            return formOf(loader.get(), form);
+        }
+        Key key = new Key(endpoint, endpoint.getScope() == DataVersions.Scope.CITY ? DataChanges.cityKey(parameter) : parameter);
+        long touchedVersion = dataVersions.getVersion(endpoint.getScope(), key.parameter());
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.version < touchedVersion) {
+                discard(entry);  // Ajoutée pendant l'écriture qui l'a invalidée
+            } else if (now - entry.expiresAt < 0) {
+                entry.referenced = true;
+                hits.increment();
+                return entry.value;
+            } else if (discard(entry)) {
+                expirations.increment();
+            }
+        }
+        misses.increment();
+
+        T value = loader.get();
+        Object formed = formOf(value, form);
+        if (formed != null && version >= touchedVersion) {
+            store(new Entry(key, formed, weigh(value), version, now + ttl));
+        }
+        return formed;
+    }
+
+    private static <T> Object formOf(T value, Function<? super T, ?> form) {
+        return value == null ? null : form.apply(value);
+    }
+
+    /**
+     * Invalide les entrées touchées par une écriture publiée.
+     *
+     * @param changes La portée de l'écriture.
+     */
+    public void invalidate(DataChanges changes) {
+        invalidate(DataVersions.Scope.ADDRESS, changes.addresses());
+        invalidate(DataVersions.Scope.STATION, changes.stations());
+        invalidate(DataVersions.Scope.CITY, changes.cities());
+    }
+
+    /**
+     * Vide le cache.
+     */
+    public void clear() {
+        entries.values().forEach(this::discard);
+    }
+
+    /**
+     * Nombre de réponses trouvées dans le cache.
+     *
+     * @return Le nombre de succès.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Nombre de réponses calculées faute d'être en cache.
+     *
+     * @return Le nombre d'échecs.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Nombre d'entrées évincées pour respecter la taille ou le poids maximal.
+     *
+     * @return Le nombre d'évictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Nombre d'entrées retirées parce qu'une écriture les a touchées.
+     *
+     * @return Le nombre d'invalidations.
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * Nombre d'entrées présentes.
+     *
+     * @return La taille du cache.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Expose les compteurs du cache.
+     *
+     * @param registry Le registre de métriques.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("safetynet.cache.hits", this, ResponseCache::getHitCount)
+                .description("Réponses trouvées dans le cache")
+                .register(registry);
+        FunctionCounter.builder("safetynet.cache.misses", this, ResponseCache::getMissCount)
+                .description("Réponses calculées faute d'être en cache")
+                .register(registry);
+        FunctionCounter.builder("safetynet.cache.evictions", this, ResponseCache::getEvictionCount)
+                .description("Entrées évincées pour respecter la taille ou le poids maximal")
+                .register(registry);
+        FunctionCounter.builder("safetynet.cache.expirations", this, cache -> cache.expirations.sum())
+                .description("Entrées expirées")
+                .register(registry);
+        FunctionCounter.builder("safetynet.cache.invalidations", this, ResponseCache::getInvalidationCount)
+                .description("Entrées retirées par une écriture")
+                .register(registry);
+        Gauge.builder("safetynet.cache.size", this, ResponseCache::size)
+                .description("Nombre d'entrées en cache")
+                .register(registry);
+        Gauge.builder("safetynet.cache.weight", this, cache -> cache.weight.get())
+                .description("Poids des entrées en cache")
+                .register(registry);
+    }
+
+    private void store(Entry entry) {
+        Entry previous = entries.put(entry.key, entry);
+        if (previous != null) {
+            weight.addAndGet(-previous.weight);
+        }
+        weight.addAndGet(entry.weight);
+        clock.offer(entry);
+        queued.incrementAndGet();
+        evictIfNeeded();
+    }
+
+    /**
+     * Évince des entrées jusqu'à respecter la taille et le poids maximal. Un seul thread évince à la fois ;
+     * les autres n'attendent pas.
+     */
+    private void evictIfNeeded() {
+        if (!overCapacity() && !clockTooLong()) {
+            return;
+        }
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            while (overCapacity()) {
+                Entry entry = clock.poll();
+                if (entry == null) {
+                    break;
+                }
+                queued.decrementAndGet();
+                if (entries.get(entry.key) != entry) {
+                    continue;  // Déjà retirée
+                }
+                if (entry.referenced) {
+                    entry.referenced = false;  // Lue depuis le dernier passage : sursis
+                    clock.offer(entry);
+                    queued.incrementAndGet();
+                } else if (discard(entry)) {
+                    evictions.increment();
+                }
+            }
+            if (clockTooLong()) {
+                clock.removeIf(entry -> entries.get(entry.key) != entry);  // Purger les entrées invalidées ou expirées
+                queued.set(clock.size());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean overCapacity() {
+        return entries.size() > maxEntries || weight.get() > maxWeight;
+    }
+
+    /**
+     * L'horloge garde les entrées retirées jusqu'à leur prochain passage : elle est purgée quand elles
+     * deviennent majoritaires.
+     */
+    private boolean clockTooLong() {
+        return queued.get() > 2 * Math.max(entries.size(), 64);
+    }
+
+    private void invalidate(DataVersions.Scope scope, Set<String> parameters) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            if (endpoint.getScope() != scope) {
+                continue;
+            }
+            for (String parameter : parameters) {
+                Entry entry = entries.get(new Key(endpoint, parameter));
+                if (entry != null && discard(entry)) {
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Retire une entrée si elle est toujours présente.
+     *
+     * @return true si l'entrée a été retirée par cet appel.
+     */
+    private boolean discard(Entry entry) {
+        if (entries.remove(entry.key, entry)) {
+            weight.addAndGet(-entry.weight);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Poids d'une réponse : nombre approximatif d'éléments qu'elle contient.
+     */
+    private static int weigh(Object value) {
+        return 1 + switch (value) {
+            case Collection<?> collection -> collection.size();
+            case FirestationResponse response -> size(response.getPersons());
+            case FirestationResponseNoCount response -> size(response.getPersons());
+            case ChildrenAlertResponse response -> size(response.getChildren()) + size(response.getAdults());
+            default -> 0;
+        };
+    }
+
+    private static int size(Collection<?> collection) {
+        return collection == null ? 0 : collection.size();
+    }
+
+    /**
+     * Clé d'une entrée : l'endpoint et son paramètre (la ville en minuscules).
+     */
+    private record Key(Endpoint endpoint, String parameter) {
+    }
+
+    /**
+     * Réponse en cache, avec la version des données sur laquelle elle a été calculée.
+     */
+    private static final class Entry {
+        private final Key key;
+        private final Object value;
+        private final int weight;
+        private final long version;
+        private final long expiresAt;         // Date d'expiration (System.nanoTime)
+        private volatile boolean referenced;  // Lue depuis le dernier passage de l'horloge
+
+        private Entry(Key key, Object value, int weight, long version, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import com.safetyNet.safetyNetSystem.model.DataContainer;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Format binaire compact d'un instantané du DataContainer, beaucoup plus rapide à relire que le JSON.
+ * <p>
+ * Structure du fichier (entiers en big-endian) :
+ * <ul>
+ *     <li>en-tête : signature {@code SNBS}, version du format, dernier segment du journal couvert (long) ;</li>
+ *     <li>table des chaînes : nombre de chaînes, puis chaque chaîne distincte une seule fois (longueur + UTF-8) ;</li>
+ *     <li>personnes, casernes, dossiers médicaux : nombre d'éléments, puis pour chaque champ l'indice
+ *     de la chaîne dans la table (-1 pour null) ; les listes sont préfixées par leur taille (-1 pour null).</li>
+ * </ul>
+ * Les chaînes répétées (villes, adresses, codes postaux, médicaments...) ne sont stockées et décodées qu'une fois.
+ */
+public final class BinarySnapshot {
+
+    static final int MAGIC = 0x534E4253;  // "SNBS"
+    static final int VERSION = 2;
+    static final int PERSON_BYTES = 7 * Integer.BYTES;
+    static final int FIRESTATION_BYTES = 2 * Integer.BYTES;
+    static final int MIN_MEDICAL_RECORD_BYTES = 5 * Integer.BYTES;  // Trois références et deux listes vides ou nulles
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Écrit un instantané binaire des données.
+     *
+     * @param dataContainer les données à écrire
+     * @param file          le fichier de destination
+     * @throws IOException si l'écriture échoue
+     */
+    public static void write(DataContainer dataContainer, Path file) throws IOException {
+        List<Person> persons = orEmpty(dataContainer.getPersons());
+        List<Firestation> firestations = orEmpty(dataContainer.getFirestations());
+        List<MedicalRecord> medicalRecords = orEmpty(dataContainer.getMedicalrecords());
+
+        // Première passe : table des chaînes distinctes
+        Map<String, Integer> strings = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        for (Person person : persons) {
+            register(strings, table, person.getFirstName(), person.getLastName(), person.getAddress(),
+                    person.getCity(), person.getZip(), person.getPhone(), person.getEmail());
+        }
+        for (Firestation firestation : firestations) {
+            register(strings, table, firestation.getAddress(), firestation.getStation());
+        }
+        for (MedicalRecord medicalRecord : medicalRecords) {
+            register(strings, table, medicalRecord.getFirstName(), medicalRecord.getLastName(), medicalRecord.getBirthdate());
+            register(strings, table, orEmpty(medicalRecord.getMedications()).toArray(String[]::new));
+            register(strings, table, orEmpty(medicalRecord.getAllergies()).toArray(String[]::new));
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(dataContainer.getChangeLogSegment());
+
+            out.writeInt(table.size());
+            for (String value : table) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(persons.size());
+            for (Person person : persons) {
+                writeRef(out, strings, person.getFirstName());
+                writeRef(out, strings, person.getLastName());
+                writeRef(out, strings, person.getAddress());
+                writeRef(out, strings, person.getCity());
+                writeRef(out, strings, person.getZip());
+                writeRef(out, strings, person.getPhone());
+                writeRef(out, strings, person.getEmail());
+            }
+
+            out.writeInt(firestations.size());
+            for (Firestation firestation : firestations) {
+                writeRef(out, strings, firestation.getAddress());
+                writeRef(out, strings, firestation.getStation());
+            }
+
+            out.writeInt(medicalRecords.size());
+            for (MedicalRecord medicalRecord : medicalRecords) {
+                writeRef(out, strings, medicalRecord.getFirstName());
+                writeRef(out, strings, medicalRecord.getLastName());
+                writeRef(out, strings, medicalRecord.getBirthdate());
+                writeRefs(out, strings, medicalRecord.getMedications());
+                writeRefs(out, strings, medicalRecord.getAllergies());
+            }
+        }
+    }
+
+    /**
+     * Relit un instantané binaire. Chaque nombre d'éléments et chaque longueur lus sont vérifiés par rapport
+     * à la taille restante du fichier avant toute allocation : un fichier corrompu ou tronqué lève une
+     * IOException, jamais une erreur d'allocation.
+     *
+     * @param file le fichier à lire
+     * @return les données lues
+     * @throws IOException si le fichier est illisible, tronqué, corrompu ou d'une version non supportée
+     */
+    public static DataContainer read(Path file) throws IOException {
+        long size = Files.size(file);
+        CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        try (DataInputStream in = new DataInputStream(counter)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("signature d'instantané binaire invalide");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("version d'instantané binaire non supportée : " + version);
+            }
+            long changeLogSegment = in.readLong();
+
+            String[] table = new String[readCount(in, counter, size, Integer.BYTES)];
+            for (int i = 0; i < table.length; i++) {
+                byte[] bytes = new byte[readCount(in, counter, size, 1)];
+                in.readFully(bytes);
+                table[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            int personCount = readCount(in, counter, size, PERSON_BYTES);
+            List<Person> persons = new ArrayList<>(personCount);
+            for (int i = 0; i < personCount; i++) {
+                Person person = new Person(readRef(in, table), readRef(in, table), readRef(in, table),
+                        readRef(in, table), readRef(in, table), readRef(in, table), readRef(in, table));
+                persons.add(person);
+            }
+
+            int firestationCount = readCount(in, counter, size, FIRESTATION_BYTES);
+            List<Firestation> firestations = new ArrayList<>(firestationCount);
+            for (int i = 0; i < firestationCount; i++) {
+                Firestation firestation = new Firestation(readRef(in, table), readRef(in, table));
+                firestations.add(firestation);
+            }
+
+            int medicalRecordCount = readCount(in, counter, size, MIN_MEDICAL_RECORD_BYTES);
+            List<MedicalRecord> medicalRecords = new ArrayList<>(medicalRecordCount);
+            for (int i = 0; i < medicalRecordCount; i++) {
+                MedicalRecord medicalRecord = new MedicalRecord(readRef(in, table), readRef(in, table), readRef(in, table),
+                        readRefs(in, counter, size, table), readRefs(in, counter, size, table));
+                medicalRecords.add(medicalRecord);
+            }
+
+            DataContainer dataContainer = new DataContainer();
+            dataContainer.setPersons(persons);
+            dataContainer.setFirestations(firestations);
+            dataContainer.setMedicalrecords(medicalRecords);
+            dataContainer.setChangeLogSegment(changeLogSegment);
+            return dataContainer;
+        }
+    }
+
+    private static void register(Map<String, Integer> strings, List<String> table, String... values) {
+        for (String value : values) {
+            if (value != null && !strings.containsKey(value)) {
+                strings.put(value, table.size());
+                table.add(value);
+            }
+        }
+    }
+
+    private static void writeRef(DataOutputStream out, Map<String, Integer> strings, String value) throws IOException {
+        out.writeInt(value == null ? -1 : strings.get(value));
+    }
+
+    private static void writeRefs(DataOutputStream out, Map<String, Integer> strings, List<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeRef(out, strings, value);
+        }
+    }
+
+    private static String readRef(DataInputStream in, String[] table) throws IOException {
+        int index = in.readInt();
+        if (index < -1 || index >= table.length) {
+            throw new IOException("référence de chaîne invalide : " + index);
+        }
+        return index == -1 ? null : table[index];
+    }
+
+    private static List<String> readRefs(DataInputStream in, CountingInputStream counter, long fileSize, String[] table) throws IOException {
+        int size = in.readInt();
+        if (size == -1) {
+            return null;
+        }
+        checkCount(size, counter, fileSize, Integer.BYTES);
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readRef(in, table));
+        }
+        return values;
+    }
+
+    /**
+     * Lit un nombre d'éléments (ou une longueur) et vérifie que le reste du fichier peut les contenir.
+     *
+     * @param minBytes la taille minimale d'un élément dans le fichier
+     */
+    private static int readCount(DataInputStream in, CountingInputStream counter, long fileSize, int minBytes) throws IOException {
+        int count = in.readInt();
+        checkCount(count, counter, fileSize, minBytes);
+        return count;
+    }
+
+    private static void checkCount(int count, CountingInputStream counter, long fileSize, int minBytes) throws IOException {
+        if (count < 0 || (long) count * minBytes > fileSize - counter.position) {
+            throw new IOException("instantané binaire corrompu : taille " + count + " à la position " + counter.position);
+        }
+    }
+
+    /**
+     * Flux qui compte les octets consommés, pour connaître la taille restante du fichier.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long position;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                position++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int count = super.read(bytes, offset, length);
+            if (count > 0) {
+                position += count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            position += skipped;
+            return skipped;
+        }
+    }
+
+    private static <T> List<T> orEmpty(List<T> values) {
+        return values == null ? Collections.emptyList() : values;
+    }
+}
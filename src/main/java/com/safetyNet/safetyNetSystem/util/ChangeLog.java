@@ -0,0 +1,302 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Journal des modifications en ajout seul (write-ahead log).
+ * Chaque modification d'une personne, d'une caserne ou d'un dossier médical est ajoutée sous forme
+ * d'une ligne JSON à la fin du segment courant, ce qui ne coûte qu'une petite écriture séquentielle.
+ * À chaque instantané complet des données, un nouveau segment est ouvert ; les segments antérieurs
+ * sont supprimés une fois l'instantané écrit. L'instantané enregistre le dernier segment qu'il couvre :
+ * au démarrage, seuls les segments suivants sont rejoués par-dessus lui.
+ * <p>
+ * Le segment courant est protégé par un verrou explicite plutôt que par synchronized : un thread
+ * virtuel qui attend l'écriture ou le fsync ne bloque ainsi pas son thread porteur.
+ */
+@Component
+public class ChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeLog.class);
+
+    /**
+     * Type de modification journalisée.
+     */
+    public enum Operation {
+        ADD_PERSON, UPDATE_PERSON, DELETE_PERSON,
+        ADD_FIRESTATION, UPDATE_FIRESTATION, DELETE_FIRESTATION,
+        ADD_MEDICAL_RECORD, UPDATE_MEDICAL_RECORD, DELETE_MEDICAL_RECORD,
+        BATCH
+    }
+
+    /**
+     * Entrée du journal : l'opération, la clé de l'entité visée et, le cas échéant, ses nouvelles données.
+     *
+     * @param op            L'opération effectuée.
+     * @param firstName     Le prénom de la personne ou du dossier médical visé (mise à jour, suppression).
+     * @param lastName      Le nom de la personne ou du dossier médical visé (mise à jour, suppression).
+     * @param address       L'adresse de la caserne visée (mise à jour, suppression).
+     * @param person        Les données de la personne (ajout, mise à jour).
+     * @param firestation   Les données de la caserne (ajout, mise à jour).
+     * @param medicalRecord Les données du dossier médical (ajout, mise à jour).
+     * @param entries       Les entrées d'un lot, écrites sur une seule ligne pour être rejouées en entier ou pas du tout.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Entry(Operation op, String firstName, String lastName, String address,
+                        Person person, Firestation firestation, MedicalRecord medicalRecord, List<Entry> entries) {
+
+        public static Entry addPerson(Person person) {
+            return new Entry(Operation.ADD_PERSON, null, null, null, person, null, null, null);
+        }
+
+        public static Entry updatePerson(String firstName, String lastName, Person person) {
+            return new Entry(Operation.UPDATE_PERSON, firstName, lastName, null, person, null, null, null);
+        }
+
+        public static Entry deletePerson(String firstName, String lastName) {
+            return new Entry(Operation.DELETE_PERSON, firstName, lastName, null, null, null, null, null);
+        }
+
+        public static Entry addFirestation(Firestation firestation) {
+            return new Entry(Operation.ADD_FIRESTATION, null, null, null, null, firestation, null, null);
+        }
+
+        public static Entry updateFirestation(String address, Firestation firestation) {
+            return new Entry(Operation.UPDATE_FIRESTATION, null, null, address, null, firestation, null, null);
+        }
+
+        public static Entry deleteFirestation(String address) {
+            return new Entry(Operation.DELETE_FIRESTATION, null, null, address, null, null, null, null);
+        }
+
+        public static Entry addMedicalRecord(MedicalRecord medicalRecord) {
+            return new Entry(Operation.ADD_MEDICAL_RECORD, null, null, null, null, null, medicalRecord, null);
+        }
+
+        public static Entry updateMedicalRecord(String firstName, String lastName, MedicalRecord medicalRecord) {
+            return new Entry(Operation.UPDATE_MEDICAL_RECORD, firstName, lastName, null, null, null, medicalRecord, null);
+        }
+
+        public static Entry deleteMedicalRecord(String firstName, String lastName) {
+            return new Entry(Operation.DELETE_MEDICAL_RECORD, firstName, lastName, null, null, null, null, null);
+        }
+
+        public static Entry batch(List<Entry> entries) {
+            return new Entry(Operation.BATCH, null, null, null, null, null, null, entries);
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path directory;
+    private final String segmentPrefix;
+    private final boolean fsync;
+
+    private final ReentrantLock lock = new ReentrantLock();  // Protège le segment courant
+
+    private long currentSegmentId;
+    private FileChannel currentSegment;
+
+    /**
+     * Constructeur du journal. Un nouveau segment est ouvert à chaque démarrage, afin de ne jamais
+     * ajouter d'entrées après une ligne éventuellement tronquée par un arrêt brutal.
+     *
+     * @param dataLoaderUtil L'utilitaire de chargement, qui détermine le répertoire du fichier de données.
+     * @param fsync          Si true, chaque ajout est forcé sur le disque avant de rendre la main.
+     */
+    public ChangeLog(DataLoaderUtil dataLoaderUtil, @Value("${safetynet.changelog.fsync:false}") boolean fsync) {
+        Path dataFile = Paths.get(dataLoaderUtil.getDataFilePath()).toAbsolutePath();
+        this.directory = dataFile.getParent();
+        this.segmentPrefix = dataFile.getFileName() + ".log.";
+        this.fsync = fsync;
+        List<Long> segments = listSegments();
+        this.currentSegmentId = segments.isEmpty() ? 1 : segments.getLast() + 1;
+    }
+
+    /**
+     * Ajoute une entrée à la fin du segment courant.
+     *
+     * @param entry L'entrée à journaliser.
+     * @throws UncheckedIOException si l'écriture échoue : la modification ne doit alors pas être considérée comme durable.
+     */
+    public void append(Entry entry) {
+        lock.lock();
+        try {
+            byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+            FileChannel channel = currentSegment();
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erreur lors de l'écriture dans le journal des modifications", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ferme le segment courant et ouvre le suivant. Appelé juste avant l'écriture d'un instantané :
+     * toutes les entrées des segments antérieurs au segment retourné sont alors couvertes par l'instantané.
+     *
+     * @return L'identifiant du nouveau segment courant.
+     */
+    public long rotate() {
+        lock.lock();
+        try {
+            closeCurrentSegment();
+            currentSegmentId++;
+            return currentSegmentId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Supprime les segments antérieurs à un segment donné, une fois l'instantané correspondant écrit.
+     *
+     * @param segmentId L'identifiant du premier segment à conserver.
+     */
+    public void deleteSegmentsBefore(long segmentId) {
+        for (Long id : listSegments()) {
+            if (id < segmentId) {
+                try {
+                    Files.deleteIfExists(segmentPath(id));
+                } catch (IOException e) {
+                    logger.warn("Impossible de supprimer le segment de journal {} : {}", id, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rejoue les entrées des segments non couverts par les données chargées, dans l'ordre où elles ont
+     * été écrites. Une ligne illisible en fin de segment (écriture interrompue) est ignorée.
+     * Les segments couverts, restés sur le disque si l'application s'est arrêtée entre l'écriture de
+     * l'instantané et leur suppression, sont ignorés ; le segment courant est placé après eux, pour que
+     * les prochaines entrées ne soient jamais prises pour des entrées couvertes.
+     *
+     * @param coveredSegment Le dernier segment couvert par les données chargées (0 si aucun).
+     * @param consumer       Le traitement à appliquer à chaque entrée.
+     * @return Le nombre d'entrées rejouées.
+     */
+    public int replay(long coveredSegment, Consumer<Entry> consumer) {
+        lock.lock();
+        try {
+            if (currentSegmentId <= coveredSegment) {
+                closeCurrentSegment();
+                currentSegmentId = coveredSegment + 1;
+            }
+        } finally {
+            lock.unlock();
+        }
+        int count = 0;
+        for (Long id : listSegments()) {
+            if (id <= coveredSegment || id >= currentSegmentId) {
+                continue;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(segmentPath(id), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    Entry entry;
+                    try {
+                        entry = objectMapper.readValue(line, Entry.class);
+                    } catch (IOException e) {
+                        logger.warn("Entrée illisible ignorée dans le segment de journal {} : {}", id, e.getMessage());
+                        break;
+                    }
+                    consumer.accept(entry);
+                    count++;
+                }
+            } catch (IOException e) {
+                logger.error("Erreur lors de la relecture du segment de journal {} : {}", id, e.getMessage());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Ferme le segment courant à l'arrêt de l'application.
+     */
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            closeCurrentSegment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FileChannel currentSegment() throws IOException {
+        if (currentSegment == null) {
+            currentSegment = FileChannel.open(segmentPath(currentSegmentId),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return currentSegment;
+    }
+
+    private void closeCurrentSegment() {
+        if (currentSegment != null) {
+            try {
+                currentSegment.force(false);
+                currentSegment.close();
+            } catch (IOException e) {
+                logger.warn("Erreur lors de la fermeture du segment de journal {} : {}", currentSegmentId, e.getMessage());
+            }
+            currentSegment = null;
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(segmentPrefix + id);
+    }
+
+    private List<Long> listSegments() {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(segmentPrefix))
+                    .forEach(name -> {
+                        try {
+                            ids.add(Long.parseLong(name.substring(segmentPrefix.length())));
+                        } catch (NumberFormatException e) {
+                            logger.warn("Fichier de journal ignoré : {}", name);
+                        }
+                    });
+        } catch (IOException e) {
+            logger.error("Erreur lors de la lecture du répertoire du journal : {}", e.getMessage());
+        }
+        ids.sort(Long::compare);
+        return ids;
+    }
+}
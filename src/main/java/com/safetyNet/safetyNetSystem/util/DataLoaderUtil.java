@@ -1,13 +1,35 @@
 package com.safetyNet.safetyNetSystem.util;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.safetyNet.safetyNetSystem.model.DataContainer;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 
 /**
  * Utilitaire pour charger et sauvegarder les données depuis et vers un fichier JSON.
@@ -15,65 +37,368 @@ import java.io.IOException;
 @Component
 public class DataLoaderUtil {
 
+    /**
+     * Reçoit chaque entité dès qu'elle est lue, afin de construire les index pendant le chargement
+     * plutôt que dans un second parcours des listes.
+     * Les appels sont faits par le thread qui charge les données, un par un et dans l'ordre du fichier ;
+     * seul le décodage des entités est réparti sur le pool fork-join commun.
+     */
+    public interface LoadListener {
+
+        /**
+         * Appelé pour chaque personne lue.
+         *
+         * @param person La personne lue.
+         */
+        void onPerson(Person person);
+
+        /**
+         * Appelé pour chaque caserne lue.
+         *
+         * @param firestation La caserne lue.
+         */
+        void onFirestation(Firestation firestation);
+
+        /**
+         * Appelé pour chaque dossier médical lu.
+         *
+         * @param medicalRecord Le dossier médical lu.
+         */
+        void onMedicalRecord(MedicalRecord medicalRecord);
+    }
+
     private static final Logger logger = LoggerFactory.getLogger(DataLoaderUtil.class);
-    private final String dataFilePath = "src/main/resources/data.json";
+    private final String dataFilePath;
+    private final String snapshotFilePath;  // Instantané binaire écrit à côté du JSON
+    private final boolean binarySnapshotEnabled;
+    private final boolean readOnly;  // Mode projeté en mémoire, en lecture seule
+    private final ObjectMapper objectMapper = new ObjectMapper();  // Thread-safe une fois configuré, partagé entre les appels
+    private final ObjectReader personsReader = objectMapper.readerForListOf(Person.class);
+    private final ObjectReader firestationsReader = objectMapper.readerForListOf(Firestation.class);
+    private final ObjectReader medicalRecordsReader = objectMapper.readerForListOf(MedicalRecord.class);
+    static final int CHUNK_SIZE = 2048;  // Nombre d'éléments décodés par tâche du pool fork-join
 
     /**
-     * Charge les données depuis le fichier JSON et les retourne sous forme de DataContainer.
+     * Constructeur de l'utilitaire de chargement.
+     *
+     * @param binarySnapshotEnabled Si true, un instantané binaire est écrit à chaque sauvegarde et relu
+     *                              au démarrage lorsqu'il est plus récent que le fichier JSON.
+     * @param mapped                Si true, le jeu de données est projeté en mémoire depuis l'instantané binaire,
+     *                              en lecture seule, et ses entités sont décodées à l'accès.
+     * @param dataFilePath          Le fichier de données JSON ; l'instantané binaire (.bin) est écrit à côté.
+     */
+    public DataLoaderUtil(@Value("${safetynet.snapshot.binary-enabled:false}") boolean binarySnapshotEnabled,
+                          @Value("${safetynet.dataset.mapped:false}") boolean mapped,
+                          @Value("${safetynet.data.file:src/main/resources/data.json}") String dataFilePath) {
+        this.dataFilePath = dataFilePath;
+        this.snapshotFilePath = dataFilePath.replaceFirst("\\.json$", "") + ".bin";
+        this.binarySnapshotEnabled = binarySnapshotEnabled;
+        this.readOnly = mapped;
+    }
+
+    /**
+     * Indique si le jeu de données est en lecture seule (mode projeté en mémoire).
+     *
+     * @return true si aucune modification ne doit être acceptée
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Récupère le chemin du fichier de données.
+     *
+     * @return le chemin du fichier JSON de données
+     */
+    public String getDataFilePath() {
+        return dataFilePath;
+    }
+
+    /**
+     * Charge les données et les retourne sous forme de DataContainer.
+     * L'instantané binaire est utilisé s'il est activé et plus récent que le fichier JSON ; sinon,
+     * ou s'il est illisible, le fichier JSON est chargé.
      *
-     * @return un DataContainer contenant les données chargées depuis le fichier
+     * @param listener le listener notifié pour chaque entité lue
+     * @return un DataContainer contenant les données chargées, ou null en cas d'erreur
      */
-    public DataContainer loadData() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        DataContainer dataContainer = null;
+    public DataContainer loadData(LoadListener listener) {
+        Path snapshot = Paths.get(snapshotFilePath);
+        if (readOnly) {
+            DataContainer dataContainer = loadMapped(snapshot);
+            if (dataContainer != null) {
+                notify(dataContainer, listener);
+                logger.info("Données projetées en mémoire depuis l'instantané binaire (lecture seule).");
+                return dataContainer;
+            }
+            logger.warn("Projection impossible, chargement du fichier JSON en mémoire.");
+        }
+        if (binarySnapshotEnabled && isNewerThanJson(snapshot)) {
+            try {
+                // Le listener n'est notifié qu'une fois la lecture réussie, pour ne rien indexer en cas de repli sur le JSON
+                DataContainer dataContainer = BinarySnapshot.read(snapshot);
+                notify(dataContainer, listener);
+                logger.info("Données chargées avec succès depuis l'instantané binaire.");
+                return dataContainer;
+            } catch (IOException e) {
+                logger.warn("Instantané binaire illisible, chargement du fichier JSON : {}", e.getMessage());
+            }
+        }
+        return loadJson(listener);
+    }
 
+    /**
+     * Projette l'instantané binaire en mémoire. S'il est absent ou plus ancien que le fichier JSON,
+     * il est d'abord régénéré à partir de celui-ci.
+     *
+     * @param snapshot l'instantané binaire
+     * @return le DataContainer en lecture seule, ou null si la projection est impossible
+     */
+    private DataContainer loadMapped(Path snapshot) {
         try {
-            File jsonFile = new File(dataFilePath);
-            dataContainer = objectMapper.readValue(jsonFile, DataContainer.class);
+            if (!isNewerThanJson(snapshot)) {
+                DataContainer json = loadJson(new LoadListener() {
+                    @Override
+                    public void onPerson(Person person) {
+                    }
+
+                    @Override
+                    public void onFirestation(Firestation firestation) {
+                    }
+
+                    @Override
+                    public void onMedicalRecord(MedicalRecord medicalRecord) {
+                    }
+                });
+                if (json == null) {
+                    return null;
+                }
+                Path tempFile = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+                BinarySnapshot.write(json, tempFile);
+                moveAtomically(tempFile, snapshot);
+                logger.info("Instantané binaire régénéré à partir du fichier JSON.");
+            }
+            return MappedSnapshot.map(snapshot);
+        } catch (IOException e) {
+            logger.error("Erreur lors de la projection de l'instantané binaire : {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Transmet au listener toutes les entités d'un DataContainer déjà chargé.
+     *
+     * @param dataContainer les données chargées
+     * @param listener      le listener à notifier
+     */
+    private static void notify(DataContainer dataContainer, LoadListener listener) {
+        dataContainer.getPersons().forEach(listener::onPerson);
+        dataContainer.getFirestations().forEach(listener::onFirestation);
+        dataContainer.getMedicalrecords().forEach(listener::onMedicalRecord);
+    }
+
+    /**
+     * Charge les données depuis le fichier JSON et les retourne sous forme de DataContainer.
+     * Le fichier est lu en un seul passage par un parseur en flux, sans construire d'arbre JSON
+     * intermédiaire ; chaque section est reconnue à son nom et les sections inconnues sont sautées.
+     * Au sein d'une section, les éléments sont découpés en blocs décodés en parallèle sur le pool
+     * fork-join commun, puis transmis au listener dans l'ordre du fichier, pendant que les blocs
+     * suivants sont lus et décodés.
+     *
+     * @param listener le listener notifié pour chaque entité lue
+     * @return un DataContainer contenant les données chargées depuis le fichier, ou null en cas d'erreur
+     */
+    private DataContainer loadJson(LoadListener listener) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        DataContainer dataContainer = new DataContainer();
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(new File(dataFilePath))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("un objet JSON est attendu à la racine du fichier");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                switch (name) {
+                    case "persons" -> dataContainer.setPersons(
+                            readArray(parser, personsReader, listener::onPerson, pool));
+                    case "firestations" -> dataContainer.setFirestations(
+                            readArray(parser, firestationsReader, listener::onFirestation, pool));
+                    case "medicalrecords" -> dataContainer.setMedicalrecords(
+                            readArray(parser, medicalRecordsReader, listener::onMedicalRecord, pool));
+                    case "changeLogSegment" -> dataContainer.setChangeLogSegment(parser.getValueAsLong());
+                    default -> parser.skipChildren();
+                }
+            }
             logger.info("Données chargées avec succès depuis le fichier.");
+            return dataContainer;
         } catch (IOException e) {
             logger.error("Erreur lors du chargement des données depuis le fichier : {}", e.getMessage());
+            return null;
+        } catch (UncheckedIOException e) {
+            logger.error("Erreur lors du chargement des données depuis le fichier : {}", e.getCause().getMessage());
+            return null;
         }
+    }
 
-        return dataContainer;
+    /**
+     * Lit un tableau JSON à partir du jeton START_ARRAY courant. Les éléments sont copiés par blocs
+     * dans des tampons de jetons, chaque bloc étant décodé par une tâche du pool. Au plus deux blocs
+     * par thread du pool sont en attente : au-delà, le plus ancien est attendu et ses éléments sont
+     * transmis avant de poursuivre la lecture, si bien que les jetons d'un bloc sont libérés dès
+     * qu'il est décodé et que la section n'est jamais présente deux fois en mémoire.
+     *
+     * @param parser   le parseur positionné sur le début du tableau
+     * @param reader   le lecteur d'une liste du type d'élément
+     * @param listener le traitement appliqué à chaque élément lu
+     * @param pool     le pool sur lequel les blocs sont décodés
+     * @return les éléments lus, ou null si la section vaut null
+     * @throws IOException si le contenu n'est pas un tableau valide
+     * @throws UncheckedIOException si un bloc ne peut pas être décodé
+     */
+    private <T> List<T> readArray(JsonParser parser, ObjectReader reader, Consumer<T> listener, ForkJoinPool pool) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("un tableau est attendu pour la section " + parser.currentName());
+        }
+        int maxPending = 2 * pool.getParallelism();
+        Deque<ForkJoinTask<List<T>>> pending = new ArrayDeque<>(maxPending);
+        List<T> items = new ArrayList<>();
+        int count = 0;
+        TokenBuffer buffer = null;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (buffer == null) {
+                buffer = new TokenBuffer(parser);
+                buffer.writeStartArray();
+            }
+            buffer.copyCurrentStructure(parser);
+            if (++count % CHUNK_SIZE == 0) {
+                if (pending.size() == maxPending) {
+                    drain(pending.removeFirst(), items, listener);
+                }
+                pending.addLast(pool.submit(decodeChunk(buffer, reader)));
+                buffer = null;
+            }
+        }
+        if (buffer != null) {
+            pending.addLast(pool.submit(decodeChunk(buffer, reader)));
+        }
+        while (!pending.isEmpty()) {
+            drain(pending.removeFirst(), items, listener);
+        }
+        return items;
     }
 
     /**
-     * Sauvegarde les données dans le fichier JSON en mettant à jour uniquement les données modifiées.
+     * Attend le décodage d'un bloc et transmet ses éléments, dans l'ordre, à la liste et au listener.
      *
-     * @param dataContainer les données à sauvegarder
+     * @param chunk    la tâche de décodage du bloc
+     * @param items    les éléments déjà lus de la section
+     * @param listener le traitement appliqué à chaque élément lu
      */
-    public void saveData(DataContainer dataContainer) {
-        ObjectMapper objectMapper = new ObjectMapper();
+    private static <T> void drain(ForkJoinTask<List<T>> chunk, List<T> items, Consumer<T> listener) {
+        for (T item : chunk.join()) {
+            items.add(item);
+            listener.accept(item);
+        }
+    }
 
-        // Charger les données existantes depuis le fichier
-        DataContainer existingDataContainer = loadDataFromFile();
+    /**
+     * Prépare le décodage d'un bloc d'éléments copiés dans un tampon de jetons.
+     *
+     * @param buffer le tampon contenant le début de tableau et les éléments du bloc
+     * @param reader le lecteur d'une liste du type d'élément
+     * @return la tâche de décodage, qui lève une UncheckedIOException si le bloc n'est pas valide
+     * @throws IOException si le tampon ne peut pas être fermé
+     */
+    private static <T> Callable<List<T>> decodeChunk(TokenBuffer buffer, ObjectReader reader) throws IOException {
+        buffer.writeEndArray();
+        return () -> {
+            try (JsonParser chunkParser = buffer.asParser()) {
+                return reader.readValue(chunkParser);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
 
-        // Mettre à jour uniquement les données modifiées
-        existingDataContainer.setPersons(dataContainer.getPersons());
-        existingDataContainer.setFirestations(dataContainer.getFirestations());
-        existingDataContainer.setMedicalrecords(dataContainer.getMedicalrecords());
+    /**
+     * Sauvegarde les données dans le fichier JSON, puis dans l'instantané binaire s'il est activé.
+     * L'écriture se fait dans un fichier temporaire qui remplace ensuite le fichier de données
+     * par un renommage atomique, afin qu'une interruption en cours d'écriture ne corrompe jamais
+     * la seule copie des données. Un échec de l'instantané binaire n'est pas bloquant : il reste
+     * alors plus ancien que le JSON et sera ignoré au prochain démarrage.
+     *
+     * @param dataContainer les données à sauvegarder
+     * @return true si la sauvegarde a réussi, false sinon
+     */
+    public boolean saveData(DataContainer dataContainer) {
+        Path target = Paths.get(dataFilePath);
+        Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
 
         try {
-            objectMapper.writeValue(new File(dataFilePath), existingDataContainer);
+            objectMapper.writeValue(tempFile.toFile(), dataContainer);
+            moveAtomically(tempFile, target);
             logger.info("Données sauvegardées avec succès dans le fichier.");
         } catch (IOException e) {
             logger.error("Erreur lors de la sauvegarde des données dans le fichier : {}", e.getMessage());
+            return false;
+        }
+
+        if (binarySnapshotEnabled) {
+            saveBinarySnapshot(dataContainer);
+        }
+        return true;
+    }
+
+    /**
+     * Écrit l'instantané binaire, lui aussi via un fichier temporaire renommé.
+     *
+     * @param dataContainer les données à sauvegarder
+     */
+    private void saveBinarySnapshot(DataContainer dataContainer) {
+        Path snapshot = Paths.get(snapshotFilePath);
+        Path tempFile = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try {
+            BinarySnapshot.write(dataContainer, tempFile);
+            moveAtomically(tempFile, snapshot);
+            logger.debug("Instantané binaire écrit.");
+        } catch (IOException e) {
+            logger.warn("Erreur lors de l'écriture de l'instantané binaire : {}", e.getMessage());
         }
     }
 
     /**
-     * Charge les données depuis le fichier JSON. Si le fichier est vide ou inexistant, retourne un DataContainer vide.
+     * Indique si l'instantané binaire existe et est au moins aussi récent que le fichier JSON.
      *
-     * @return un DataContainer contenant les données chargées ou un DataContainer vide si aucune donnée n'est présente
+     * @param snapshot l'instantané binaire
+     * @return true si l'instantané doit être préféré au JSON
      */
-    private DataContainer loadDataFromFile() {
-        ObjectMapper objectMapper = new ObjectMapper();
+    private boolean isNewerThanJson(Path snapshot) {
         try {
-            return objectMapper.readValue(new File(dataFilePath), DataContainer.class);
+            Path json = Paths.get(dataFilePath);
+            return Files.exists(snapshot)
+                    && (!Files.exists(json) || Files.getLastModifiedTime(snapshot).compareTo(Files.getLastModifiedTime(json)) >= 0);
         } catch (IOException e) {
-            logger.warn("Le fichier de données est vide ou inexistant, retour d'un DataContainer vide.");
-            return new DataContainer();
+            return false;
+        }
+    }
+
+    /**
+     * Remplace le fichier cible par le fichier temporaire, de manière atomique lorsque le système de fichiers le permet.
+     *
+     * @param source le fichier temporaire
+     * @param target le fichier de données à remplacer
+     * @throws IOException si le déplacement échoue
+     */
+    private void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            logger.warn("Renommage atomique non supporté, remplacement simple du fichier de données.");
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 }
@@ -1,6 +1,8 @@
 package com.safetyNet.safetyNetSystem.util;
 
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
@@ -8,13 +10,139 @@ public class DateUtil {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");
 
+    /**
+     * Valeur d'une date de naissance absente ou invalide, une fois convertie en jour epoch.
+     */
+    public static final int INVALID_DATE = Integer.MIN_VALUE;
+
+    private static volatile Clock clock = Clock.systemDefaultZone();
+
+    /**
+     * Date du jour précalculée, valable jusqu'à minuit (heure locale). Le jour de l'année est numéroté
+     * comme dans une année bissextile, pour que le 1er mars suive toujours le 29 février.
+     */
+    private record Today(int year, int dayOfYear, long validUntilMillis) {
+    }
+
+    private static volatile Today today = computeToday(clock);
+
+    /**
+     * Remplace l'horloge utilisée pour la date du jour, et recalcule celle-ci.
+     *
+     * @param newClock L'horloge à utiliser.
+     */
+    static void setClock(Clock newClock) {
+        clock = newClock;
+        today = computeToday(newClock);
+    }
+
+    /**
+     * Calcule l'âge à partir d'une date de naissance au format MM/dd/yyyy. Une personne née un 29 février
+     * prend un an le 1er mars les années non bissextiles.
+     *
+     * @param birthdate La date de naissance.
+     * @return L'âge en années, ou -1 si la date est absente ou invalide.
+     */
     public static int calculateAge(String birthdate) {
+        return calculateAge(toEpochDay(birthdate));
+    }
+
+    /**
+     * Convertit une date de naissance au format MM/dd/yyyy en nombre de jours depuis le 01/01/1970.
+     * Appelé une seule fois, au chargement ou à la modification du dossier médical.
+     *
+     * @param birthdate La date de naissance.
+     * @return Le jour epoch, ou {@link #INVALID_DATE} si la date est absente ou invalide.
+     */
+    public static int toEpochDay(String birthdate) {
+        if (birthdate == null) {
+            return INVALID_DATE;
+        }
         try {
-            LocalDate birthDate = LocalDate.parse(birthdate, DATE_FORMATTER);
-            LocalDate currentDate = LocalDate.now();
-            return currentDate.getYear() - birthDate.getYear() - (currentDate.getDayOfYear() < birthDate.getDayOfYear() ? 1 : 0);
+            return (int) LocalDate.parse(birthdate, DATE_FORMATTER).toEpochDay();
         } catch (DateTimeParseException e) {
-            return -1; //Retourne une date invalide
+            return INVALID_DATE;
+        }
+    }
+
+    /**
+     * Calcule l'âge à partir d'une date de naissance déjà convertie en jour epoch, avec la même règle que
+     * {@link #calculateAge(String)}, sans analyse de texte ni allocation.
+     *
+     * @param birthEpochDay La date de naissance en jour epoch.
+     * @return L'âge en années, ou -1 si la date est invalide.
+     */
+    public static int calculateAge(int birthEpochDay) {
+        if (birthEpochDay == INVALID_DATE) {
+            return -1;
+        }
+        Today current = today();
+        int birthYear = yearOf(birthEpochDay);
+        int birthDayOfYear = dayOfLeapYear(birthYear, birthEpochDay - firstDayOfYear(birthYear) + 1);
+        return current.year() - birthYear - (current.dayOfYear() < birthDayOfYear ? 1 : 0);
+    }
+
+    /**
+     * Indique si une personne est un enfant (moins de 18 ans). Une date invalide compte comme un enfant,
+     * comme avec {@link #calculateAge(String)}.
+     *
+     * @param birthEpochDay La date de naissance en jour epoch.
+     * @return true si l'âge calculé est inférieur à 18 ans.
+     */
+    public static boolean isChild(int birthEpochDay) {
+        return calculateAge(birthEpochDay) < 18;
+    }
+
+    /**
+     * Retourne la date du jour précalculée, recalculée au premier appel après minuit.
+     */
+    private static Today today() {
+        Clock current = clock;
+        Today day = today;
+        if (current.millis() >= day.validUntilMillis()) {
+            day = computeToday(current);
+            today = day;
         }
+        return day;
+    }
+
+    private static Today computeToday(Clock current) {
+        LocalDate date = LocalDate.now(current);
+        long validUntil = date.plusDays(1).atStartOfDay(current.getZone()).toInstant().toEpochMilli();
+        return new Today(date.getYear(), dayOfLeapYear(date.getYear(), date.getDayOfYear()), validUntil);
+    }
+
+    /**
+     * Renumérote un jour de l'année comme dans une année bissextile : à partir du 1er mars,
+     * les jours d'une année non bissextile sont décalés d'un jour.
+     */
+    private static int dayOfLeapYear(int year, int dayOfYear) {
+        return dayOfYear > 59 && !Year.isLeap(year) ? dayOfYear + 1 : dayOfYear;
+    }
+
+    /**
+     * Année (calendrier grégorien proleptique) contenant un jour epoch.
+     */
+    private static int yearOf(int epochDay) {
+        int year = 1970 + (int) Math.floorDiv(epochDay * 400L, 146097L);
+        while (firstDayOfYear(year) > epochDay) {
+            year--;
+        }
+        while (firstDayOfYear(year + 1) <= epochDay) {
+            year++;
+        }
+        return year;
+    }
+
+    /**
+     * Jour epoch du 1er janvier d'une année.
+     */
+    private static int firstDayOfYear(int year) {
+        return daysBeforeYear(year) - daysBeforeYear(1970);
+    }
+
+    private static int daysBeforeYear(int year) {
+        int previous = year - 1;
+        return 365 * year + Math.floorDiv(previous, 4) - Math.floorDiv(previous, 100) + Math.floorDiv(previous, 400);
     }
 }
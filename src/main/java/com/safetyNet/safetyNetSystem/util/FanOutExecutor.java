@@ -0,0 +1,125 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Exécute en parallèle un même traitement sur les éléments d'une liste, sur un pool fork-join dédié
+ * et borné, et rassemble les résultats dans l'ordre de la liste : le résultat est identique à celui
+ * d'un traitement séquentiel.
+ * <p>
+ * Les listes plus courtes que le seuil sont traitées sur le thread appelant, sans passer par le pool :
+ * une petite requête ne paie pas le coût de la répartition. Le traitement ne doit pas dépendre du thread
+ * qui l'exécute (en particulier, la version des données épinglée par la requête n'est visible que du
+ * thread appelant) : les données à lire sont résolues avant l'appel.
+ */
+@Component
+public class FanOutExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(FanOutExecutor.class);
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Constructeur du pool.
+     *
+     * @param parallelism Nombre maximal de threads du pool (0 : nombre de processeurs).
+     * @param threshold   Nombre minimal d'éléments pour un traitement parallèle.
+     */
+    public FanOutExecutor(@Value("${safetynet.fan-out.parallelism:0}") int parallelism,
+                          @Value("${safetynet.fan-out.threshold:256}") int threshold) {
+        int size = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(size, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("fan-out-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.threshold = Math.max(1, threshold);
+        logger.info("Traitements parallèles : {} threads au plus, à partir de {} éléments", size, this.threshold);
+    }
+
+    /**
+     * Applique un traitement à chaque élément d'une liste.
+     *
+     * @param items  Les éléments.
+     * @param mapper Le traitement, sans effet de bord ; il peut retourner null.
+     * @param <T>    Le type des éléments.
+     * @param <R>    Le type des résultats.
+     * @return Les résultats, dans l'ordre des éléments (y compris les null).
+     */
+    public <T, R> List<R> map(List<T> items, Function<? super T, ? extends R> mapper) {
+        int size = items.size();
+        if (size < threshold) {
+            List<R> results = new ArrayList<>(size);
+            for (T item : items) {
+                results.add(mapper.apply(item));
+            }
+            return results;
+        }
+        Object[] results = new Object[size];
+        int grain = Math.max(1, size / (pool.getParallelism() * 4));  // Quelques blocs par thread, pour équilibrer la charge
+        pool.invoke(new MapTask<>(items, mapper, results, 0, size, grain));
+        @SuppressWarnings("unchecked")
+        List<R> list = (List<R>) Arrays.asList(results);
+        return list;
+    }
+
+    /**
+     * Arrête le pool à l'arrêt de l'application.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Traite une plage d'éléments, en la divisant en deux tant qu'elle dépasse la taille d'un bloc.
+     * Chaque résultat est rangé à la position de son élément. La tâche n'est jamais sérialisée.
+     */
+    private static final class MapTask<T, R> extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<T> items;
+        private final transient Function<? super T, ? extends R> mapper;
+        private final transient Object[] results;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        private MapTask(List<T> items, Function<? super T, ? extends R> mapper, Object[] results, int from, int to, int grain) {
+            this.items = items;
+            this.mapper = mapper;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    results[i] = mapper.apply(items.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new MapTask<>(items, mapper, results, from, middle, grain),
+                    new MapTask<>(items, mapper, results, middle, to, grain));
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import com.safetyNet.safetyNetSystem.model.DataContainer;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Lecture en mémoire projetée (mode lecture seule) d'un instantané au format {@link BinarySnapshot}.
+ * <p>
+ * Le fichier est projeté via {@link FileChannel#map} : les octets restent dans le cache de pages du
+ * système, partagé entre les JVM d'un même hôte. Les listes de personnes et de dossiers médicaux du
+ * DataContainer créent chaque élément au premier accès puis le conservent, pour que l'index, le graphe
+ * des stations et les lectures partagent la même instance ; chaque élément est une vue qui ne conserve
+ * que sa position dans le fichier et décode ses champs à la demande. Les chaînes de la table sont
+ * décodées au premier accès puis partagées.
+ * <p>
+ * Les index et le graphe des stations restent construits sur le tas, à partir des vues : ils en
+ * conservent une par entité, ainsi que les chaînes de leurs clés (noms, adresses, villes, téléphones,
+ * emails). Le gain mémoire se limite donc aux chaînes non indexées et aux champs des entités ; il est
+ * mesuré dans le README.
+ * Les vues sont en lecture seule : leurs mutateurs lèvent une {@link UnsupportedOperationException}.
+ * La taille du fichier est limitée à 2 Go par la projection d'un unique tampon.
+ */
+public final class MappedSnapshot {
+
+    private static final int PERSON_SIZE = BinarySnapshot.PERSON_BYTES;
+    private static final int UNPARSED = Integer.MAX_VALUE;
+
+    private final MappedByteBuffer buffer;
+    private final int[] stringOffsets;         // Position de chaque chaîne (préfixe de longueur inclus)
+    private final String[] strings;            // Chaînes déjà décodées, partagées entre les vues
+    private final int personsOffset;
+    private final int personCount;
+    private final int[] medicalRecordOffsets;
+    private final long changeLogSegment;
+
+    private MappedSnapshot(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        int position = 0;
+        if (buffer.getInt(position) != BinarySnapshot.MAGIC) {
+            throw new IOException("signature d'instantané binaire invalide");
+        }
+        int version = buffer.getInt(position + Integer.BYTES);
+        if (version != BinarySnapshot.VERSION) {
+            throw new IOException("version d'instantané binaire non supportée : " + version);
+        }
+        changeLogSegment = buffer.getLong(position + 2 * Integer.BYTES);
+        position += 2 * Integer.BYTES + Long.BYTES;
+
+        // Chaque nombre et chaque longueur sont vérifiés avant d'être utilisés, et chaque référence de
+        // chaîne est validée ici une fois pour toutes : les accès suivants ne peuvent plus sortir du fichier
+        int stringCount = count(position, Integer.BYTES);
+        position += Integer.BYTES;
+        stringOffsets = new int[stringCount];
+        strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            stringOffsets[i] = position;
+            position += Integer.BYTES + count(position, 1);
+        }
+
+        personCount = count(position, PERSON_SIZE);
+        personsOffset = position + Integer.BYTES;
+        checkRefs(personsOffset, personCount * 7);
+        position = personsOffset + personCount * PERSON_SIZE;
+
+        int firestationCount = count(position, BinarySnapshot.FIRESTATION_BYTES);
+        checkRefs(position + Integer.BYTES, firestationCount * 2);
+        position += Integer.BYTES + firestationCount * BinarySnapshot.FIRESTATION_BYTES;
+
+        // Les dossiers médicaux sont de taille variable : seule leur position est mémorisée
+        int medicalRecordCount = count(position, BinarySnapshot.MIN_MEDICAL_RECORD_BYTES);
+        position += Integer.BYTES;
+        medicalRecordOffsets = new int[medicalRecordCount];
+        for (int i = 0; i < medicalRecordCount; i++) {
+            medicalRecordOffsets[i] = position;
+            checkRefs(position, 3);
+            position += 3 * Integer.BYTES;
+            position = checkedSkipRefs(position);
+            position = checkedSkipRefs(position);
+        }
+    }
+
+    /**
+     * Lit un nombre d'éléments (ou une longueur) et vérifie que la suite du fichier peut les contenir.
+     *
+     * @param position la position du nombre
+     * @param minBytes la taille minimale d'un élément
+     */
+    private int count(int position, int minBytes) throws IOException {
+        int count = buffer.getInt(position);
+        if (count < 0 || (long) count * minBytes > buffer.limit() - (long) position - Integer.BYTES) {
+            throw new IOException("instantané binaire corrompu : taille " + count + " à la position " + position);
+        }
+        return count;
+    }
+
+    private void checkRefs(int position, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            int index = buffer.getInt(position + i * Integer.BYTES);
+            if (index < -1 || index >= stringOffsets.length) {
+                throw new IOException("référence de chaîne invalide : " + index);
+            }
+        }
+    }
+
+    private int checkedSkipRefs(int position) throws IOException {
+        if (buffer.getInt(position) == -1) {
+            return position + Integer.BYTES;
+        }
+        int size = count(position, Integer.BYTES);
+        checkRefs(position + Integer.BYTES, size);
+        return position + Integer.BYTES + size * Integer.BYTES;
+    }
+
+    /**
+     * Projette un instantané binaire en mémoire et retourne un DataContainer en lecture seule sur son contenu.
+     * Les casernes, peu nombreuses, sont décodées immédiatement ; les personnes et les dossiers médicaux
+     * sont décodés à l'accès.
+     *
+     * @param file l'instantané binaire
+     * @return le DataContainer en lecture seule
+     * @throws IOException si le fichier est illisible, tronqué, corrompu ou d'une version non supportée
+     */
+    public static DataContainer map(Path file) throws IOException {
+        MappedSnapshot snapshot;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("instantané binaire de plus de 2 Go");
+            }
+            snapshot = new MappedSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("instantané binaire tronqué", e);
+        }
+
+        DataContainer dataContainer = new DataContainer();
+        dataContainer.setPersons(snapshot.new PersonList());
+        dataContainer.setFirestations(snapshot.readFirestations());
+        dataContainer.setMedicalrecords(snapshot.new MedicalRecordList());
+        dataContainer.setChangeLogSegment(snapshot.changeLogSegment);
+        return dataContainer;
+    }
+
+    private List<Firestation> readFirestations() {
+        int position = personsOffset + personCount * PERSON_SIZE;
+        int count = buffer.getInt(position);
+        position += Integer.BYTES;
+        List<Firestation> firestations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            firestations.add(new Firestation(string(position), string(position + Integer.BYTES)));
+            position += 2 * Integer.BYTES;
+        }
+        return Collections.unmodifiableList(firestations);
+    }
+
+    private int skipRefs(int position) {
+        int size = buffer.getInt(position);
+        return position + Integer.BYTES + Math.max(size, 0) * Integer.BYTES;
+    }
+
+    /**
+     * Décode la chaîne référencée à une position du fichier.
+     */
+    private String string(int refPosition) {
+        int index = buffer.getInt(refPosition);
+        if (index == -1) {
+            return null;
+        }
+        String value = strings[index];
+        if (value == null) {
+            // Course bénigne : deux threads peuvent décoder la même chaîne, le résultat est identique
+            int offset = stringOffsets[index];
+            byte[] bytes = new byte[buffer.getInt(offset)];
+            buffer.get(offset + Integer.BYTES, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = value;
+        }
+        return value;
+    }
+
+    private List<String> strings(int position) {
+        int size = buffer.getInt(position);
+        if (size == -1) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(string(position + Integer.BYTES + i * Integer.BYTES));
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Le jeu de données projeté en mémoire est en lecture seule");
+    }
+
+    /**
+     * Liste des personnes, dont chaque élément est une vue créée au premier accès puis conservée.
+     */
+    private final class PersonList extends AbstractList<Person> implements RandomAccess {
+        private final Person[] views = new Person[personCount];
+
+        @Override
+        public Person get(int index) {
+            if (index < 0 || index >= personCount) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            Person view = views[index];
+            if (view == null) {
+                // Course bénigne : les vues sont toutes créées au chargement, par le seul thread qui indexe
+                view = new PersonView(personsOffset + index * PERSON_SIZE);
+                views[index] = view;
+            }
+            return view;
+        }
+
+        @Override
+        public int size() {
+            return personCount;
+        }
+    }
+
+    /**
+     * Liste des dossiers médicaux, dont chaque élément est une vue créée au premier accès puis conservée.
+     */
+    private final class MedicalRecordList extends AbstractList<MedicalRecord> implements RandomAccess {
+        private final MedicalRecord[] views = new MedicalRecord[medicalRecordOffsets.length];
+
+        @Override
+        public MedicalRecord get(int index) {
+            MedicalRecord view = views[index];
+            if (view == null) {
+                // Course bénigne, comme pour les personnes
+                view = new MedicalRecordView(medicalRecordOffsets[index]);
+                views[index] = view;
+            }
+            return view;
+        }
+
+        @Override
+        public int size() {
+            return medicalRecordOffsets.length;
+        }
+    }
+
+    /**
+     * Personne décodée à la demande depuis le fichier projeté.
+     */
+    private final class PersonView extends Person {
+        private final int offset;
+
+        private PersonView(int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public String getFirstName() {
+            return string(offset);
+        }
+
+        @Override
+        public String getLastName() {
+            return string(offset + Integer.BYTES);
+        }
+
+        @Override
+        public String getAddress() {
+            return string(offset + 2 * Integer.BYTES);
+        }
+
+        @Override
+        public String getCity() {
+            return string(offset + 3 * Integer.BYTES);
+        }
+
+        @Override
+        public String getZip() {
+            return string(offset + 4 * Integer.BYTES);
+        }
+
+        @Override
+        public String getPhone() {
+            return string(offset + 5 * Integer.BYTES);
+        }
+
+        @Override
+        public String getEmail() {
+            return string(offset + 6 * Integer.BYTES);
+        }
+
+        @Override
+        public void setFirstName(String firstName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setLastName(String lastName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setAddress(String address) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setCity(String city) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setZip(String zip) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setPhone(String phone) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setEmail(String email) {
+            throw readOnly();
+        }
+
+        @Override
+        public String toString() {
+            return new Person(getFirstName(), getLastName(), getAddress(), getCity(), getZip(), getPhone(), getEmail()).toString();
+        }
+    }
+
+    /**
+     * Dossier médical décodé à la demande depuis le fichier projeté.
+     */
+    private final class MedicalRecordView extends MedicalRecord {
+        private final int offset;
+        private int birthEpochDay = UNPARSED;  // Analysée au premier accès
+
+        private MedicalRecordView(int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public String getFirstName() {
+            return string(offset);
+        }
+
+        @Override
+        public String getLastName() {
+            return string(offset + Integer.BYTES);
+        }
+
+        @Override
+        public String getBirthdate() {
+            return string(offset + 2 * Integer.BYTES);
+        }
+
+        @Override
+        public int getBirthEpochDay() {
+            if (birthEpochDay == UNPARSED) {
+                birthEpochDay = DateUtil.toEpochDay(getBirthdate());
+            }
+            return birthEpochDay;
+        }
+
+        @Override
+        public List<String> getMedications() {
+            return strings(offset + 3 * Integer.BYTES);
+        }
+
+        @Override
+        public List<String> getAllergies() {
+            return strings(skipRefs(offset + 3 * Integer.BYTES));
+        }
+
+        @Override
+        public void setFirstName(String firstName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setLastName(String lastName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setBirthdate(String birthdate) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setMedications(List<String> medications) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setAllergies(List<String> allergies) {
+            throw readOnly();
+        }
+
+        @Override
+        public String toString() {
+            return new MedicalRecord(getFirstName(), getLastName(), getBirthdate(), getMedications(), getAllergies()).toString();
+        }
+    }
+}
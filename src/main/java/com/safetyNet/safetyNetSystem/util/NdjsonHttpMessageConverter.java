@@ -0,0 +1,120 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Convertisseur NDJSON (application/x-ndjson) : une valeur JSON par ligne.
+ * Un paramètre {@code @RequestBody List<T>} reçoit les lignes dans l'ordre, lues une à une
+ * sans charger le corps entier, comme s'il avait reçu un tableau JSON.
+ * En réponse, seul un {@link Stream} est écrit : chaque élément est sérialisé dès qu'il est produit,
+ * sans construire la liste complète, et la mémoire utilisée ne dépend pas du nombre d'éléments.
+ * Déclaré comme bean, il est ajouté par Spring Boot aux convertisseurs de Spring MVC.
+ */
+@Component
+public class NdjsonHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    /**
+     * Constructeur du convertisseur.
+     *
+     * @param objectMapper Le mapper Jackson de l'application.
+     */
+    public NdjsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper, MediaType.APPLICATION_NDJSON);
+    }
+
+    /**
+     * Lit un corps NDJSON. Pour une collection, chaque ligne est lue comme un élément ; sinon le corps
+     * doit contenir une seule valeur.
+     *
+     * @param type         Le type attendu.
+     * @param contextClass La classe du contrôleur, pour résoudre les types génériques.
+     * @param inputMessage La requête.
+     * @return La valeur lue.
+     * @throws IOException en cas d'erreur de lecture.
+     */
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        JavaType javaType = getJavaType(type, contextClass);
+        if (!javaType.isCollectionLikeType()) {
+            return super.read(type, contextClass, inputMessage);
+        }
+        List<Object> values = new ArrayList<>();
+        try (MappingIterator<Object> lines = getObjectMapper().readerFor(javaType.getContentType()).readValues(inputMessage.getBody())) {
+            while (lines.hasNextValue()) {
+                values.add(lines.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("NDJSON invalide : " + e.getOriginalMessage(), e, inputMessage);
+        }
+        return values;
+    }
+
+    /**
+     * Seuls les flux ({@link Stream}) sont écrits par ce convertisseur.
+     *
+     * @param clazz     La classe à écrire.
+     * @param mediaType Le type de contenu demandé.
+     * @return true pour un flux, si le type de contenu est NDJSON.
+     */
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return Stream.class.isAssignableFrom(clazz) && canWrite(mediaType);
+    }
+
+    /**
+     * Seuls les flux ({@link Stream}) sont écrits par ce convertisseur.
+     *
+     * @param type      Le type à écrire.
+     * @param clazz     La classe à écrire.
+     * @param mediaType Le type de contenu demandé.
+     * @return true pour un flux, si le type de contenu est NDJSON.
+     */
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return canWrite(clazz, mediaType);
+    }
+
+    /**
+     * Écrit chaque élément du flux sur sa propre ligne, au fur et à mesure de son parcours.
+     * La réponse n'est pas vidée après chaque ligne : elle part par blocs, quand les tampons sont pleins.
+     *
+     * @param object        Le flux à écrire.
+     * @param type          Le type déclaré.
+     * @param outputMessage La réponse.
+     * @throws IOException en cas d'erreur d'écriture.
+     */
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        ObjectWriter writer = getObjectMapper().writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = getObjectMapper().getFactory().createGenerator(outputMessage.getBody(), JsonEncoding.UTF8);
+        generator.setRootValueSeparator(null);  // Les lignes sont séparées explicitement
+        try (Stream<?> values = (Stream<?>) object) {
+            Iterator<?> iterator = values.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+            }
+        }
+        generator.flush();
+    }
+}
@@ -0,0 +1,86 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position d'une pagination par curseur dans l'ordre alphabétique des personnes : le nom de la dernière
+ * personne lue et son numéro d'indexation, unique, qui la départage de ses homonymes exacts. La page suivante
+ * reprend juste après, même si des personnes ont été ajoutées ou retirées entre-temps avant ou après cette
+ * position, homonymes compris. Les numéros étant réattribués au chargement des données, un curseur émis
+ * avant un redémarrage peut seulement sauter ou répéter des homonymes exacts.
+ * Le curseur est transmis au client sous une forme opaque (Base64 URL), qu'il renvoie tel quel.
+ *
+ * @param lastName  Le nom de famille de la dernière personne lue.
+ * @param firstName Le prénom de la dernière personne lue.
+ * @param sequence  Le numéro d'indexation de la dernière personne lue.
+ */
+public record PageCursor(String lastName, String firstName, long sequence) {
+
+    /**
+     * Encode le curseur sous sa forme opaque.
+     *
+     * @return Le curseur encodé.
+     */
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeNullable(out, lastName);
+            writeNullable(out, firstName);
+            out.writeLong(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Décode un curseur reçu d'un client.
+     *
+     * @param token Le curseur encodé.
+     * @return Le curseur.
+     * @throws IllegalArgumentException si le curseur est invalide.
+     */
+    public static PageCursor decode(String token) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            PageCursor cursor = new PageCursor(readNullable(in), readNullable(in), in.readLong());
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("Curseur invalide");
+            }
+            return cursor;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Curseur invalide", e);
+        }
+    }
+
+    /**
+     * Écrit une chaîne en UTF-8 précédée de sa longueur en octets (-1 pour null), sans la limite
+     * de 64 Ko de {@link DataOutputStream#writeUTF(String)}.
+     */
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.available()) {
+            throw new IOException("longueur invalide : " + length);
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
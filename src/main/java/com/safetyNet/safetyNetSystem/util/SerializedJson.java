@@ -0,0 +1,55 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.UncheckedIOException;
+import java.util.zip.CRC32C;
+
+/**
+ * Réponse JSON déjà sérialisée en UTF-8, avec son ETag. Elle est écrite telle quelle par
+ * {@link SerializedJsonHttpMessageConverter}, sans repasser par Jackson : une réponse mise en cache
+ * n'est sérialisée qu'une fois, quel que soit le nombre de requêtes qui la lisent.
+ * Le tableau d'octets est partagé et ne doit pas être modifié.
+ *
+ * @param bytes Le corps JSON, en UTF-8.
+ * @param eTag  L'ETag fort du corps (entre guillemets).
+ */
+public record SerializedJson(byte[] bytes, String eTag) {
+
+    /**
+     * Sérialise une valeur, avec un ETag dérivé de son contenu.
+     *
+     * @param writer Le writer Jackson de l'application, pour produire exactement le JSON qu'aurait écrit Spring MVC.
+     * @param value  La valeur à sérialiser.
+     * @return La réponse sérialisée.
+     * @throws UncheckedIOException si la valeur ne peut pas être sérialisée.
+     */
+    public static SerializedJson of(ObjectWriter writer, Object value) {
+        byte[] bytes = serialize(writer, value);
+        CRC32C checksum = new CRC32C();
+        checksum.update(bytes);
+        return new SerializedJson(bytes, String.format("\"%08x-%x\"", checksum.getValue(), bytes.length));
+    }
+
+    /**
+     * Sérialise une valeur, avec un ETag déjà connu (par exemple la version de ses données).
+     *
+     * @param writer Le writer Jackson de l'application.
+     * @param value  La valeur à sérialiser.
+     * @param eTag   L'ETag de la réponse.
+     * @return La réponse sérialisée.
+     * @throws UncheckedIOException si la valeur ne peut pas être sérialisée.
+     */
+    public static SerializedJson of(ObjectWriter writer, Object value, String eTag) {
+        return new SerializedJson(serialize(writer, value), eTag);
+    }
+
+    private static byte[] serialize(ObjectWriter writer, Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
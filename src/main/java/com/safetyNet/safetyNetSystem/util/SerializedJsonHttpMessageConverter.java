@@ -0,0 +1,86 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Convertisseur des réponses déjà sérialisées ({@link SerializedJson}) : les octets sont copiés
+ * directement dans la réponse, avec leur longueur, sans passer par Jackson.
+ * Déclaré comme bean, il est ajouté par Spring Boot devant les convertisseurs de Spring MVC.
+ */
+@Component
+public class SerializedJsonHttpMessageConverter extends AbstractHttpMessageConverter<SerializedJson> {
+
+    /**
+     * Constructeur du convertisseur.
+     */
+    public SerializedJsonHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Seules les réponses déjà sérialisées sont écrites par ce convertisseur.
+     *
+     * @param clazz La classe à écrire.
+     * @return true pour {@link SerializedJson}.
+     */
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SerializedJson.class == clazz;
+    }
+
+    /**
+     * Ce convertisseur ne lit aucun corps de requête.
+     *
+     * @param clazz     La classe attendue.
+     * @param mediaType Le type de contenu de la requête.
+     * @return false.
+     */
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    /**
+     * Ce convertisseur ne lit aucun corps de requête.
+     *
+     * @param clazz        La classe attendue.
+     * @param inputMessage La requête.
+     * @return Jamais.
+     * @throws HttpMessageNotReadableException toujours.
+     */
+    @Override
+    protected SerializedJson readInternal(Class<? extends SerializedJson> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Lecture non supportée", inputMessage);
+    }
+
+    /**
+     * Copie le corps déjà sérialisé dans la réponse.
+     *
+     * @param serializedJson La réponse sérialisée.
+     * @param outputMessage  La réponse.
+     * @throws IOException en cas d'erreur d'écriture.
+     */
+    @Override
+    protected void writeInternal(SerializedJson serializedJson, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getBody().write(serializedJson.bytes());
+    }
+
+    /**
+     * Longueur du corps, connue d'avance.
+     *
+     * @param serializedJson La réponse sérialisée.
+     * @param contentType    Le type de contenu.
+     * @return Le nombre d'octets du corps.
+     */
+    @Override
+    protected Long getContentLength(SerializedJson serializedJson, MediaType contentType) {
+        return (long) serializedJson.bytes().length;
+    }
+}
@@ -0,0 +1,336 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Liste ordonnée versionnée, partagée entre les versions successives des données.
+ * <p>
+ * Les éléments sont rangés par blocs de {@value #CHUNK_SIZE}. Une version figée est non modifiable
+ * au sens de {@link java.util.List} et peut être lue par plusieurs threads sans synchronisation.
+ * {@link #edit()} crée une version modifiable qui partage les blocs de la précédente et ne copie un
+ * bloc qu'à sa première modification. Les retraits et remplacements désignent l'élément par identité
+ * (les modèles ne redéfinissent pas equals). Les premiers d'une version parcourent la liste pour retrouver
+ * l'élément ; au-delà de {@value #IMMEDIATE_EDITS}, ils sont différés et appliqués tous ensemble en un seul
+ * parcours par {@link #freeze()}, ce qui garde un lot de modifications linéaire. Une version modifiable
+ * n'est donc lisible qu'une fois figée ; elle ne doit être utilisée que par un seul thread, puis figée
+ * avant d'être publiée.
+ *
+ * @param <E> Le type des éléments.
+ */
+public final class SnapshotList<E> extends AbstractList<E> implements RandomAccess {
+
+    static final int CHUNK_SIZE = 1024;
+    static final int IMMEDIATE_EDITS = 8;
+    private static final Object REMOVED = new Object();
+
+    private Chunk[] chunks;
+    private int[] ends;       // Position (exclue) de la fin de chaque bloc dans la liste
+    private int size;
+    private Object owner;     // Jeton des blocs modifiables, null une fois figée
+    private int edits;        // Retraits et remplacements demandés dans cette version
+    private IdentityHashMap<Object, Object> pending;  // Remplacements différés (REMOVED pour un retrait)
+
+    private SnapshotList(Chunk[] chunks, int size, Object owner) {
+        this.chunks = chunks;
+        this.size = size;
+        this.owner = owner;
+        this.ends = computeEnds(chunks);
+    }
+
+    /**
+     * Crée une liste figée contenant les éléments d'une liste, dans le même ordre.
+     *
+     * @param elements Les éléments.
+     * @param <E>      Le type des éléments.
+     * @return La nouvelle liste, ou la liste elle-même si c'est déjà une liste figée.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> SnapshotList<E> copyOf(List<? extends E> elements) {
+        if (elements instanceof SnapshotList<?> list && list.owner == null) {
+            return (SnapshotList<E>) list;
+        }
+        Chunk[] chunks = new Chunk[(elements.size() + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        int count = 0;
+        for (E element : elements) {
+            int index = count / CHUNK_SIZE;
+            if (chunks[index] == null) {
+                chunks[index] = new Chunk(null, new Object[Math.min(CHUNK_SIZE, elements.size() - count)]);
+            }
+            chunks[index].items[chunks[index].size++] = element;
+            count++;
+        }
+        return new SnapshotList<>(chunks, count, null);
+    }
+
+    /**
+     * Crée une version modifiable de cette liste, qui partage ses blocs.
+     *
+     * @return La nouvelle version, modifiable jusqu'à {@link #freeze()}.
+     */
+    public SnapshotList<E> edit() {
+        return new SnapshotList<>(chunks.clone(), size, new Object());
+    }
+
+    /**
+     * Fige cette version : elle ne peut plus être modifiée et peut être publiée.
+     *
+     * @return Cette liste.
+     */
+    public SnapshotList<E> freeze() {
+        if (pending != null) {
+            applyPending();
+        }
+        owner = null;
+        return this;
+    }
+
+    /**
+     * Ajoute un élément en fin de liste.
+     *
+     * @param element L'élément à ajouter.
+     * @return true.
+     * @throws IllegalStateException si la liste est figée.
+     */
+    @Override
+    public boolean add(E element) {
+        checkEditable();
+        if (pending != null && pending.containsKey(element)) {
+            applyPending();  // Un élément retiré puis ajouté à nouveau ne doit pas être retiré au gel
+        }
+        int last = chunks.length - 1;
+        if (last >= 0 && chunks[last].size < CHUNK_SIZE) {
+            ownedChunk(last).append(element);
+            ends[last]++;
+        } else {
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[last + 1] = new Chunk(owner, new Object[CHUNK_SIZE]);
+            chunks[last + 1].append(element);
+            ends = Arrays.copyOf(ends, chunks.length);
+            ends[last + 1] = size + 1;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Retire un élément, désigné par identité. Sans effet si l'élément est absent.
+     *
+     * @param element L'élément à retirer.
+     * @throws IllegalStateException si la liste est figée.
+     */
+    public void removeInstance(Object element) {
+        edit(element, REMOVED);
+    }
+
+    /**
+     * Remplace un élément, désigné par identité, en conservant sa position. Sans effet si l'élément est absent.
+     *
+     * @param existing    L'élément à remplacer.
+     * @param replacement Le nouvel élément.
+     * @throws IllegalStateException si la liste est figée.
+     */
+    public void replaceInstance(Object existing, E replacement) {
+        edit(existing, replacement);
+    }
+
+    private void edit(Object existing, Object replacement) {
+        checkEditable();
+        if (pending == null && edits++ < IMMEDIATE_EDITS) {
+            if (replacement == REMOVED) {
+                removeNow(existing);
+            } else {
+                replaceNow(existing, replacement);
+            }
+            return;
+        }
+        if (pending == null) {
+            pending = new IdentityHashMap<>();
+        }
+        pending.put(existing, replacement);
+    }
+
+    private void removeNow(Object element) {
+        for (int c = 0; c < chunks.length; c++) {
+            int position = chunks[c].indexOf(element);
+            if (position >= 0) {
+                Chunk chunk = ownedChunk(c);
+                System.arraycopy(chunk.items, position + 1, chunk.items, position, chunk.size - position - 1);
+                chunk.items[--chunk.size] = null;
+                if (chunk.size == 0) {
+                    Chunk[] remaining = new Chunk[chunks.length - 1];
+                    System.arraycopy(chunks, 0, remaining, 0, c);
+                    System.arraycopy(chunks, c + 1, remaining, c, chunks.length - c - 1);
+                    chunks = remaining;
+                }
+                size--;
+                ends = computeEnds(chunks);
+                return;
+            }
+        }
+    }
+
+    private void replaceNow(Object existing, Object replacement) {
+        for (int c = 0; c < chunks.length; c++) {
+            int position = chunks[c].indexOf(existing);
+            if (position >= 0) {
+                ownedChunk(c).items[position] = replacement;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applique les remplacements différés en un seul parcours. Un élément remplacé puis remplacé
+     * ou retiré à nouveau suit la chaîne de ses remplacements ; seuls les blocs touchés sont recopiés.
+     */
+    private void applyPending() {
+        IdentityHashMap<Object, Object> replacements = pending;
+        pending = null;
+        Chunk[] updated = new Chunk[chunks.length];
+        int count = 0;
+        int total = 0;
+        for (Chunk chunk : chunks) {
+            if (!chunk.containsAny(replacements)) {
+                updated[count++] = chunk;
+                total += chunk.size;
+                continue;
+            }
+            Chunk copy = new Chunk(owner, new Object[CHUNK_SIZE]);
+            for (int i = 0; i < chunk.size; i++) {
+                Object item = chunk.items[i];
+                while (item != REMOVED && replacements.containsKey(item)) {
+                    item = replacements.get(item);
+                }
+                if (item != REMOVED) {
+                    copy.append(item);
+                }
+            }
+            if (copy.size > 0) {
+                updated[count++] = copy;
+                total += copy.size;
+            }
+        }
+        chunks = Arrays.copyOf(updated, count);
+        size = total;
+        ends = computeEnds(chunks);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int c = Arrays.binarySearch(ends, index + 1);
+        if (c < 0) {
+            c = -c - 1;
+        }
+        return (E) chunks[c].items[index - (ends[c] - chunks[c].size)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int chunk;
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                while (chunk < chunks.length && position >= chunks[chunk].size) {
+                    chunk++;
+                    position = 0;
+                }
+                return chunk < chunks.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return (E) chunks[chunk].items[position++];
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED | Spliterator.SIZED);
+    }
+
+    private void checkEditable() {
+        if (owner == null) {
+            throw new IllegalStateException("Version figée : utiliser edit() avant de la modifier");
+        }
+    }
+
+    private Chunk ownedChunk(int index) {
+        Chunk chunk = chunks[index];
+        if (chunk.owner != owner) {
+            chunk = new Chunk(owner, Arrays.copyOf(chunk.items, CHUNK_SIZE));
+            chunk.size = chunks[index].size;
+            chunks[index] = chunk;
+        }
+        return chunk;
+    }
+
+    private static int[] computeEnds(Chunk[] chunks) {
+        int[] ends = new int[chunks.length];
+        int end = 0;
+        for (int c = 0; c < chunks.length; c++) {
+            end += chunks[c].size;
+            ends[c] = end;
+        }
+        return ends;
+    }
+
+    /**
+     * Bloc d'éléments, modifiable uniquement par la version qui l'a créé.
+     */
+    private static final class Chunk {
+        private final Object owner;
+        private final Object[] items;
+        private int size;
+
+        private Chunk(Object owner, Object[] items) {
+            this.owner = owner;
+            this.items = items;
+        }
+
+        private void append(Object element) {
+            items[size++] = element;
+        }
+
+        private boolean containsAny(IdentityHashMap<Object, Object> elements) {
+            for (int i = 0; i < size; i++) {
+                if (elements.containsKey(items[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int indexOf(Object element) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == element) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
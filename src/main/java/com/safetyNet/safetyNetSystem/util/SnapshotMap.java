@@ -0,0 +1,204 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import java.io.Serial;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Table de hachage versionnée, partagée entre les versions successives des données.
+ * <p>
+ * Les entrées sont réparties en partitions (environ racine carrée du nombre d'entrées).
+ * Une version figée n'est plus jamais modifiée : elle peut être lue par plusieurs threads sans
+ * synchronisation. {@link #edit()} crée une version modifiable qui partage toutes les partitions
+ * de la précédente et ne copie une partition qu'à sa première modification ; une écriture coûte
+ * ainsi la copie d'une partition et du tableau des partitions, pas celle de toute la table.
+ * Une version modifiable ne doit être utilisée que par un seul thread, puis figée par
+ * {@link #freeze()} avant d'être publiée.
+ *
+ * @param <K> Le type des clés (null accepté).
+ * @param <V> Le type des valeurs.
+ */
+public final class SnapshotMap<K, V> {
+
+    private static final SnapshotMap<?, ?> EMPTY = new SnapshotMap<>(newShards(1), 0, null);
+
+    private Shard<K, V>[] shards;
+    private int size;
+    private Object owner;  // Jeton des partitions modifiables, null une fois figée
+
+    private SnapshotMap(Shard<K, V>[] shards, int size, Object owner) {
+        this.shards = shards;
+        this.size = size;
+        this.owner = owner;
+    }
+
+    /**
+     * Retourne la table vide, figée.
+     *
+     * @param <K> Le type des clés.
+     * @param <V> Le type des valeurs.
+     * @return La table vide.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> SnapshotMap<K, V> empty() {
+        return (SnapshotMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Crée une version modifiable de cette table, qui partage ses partitions.
+     *
+     * @return La nouvelle version, modifiable jusqu'à {@link #freeze()}.
+     */
+    public SnapshotMap<K, V> edit() {
+        return new SnapshotMap<>(shards.clone(), size, new Object());
+    }
+
+    /**
+     * Fige cette version : elle ne peut plus être modifiée et peut être publiée.
+     * Les partitions sont redécoupées si le nombre d'entrées a beaucoup varié.
+     *
+     * @return Cette table.
+     */
+    public SnapshotMap<K, V> freeze() {
+        int target = shardCount(size);
+        if (target > shards.length * 2 || target * 2 < shards.length) {
+            reshard(target);
+        }
+        owner = null;
+        return this;
+    }
+
+    /**
+     * Recherche la valeur associée à une clé.
+     *
+     * @param key La clé.
+     * @return La valeur, ou null si la clé est absente.
+     */
+    public V get(Object key) {
+        Shard<K, V> shard = shards[indexFor(key, shards.length)];
+        return shard == null ? null : shard.get(key);
+    }
+
+    /**
+     * Associe une valeur à une clé.
+     *
+     * @param key   La clé.
+     * @param value La valeur.
+     * @throws IllegalStateException si la table est figée.
+     */
+    public void put(K key, V value) {
+        if (ownedShard(indexFor(key, shards.length)).put(key, value) == null) {
+            size++;
+        }
+    }
+
+    /**
+     * Retire une clé.
+     *
+     * @param key La clé à retirer.
+     * @throws IllegalStateException si la table est figée.
+     */
+    public void remove(K key) {
+        int index = indexFor(key, shards.length);
+        Shard<K, V> shard = shards[index];
+        if (shard != null && shard.containsKey(key) && ownedShard(index).remove(key) != null) {
+            size--;
+        }
+    }
+
+    /**
+     * Nombre d'entrées de la table.
+     *
+     * @return La taille.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Parcourt toutes les entrées, dans un ordre quelconque.
+     *
+     * @param action L'action appliquée à chaque entrée.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Shard<K, V> shard : shards) {
+            if (shard != null) {
+                shard.forEach(action);
+            }
+        }
+    }
+
+    private Shard<K, V> ownedShard(int index) {
+        if (owner == null) {
+            throw new IllegalStateException("Version figée : utiliser edit() avant de la modifier");
+        }
+        Shard<K, V> shard = shards[index];
+        if (shard == null || shard.owner != owner) {
+            shard = shard == null ? new Shard<>(owner) : new Shard<>(owner, shard);
+            shards[index] = shard;
+        }
+        return shard;
+    }
+
+    private void reshard(int count) {
+        Shard<K, V>[] resharded = newShards(count);
+        for (Shard<K, V> shard : shards) {
+            if (shard == null) {
+                continue;
+            }
+            for (Map.Entry<K, V> entry : shard.entrySet()) {
+                int index = indexFor(entry.getKey(), count);
+                if (resharded[index] == null) {
+                    resharded[index] = new Shard<>(owner);
+                }
+                resharded[index].put(entry.getKey(), entry.getValue());
+            }
+        }
+        shards = resharded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Shard<K, V>[] newShards(int count) {
+        return (Shard<K, V>[]) new Shard<?, ?>[count];
+    }
+
+    /**
+     * Nombre de partitions visé : une puissance de deux proche de la racine carrée de la taille,
+     * qui équilibre la copie d'une partition et celle du tableau des partitions.
+     */
+    private static int shardCount(int size) {
+        return Integer.highestOneBit(Math.max(1, (int) Math.sqrt(size)));
+    }
+
+    /**
+     * Partition d'une clé, tirée des bits de poids fort d'un hachage multiplicatif : les bits de poids
+     * faible restent ainsi répartis pour les tables internes de chaque partition.
+     */
+    private static int indexFor(Object key, int count) {
+        if (count == 1) {
+            return 0;
+        }
+        int hash = (key == null ? 0 : key.hashCode()) * 0x9E3779B9;
+        return hash >>> (Integer.SIZE - Integer.numberOfTrailingZeros(count));
+    }
+
+    /**
+     * Partition, modifiable uniquement par la version qui l'a créée.
+     */
+    private static final class Shard<K, V> extends HashMap<K, V> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Object owner;
+
+        private Shard(Object owner) {
+            this.owner = owner;
+        }
+
+        private Shard(Object owner, Map<K, V> entries) {
+            super(entries);
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Multi-ensemble versionné, partagé entre les versions successives des données : compte les occurrences
+ * de chaque élément et expose l'ensemble de ses éléments distincts.
+ * <p>
+ * Les compteurs sont rangés dans une {@link SnapshotMap} et les éléments distincts dans un
+ * {@link SnapshotSortedSet}, dans l'ordre d'un comparateur. Une version figée n'est plus jamais modifiée
+ * et peut être lue par plusieurs threads sans synchronisation ; {@link #edit()} crée une version
+ * modifiable qui partage les partitions et les blocs de la précédente, si bien qu'un ajout ou un retrait
+ * coûte la copie d'une partition et d'un bloc, pas celle de tout le multi-ensemble. Une version modifiable
+ * ne doit être utilisée que par un seul thread, puis figée par {@link #freeze()} avant d'être publiée.
+ *
+ * @param <E> Le type des éléments (null accepté si le comparateur l'accepte).
+ */
+public final class SnapshotMultiset<E> {
+
+    private final SnapshotMap<E, Integer> counts;
+    private final SnapshotSortedSet<E> elements;
+    private final Set<E> elementSet = new ElementSet();
+
+    private SnapshotMultiset(SnapshotMap<E, Integer> counts, SnapshotSortedSet<E> elements) {
+        this.counts = counts;
+        this.elements = elements;
+    }
+
+    /**
+     * Crée un multi-ensemble vide, figé.
+     *
+     * @param comparator L'ordre des éléments distincts ; il doit être cohérent avec equals.
+     * @param <E>        Le type des éléments.
+     * @return Le multi-ensemble vide.
+     */
+    public static <E> SnapshotMultiset<E> empty(Comparator<? super E> comparator) {
+        return new SnapshotMultiset<>(SnapshotMap.empty(), SnapshotSortedSet.empty(comparator));
+    }
+
+    /**
+     * Crée une version modifiable de ce multi-ensemble, qui partage ses partitions et ses blocs.
+     *
+     * @return La nouvelle version, modifiable jusqu'à {@link #freeze()}.
+     */
+    public SnapshotMultiset<E> edit() {
+        return new SnapshotMultiset<>(counts.edit(), elements.edit());
+    }
+
+    /**
+     * Fige cette version : elle ne peut plus être modifiée et peut être publiée.
+     *
+     * @return Ce multi-ensemble.
+     */
+    public SnapshotMultiset<E> freeze() {
+        counts.freeze();
+        elements.freeze();
+        return this;
+    }
+
+    /**
+     * Ajoute une occurrence d'un élément.
+     *
+     * @param element L'élément.
+     * @throws IllegalStateException si le multi-ensemble est figé.
+     */
+    public void add(E element) {
+        Integer count = counts.get(element);
+        counts.put(element, count == null ? 1 : count + 1);
+        if (count == null) {
+            elements.add(element);
+        }
+    }
+
+    /**
+     * Retire une occurrence d'un élément. Sans effet si l'élément est absent.
+     *
+     * @param element L'élément.
+     * @throws IllegalStateException si le multi-ensemble est figé.
+     */
+    public void remove(E element) {
+        Integer count = counts.get(element);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            counts.put(element, count - 1);
+        } else {
+            counts.remove(element);
+            elements.remove(element);
+        }
+    }
+
+    /**
+     * Indique si le multi-ensemble est vide.
+     *
+     * @return true s'il ne contient aucun élément.
+     */
+    public boolean isEmpty() {
+        return elements.size() == 0;
+    }
+
+    /**
+     * Récupère les éléments distincts.
+     *
+     * @return Une vue non modifiable des éléments distincts, dans l'ordre du comparateur. Elle reflète
+     * cette version ; lue sur une version figée, elle peut être partagée sans copie.
+     */
+    public Set<E> elementSet() {
+        return elementSet;
+    }
+
+    /**
+     * Vue des éléments distincts, lue directement dans les blocs de l'ensemble trié.
+     */
+    private final class ElementSet extends AbstractSet<E> {
+
+        @Override
+        public Iterator<E> iterator() {
+            return elements.iteratorFrom(null);
+        }
+
+        @Override
+        public int size() {
+            return elements.size();
+        }
+
+        @Override
+        public boolean contains(Object element) {
+            return counts.get(element) != null;
+        }
+    }
+}
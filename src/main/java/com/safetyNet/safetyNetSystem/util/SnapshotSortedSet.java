@@ -0,0 +1,293 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Ensemble trié versionné, partagé entre les versions successives des données.
+ * <p>
+ * Les éléments sont rangés dans l'ordre d'un comparateur, par blocs triés de {@value #CHUNK_SIZE} à
+ * deux fois {@value #CHUNK_SIZE} éléments. Un élément est retrouvé par deux recherches dichotomiques
+ * (le bloc, puis la position dans le bloc) ; un parcours à partir d'un élément coûte donc cette recherche
+ * plus le nombre d'éléments lus, quelle que soit la taille de l'ensemble.
+ * Une version figée n'est plus jamais modifiée et peut être lue par plusieurs threads sans
+ * synchronisation. {@link #edit()} crée une version modifiable qui partage tous les blocs de la
+ * précédente et ne copie un bloc qu'à sa première modification. Une version modifiable ne doit être
+ * utilisée que par un seul thread, puis figée par {@link #freeze()} avant d'être publiée.
+ *
+ * @param <E> Le type des éléments.
+ */
+public final class SnapshotSortedSet<E> {
+
+    static final int CHUNK_SIZE = 512;
+
+    private final Comparator<? super E> comparator;
+    private Chunk<E>[] chunks;
+    private int size;
+    private Object owner;  // Jeton des blocs modifiables, null une fois figé
+
+    private SnapshotSortedSet(Comparator<? super E> comparator, Chunk<E>[] chunks, int size, Object owner) {
+        this.comparator = comparator;
+        this.chunks = chunks;
+        this.size = size;
+        this.owner = owner;
+    }
+
+    /**
+     * Crée un ensemble vide, figé.
+     *
+     * @param comparator L'ordre des éléments ; deux éléments égaux pour cet ordre sont un même élément.
+     * @param <E>        Le type des éléments.
+     * @return L'ensemble vide.
+     */
+    public static <E> SnapshotSortedSet<E> empty(Comparator<? super E> comparator) {
+        return new SnapshotSortedSet<>(comparator, newChunks(0), 0, null);
+    }
+
+    /**
+     * Crée une version modifiable de cet ensemble, qui partage ses blocs.
+     *
+     * @return La nouvelle version, modifiable jusqu'à {@link #freeze()}.
+     */
+    public SnapshotSortedSet<E> edit() {
+        return new SnapshotSortedSet<>(comparator, chunks.clone(), size, new Object());
+    }
+
+    /**
+     * Fige cette version : elle ne peut plus être modifiée et peut être publiée.
+     *
+     * @return Cet ensemble.
+     */
+    public SnapshotSortedSet<E> freeze() {
+        owner = null;
+        return this;
+    }
+
+    /**
+     * Ajoute un élément à sa place dans l'ordre.
+     *
+     * @param element L'élément à ajouter.
+     * @return true si l'élément a été ajouté, false s'il était déjà présent.
+     * @throws IllegalStateException si l'ensemble est figé.
+     */
+    public boolean add(E element) {
+        checkEditable();
+        if (chunks.length == 0) {
+            chunks = newChunks(1);
+            chunks[0] = new Chunk<>(owner, Collections.emptyList());
+        }
+        int index = chunkOf(element);
+        int position = Collections.binarySearch(chunks[index], element, comparator);
+        if (position >= 0) {
+            return false;
+        }
+        Chunk<E> chunk = ownedChunk(index);
+        chunk.add(-position - 1, element);
+        size++;
+        if (chunk.size() > 2 * CHUNK_SIZE) {
+            split(index);
+        }
+        return true;
+    }
+
+    /**
+     * Retire un élément.
+     *
+     * @param element L'élément à retirer.
+     * @return true si l'élément a été retiré, false s'il était absent.
+     * @throws IllegalStateException si l'ensemble est figé.
+     */
+    public boolean remove(E element) {
+        checkEditable();
+        if (chunks.length == 0) {
+            return false;
+        }
+        int index = chunkOf(element);
+        int position = Collections.binarySearch(chunks[index], element, comparator);
+        if (position < 0) {
+            return false;
+        }
+        if (chunks[index].size() == 1) {
+            Chunk<E>[] remaining = newChunks(chunks.length - 1);
+            System.arraycopy(chunks, 0, remaining, 0, index);
+            System.arraycopy(chunks, index + 1, remaining, index, remaining.length - index);
+            chunks = remaining;
+        } else {
+            ownedChunk(index).remove(position);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Nombre d'éléments de l'ensemble.
+     *
+     * @return La taille.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Parcourt les éléments dans l'ordre, à partir du premier élément supérieur ou égal à une borne.
+     *
+     * @param from La borne (incluse), ou null pour partir du premier élément.
+     * @return Un itérateur sur les éléments à partir de la borne.
+     */
+    public Iterator<E> iteratorFrom(E from) {
+        return iteratorFrom(from, comparator);
+    }
+
+    /**
+     * Parcourt les éléments dans l'ordre, à partir du premier élément supérieur ou égal à une borne pour un
+     * ordre moins fin que celui de l'ensemble (par exemple sur une partie seulement des champs comparés),
+     * ce qui permet de se placer au début d'un groupe d'éléments.
+     *
+     * @param from  La borne (incluse), ou null pour partir du premier élément.
+     * @param order Un ordre compatible avec celui de l'ensemble : si a précède b dans l'ensemble, a ne suit pas b pour cet ordre.
+     * @return Un itérateur sur les éléments à partir de la borne.
+     */
+    public Iterator<E> iteratorFrom(E from, Comparator<? super E> order) {
+        int index = 0;
+        int position = 0;
+        if (from != null && chunks.length > 0) {
+            index = firstChunkFrom(from, order);
+            position = lowerBound(chunks[index], from, order);
+        }
+        return new Cursor(index, position);
+    }
+
+    /**
+     * Bloc où se trouve (ou se placerait) un élément : le dernier bloc dont le premier élément ne le suit pas.
+     */
+    private int chunkOf(E element) {
+        return lastChunkBefore(element, comparator, true);
+    }
+
+    /**
+     * Premier bloc pouvant contenir des éléments qui ne précèdent pas la borne : le dernier bloc dont le
+     * premier élément la précède strictement (des éléments égaux pour un ordre moins fin peuvent finir ce bloc).
+     */
+    private int firstChunkFrom(E from, Comparator<? super E> order) {
+        return lastChunkBefore(from, order, false);
+    }
+
+    private int lastChunkBefore(E element, Comparator<? super E> order, boolean inclusive) {
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            int comparison = order.compare(chunks[middle].getFirst(), element);
+            if (comparison < 0 || (inclusive && comparison == 0)) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Position du premier élément d'un bloc qui ne précède pas la borne.
+     */
+    private static <E> int lowerBound(List<E> chunk, E from, Comparator<? super E> order) {
+        int low = 0;
+        int high = chunk.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (order.compare(chunk.get(middle), from) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Coupe en deux un bloc devenu trop grand.
+     */
+    private void split(int index) {
+        Chunk<E> chunk = chunks[index];
+        List<E> upper = chunk.subList(chunk.size() / 2, chunk.size());
+        Chunk<E> right = new Chunk<>(owner, upper);
+        upper.clear();
+        Chunk<E>[] resized = newChunks(chunks.length + 1);
+        System.arraycopy(chunks, 0, resized, 0, index + 1);
+        resized[index + 1] = right;
+        System.arraycopy(chunks, index + 1, resized, index + 2, chunks.length - index - 1);
+        chunks = resized;
+    }
+
+    private Chunk<E> ownedChunk(int index) {
+        Chunk<E> chunk = chunks[index];
+        if (chunk.owner != owner) {
+            chunk = new Chunk<>(owner, chunk);
+            chunks[index] = chunk;
+        }
+        return chunk;
+    }
+
+    private void checkEditable() {
+        if (owner == null) {
+            throw new IllegalStateException("Version figée : utiliser edit() avant de la modifier");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Chunk<E>[] newChunks(int count) {
+        return (Chunk<E>[]) new Chunk<?>[count];
+    }
+
+    /**
+     * Parcours des blocs à partir d'une position.
+     */
+    private final class Cursor implements Iterator<E> {
+        private final Chunk<E>[] visited = chunks;  // Les blocs de la version parcourue
+        private int index;
+        private int position;
+
+        private Cursor(int index, int position) {
+            this.index = index;
+            this.position = position;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (index < visited.length && position >= visited[index].size()) {
+                index++;
+                position = 0;
+            }
+            return index < visited.length;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return visited[index].get(position++);
+        }
+    }
+
+    /**
+     * Bloc trié, modifiable uniquement par la version qui l'a créé.
+     */
+    private static final class Chunk<E> extends ArrayList<E> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Object owner;
+
+        private Chunk(Object owner, List<E> values) {
+            super(Math.max(values.size(), CHUNK_SIZE) + 1);
+            this.owner = owner;
+            addAll(values);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Dictionnaire des valeurs fortement répétées (adresses, villes, codes postaux, numéros de station,
+ * médicaments, allergies). Chaque valeur distincte n'est conservée qu'une fois : les entités chargées
+ * ou modifiées partagent la même instance de {@link String}, ce qui réduit le tas et permet aux
+ * comparaisons {@code equals} de s'arrêter au test d'identité.
+ * Les valeurs quasi uniques (noms, téléphones, emails) ne sont pas dédupliquées.
+ * Thread-safe : utilisé en parallèle par le décodage des blocs au chargement et par les DAO.
+ */
+public class StringDictionary {
+
+    private final ConcurrentMap<String, String> values = new ConcurrentHashMap<>();
+
+    /**
+     * Retourne l'instance partagée d'une valeur.
+     *
+     * @param value La valeur, éventuellement null.
+     * @return L'instance unique égale à cette valeur, ou null.
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = values.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * Remplace les champs répétitifs d'une personne par leurs instances partagées.
+     *
+     * @param person La personne à encoder.
+     */
+    public void intern(Person person) {
+        person.setAddress(intern(person.getAddress()));
+        person.setCity(intern(person.getCity()));
+        person.setZip(intern(person.getZip()));
+    }
+
+    /**
+     * Remplace l'adresse et le numéro de station d'une caserne par leurs instances partagées.
+     *
+     * @param firestation La caserne à encoder.
+     */
+    public void intern(Firestation firestation) {
+        firestation.setAddress(intern(firestation.getAddress()));
+        firestation.setStation(intern(firestation.getStation()));
+    }
+
+    /**
+     * Remplace les médicaments et allergies d'un dossier médical par leurs instances partagées.
+     *
+     * @param medicalRecord Le dossier médical à encoder.
+     */
+    public void intern(MedicalRecord medicalRecord) {
+        medicalRecord.setMedications(intern(medicalRecord.getMedications()));
+        medicalRecord.setAllergies(intern(medicalRecord.getAllergies()));
+    }
+
+    /**
+     * Nombre de valeurs distinctes conservées.
+     *
+     * @return La taille du dictionnaire.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    private List<String> intern(List<String> list) {
+        if (list == null) {
+            return null;
+        }
+        List<String> interned = new ArrayList<>(list.size());
+        for (String value : list) {
+            interned.add(intern(value));
+        }
+        return interned;
+    }
+}
@@ -0,0 +1,61 @@
+package com.safetyNet.safetyNetSystem.controller;
+
+import com.safetyNet.safetyNetSystem.service.ChangeFeed;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ChangeFeedControllerTest {
+
+    @Mock
+    private ChangeFeed changeFeed;
+
+    private ChangeFeedController changeFeedController;
+
+    /**
+     * Initialise les mocks avant chaque test.
+     */
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        changeFeedController = new ChangeFeedController(changeFeed, 60000);
+    }
+
+    /**
+     * Teste l'abonnement au flux des modifications d'une station.
+     * Vérifie que le contrôleur transmet le filtre et l'identifiant de reprise, et renvoie le flux d'événements.
+     */
+    @Test
+    void testGetChanges() {
+        when(changeFeed.subscribe(eq("1"), isNull(), eq("abc-3"), any())).thenReturn(mock(ChangeFeed.Subscription.class));
+
+        ResponseEntity<SseEmitter> response = changeFeedController.getChanges("1", null, "abc-3");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        verify(changeFeed).subscribe(eq("1"), isNull(), eq("abc-3"), any());
+    }
+
+    /**
+     * Teste l'abonnement lorsque le nombre maximal d'abonnés est atteint.
+     * Vérifie que le contrôleur renvoie 503.
+     */
+    @Test
+    void testGetChanges_TooManySubscribers() {
+        when(changeFeed.subscribe(any(), any(), any(), any())).thenThrow(new IllegalStateException("Nombre maximal d'abonnés atteint : 1"));
+
+        ResponseEntity<SseEmitter> response = changeFeedController.getChanges(null, "1 Main St", null);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+}
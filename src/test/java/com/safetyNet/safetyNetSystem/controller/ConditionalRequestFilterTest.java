@@ -0,0 +1,115 @@
+package com.safetyNet.safetyNetSystem.controller;
+
+import com.safetyNet.safetyNetSystem.dao.DataSnapshot;
+import com.safetyNet.safetyNetSystem.service.DataLoaderService;
+import com.safetyNet.safetyNetSystem.service.DataVersions;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
+
+class ConditionalRequestFilterTest {
+
+    private static final String ETAG = "\"abc.3.20000\"";
+
+    @Mock
+    private DataLoaderService dataLoaderService;
+
+    @Mock
+    private DataVersions dataVersions;
+
+    @Mock
+    private DataVersions.Tag tag;
+
+    @Mock
+    private FilterChain filterChain;
+
+    private ConditionalRequestFilter conditionalRequestFilter;
+
+    /**
+     * Initialise les mocks avant chaque test : la version 3 est épinglée et /personInfo en dépend.
+     */
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        DataLoaderService.Pin pin = mock(DataLoaderService.Pin.class);
+        DataSnapshot snapshot = mock(DataSnapshot.class);
+        when(dataLoaderService.pin()).thenReturn(pin);
+        when(pin.getSnapshot()).thenReturn(snapshot);
+        when(snapshot.getVersion()).thenReturn(3L);
+        when(dataVersions.find(3L)).thenReturn(tag);
+        when(tag.eTag()).thenReturn(ETAG);
+        when(tag.getVersion()).thenReturn(3L);
+        conditionalRequestFilter = new ConditionalRequestFilter(dataLoaderService, dataVersions);
+    }
+
+    /**
+     * Vérifie qu'une requête If-Modified-Since reçoit 304 lorsque la seconde de la modification est écoulée.
+     */
+    @Test
+    void testIfModifiedSince_notModified() throws Exception {
+        long modifiedAt = System.currentTimeMillis() - 10_000;
+        when(tag.lastModified()).thenReturn(modifiedAt);
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, modifiedAt);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        conditionalRequestFilter.doFilter(request, response, filterChain);
+
+        assertEquals(304, response.getStatus());
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+
+    /**
+     * Vérifie qu'If-Modified-Since est ignoré, et Last-Modified omis, tant que la seconde de la modification
+     * n'est pas écoulée : une autre écriture pourrait encore porter la même date.
+     */
+    @Test
+    void testIfModifiedSince_ignoredDuringModificationSecond() throws Exception {
+        long modifiedAt = System.currentTimeMillis() + 10_000;  // Toujours dans une seconde non écoulée
+        when(tag.lastModified()).thenReturn(modifiedAt);
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, modifiedAt);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        conditionalRequestFilter.doFilter(request, response, filterChain);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+        assertNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+        verify(filterChain).doFilter(request, response);
+    }
+
+    /**
+     * Vérifie qu'If-None-Match reste validé pendant la seconde de la modification.
+     */
+    @Test
+    void testIfNoneMatch_duringModificationSecond() throws Exception {
+        when(tag.lastModified()).thenReturn(System.currentTimeMillis() + 10_000);
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        conditionalRequestFilter.doFilter(request, response, filterChain);
+
+        assertEquals(304, response.getStatus());
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/personInfo");
+        request.setServletPath("/personInfo");
+        request.addParameter("lastName", "Boyd");
+        return request;
+    }
+}
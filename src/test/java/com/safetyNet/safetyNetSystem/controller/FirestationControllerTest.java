@@ -1,8 +1,14 @@
 package com.safetyNet.safetyNetSystem.controller;
 
+import com.safetyNet.safetyNetSystem.dto.BatchItemResult;
+import com.safetyNet.safetyNetSystem.dto.BatchOperation;
+import com.safetyNet.safetyNetSystem.dto.BatchResponse;
 import com.safetyNet.safetyNetSystem.dto.FirestationResponse;
 import com.safetyNet.safetyNetSystem.model.Firestation;
 import com.safetyNet.safetyNetSystem.service.FirestationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetyNet.safetyNetSystem.service.ResponseCache;
+import com.safetyNet.safetyNetSystem.util.SerializedJson;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -11,6 +17,8 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.List;
+import java.util.function.Supplier;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,6 +32,11 @@ class FirestationControllerTest {
     @Mock
     private FirestationService firestationService;
 
+    @Mock
+    private ResponseCache responseCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private FirestationController firestationController;
 
@@ -33,6 +46,10 @@ class FirestationControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // Le cache laisse passer tous les appels vers le service
+        when(responseCache.get(any(), any(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+        when(responseCache.getSerialized(any(), any(), any()))
+                .thenAnswer(invocation -> SerializedJson.of(objectMapper.writer(), ((Supplier<?>) invocation.getArgument(2)).get()));
     }
 
     /**
@@ -117,18 +134,40 @@ class FirestationControllerTest {
      * Test de la récupération des personnes couvertes par une caserne de pompiers.
      */
     @Test
-    void testGetPersonsCoveredByStation() {
+    void testGetPersonsCoveredByStation() throws Exception {
         String stationNumber = "1";
         FirestationResponse mockResponse = new FirestationResponse();
         mockResponse.setNumberOfAdults(5);
         mockResponse.setNumberOfChildren(3);
         when(firestationService.getPersonsCoveredByStation(stationNumber)).thenReturn(mockResponse);
 
-        FirestationResponse response = firestationController.getPersonsCoveredByStation(stationNumber);
+        ResponseEntity<SerializedJson> result = firestationController.getPersonsCoveredByStation(stationNumber);
 
         verify(firestationService, times(1)).getPersonsCoveredByStation(stationNumber);
-        assertNotNull(response);
+        assertNotNull(result.getBody());
+        assertEquals(result.getBody().eTag(), result.getHeaders().getETag());
+        FirestationResponse response = objectMapper.readValue(result.getBody().bytes(), FirestationResponse.class);
         assertEquals(5, response.getNumberOfAdults());
         assertEquals(3, response.getNumberOfChildren());
     }
+
+    /**
+     * Test de l'application d'un lot de modifications de casernes.
+     */
+    @Test
+    void testApplyBatch() {
+        List<BatchOperation<Firestation>> operations = List.of(
+                new BatchOperation<>(BatchOperation.Action.UPSERT, new Firestation("123 Main St", "2")),
+                new BatchOperation<>(BatchOperation.Action.DELETE, new Firestation("456 Elm St", null)));
+        BatchResponse batchResponse = new BatchResponse(true, List.of(
+                new BatchItemResult(0, BatchItemResult.Status.UPDATED, null),
+                new BatchItemResult(1, BatchItemResult.Status.NOT_FOUND, null)));
+        when(firestationService.applyBatch(operations)).thenReturn(batchResponse);
+
+        ResponseEntity<BatchResponse> response = firestationController.applyBatch(operations);
+
+        verify(firestationService, times(1)).applyBatch(operations);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(batchResponse, response.getBody());
+    }
 }
@@ -1,5 +1,8 @@
 package com.safetyNet.safetyNetSystem.controller;
 
+import com.safetyNet.safetyNetSystem.dto.BatchItemResult;
+import com.safetyNet.safetyNetSystem.dto.BatchOperation;
+import com.safetyNet.safetyNetSystem.dto.BatchResponse;
 import com.safetyNet.safetyNetSystem.model.MedicalRecord;
 import com.safetyNet.safetyNetSystem.service.MedicalRecordService;
 import org.junit.jupiter.api.BeforeEach;
@@ -147,4 +150,26 @@ class MedicalRecordControllerTest {
         assertEquals(404, response.getStatusCode().value());  // Utilisation de getStatusCode().value()
         assertNull(response.getBody());
     }
+
+    /**
+     * Teste le rejet d'un lot de dossiers médicaux contenant une opération invalide.
+     * Vérifie que la réponse porte le statut 400 et le résultat de chaque opération.
+     */
+    @Test
+    void testApplyBatch_Rejected() {
+        // Mock d'entrée
+        List<BatchOperation<MedicalRecord>> operations = List.of(new BatchOperation<>(BatchOperation.Action.DELETE, new MedicalRecord()));
+        BatchResponse batchResponse = new BatchResponse(false, List.of(new BatchItemResult(0, BatchItemResult.Status.INVALID, "Prénom et nom requis")));
+        when(medicalRecordService.applyBatch(operations)).thenReturn(batchResponse);
+
+        // Appeler le contrôleur
+        ResponseEntity<BatchResponse> response = medicalRecordController.applyBatch(operations);
+
+        // Vérifier le service
+        verify(medicalRecordService, times(1)).applyBatch(operations);
+
+        // Vérifier la réponse
+        assertEquals(400, response.getStatusCode().value());
+        assertSame(batchResponse, response.getBody());
+    }
 }
@@ -2,6 +2,9 @@ package com.safetyNet.safetyNetSystem.controller;
 
 import com.safetyNet.safetyNetSystem.dto.FirestationResponseNoCount;
 import com.safetyNet.safetyNetSystem.service.FirestationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetyNet.safetyNetSystem.service.ResponseCache;
+import com.safetyNet.safetyNetSystem.util.SerializedJson;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -12,8 +15,11 @@ import org.springframework.http.ResponseEntity;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 class OtherControllerTest {
@@ -21,6 +27,11 @@ class OtherControllerTest {
     @Mock
     private FirestationService firestationService;
 
+    @Mock
+    private ResponseCache responseCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private OtherController otherController;
 
@@ -31,6 +42,10 @@ class OtherControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // Le cache laisse passer tous les appels vers le service
+        when(responseCache.get(any(), any(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+        when(responseCache.getSerialized(any(), any(), any()))
+                .thenAnswer(invocation -> SerializedJson.of(objectMapper.writer(), ((Supplier<?>) invocation.getArgument(2)).get()));
     }
 
     /**
@@ -41,13 +56,13 @@ class OtherControllerTest {
     @Test
     void testGetPhoneNumbersByStation() {
         String firestationNumber = "1";
-        List<String> mockPhoneNumbers = Arrays.asList("123-456-7890", "987-654-3210");
+        Set<String> mockPhoneNumbers = Set.of("123-456-7890", "987-654-3210");
 
         // Simule la réponse du service
         when(firestationService.getPhoneNumbersByStation(firestationNumber)).thenReturn(mockPhoneNumbers);
 
         // Appelle le contrôleur
-        ResponseEntity<List<String>> response = otherController.getPhoneNumbersByStation(firestationNumber);
+        ResponseEntity<Set<String>> response = otherController.getPhoneNumbersByStation(firestationNumber);
 
         // Vérifie la réponse du contrôleur
         assertEquals(200, response.getStatusCode().value());
@@ -60,7 +75,7 @@ class OtherControllerTest {
      * lorsqu'une adresse est fournie.
      */
     @Test
-    void testGetFirestationInfoByAddress() {
+    void testGetFirestationInfoByAddress() throws Exception {
         String address = "1509 Culver St";
         FirestationResponseNoCount mockResponse = new FirestationResponseNoCount();
         mockResponse.setStationNumber("1");
@@ -70,7 +85,8 @@ class OtherControllerTest {
         when(firestationService.getFirestationInfoByAddress(address)).thenReturn(mockResponse);
 
         // Appelle le contrôleur
-        FirestationResponseNoCount response = otherController.getFirestationInfoByAddress(address);
+        ResponseEntity<SerializedJson> result = otherController.getFirestationInfoByAddress(address);
+        FirestationResponseNoCount response = objectMapper.readValue(result.getBody().bytes(), FirestationResponseNoCount.class);
 
         // Vérifie la réponse du contrôleur
         assertEquals(mockResponse.getStationNumber(), response.getStationNumber());
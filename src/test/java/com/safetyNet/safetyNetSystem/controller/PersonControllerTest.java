@@ -1,17 +1,30 @@
 package com.safetyNet.safetyNetSystem.controller;
 
+import com.safetyNet.safetyNetSystem.dto.BatchItemResult;
+import com.safetyNet.safetyNetSystem.dto.BatchOperation;
+import com.safetyNet.safetyNetSystem.dto.BatchResponse;
+import com.safetyNet.safetyNetSystem.dto.CursorPage;
 import com.safetyNet.safetyNetSystem.dto.PersonInfo;
 import com.safetyNet.safetyNetSystem.dto.ChildrenAlertResponse;
 import com.safetyNet.safetyNetSystem.model.Person;
 import com.safetyNet.safetyNetSystem.service.PersonService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetyNet.safetyNetSystem.service.ResponseCache;
+import com.safetyNet.safetyNetSystem.util.SerializedJson;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.ResponseEntity;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import com.safetyNet.safetyNetSystem.dto.ChildInfo;
@@ -27,12 +40,21 @@ class PersonControllerTest {
     @Mock
     private PersonService personService;
 
+    @Mock
+    private ResponseCache responseCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private PersonController personController;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // Le cache laisse passer tous les appels vers le service
+        when(responseCache.get(any(), any(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+        when(responseCache.getSerialized(any(), any(), any()))
+                .thenAnswer(invocation -> SerializedJson.of(objectMapper.writer(), ((Supplier<?>) invocation.getArgument(2)).get()));
     }
 
     /**
@@ -112,7 +134,7 @@ class PersonControllerTest {
      *
      */
     @Test
-    void testGetChildAlert() {
+    void testGetChildAlert() throws Exception {
         String address = "123 Main St";
 
         // Créez des listes simulées pour les enfants et les adultes
@@ -123,10 +145,11 @@ class PersonControllerTest {
         when(personService.getChildAlertByAddress(address)).thenReturn(mockResponse);
 
         // Appel du contrôleur
-        ChildrenAlertResponse response = personController.getChildAlert(address);
+        ResponseEntity<SerializedJson> response = personController.getChildAlert(address);
 
-        // Vérification du résultat
-        assertEquals(mockResponse, response);
+        // Vérification du résultat : le JSON qu'aurait produit Jackson, avec son ETag
+        assertEquals(objectMapper.writeValueAsString(mockResponse), new String(response.getBody().bytes(), StandardCharsets.UTF_8));
+        assertEquals(response.getBody().eTag(), response.getHeaders().getETag());
     }
 
     private static ChildrenAlertResponse getChildrenAlertResponse(ChildInfo child1, String address) {
@@ -174,12 +197,68 @@ class PersonControllerTest {
     @Test
     void testGetEmailsByCity() {
         String city = "Paris";
-        List<String> mockEmails = Arrays.asList("john.doe@example.com", "jane.doe@example.com");
+        Set<String> mockEmails = Set.of("john.doe@example.com", "jane.doe@example.com");
 
         when(personService.getEmailsByCity(city)).thenReturn(mockEmails);
 
-        List<String> response = personController.getEmailsByCity(city);
+        Set<String> response = personController.getEmailsByCity(city);
 
         assertEquals(mockEmails, response);
     }
+
+    /**
+     * Test pour appliquer un lot de modifications de personnes.
+     * Vérifie qu'un lot appliqué retourne 200 et qu'un lot rejeté retourne 400 avec le résultat de chaque opération.
+     *
+     */
+    @Test
+    void testApplyBatch() {
+        List<BatchOperation<Person>> operations = List.of(new BatchOperation<>(BatchOperation.Action.UPSERT, new Person()));
+        BatchResponse applied = new BatchResponse(true, List.of(new BatchItemResult(0, BatchItemResult.Status.CREATED, null)));
+        BatchResponse rejected = new BatchResponse(false, List.of(new BatchItemResult(0, BatchItemResult.Status.INVALID, "Prénom et nom requis")));
+
+        when(personService.applyBatch(operations)).thenReturn(applied);
+        ResponseEntity<BatchResponse> response = personController.applyBatch(operations);
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(applied, response.getBody());
+
+        when(personService.applyBatch(operations)).thenReturn(rejected);
+        response = personController.applyBatch(operations);
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals(rejected, response.getBody());
+    }
+
+    /**
+     * Test pour récupérer les emails d'une ville au format NDJSON.
+     * Vérifie que la méthode `streamEmailsByCity()` transmet le flux du service.
+     */
+    @Test
+    void testStreamEmailsByCity() {
+        String city = "Paris";
+
+        when(personService.streamEmailsByCity(city)).thenReturn(Stream.of("john.doe@example.com", "jane.doe@example.com"));
+
+        List<String> response = personController.streamEmailsByCity(city).collect(Collectors.toList());
+
+        assertEquals(Arrays.asList("john.doe@example.com", "jane.doe@example.com"), response);
+    }
+
+    /**
+     * Test pour récupérer une page de personnes.
+     * Vérifie que la page du service est renvoyée, et qu'un curseur invalide donne un statut 400.
+     */
+    @Test
+    void testGetPersonsPage() {
+        CursorPage<Person> page = new CursorPage<>(Arrays.asList(new Person(), new Person()), "suivant");
+
+        when(personService.getPersonsPage(null, 2)).thenReturn(page);
+        when(personService.getPersonsPage("invalide", 2)).thenThrow(new IllegalArgumentException("Curseur invalide"));
+
+        ResponseEntity<CursorPage<Person>> response = personController.getPersonsPage(2, null);
+        ResponseEntity<CursorPage<Person>> invalid = personController.getPersonsPage(2, "invalide");
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(page, response.getBody());
+        assertEquals(400, invalid.getStatusCode().value());
+    }
 }
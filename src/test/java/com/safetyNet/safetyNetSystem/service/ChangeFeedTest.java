@@ -0,0 +1,221 @@
+package com.safetyNet.safetyNetSystem.service;
+
+import com.safetyNet.safetyNetSystem.dao.ChangeEvent;
+import com.safetyNet.safetyNetSystem.model.DataContainer;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.Person;
+import com.safetyNet.safetyNetSystem.util.ChangeLog;
+import com.safetyNet.safetyNetSystem.util.DataLoaderUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour la classe {@link ChangeFeed}.
+ * Les modifications sont publiées par un vrai {@link DataLoaderService}.
+ */
+class ChangeFeedTest {
+
+    private DataLoaderService dataLoaderService;
+    private ChangeFeed changeFeed;
+
+    /**
+     * Initialisation avant chaque test : la caserne 1 couvre "1 Main St", la caserne 2 couvre "3 Oak St" ;
+     * le tampon conserve 4 modifications.
+     */
+    @BeforeEach
+    void setUp() {
+        DataLoaderUtil dataLoaderUtil = mock(DataLoaderUtil.class);
+        when(dataLoaderUtil.loadData(any())).thenReturn(new DataContainer());
+        dataLoaderService = new DataLoaderService(dataLoaderUtil, mock(ChangeLog.class));
+        dataLoaderService.write(builder -> {
+            builder.addFirestation(new Firestation("1 Main St", "1"));
+            builder.addFirestation(new Firestation("3 Oak St", "2"));
+            return null;
+        });
+        changeFeed = new ChangeFeed(dataLoaderService, 4, 10, 10_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeFeed.shutdown();
+    }
+
+    /**
+     * Un abonné à une station ne reçoit que les modifications qui touchent cette station.
+     */
+    @Test
+    void testSubscribe_FilteredByStation() throws InterruptedException {
+        RecordingSink sink = new RecordingSink();
+        changeFeed.subscribe("2", null, null, sink);
+
+        addPerson("John", "1 Main St");
+        addPerson("Jacob", "3 Oak St");
+
+        assertEquals("change PERSON ADDED Jacob Boyd", sink.next());
+        assertNull(sink.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Un abonné bloqué ne retient pas les écritures ; une fois débloqué, les modifications écrasées dans
+     * le tampon sont remplacées par une demande de resynchronisation.
+     */
+    @Test
+    void testSubscribe_SlowSubscriberResynced() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            public void send(String id, ChangeEvent event) throws IOException {
+                super.send(id, event);
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        changeFeed.subscribe(null, null, null, sink);
+
+        addPerson("Person0", "1 Main St");
+        assertEquals("change PERSON ADDED Person0 Boyd", sink.next());
+        for (int i = 1; i < 10; i++) {
+            addPerson("Person" + i, "1 Main St");
+        }
+        blocked.countDown();
+
+        assertEquals("resync " + dataLoaderService.getPublishedVersion(), sink.next());
+        assertEquals(1, changeFeed.getResyncCount());
+    }
+
+    /**
+     * Un client reconnecté avec le dernier identifiant reçu reprend aux modifications suivantes ;
+     * un identifiant inconnu entraîne une resynchronisation.
+     */
+    @Test
+    void testSubscribe_ResumeAfterLastEventId() throws InterruptedException {
+        RecordingSink first = new RecordingSink();
+        ChangeFeed.Subscription subscription = changeFeed.subscribe(null, "1 Main St", null, first);
+        addPerson("John", "1 Main St");
+        first.next();
+        subscription.close();
+
+        addPerson("Jacob", "1 Main St");
+        RecordingSink resumed = new RecordingSink();
+        changeFeed.subscribe(null, "1 Main St", first.lastId, resumed);
+        RecordingSink unknown = new RecordingSink();
+        changeFeed.subscribe(null, null, "0-1", unknown);
+
+        assertEquals("change PERSON ADDED Jacob Boyd", resumed.next());
+        assertTrue(unknown.next().startsWith("resync"));
+    }
+
+    /**
+     * Un abonné dont l'envoi échoue est retiré et sa connexion fermée.
+     */
+    @Test
+    void testSubscribe_FailingSubscriberDropped() throws InterruptedException {
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            public void send(String id, ChangeEvent event) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        changeFeed.subscribe(null, null, null, sink);
+        assertEquals(1, changeFeed.getSubscriberCount());
+
+        addPerson("John", "1 Main St");
+
+        assertEquals("close", sink.next());
+        assertEquals(0, changeFeed.getSubscriberCount());
+        assertEquals(1, changeFeed.getDroppedCount());
+    }
+
+    /**
+     * Un abonné dont l'envoi reste bloqué ne retarde pas les autres abonnés ; il est retiré une fois le
+     * délai d'envoi dépassé, et sa connexion fermée dès que l'envoi rend la main.
+     */
+    @Test
+    void testSubscribe_StalledSubscriberExpired() throws InterruptedException {
+        changeFeed.shutdown();
+        changeFeed = new ChangeFeed(dataLoaderService, 4, 10, 200);
+        CountDownLatch blocked = new CountDownLatch(1);
+        RecordingSink stalled = new RecordingSink() {
+            @Override
+            public void send(String id, ChangeEvent event) throws IOException {
+                super.send(id, event);
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        RecordingSink healthy = new RecordingSink();
+        changeFeed.subscribe(null, null, null, stalled);
+        changeFeed.subscribe(null, null, null, healthy);
+
+        addPerson("John", "1 Main St");
+        assertEquals("change PERSON ADDED John Boyd", stalled.next());
+        addPerson("Jacob", "1 Main St");
+        addPerson("Tenley", "1 Main St");
+
+        assertEquals("change PERSON ADDED John Boyd", healthy.next());
+        assertEquals("change PERSON ADDED Jacob Boyd", healthy.next());
+        assertEquals("change PERSON ADDED Tenley Boyd", healthy.next());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (changeFeed.getDroppedCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, changeFeed.getDroppedCount());
+        assertEquals(1, changeFeed.getSubscriberCount());
+
+        blocked.countDown();
+        assertEquals("close", stalled.next());
+        assertNull(stalled.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    private void addPerson(String firstName, String address) {
+        dataLoaderService.write(builder -> {
+            builder.addPerson(new Person(firstName, "Boyd", address, "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+            return null;
+        });
+    }
+
+    /**
+     * Destination qui enregistre les événements reçus sous forme de texte.
+     */
+    private static class RecordingSink implements ChangeFeed.Sink {
+        final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        volatile String lastId;
+
+        @Override
+        public void send(String id, ChangeEvent event) throws IOException {
+            lastId = id;
+            events.add("change " + event.entity() + " " + event.action() + " " + event.id());
+        }
+
+        @Override
+        public void resync(String id, long version) {
+            lastId = id;
+            events.add("resync " + version);
+        }
+
+        @Override
+        public void close() {
+            events.add("close");
+        }
+
+        String next() throws InterruptedException {
+            return events.poll(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -1,9 +1,25 @@
 package com.safetyNet.safetyNetSystem.service;
 
 import com.safetyNet.safetyNetSystem.model.DataContainer;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.Person;
+import com.safetyNet.safetyNetSystem.util.ChangeLog;
 import com.safetyNet.safetyNetSystem.util.DataLoaderUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -15,6 +31,7 @@ import static org.mockito.Mockito.*;
 class DataLoaderServiceTest {
 
     private DataLoaderUtil dataLoaderUtil;
+    private ChangeLog changeLog;
     private DataLoaderService dataLoaderService;
     private DataContainer mockDataContainer;
 
@@ -27,12 +44,13 @@ class DataLoaderServiceTest {
         // Création du mock pour DataLoaderUtil
         dataLoaderUtil = mock(DataLoaderUtil.class);
         mockDataContainer = mock(DataContainer.class);
+        changeLog = mock(ChangeLog.class);
 
         // Simulation de la méthode loadData() pour renvoyer un DataContainer simulé
-        when(dataLoaderUtil.loadData()).thenReturn(mockDataContainer);
+        when(dataLoaderUtil.loadData(any())).thenReturn(mockDataContainer);
 
         // Instanciation de DataLoaderService avec le mock
-        dataLoaderService = new DataLoaderService(dataLoaderUtil);
+        dataLoaderService = new DataLoaderService(dataLoaderUtil, changeLog);
     }
 
     /**
@@ -56,10 +74,10 @@ class DataLoaderServiceTest {
     @Test
     void testGetDataContainer_whenDataIsNull() {
         // Arrange: Simuler que les données chargées sont nulles
-        when(dataLoaderUtil.loadData()).thenReturn(null);
+        when(dataLoaderUtil.loadData(any())).thenReturn(null);
 
         // Act: Appeler la méthode pour obtenir le DataContainer
-        dataLoaderService = new DataLoaderService(dataLoaderUtil);  // Re-créer le service avec les nouvelles données
+        dataLoaderService = new DataLoaderService(dataLoaderUtil, changeLog);  // Re-créer le service avec les nouvelles données
         DataContainer result = dataLoaderService.getDataContainer();
 
         // Assert: Vérifier que le DataContainer est bien créé même si les données sont nulles
@@ -68,14 +86,344 @@ class DataLoaderServiceTest {
 
     /**
      * Test de la méthode {@link DataLoaderService#saveData()}.
-     * Vérifie que la méthode appelle bien la méthode {@link DataLoaderUtil#saveData(DataContainer)}.
+     * Vérifie que la méthode appelle bien la méthode {@link DataLoaderUtil#saveData(DataContainer)}
+     * avec le dernier segment de journal couvert par les données publiées.
      */
     @Test
     void testSaveData() {
+        when(changeLog.rotate()).thenReturn(4L);
+
         // Act: Appeler la méthode pour sauvegarder les données
         dataLoaderService.saveData();
 
         // Assert: Vérifier que la méthode saveData de DataLoaderUtil a été appelée
-        verify(dataLoaderUtil, times(1)).saveData(mockDataContainer);
+        ArgumentCaptor<DataContainer> saved = ArgumentCaptor.forClass(DataContainer.class);
+        verify(dataLoaderUtil, times(1)).saveData(saved.capture());
+        assertEquals(3L, saved.getValue().getChangeLogSegment());
+    }
+
+    /**
+     * Simule un arrêt brutal entre l'écriture de l'instantané et la suppression des segments qu'il couvre :
+     * au redémarrage, ces segments ne sont pas rejoués, et les modifications suivantes le sont bien.
+     */
+    @Test
+    void testSaveData_crashBeforeTruncatingChangeLog(@TempDir Path directory) {
+        when(dataLoaderUtil.getDataFilePath()).thenReturn(directory.resolve("data.json").toString());
+        DataContainer empty = new DataContainer();
+        empty.setPersons(List.of());
+        when(dataLoaderUtil.loadData(any())).thenReturn(empty);
+        ArgumentCaptor<DataContainer> saved = ArgumentCaptor.forClass(DataContainer.class);
+        when(dataLoaderUtil.saveData(saved.capture())).thenReturn(true);
+
+        ChangeLog crashingLog = spy(new ChangeLog(dataLoaderUtil, false));
+        doNothing().when(crashingLog).deleteSegmentsBefore(anyLong());  // Arrêt avant la suppression
+        dataLoaderService = new DataLoaderService(dataLoaderUtil, crashingLog);
+        Person person = new Person("Jane", "Doe", "123 Main St", "City", "12345", "123-456-7891", "jane@example.com");
+        dataLoaderService.write(data -> {
+            data.addPerson(person);
+            crashingLog.append(ChangeLog.Entry.addPerson(person));
+            return null;
+        });
+        assertTrue(dataLoaderService.saveData());
+        crashingLog.close();
+
+        // Redémarrage sur l'instantané écrit, avec le segment couvert encore présent
+        DataContainer snapshot = saved.getValue();
+        when(dataLoaderUtil.loadData(any())).thenAnswer(invocation -> {
+            DataLoaderUtil.LoadListener listener = invocation.getArgument(0);
+            snapshot.getPersons().forEach(listener::onPerson);
+            return snapshot;
+        });
+        ChangeLog restartedLog = new ChangeLog(dataLoaderUtil, false);
+        dataLoaderService = new DataLoaderService(dataLoaderUtil, restartedLog);
+
+        assertEquals(0, dataLoaderService.getReplayedChangeCount());
+        assertEquals(1, dataLoaderService.getDataContainer().getPersons().size());
+
+        // Une modification écrite après le redémarrage est bien rejouée au démarrage suivant
+        restartedLog.append(ChangeLog.Entry.deletePerson("Jane", "Doe"));
+        restartedLog.close();
+        dataLoaderService = new DataLoaderService(dataLoaderUtil, new ChangeLog(dataLoaderUtil, false));
+
+        assertEquals(1, dataLoaderService.getReplayedChangeCount());
+        assertTrue(dataLoaderService.getDataContainer().getPersons().isEmpty());
+    }
+
+    /**
+     * Vérifie qu'un instantané binaire corrompu, bien que plus récent que le fichier JSON,
+     * est ignoré au profit de celui-ci, en mode copie comme en mode projeté.
+     */
+    @Test
+    void testLoadData_corruptSnapshotFallsBackToJson(@TempDir Path directory) throws IOException {
+        Path json = directory.resolve("data.json");
+        Files.writeString(json, """
+                {"persons": [{"firstName": "John", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver",
+                              "zip": "97451", "phone": "841-874-6512", "email": "jaboyd@email.com"}],
+                 "firestations": [], "medicalrecords": []}
+                """);
+        Path snapshot = directory.resolve("data.bin");
+        Files.write(snapshot, new byte[]{0x53, 0x4E, 0x42, 0x53, 0, 0, 0, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0x7F, 0x7F, 0x7F, 0x7F});
+        Files.setLastModifiedTime(snapshot, FileTime.fromMillis(Files.getLastModifiedTime(json).toMillis() + 60_000));
+
+        for (boolean mapped : new boolean[]{false, true}) {
+            DataLoaderUtil util = new DataLoaderUtil(true, mapped, json.toString());
+            ChangeLog log = new ChangeLog(util, false);
+            dataLoaderService = new DataLoaderService(util, log);
+            log.close();
+
+            List<Person> persons = dataLoaderService.getDataContainer().getPersons();
+            assertEquals(1, persons.size());
+            assertEquals("Boyd", persons.get(0).getLastName());
+        }
+    }
+
+    /**
+     * Vérifie qu'un nouveau segment de journal est ouvert avant l'écriture de l'instantané,
+     * et que les segments couverts ne sont supprimés qu'une fois l'instantané écrit.
+     */
+    @Test
+    void testSaveData_truncatesChangeLog() {
+        when(changeLog.rotate()).thenReturn(2L);
+        when(dataLoaderUtil.saveData(any())).thenReturn(true);
+
+        assertTrue(dataLoaderService.saveData());
+
+        InOrder order = inOrder(changeLog, dataLoaderUtil);
+        order.verify(changeLog).rotate();
+        order.verify(dataLoaderUtil).saveData(any());
+        order.verify(changeLog).deleteSegmentsBefore(2L);
+    }
+
+    /**
+     * Vérifie que les segments de journal sont conservés lorsque l'écriture de l'instantané échoue.
+     */
+    @Test
+    void testSaveData_keepsChangeLogOnFailure() {
+        when(changeLog.rotate()).thenReturn(2L);
+        when(dataLoaderUtil.saveData(any())).thenReturn(false);
+
+        assertFalse(dataLoaderService.saveData());
+
+        verify(changeLog, never()).deleteSegmentsBefore(2L);
+    }
+
+    /**
+     * Vérifie que les entités transmises pendant le chargement sont indexées.
+     */
+    @Test
+    void testLoadData_indexesWhileLoading() {
+        Person person = new Person("John", "Doe", "123 Main St", "City", "12345", "123-456-7890", "john@example.com");
+        DataContainer dataContainer = new DataContainer();
+        dataContainer.setPersons(new ArrayList<>(List.of(person)));
+        when(dataLoaderUtil.loadData(any())).thenAnswer(invocation -> {
+            DataLoaderUtil.LoadListener listener = invocation.getArgument(0);
+            listener.onPerson(person);
+            return dataContainer;
+        });
+
+        dataLoaderService = new DataLoaderService(dataLoaderUtil, changeLog);
+
+        assertSame(person, dataLoaderService.getDataIndex().findPerson("John", "Doe").orElseThrow());
+        assertEquals(Set.of("john@example.com"), dataLoaderService.getDataIndex().findEmailsByCity("city"));
+    }
+
+    /**
+     * Vérifie que les modifications journalisées sont rejouées au démarrage telles quelles :
+     * deux ajouts identiques produisent deux personnes.
+     */
+    @Test
+    void testReplayChangeLog() {
+        Person existing = new Person("John", "Doe", "123 Main St", "City", "12345", "123-456-7890", "john@example.com");
+        Person added = new Person("Jane", "Doe", "123 Main St", "City", "12345", "123-456-7891", "jane@example.com");
+        DataContainer dataContainer = new DataContainer();
+        dataContainer.setPersons(new ArrayList<>(List.of(existing)));
+        when(dataLoaderUtil.loadData(any())).thenAnswer(invocation -> {
+            DataLoaderUtil.LoadListener listener = invocation.getArgument(0);
+            listener.onPerson(existing);
+            return dataContainer;
+        });
+        when(changeLog.replay(anyLong(), any())).thenAnswer(invocation -> {
+            Consumer<ChangeLog.Entry> consumer = invocation.getArgument(1);
+            consumer.accept(ChangeLog.Entry.addPerson(added));
+            consumer.accept(ChangeLog.Entry.addPerson(added));
+            consumer.accept(ChangeLog.Entry.deletePerson("John", "Doe"));
+            return 3;
+        });
+
+        dataLoaderService = new DataLoaderService(dataLoaderUtil, changeLog);
+
+        assertEquals(2, dataLoaderService.getDataContainer().getPersons().size());
+        assertSame(added, dataLoaderService.getDataContainer().getPersons().get(0));
+        assertSame(added, dataLoaderService.getDataContainer().getPersons().get(1));
+        assertTrue(dataLoaderService.getDataIndex().findPerson("John", "Doe").isEmpty());
+        assertEquals(3, dataLoaderService.getReplayedChangeCount());
+    }
+
+    /**
+     * Vérifie qu'une version épinglée reste lue par le thread courant pendant qu'un autre thread publie une écriture.
+     */
+    @Test
+    void testPin_keepsVersionDuringConcurrentWrite() {
+        Person person = new Person("Jane", "Doe", "123 Main St", "City", "12345", "123-456-7891", "jane@example.com");
+
+        try (DataLoaderService.Pin pin = dataLoaderService.pin()) {
+            long version = pin.getSnapshot().getVersion();
+            CompletableFuture.runAsync(() -> dataLoaderService.write(data -> {
+                data.addPerson(person);
+                return null;
+            })).join();
+
+            assertEquals(version, dataLoaderService.getSnapshot().getVersion());
+            assertTrue(dataLoaderService.getDataIndex().findPerson("Jane", "Doe").isEmpty());
+        }
+
+        assertSame(person, dataLoaderService.getDataIndex().findPerson("Jane", "Doe").orElseThrow());
+    }
+
+    /**
+     * Vérifie qu'une écriture du thread courant déplace l'épingle sur la version publiée.
+     */
+    @Test
+    void testPin_readsOwnWrites() {
+        Person person = new Person("Jane", "Doe", "123 Main St", "City", "12345", "123-456-7891", "jane@example.com");
+
+        try (DataLoaderService.Pin pin = dataLoaderService.pin()) {
+            long version = pin.getSnapshot().getVersion();
+            dataLoaderService.write(data -> {
+                data.addPerson(person);
+                return null;
+            });
+
+            assertEquals(version + 1, dataLoaderService.getSnapshot().getVersion());
+            assertSame(person, dataLoaderService.getDataIndex().findPerson("Jane", "Doe").orElseThrow());
+        }
+    }
+
+    /**
+     * Vérifie qu'un lot journalisé en une seule entrée est rejoué en entier au démarrage.
+     */
+    @Test
+    void testReplayChangeLog_batch() {
+        Person added = new Person("Jane", "Doe", "123 Main St", "City", "12345", "123-456-7891", "jane@example.com");
+        when(changeLog.replay(anyLong(), any())).thenAnswer(invocation -> {
+            Consumer<ChangeLog.Entry> consumer = invocation.getArgument(1);
+            consumer.accept(ChangeLog.Entry.batch(List.of(
+                    ChangeLog.Entry.addPerson(added),
+                    ChangeLog.Entry.addFirestation(new Firestation("123 Main St", "1")))));
+            return 1;
+        });
+
+        dataLoaderService = new DataLoaderService(dataLoaderUtil, changeLog);
+
+        assertSame(added, dataLoaderService.getDataIndex().findPerson("Jane", "Doe").orElseThrow());
+        assertEquals("1", dataLoaderService.getDataIndex().findFirestationsByAddress("123 Main St").getFirst().getStation());
+        assertEquals(1, dataLoaderService.getStationGraph().getHouseholdsByStation("1").size());
+    }
+
+    /**
+     * Vérifie que le graphe indexe les deux sens de la relation station ↔ adresse, y compris lorsqu'une
+     * même caserne est déclarée deux fois : l'adresse reste rattachée tant qu'une ligne la référence.
+     */
+    @Test
+    void testStationGraph_addressesAndStations() {
+        Firestation main1 = new Firestation("1 Main St", "1");
+        Firestation duplicate = new Firestation("1 Main St", "1");
+        Firestation second1 = new Firestation("2 Main St", "1");
+        Firestation second2 = new Firestation("2 Main St", "2");
+        dataLoaderService.write(data -> {
+            data.addFirestation(main1);
+            data.addFirestation(second1);
+            data.addFirestation(second2);
+            data.addFirestation(duplicate);
+            return null;
+        });
+
+        assertEquals(List.of("1 Main St", "2 Main St"), List.copyOf(dataLoaderService.getStationGraph().getAddressesByStation("1")));
+        assertEquals(List.of("1", "2"), List.copyOf(dataLoaderService.getStationGraph().getStationsByAddress("2 Main St")));
+
+        dataLoaderService.write(data -> {
+            data.removeFirestation(duplicate);
+            data.removeFirestation(second2);
+            return null;
+        });
+
+        assertEquals(List.of("1 Main St", "2 Main St"), List.copyOf(dataLoaderService.getStationGraph().getAddressesByStation("1")));
+        assertEquals(List.of("1"), List.copyOf(dataLoaderService.getStationGraph().getStationsByAddress("2 Main St")));
+        assertTrue(dataLoaderService.getStationGraph().getAddressesByStation("2").isEmpty());
+    }
+
+    /**
+     * Vérifie que les numéros de téléphone de chaque station suivent les modifications des personnes et
+     * des casernes, sans doublon, qu'une même vue est partagée par les lectures d'une version et qu'une
+     * version publiée n'est pas modifiée par les écritures suivantes.
+     */
+    @Test
+    void testStationGraph_phonesByStation() {
+        Person john = new Person("John", "Boyd", "1 Main St", "Culver", "97451", "841-874-6512", "jaboyd@email.com");
+        Person jacob = new Person("Jacob", "Boyd", "1 Main St", "Culver", "97451", "841-874-6512", "drk@email.com");
+        Person tenley = new Person("Tenley", "Boyd", "2 Main St", "Culver", "97451", "841-874-6513", "tenz@email.com");
+        Firestation second = new Firestation("2 Main St", "1");
+        dataLoaderService.write(data -> {
+            data.addFirestation(new Firestation("1 Main St", "1"));
+            data.addPerson(john);
+            data.addPerson(jacob);
+            data.addPerson(tenley);
+            return null;
+        });
+        assertEquals(List.of("841-874-6512"), List.copyOf(dataLoaderService.getStationGraph().getPhonesByStation("1")));
+
+        dataLoaderService.write(data -> {
+            data.addFirestation(second);
+            return null;
+        });
+        Set<String> phones = dataLoaderService.getStationGraph().getPhonesByStation("1");
+        assertEquals(List.of("841-874-6512", "841-874-6513"), List.copyOf(phones));
+        assertSame(phones, dataLoaderService.getStationGraph().getPhonesByStation("1"));
+
+        dataLoaderService.write(data -> {
+            data.removePerson(john);
+            return null;
+        });
+        assertEquals(List.of("841-874-6512", "841-874-6513"), List.copyOf(dataLoaderService.getStationGraph().getPhonesByStation("1")));
+
+        dataLoaderService.write(data -> {
+            data.removePerson(jacob);
+            data.removeFirestation(second);
+            return null;
+        });
+        assertTrue(dataLoaderService.getStationGraph().getPhonesByStation("1").isEmpty());
+        assertEquals(2, phones.size());  // La version déjà publiée n'est pas modifiée
+    }
+
+    /**
+     * Vérifie que les emails de chaque ville sont indexés sans doublon ni distinction de casse, et suivent
+     * les ajouts, modifications et suppressions de personnes.
+     */
+    @Test
+    void testDataIndex_emailsByCity() {
+        Person john = new Person("John", "Boyd", "1 Main St", "Culver", "97451", "841-874-6512", "jaboyd@email.com");
+        Person jacob = new Person("Jacob", "Boyd", "1 Main St", "CULVER", "97451", "841-874-6513", "jaboyd@email.com");
+        Person tenley = new Person("Tenley", "Boyd", "1 Main St", "Culver", "97451", "841-874-6512", "tenz@email.com");
+        Person moved = new Person("Tenley", "Boyd", "1 Main St", "Springfield", "97451", "841-874-6512", "tenz@email.com");
+        dataLoaderService.write(data -> {
+            data.addPerson(john);
+            data.addPerson(jacob);
+            data.addPerson(tenley);
+            return null;
+        });
+        Set<String> emails = dataLoaderService.getDataIndex().findEmailsByCity("culver");
+        assertEquals(List.of("jaboyd@email.com", "tenz@email.com"), List.copyOf(emails));
+        assertSame(emails, dataLoaderService.getDataIndex().findEmailsByCity("Culver"));
+
+        dataLoaderService.write(data -> {
+            data.removePerson(john);
+            data.replacePerson(tenley, moved);
+            return null;
+        });
+
+        assertEquals(Set.of("jaboyd@email.com"), dataLoaderService.getDataIndex().findEmailsByCity("Culver"));
+        assertEquals(Set.of("tenz@email.com"), dataLoaderService.getDataIndex().findEmailsByCity("springfield"));
+        assertTrue(dataLoaderService.getDataIndex().findEmailsByCity("Paris").isEmpty());
+        assertEquals(2, emails.size());  // La version déjà publiée n'est pas modifiée
     }
 }
@@ -0,0 +1,81 @@
+package com.safetyNet.safetyNetSystem.service;
+
+import com.safetyNet.safetyNetSystem.model.DataContainer;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.Person;
+import com.safetyNet.safetyNetSystem.util.ChangeLog;
+import com.safetyNet.safetyNetSystem.util.DataLoaderUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour la classe {@link DataVersions}.
+ */
+class DataVersionsTest {
+
+    private DataLoaderService dataLoaderService;
+    private DataVersions dataVersions;
+
+    /**
+     * Initialisation avant chaque test : la caserne 1 couvre "1 Main St", la caserne 2 couvre "3 Oak St".
+     */
+    @BeforeEach
+    void setUp() {
+        DataLoaderUtil dataLoaderUtil = mock(DataLoaderUtil.class);
+        when(dataLoaderUtil.loadData(any())).thenReturn(new DataContainer());
+        dataLoaderService = new DataLoaderService(dataLoaderUtil, mock(ChangeLog.class));
+        dataLoaderService.write(builder -> {
+            builder.addFirestation(new Firestation("1 Main St", "1"));
+            builder.addFirestation(new Firestation("3 Oak St", "2"));
+            return null;
+        });
+        dataVersions = new DataVersions(dataLoaderService);
+    }
+
+    /**
+     * Une écriture change la version de l'adresse, de la station et de la ville touchées, et seulement celles-là.
+     */
+    @Test
+    void testFind_OnlyTouchedParametersChange() {
+        long before = dataLoaderService.getSnapshot().getVersion();
+        String mainTag = dataVersions.find(DataVersions.Scope.ADDRESS, "1 Main St", before).eTag();
+        String oakTag = dataVersions.find(DataVersions.Scope.ADDRESS, "3 Oak St", before).eTag();
+
+        addPerson("1 Main St");
+        long after = dataLoaderService.getSnapshot().getVersion();
+
+        assertNotEquals(mainTag, dataVersions.find(DataVersions.Scope.ADDRESS, "1 Main St", after).eTag());
+        assertEquals(oakTag, dataVersions.find(DataVersions.Scope.ADDRESS, "3 Oak St", after).eTag());
+        assertEquals(after, dataVersions.getVersion(DataVersions.Scope.STATION, "1"));
+        assertEquals(0, dataVersions.getVersion(DataVersions.Scope.STATION, "2"));
+        assertEquals(after, dataVersions.getVersion(DataVersions.Scope.CITY, "CULVER"));
+        assertEquals(after, dataVersions.find(DataVersions.Scope.STATION, List.of("1", "2"), after).getVersion());
+    }
+
+    /**
+     * Une requête qui lit une version antérieure à une écriture qui touche son paramètre n'a pas de version.
+     */
+    @Test
+    void testFind_WriteAfterSnapshot() {
+        long before = dataLoaderService.getSnapshot().getVersion();
+
+        addPerson("1 Main St");
+
+        assertNull(dataVersions.find(DataVersions.Scope.ADDRESS, "1 Main St", before));
+        assertNotNull(dataVersions.find(DataVersions.Scope.ADDRESS, "3 Oak St", before));
+        assertNull(dataVersions.find(before));
+        assertNotNull(dataVersions.find(dataLoaderService.getSnapshot().getVersion()));
+    }
+
+    private void addPerson(String address) {
+        dataLoaderService.write(builder -> {
+            builder.addPerson(new Person("John", "Boyd", address, "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+            return null;
+        });
+    }
+}
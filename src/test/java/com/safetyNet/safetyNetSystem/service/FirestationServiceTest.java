@@ -1,20 +1,27 @@
 package com.safetyNet.safetyNetSystem.service;
 
 import com.safetyNet.safetyNetSystem.dao.FirestationDAO;
+import com.safetyNet.safetyNetSystem.dao.StationGraph.Household;
+import com.safetyNet.safetyNetSystem.dao.StationGraph.Resident;
 import com.safetyNet.safetyNetSystem.dto.FirestationResponse;
 import com.safetyNet.safetyNetSystem.dto.FirestationResponseNoCount;
 import com.safetyNet.safetyNetSystem.model.Firestation;
 import com.safetyNet.safetyNetSystem.model.Person;
 import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.util.FanOutExecutor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,11 +36,8 @@ public class FirestationServiceTest {
     @Mock
     private FirestationDAO firestationDAO;
 
-    @Mock
-    private PersonService personService;
-
-    @Mock
-    private MedicalRecordService medicalRecordService;
+    @Spy
+    private FanOutExecutor fanOutExecutor = new FanOutExecutor(2, 256);
 
     @InjectMocks
     private FirestationService firestationService;
@@ -133,9 +137,7 @@ public class FirestationServiceTest {
      */
     @Test
     public void testGetPersonsCoveredByStation() {
-        when(personService.getAllPersons()).thenReturn(persons);
-        when(firestationDAO.getAllFirestations()).thenReturn(firestations);
-        when(medicalRecordService.getMedicalRecordByPerson(any(Person.class))).thenReturn(Optional.of(medicalRecords.getFirst()));
+        when(firestationDAO.getHouseholdsByStation("1")).thenReturn(List.of(household(persons.getFirst(), medicalRecords.getFirst())));
 
         FirestationResponse response = firestationService.getPersonsCoveredByStation("1");
 
@@ -145,20 +147,39 @@ public class FirestationServiceTest {
         assertEquals(0, response.getNumberOfChildren());  // Vérifie le nombre d'enfants
     }
 
+    /**
+     * Teste la méthode {@link FirestationService#getPersonsCoveredByStation(String)} pour une station couvrant plusieurs adresses.
+     * Vérifie que les habitants de tous les foyers de la station sont retournés, et pas seulement ceux du premier.
+     */
+    @Test
+    public void testGetPersonsCoveredByStation_AllHouseholds() {
+        Person neighbour = new Person("Jane", "Doe", "456 Oak St", "City", "12345", "123-456-7891", "jane.doe@example.com");
+        MedicalRecord childRecord = new MedicalRecord("Jane", "Doe", "invalid", new ArrayList<>(), new ArrayList<>());
+        when(firestationDAO.getHouseholdsByStation("1")).thenReturn(List.of(
+                household(persons.getFirst(), medicalRecords.getFirst()),
+                household(neighbour, childRecord)));
+
+        FirestationResponse response = firestationService.getPersonsCoveredByStation("1");
+
+        assertEquals(2, response.getPersons().size());
+        assertEquals("456 Oak St", response.getPersons().get(1).getAddress());
+        assertEquals(1, response.getNumberOfAdults());
+        assertEquals(1, response.getNumberOfChildren());  // Date de naissance invalide : comptée comme enfant
+    }
+
     /**
      * Teste la méthode {@link FirestationService#getPhoneNumbersByStation(String)} pour obtenir les numéros de téléphone des personnes couvertes par une caserne.
      * Vérifie que la méthode retourne bien la liste des numéros de téléphone.
      */
     @Test
     public void testGetPhoneNumbersByStation() {
-        when(personService.getAllPersons()).thenReturn(persons);
-        when(firestationDAO.getAllFirestations()).thenReturn(firestations);
+        when(firestationDAO.getPhonesByStation("1")).thenReturn(Set.of("123-456-7890"));
 
-        List<String> phoneNumbers = firestationService.getPhoneNumbersByStation("1");
+        Set<String> phoneNumbers = firestationService.getPhoneNumbersByStation("1");
 
         assertNotNull(phoneNumbers);
         assertEquals(1, phoneNumbers.size()); // Vérifie qu'il y a un seul numéro
-        assertEquals("123-456-7890", phoneNumbers.getFirst());  // Vérifie le numéro de téléphone
+        assertEquals("123-456-7890", phoneNumbers.iterator().next());  // Vérifie le numéro de téléphone
     }
 
     /**
@@ -167,8 +188,8 @@ public class FirestationServiceTest {
      */
     @Test
     public void testGetFirestationInfoByAddress() {
-        when(firestationDAO.getAllFirestations()).thenReturn(firestations);
-        when(personService.getPersonsWithMedicalInfoByAddress("123 Main St", true)).thenReturn(new ArrayList<>());
+        when(firestationDAO.getFirestationByAddress("123 Main St")).thenReturn(Optional.of(firestations.getFirst()));
+        when(firestationDAO.getResidentsByAddress("123 Main St")).thenReturn(new ArrayList<>());
 
         FirestationResponseNoCount response = firestationService.getFirestationInfoByAddress("123 Main St");
 
@@ -187,19 +208,11 @@ public class FirestationServiceTest {
         List<String> stationsRequested = new ArrayList<>();
         stationsRequested.add("1");
 
-        // Mock des casernes et des personnes
-        List<Firestation> firestations = new ArrayList<>();
-        Firestation firestation1 = new Firestation("123 Main St", "1");
-        firestations.add(firestation1);
-
-        List<Person> persons = new ArrayList<>();
+        // Personne habitant à l'adresse de la station
         Person person1 = new Person("John", "Doe", "123 Main St", "City", "12345", "123-456-7890", "john.doe@example.com");
-        persons.add(person1);
 
-        // Mock des services
-        when(firestationDAO.getAllFirestations()).thenReturn(firestations);
-        when(personService.getAllPersons()).thenReturn(persons);
-        when(medicalRecordService.getMedicalRecordByPerson(any(Person.class))).thenReturn(Optional.of(medicalRecords.getFirst()));
+        // Mock du graphe des foyers de la station
+        when(firestationDAO.getHouseholdsByStation("1")).thenReturn(List.of(household(person1, medicalRecords.getFirst())));
 
         // Appel de la méthode
         List<FirestationResponseNoCount> floodedStations = firestationService.getFloodedStations(stationsRequested);
@@ -211,6 +224,34 @@ public class FirestationServiceTest {
         assertEquals(1, floodedStations.getFirst().getPersons().size());  // Vérifie le nombre de personnes
     }
 
+    /**
+     * Teste la méthode {@link FirestationService#getFloodedStations(List)} au-delà du seuil de traitement parallèle.
+     * Vérifie que les foyers sont renvoyés dans l'ordre des stations demandées puis de leurs foyers,
+     * et que les foyers sans dossier médical sont écartés.
+     */
+    @Test
+    public void testGetFloodedStationsParallel() {
+        FirestationService parallelService = new FirestationService(firestationDAO, new FanOutExecutor(4, 1));
+        List<String> expected = new ArrayList<>();
+        for (String station : List.of("2", "1")) {
+            List<Household> households = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                Person person = new Person("John" + i, "Doe", station + "-" + i + " Main St", "City", "12345", "123-456-7890", "john.doe@example.com");
+                households.add(household(person, i % 5 == 0 ? null : medicalRecords.getFirst()));
+                if (i % 5 != 0) {
+                    expected.add(station + ":" + person.getAddress());
+                }
+            }
+            when(firestationDAO.getHouseholdsByStation(station)).thenReturn(households);
+        }
+
+        List<FirestationResponseNoCount> floodedStations = parallelService.getFloodedStations(List.of("2", "1", "2"));
+
+        assertEquals(expected, floodedStations.stream()
+                .map(response -> response.getStationNumber() + ":" + response.getPersons().getFirst().getAddress())
+                .toList());
+    }
+
     /**
      * Teste le cas où la liste des stations demandées est vide dans la méthode {@link FirestationService#getFloodedStations(List)}.
      * Vérifie que la méthode retourne une liste vide.
@@ -233,11 +274,39 @@ public class FirestationServiceTest {
         List<String> stationsRequested = new ArrayList<>();
         stationsRequested.add("999");  // Station inexistante
 
-        when(firestationDAO.getAllFirestations()).thenReturn(firestations);
+        when(firestationDAO.getHouseholdsByStation("1")).thenReturn(List.of(household(persons.getFirst(), medicalRecords.getFirst())));
 
         List<FirestationResponseNoCount> floodedStations = firestationService.getFloodedStations(stationsRequested);
 
         assertNotNull(floodedStations);
         assertTrue(floodedStations.isEmpty());  // Aucune station trouvée
     }
+
+    /**
+     * Teste la méthode {@link FirestationService#streamFloodedStations(List)}.
+     * Vérifie que les foyers ne sont lus qu'au parcours du flux, station après station, et qu'une station
+     * demandée deux fois n'est parcourue qu'une fois.
+     */
+    @Test
+    public void testStreamFloodedStations() {
+        Person person1 = new Person("John", "Doe", "123 Main St", "City", "12345", "123-456-7890", "john.doe@example.com");
+        when(firestationDAO.getHouseholdsByStation("1")).thenReturn(List.of(household(person1, medicalRecords.getFirst())));
+
+        Stream<FirestationResponseNoCount> floodedStations = firestationService.streamFloodedStations(List.of("1", "2", "1"));
+        verify(firestationDAO, never()).getHouseholdsByStation(anyString());
+
+        List<FirestationResponseNoCount> result = floodedStations.collect(Collectors.toList());
+
+        assertEquals(1, result.size());
+        assertEquals("1", result.getFirst().getStationNumber());
+        verify(firestationDAO, times(1)).getHouseholdsByStation("1");
+        verify(firestationDAO, times(1)).getHouseholdsByStation("2");
+    }
+
+    /**
+     * Construit un foyer d'un seul habitant pour simuler le graphe des stations.
+     */
+    private static Household household(Person person, MedicalRecord medicalRecord) {
+        return new Household(person.getAddress(), List.of(new Resident(person, medicalRecord)));
+    }
 }
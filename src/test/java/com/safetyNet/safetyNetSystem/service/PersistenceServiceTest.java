@@ -0,0 +1,129 @@
+package com.safetyNet.safetyNetSystem.service;
+
+import com.safetyNet.safetyNetSystem.model.Person;
+import com.safetyNet.safetyNetSystem.util.ChangeLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour la classe {@link PersistenceService}.
+ * L'intervalle d'écriture est très long afin que seules les écritures explicites ou déclenchées par le seuil aient lieu.
+ */
+class PersistenceServiceTest {
+
+    private DataLoaderService dataLoaderService;
+    private ChangeLog changeLog;
+    private PersistenceService persistenceService;
+
+    @BeforeEach
+    void setUp() {
+        dataLoaderService = mock(DataLoaderService.class);
+        when(dataLoaderService.saveData()).thenReturn(true);
+        changeLog = mock(ChangeLog.class);
+        persistenceService = new PersistenceService(dataLoaderService, changeLog, 3_600_000, 3, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        persistenceService.shutdown();
+    }
+
+    /**
+     * Vérifie que plusieurs modifications sont regroupées en une seule écriture.
+     */
+    @Test
+    void testFlush_coalescesPendingChanges() {
+        persistenceService.markDirty();
+        persistenceService.markDirty();
+
+        assertEquals(2, persistenceService.getDirtyCount());
+        verify(dataLoaderService, never()).saveData();
+
+        persistenceService.flush();
+
+        verify(dataLoaderService, times(1)).saveData();
+        assertEquals(0, persistenceService.getDirtyCount());
+        assertEquals(0, persistenceService.getFlushLagMillis());
+    }
+
+    /**
+     * Vérifie qu'une modification est journalisée avant d'être mise en attente d'instantané.
+     */
+    @Test
+    void testRecordChange_appendsToChangeLog() {
+        ChangeLog.Entry entry = ChangeLog.Entry.addPerson(new Person("John", "Doe", "123 Main St", "City", "12345", "123-456-7890", "john@example.com"));
+
+        persistenceService.recordChange(entry);
+
+        verify(changeLog, times(1)).append(entry);
+        assertEquals(1, persistenceService.getDirtyCount());
+        verify(dataLoaderService, never()).saveData();
+    }
+
+    /**
+     * Vérifie qu'un lot est journalisé en une seule entrée et compte pour chacune de ses modifications.
+     */
+    @Test
+    void testRecordChanges_appendsSingleBatchEntry() {
+        List<ChangeLog.Entry> entries = List.of(ChangeLog.Entry.deletePerson("John", "Doe"), ChangeLog.Entry.deletePerson("Jane", "Doe"));
+
+        persistenceService.recordChanges(entries);
+
+        verify(changeLog, times(1)).append(ChangeLog.Entry.batch(entries));
+        assertEquals(2, persistenceService.getDirtyCount());
+    }
+
+    /**
+     * Vérifie qu'aucune écriture n'a lieu lorsqu'aucune modification n'est en attente.
+     */
+    @Test
+    void testFlush_whenClean() {
+        persistenceService.flush();
+
+        verify(dataLoaderService, never()).saveData();
+    }
+
+    /**
+     * Vérifie que les modifications restent en attente lorsque l'écriture échoue.
+     */
+    @Test
+    void testFlush_whenSaveFails() {
+        when(dataLoaderService.saveData()).thenReturn(false);
+        persistenceService.markDirty();
+
+        persistenceService.flush();
+
+        assertEquals(1, persistenceService.getDirtyCount());
+        verify(changeLog, never()).deleteSegmentsBefore(anyLong());
+    }
+
+    /**
+     * Vérifie qu'une écriture est déclenchée dès que le seuil de modifications est atteint.
+     */
+    @Test
+    void testMarkDirty_thresholdTriggersFlush() {
+        persistenceService.markDirty();
+        persistenceService.markDirty();
+        persistenceService.markDirty();
+
+        verify(dataLoaderService, timeout(2000).times(1)).saveData();
+    }
+
+    /**
+     * Vérifie que les modifications en attente sont écrites à l'arrêt.
+     */
+    @Test
+    void testShutdown_flushesPendingChanges() {
+        persistenceService.markDirty();
+
+        persistenceService.shutdown();
+
+        verify(dataLoaderService, times(1)).saveData();
+    }
+}
@@ -1,7 +1,9 @@
 package com.safetyNet.safetyNetSystem.service;
 
+import com.safetyNet.safetyNetSystem.dao.DataIndex;
 import com.safetyNet.safetyNetSystem.dao.PersonDAO;
 import com.safetyNet.safetyNetSystem.dto.ChildrenAlertResponse;
+import com.safetyNet.safetyNetSystem.dto.CursorPage;
 import com.safetyNet.safetyNetSystem.dto.PersonInfo;
 import com.safetyNet.safetyNetSystem.model.MedicalRecord;
 import com.safetyNet.safetyNetSystem.model.Person;
@@ -13,8 +15,11 @@ import org.mockito.MockitoAnnotations;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 /**
@@ -130,7 +135,7 @@ class PersonServiceTest {
     void testGetPersonByFirstNameAndLastName() {
         // Arrange
         Person person = new Person("John", "Doe", "123 Main St", "City", "12345", "123-456-7890", "john.doe@example.com");
-        when(personDAO.getAllPersons()).thenReturn(List.of(person));
+        when(personDAO.getPersonByName("John", "Doe")).thenReturn(Optional.of(person));
 
         // Act
         Optional<Person> result = personService.getPersonByFirstNameAndLastName("John", "Doe");
@@ -138,7 +143,7 @@ class PersonServiceTest {
         // Assert
         assertThat(result).isPresent();
         assertThat(result.get().getFirstName()).isEqualTo("John");
-        verify(personDAO, times(1)).getAllPersons();
+        verify(personDAO, times(1)).getPersonByName("John", "Doe");
     }
 
     /**
@@ -150,7 +155,7 @@ class PersonServiceTest {
         // Arrange
         Person person = new Person("John", "Doe", "123 Main St", "City", "12345", "123-456-7890", "john.doe@example.com");
         MedicalRecord medicalRecord = new MedicalRecord("John", "Doe", "1980-03-15", List.of("med1"), List.of("allergy1"));
-        when(personDAO.getAllPersons()).thenReturn(List.of(person));
+        when(personDAO.getPersonsByAddress("123 Main St")).thenReturn(List.of(person));
         when(medicalRecordService.getMedicalRecordByPerson(person)).thenReturn(Optional.of(medicalRecord));
 
         // Act
@@ -159,7 +164,7 @@ class PersonServiceTest {
         // Assert
         assertThat(result).hasSize(1);
         assertThat(result.getFirst().getMedicalInfo().getMedications()).contains("med1");
-        verify(personDAO, times(1)).getAllPersons();
+        verify(personDAO, times(1)).getPersonsByAddress("123 Main St");
         verify(medicalRecordService, times(1)).getMedicalRecordByPerson(person);
     }
 
@@ -176,7 +181,7 @@ class PersonServiceTest {
         MedicalRecord medicalRecord1 = new MedicalRecord("John", "Doe", "1980-03-15", List.of("med1"), List.of("allergy1"));
         MedicalRecord medicalRecord2 = new MedicalRecord("Jane", "Doe", "1990-05-20", List.of("med2"), List.of("allergy2"));
 
-        when(personDAO.getAllPersons()).thenReturn(List.of(person1, person2));
+        when(personDAO.getPersonsByLastName("Doe")).thenReturn(List.of(person1, person2));
         when(medicalRecordService.getMedicalRecordByPerson(person1)).thenReturn(Optional.of(medicalRecord1));
         when(medicalRecordService.getMedicalRecordByPerson(person2)).thenReturn(Optional.of(medicalRecord2));
 
@@ -189,7 +194,7 @@ class PersonServiceTest {
         assertThat(result.get(1).getFirstName()).isEqualTo("Jane");
         assertThat(result.get(0).getMedicalInfo().getMedications()).contains("med1");
         assertThat(result.get(1).getMedicalInfo().getMedications()).contains("med2");
-        verify(personDAO, times(1)).getAllPersons();
+        verify(personDAO, times(1)).getPersonsByLastName("Doe");
         verify(medicalRecordService, times(2)).getMedicalRecordByPerson(any(Person.class));
     }
 
@@ -204,15 +209,16 @@ class PersonServiceTest {
         Person person2 = new Person("Jane", "Doe", "456 Elm St", "City", "67890", "987-654-3210", "jane.doe@example.com");
         Person person3 = new Person("Alice", "Smith", "789 Oak St", "OtherCity", "11223", "555-555-5555", "alice.smith@example.com");
 
-        when(personDAO.getAllPersons()).thenReturn(List.of(person1, person2, person3));
+        when(personDAO.getEmailsByCity("City")).thenReturn(Set.of(person1.getEmail(), person2.getEmail()));
 
         // Act
-        List<String> result = personService.getEmailsByCity("City");
+        Set<String> result = personService.getEmailsByCity("City");
 
         // Assert
         assertThat(result).hasSize(2);
         assertThat(result).contains("john.doe@example.com", "jane.doe@example.com");
-        verify(personDAO, times(1)).getAllPersons();
+        assertThat(result).doesNotContain(person3.getEmail());
+        verify(personDAO, times(1)).getEmailsByCity("City");
     }
 
     /**
@@ -225,7 +231,7 @@ class PersonServiceTest {
         Person person1 = new Person("John", "Doe", "123 Main St", "City", "12345", "123-456-7890", "john.doe@example.com");
         Person person2 = new Person("Jane", "Doe", "123 Main St", "City", "67890", "987-654-3210", "john.doe@example.com");
         Person person3 = new Person("Jimmy", "Doe", "456 Elm St", "City", "11223", "555-555-5555", "jimmy.doe@example.com");
-        when(personDAO.getAllPersons()).thenReturn(List.of(person1, person2, person3));
+        when(personDAO.getPersonsByAddress("123 Main St")).thenReturn(List.of(person1, person2));
         when(medicalRecordService.getMedicalRecordByPerson(person1)).thenReturn(Optional.of(new MedicalRecord("John", "Doe", "2010-03-15", List.of(), List.of())));
         when(medicalRecordService.getMedicalRecordByPerson(person2)).thenReturn(Optional.of(new MedicalRecord("Jane", "Doe", "2015-06-15", List.of(), List.of())));
 
@@ -235,6 +241,81 @@ class PersonServiceTest {
         // Assert
         assertThat(result.getChildren()).hasSize(2); // Assume both John and Jane are children
         assertThat(result.getAdults()).isEmpty();
-        verify(personDAO, times(1)).getAllPersons();
+        verify(personDAO, times(1)).getPersonsByAddress("123 Main St");
+        verify(medicalRecordService, never()).getMedicalRecordByPerson(person3);
+    }
+
+    /**
+     * Teste la méthode {@link PersonService#getPersonsPage(String, int)}.
+     * Vérifie que le curseur de la première page fait reprendre la page suivante juste après la dernière
+     * personne lue, y compris au milieu d'homonymes, et que la dernière page n'a pas de curseur.
+     */
+    @Test
+    void testGetPersonsPage() {
+        // Arrange
+        Person jane = new Person("Jane", "Doe", "456 Elm St", "City", "67890", "987-654-3210", "jane.doe@example.com");
+        Person john1 = new Person("John", "Doe", "123 Main St", "City", "12345", "123-456-7890", "john.doe@example.com");
+        Person john2 = new Person("John", "Doe", "789 Oak St", "City", "11223", "555-555-5555", "john.doe2@example.com");
+        Person alice = new Person("Alice", "Smith", "789 Oak St", "OtherCity", "11223", "555-555-5555", "alice.smith@example.com");
+        DataIndex index = indexOf(alice, john1, jane, john2);
+        when(personDAO.iteratePersonsByName(any())).thenAnswer(invocation -> index.iteratePersonsByName(invocation.getArgument(0)));
+
+        // Act
+        CursorPage<Person> first = personService.getPersonsPage(null, 2);
+        CursorPage<Person> second = personService.getPersonsPage(first.getNextCursor(), 2);
+
+        // Assert
+        assertThat(first.getItems()).containsExactly(jane, john1);
+        assertThat(first.getNextCursor()).isNotNull();
+        assertThat(second.getItems()).containsExactly(john2, alice);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    /**
+     * Teste la méthode {@link PersonService#getPersonsPage(String, int)} lorsque des homonymes sont retirés
+     * ou ajoutés entre deux pages.
+     * Vérifie que la page suivante reprend juste après la dernière personne lue, sans sauter ni répéter personne.
+     */
+    @Test
+    void testGetPersonsPage_HomonymsChangedBetweenPages() {
+        // Arrange
+        Person john1 = new Person("John", "Doe", "123 Main St", "City", "12345", "123-456-7890", "john.doe@example.com");
+        Person john2 = new Person("John", "Doe", "789 Oak St", "City", "11223", "555-555-5555", "john.doe2@example.com");
+        Person john3 = new Person("John", "Doe", "1 Elm St", "City", "11223", "555-555-5556", "john.doe3@example.com");
+        Person john4 = new Person("John", "Doe", "2 Elm St", "City", "11223", "555-555-5557", "john.doe4@example.com");
+        AtomicReference<DataIndex> index = new AtomicReference<>(indexOf(john1, john2, john3));
+        when(personDAO.iteratePersonsByName(any())).thenAnswer(invocation -> index.get().iteratePersonsByName(invocation.getArgument(0)));
+        CursorPage<Person> first = personService.getPersonsPage(null, 2);
+
+        // Act : retrait d'un homonyme déjà lu et ajout d'un nouvel homonyme
+        DataIndex next = index.get().edit();
+        next.unindexPerson(john1);
+        next.indexPerson(john4);
+        index.set(next.freeze());
+        CursorPage<Person> second = personService.getPersonsPage(first.getNextCursor(), 2);
+
+        // Assert
+        assertThat(first.getItems()).containsExactly(john1, john2);
+        assertThat(second.getItems()).containsExactly(john3, john4);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    /**
+     * Teste la méthode {@link PersonService#getPersonsPage(String, int)} avec un curseur invalide.
+     * Vérifie qu'une IllegalArgumentException est levée sans lire les personnes.
+     */
+    @Test
+    void testGetPersonsPage_InvalidCursor() {
+        assertThatThrownBy(() -> personService.getPersonsPage("curseur-invalide", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(personDAO, never()).iteratePersonsByName(any());
+    }
+
+    private static DataIndex indexOf(Person... persons) {
+        DataIndex index = new DataIndex();
+        for (Person person : persons) {
+            index.indexPerson(person);
+        }
+        return index.freeze();
     }
 }
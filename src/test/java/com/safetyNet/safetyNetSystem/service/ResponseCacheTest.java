@@ -0,0 +1,182 @@
+package com.safetyNet.safetyNetSystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetyNet.safetyNetSystem.model.DataContainer;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.Person;
+import com.safetyNet.safetyNetSystem.util.ChangeLog;
+import com.safetyNet.safetyNetSystem.util.DataLoaderUtil;
+import com.safetyNet.safetyNetSystem.util.SerializedJson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour la classe {@link ResponseCache}.
+ * Les données sont publiées par un vrai {@link DataLoaderService}, pour vérifier l'invalidation par les écritures.
+ */
+class ResponseCacheTest {
+
+    private DataLoaderService dataLoaderService;
+    private DataVersions dataVersions;
+    private ResponseCache responseCache;
+    private AtomicInteger loads;
+
+    /**
+     * Initialisation avant chaque test : la caserne 1 couvre "1 Main St" et "2 Main St",
+     * la caserne 2 couvre "3 Oak St".
+     */
+    @BeforeEach
+    void setUp() {
+        DataLoaderUtil dataLoaderUtil = mock(DataLoaderUtil.class);
+        when(dataLoaderUtil.loadData(any())).thenReturn(new DataContainer());
+        dataLoaderService = new DataLoaderService(dataLoaderUtil, mock(ChangeLog.class));
+        dataLoaderService.write(builder -> {
+            builder.addFirestation(new Firestation("1 Main St", "1"));
+            builder.addFirestation(new Firestation("2 Main St", "1"));
+            builder.addFirestation(new Firestation("3 Oak St", "2"));
+            return null;
+        });
+        dataVersions = new DataVersions(dataLoaderService);
+        responseCache = newCache(100, 1000);
+        loads = new AtomicInteger();
+    }
+
+    /**
+     * Une réponse en cache est servie sans être recalculée ; les villes sont comparées sans tenir compte de la casse.
+     */
+    @Test
+    void testGet_HitAfterMiss() {
+        assertEquals(List.of("1"), responseCache.get(ResponseCache.Endpoint.FIRE, "1 Main St", () -> load("1")));
+        assertEquals(List.of("1"), responseCache.get(ResponseCache.Endpoint.FIRE, "1 Main St", () -> load("2")));
+        responseCache.get(ResponseCache.Endpoint.COMMUNITY_EMAIL, "Culver", () -> load("a"));
+        responseCache.get(ResponseCache.Endpoint.COMMUNITY_EMAIL, "CULVER", () -> load("b"));
+
+        assertEquals(2, loads.get());
+        assertEquals(2, responseCache.getHitCount());
+        assertEquals(2, responseCache.getMissCount());
+    }
+
+    /**
+     * Une réponse sérialisée n'est sérialisée qu'une fois : les requêtes suivantes reçoivent les mêmes octets et le même ETag.
+     */
+    @Test
+    void testGetSerialized_SerializedOnce() {
+        SerializedJson first = responseCache.getSerialized(ResponseCache.Endpoint.FIRE, "1 Main St", () -> load("a", "b"));
+        SerializedJson second = responseCache.getSerialized(ResponseCache.Endpoint.FIRE, "1 Main St", () -> load("c"));
+
+        assertEquals("[\"a\",\"b\"]", new String(first.bytes(), StandardCharsets.UTF_8));
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * L'ETag d'une réponse sérialisée est la version de son adresse : il ne change que si une écriture la touche.
+     */
+    @Test
+    void testGetSerialized_ETagFollowsAddressVersion() {
+        SerializedJson main = responseCache.getSerialized(ResponseCache.Endpoint.FIRE, "1 Main St", () -> load("a"));
+        SerializedJson oak = responseCache.getSerialized(ResponseCache.Endpoint.FIRE, "3 Oak St", () -> load("b"));
+
+        dataLoaderService.write(builder -> {
+            builder.addPerson(new Person("John", "Boyd", "1 Main St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+            return null;
+        });
+
+        assertNotEquals(main.eTag(), responseCache.getSerialized(ResponseCache.Endpoint.FIRE, "1 Main St", () -> load("a")).eTag());
+        assertEquals(oak.eTag(), responseCache.getSerialized(ResponseCache.Endpoint.FIRE, "3 Oak St", () -> load("b")).eTag());
+    }
+
+    /**
+     * Une personne ajoutée à "1 Main St" invalide uniquement les entrées de cette adresse,
+     * de sa caserne et de sa ville.
+     */
+    @Test
+    void testInvalidate_OnlyTouchedEntries() {
+        cacheAll();
+
+        dataLoaderService.write(builder -> {
+            builder.addPerson(new Person("John", "Boyd", "1 Main St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+            return null;
+        });
+
+        assertEquals(5, responseCache.getInvalidationCount());
+        assertEquals(4, responseCache.size());
+        int before = loads.get();
+        cacheAll();
+        assertEquals(before + 5, loads.get());
+    }
+
+    /**
+     * Au-delà de la taille maximale, les entrées non relues sont évincées avant celles qui ont été relues.
+     */
+    @Test
+    void testEviction_KeepsRecentlyReadEntries() {
+        responseCache = newCache(2, 1000);
+        responseCache.get(ResponseCache.Endpoint.FIRE, "1 Main St", () -> load("1"));
+        responseCache.get(ResponseCache.Endpoint.FIRE, "2 Main St", () -> load("2"));
+        responseCache.get(ResponseCache.Endpoint.FIRE, "1 Main St", () -> load("1"));
+        responseCache.get(ResponseCache.Endpoint.FIRE, "3 Oak St", () -> load("3"));
+
+        assertEquals(2, responseCache.size());
+        assertEquals(1, responseCache.getEvictionCount());
+        responseCache.get(ResponseCache.Endpoint.FIRE, "1 Main St", () -> load("1"));
+        assertEquals(3, loads.get());
+    }
+
+    /**
+     * Le poids maximal borne le nombre total d'éléments des réponses en cache.
+     */
+    @Test
+    void testEviction_ByWeight() {
+        responseCache = newCache(100, 10);
+        responseCache.get(ResponseCache.Endpoint.PHONE_ALERT, "1", () -> load("1", "2", "3", "4", "5"));
+        responseCache.get(ResponseCache.Endpoint.PHONE_ALERT, "2", () -> load("6", "7", "8", "9", "10"));
+
+        assertEquals(1, responseCache.size());
+        assertEquals(1, responseCache.getEvictionCount());
+    }
+
+    /**
+     * Une durée de vie nulle désactive le cache pour l'endpoint.
+     */
+    @Test
+    void testGet_DisabledEndpoint() {
+        responseCache = new ResponseCache(dataLoaderService, dataVersions, new ObjectMapper(), 100, 1000, 60000, 60000, 0, 60000, 60000);
+        responseCache.get(ResponseCache.Endpoint.FIRE, "1 Main St", () -> load("1"));
+        responseCache.get(ResponseCache.Endpoint.FIRE, "1 Main St", () -> load("1"));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, responseCache.size());
+    }
+
+    private ResponseCache newCache(int maxEntries, long maxWeight) {
+        return new ResponseCache(dataLoaderService, dataVersions, new ObjectMapper(), maxEntries, maxWeight, 60000, 60000, 60000, 60000, 60000);
+    }
+
+    /**
+     * Met en cache une réponse par endpoint et par adresse, caserne ou ville (9 entrées).
+     */
+    private void cacheAll() {
+        for (String address : List.of("1 Main St", "3 Oak St")) {
+            responseCache.get(ResponseCache.Endpoint.FIRE, address, () -> load(address));
+            responseCache.get(ResponseCache.Endpoint.CHILD_ALERT, address, () -> load(address));
+        }
+        for (String station : List.of("1", "2")) {
+            responseCache.get(ResponseCache.Endpoint.FIRESTATION, station, () -> load(station));
+            responseCache.get(ResponseCache.Endpoint.PHONE_ALERT, station, () -> load(station));
+        }
+        responseCache.get(ResponseCache.Endpoint.COMMUNITY_EMAIL, "Culver", () -> load("Culver"));
+    }
+
+    private List<String> load(String... values) {
+        loads.incrementAndGet();
+        return List.of(values);
+    }
+}
@@ -0,0 +1,173 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import com.safetyNet.safetyNetSystem.model.DataContainer;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour les classes {@link BinarySnapshot} et {@link MappedSnapshot}.
+ */
+class BinarySnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private DataContainer dataContainer;
+    private Path file;
+
+    /**
+     * Jeu de données couvrant les champs nuls, les listes vides ou nulles et les chaînes répétées.
+     */
+    @BeforeEach
+    void setUp() {
+        dataContainer = new DataContainer();
+        dataContainer.setPersons(List.of(
+                new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"),
+                new Person("Jacob", "Boyd", "1509 Culver St", "Culver", "97451", null, null)));
+        dataContainer.setFirestations(List.of());
+        dataContainer.setMedicalrecords(List.of(
+                new MedicalRecord("John", "Boyd", "03/06/1984", List.of("aznol:350mg", "hydrapermazol:100mg"), List.of("nillacilan")),
+                new MedicalRecord("Jacob", "Boyd", null, List.of(), null)));
+        dataContainer.setChangeLogSegment(7);
+        file = directory.resolve("data.bin");
+    }
+
+    /**
+     * Vérifie qu'un instantané relu est identique aux données écrites, et que les chaînes répétées
+     * sont partagées.
+     */
+    @Test
+    void testWriteRead_roundTrip() throws IOException {
+        BinarySnapshot.write(dataContainer, file);
+
+        DataContainer read = BinarySnapshot.read(file);
+
+        assertSameContent(dataContainer, read);
+        assertSame(read.getPersons().get(0).getCity(), read.getPersons().get(1).getCity());
+        assertSame(read.getPersons().get(0).getLastName(), read.getMedicalrecords().get(1).getLastName());
+    }
+
+    /**
+     * Vérifie qu'un DataContainer sans listes est écrit comme un jeu de données vide.
+     */
+    @Test
+    void testWriteRead_nullLists() throws IOException {
+        BinarySnapshot.write(new DataContainer(), file);
+
+        DataContainer read = BinarySnapshot.read(file);
+
+        assertTrue(read.getPersons().isEmpty());
+        assertTrue(read.getFirestations().isEmpty());
+        assertTrue(read.getMedicalrecords().isEmpty());
+    }
+
+    /**
+     * Vérifie que la projection en mémoire d'un instantané donne les mêmes données que sa relecture.
+     */
+    @Test
+    void testMap_roundTrip() throws IOException {
+        dataContainer.setFirestations(List.of(new Firestation("1509 Culver St", "3")));
+        BinarySnapshot.write(dataContainer, file);
+
+        DataContainer mapped = MappedSnapshot.map(file);
+
+        assertSameContent(dataContainer, mapped);
+        assertSame(mapped.getPersons().get(0), mapped.getPersons().get(0));
+        assertThrows(UnsupportedOperationException.class, () -> mapped.getPersons().get(0).setCity("Paris"));
+    }
+
+    /**
+     * Vérifie qu'un instantané tronqué lève une IOException, à la relecture comme à la projection.
+     */
+    @Test
+    void testRead_truncated() throws IOException {
+        BinarySnapshot.write(dataContainer, file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 6));
+
+        assertThrows(IOException.class, () -> BinarySnapshot.read(file));
+        assertThrows(IOException.class, () -> MappedSnapshot.map(file));
+    }
+
+    /**
+     * Vérifie qu'un nombre de chaînes négatif ou démesuré lève une IOException plutôt qu'une erreur d'allocation.
+     */
+    @Test
+    void testRead_corruptCounts() throws IOException {
+        for (int count : new int[]{-5, Integer.MAX_VALUE}) {
+            writeHeader(count);
+
+            assertThrows(IOException.class, () -> BinarySnapshot.read(file));
+            assertThrows(IOException.class, () -> MappedSnapshot.map(file));
+        }
+    }
+
+    /**
+     * Vérifie qu'une référence hors de la table des chaînes lève une IOException dès la projection.
+     */
+    @Test
+    void testRead_invalidReference() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(BinarySnapshot.MAGIC);
+            out.writeInt(BinarySnapshot.VERSION);
+            out.writeLong(0);
+            out.writeInt(0);  // Aucune chaîne
+            out.writeInt(0);  // Aucune personne
+            out.writeInt(1);  // Une caserne, dont l'adresse référence une chaîne inexistante
+            out.writeInt(3);
+            out.writeInt(-1);
+            out.writeInt(0);  // Aucun dossier médical
+        }
+
+        assertThrows(IOException.class, () -> BinarySnapshot.read(file));
+        assertThrows(IOException.class, () -> MappedSnapshot.map(file));
+    }
+
+    /**
+     * Vérifie qu'un fichier d'une autre version du format est refusé.
+     */
+    @Test
+    void testRead_unsupportedVersion() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(BinarySnapshot.MAGIC);
+            out.writeInt(1);
+            out.writeInt(0);
+        }
+
+        assertThrows(IOException.class, () -> BinarySnapshot.read(file));
+        assertThrows(IOException.class, () -> MappedSnapshot.map(file));
+    }
+
+    private void writeHeader(int stringCount) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(BinarySnapshot.MAGIC);
+            out.writeInt(BinarySnapshot.VERSION);
+            out.writeLong(0);
+            out.writeInt(stringCount);
+            out.writeInt(0);
+        }
+    }
+
+    private static void assertSameContent(DataContainer expected, DataContainer actual) {
+        assertEquals(expected.getPersons().toString(), actual.getPersons().toString());
+        assertEquals(expected.getFirestations().toString(), actual.getFirestations().toString());
+        assertEquals(expected.getMedicalrecords().toString(), actual.getMedicalrecords().toString());
+        assertEquals(expected.getChangeLogSegment(), actual.getChangeLogSegment());
+        assertNull(actual.getMedicalrecords().get(1).getAllergies());
+        assertEquals(List.of(), actual.getMedicalrecords().get(1).getMedications());
+        assertNull(actual.getPersons().get(1).getEmail());
+    }
+}
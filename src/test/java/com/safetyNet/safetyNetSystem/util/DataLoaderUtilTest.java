@@ -0,0 +1,108 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import com.safetyNet.safetyNetSystem.model.DataContainer;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link DataLoaderUtil}.
+ * Les données sont lues depuis un fichier JSON écrit dans un répertoire temporaire.
+ */
+class DataLoaderUtilTest {
+
+    /**
+     * Nombre de personnes lues : plusieurs blocs de décodage complets, puis un bloc partiel.
+     */
+    private static final int PERSON_COUNT = 5 * DataLoaderUtil.CHUNK_SIZE + 7;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Vérifie que l'ordre du fichier est conservé d'un bloc de décodage à l'autre, dans la liste chargée
+     * comme dans les notifications du listener, et que les sections inconnues sont sautées.
+     * Une section nulle est chargée comme absente.
+     */
+    @Test
+    void testLoadData_keepsOrderAcrossChunksAndSkipsUnknownSections() throws IOException {
+        StringBuilder json = new StringBuilder("{\"comment\": \"généré\", \"metadata\": {\"persons\": [1, 2], \"nested\": [{}]},\n");
+        json.append("\"persons\": [");
+        for (int i = 0; i < PERSON_COUNT; i++) {
+            json.append(i == 0 ? "" : ",\n")
+                    .append("{\"firstName\": \"First").append(i).append("\", \"lastName\": \"Last\", \"address\": \"")
+                    .append(i % 10).append(" Main St\", \"city\": \"Culver\", \"zip\": \"97451\", \"phone\": \"841-874-6512\", ")
+                    .append("\"email\": \"first").append(i).append("@email.com\"}");
+        }
+        json.append("],\n\"extra\": [[\"firestations\"]], \"version\": 3,\n");
+        json.append("\"firestations\": [{\"address\": \"1 Main St\", \"station\": \"1\"}],\n");
+        json.append("\"medicalrecords\": null}");
+        Path file = directory.resolve("data.json");
+        Files.writeString(file, json);
+        RecordingListener listener = new RecordingListener();
+
+        DataContainer dataContainer = new DataLoaderUtil(false, false, file.toString()).loadData(listener);
+
+        assertNotNull(dataContainer);
+        List<Person> persons = dataContainer.getPersons();
+        assertEquals(PERSON_COUNT, persons.size());
+        for (int i = 0; i < PERSON_COUNT; i++) {
+            assertEquals("First" + i, persons.get(i).getFirstName());
+            assertSame(persons.get(i), listener.persons.get(i));
+        }
+        assertEquals(PERSON_COUNT, listener.persons.size());
+        assertEquals(1, dataContainer.getFirestations().size());
+        assertEquals("1", listener.firestations.get(0).getStation());
+        assertNull(dataContainer.getMedicalrecords());
+        assertTrue(listener.medicalRecords.isEmpty());
+    }
+
+    /**
+     * Vérifie qu'un fichier invalide donne un chargement nul plutôt qu'une exception.
+     */
+    @Test
+    void testLoadData_invalidFile() throws IOException {
+        Path file = directory.resolve("data.json");
+
+        for (String json : new String[]{"[]", "{\"persons\": {}}", "{\"persons\": [{\"firstName\": [}]}"}) {
+            Files.writeString(file, json);
+
+            assertNull(new DataLoaderUtil(false, false, file.toString()).loadData(new RecordingListener()), json);
+        }
+    }
+
+    /**
+     * Listener qui conserve les entités notifiées, dans l'ordre.
+     */
+    private static class RecordingListener implements DataLoaderUtil.LoadListener {
+
+        private final List<Person> persons = new ArrayList<>();
+        private final List<Firestation> firestations = new ArrayList<>();
+        private final List<MedicalRecord> medicalRecords = new ArrayList<>();
+
+        @Override
+        public void onPerson(Person person) {
+            persons.add(person);
+        }
+
+        @Override
+        public void onFirestation(Firestation firestation) {
+            firestations.add(firestation);
+        }
+
+        @Override
+        public void onMedicalRecord(MedicalRecord medicalRecord) {
+            medicalRecords.add(medicalRecord);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link DateUtil}.
+ * La date du jour est fixée par une horloge de test.
+ */
+class DateUtilTest {
+
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+
+    @AfterEach
+    void tearDown() {
+        DateUtil.setClock(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Vérifie l'âge la veille, le jour et le lendemain d'un anniversaire, avec les deux variantes de calcul.
+     */
+    @Test
+    void testCalculateAge_aroundBirthday() {
+        String birthdate = "06/15/2000";
+
+        assertAge(23, birthdate, LocalDateTime.of(2024, 6, 14, 23, 59));
+        assertAge(24, birthdate, LocalDateTime.of(2024, 6, 15, 0, 0));
+        assertAge(24, birthdate, LocalDateTime.of(2024, 6, 16, 12, 0));
+    }
+
+    /**
+     * Vérifie qu'une naissance après février dans une année bissextile compte bien son anniversaire
+     * une année non bissextile, et inversement.
+     */
+    @Test
+    void testCalculateAge_acrossLeapYears() {
+        assertAge(38, "03/01/1984", LocalDateTime.of(2023, 2, 28, 12, 0));
+        assertAge(39, "03/01/1984", LocalDateTime.of(2023, 3, 1, 12, 0));
+        assertAge(22, "12/31/2001", LocalDateTime.of(2024, 12, 30, 12, 0));
+        assertAge(23, "12/31/2001", LocalDateTime.of(2024, 12, 31, 12, 0));
+    }
+
+    /**
+     * Vérifie qu'une personne née un 29 février prend un an le 1er mars les années non bissextiles,
+     * et le 29 février les années bissextiles.
+     */
+    @Test
+    void testCalculateAge_leapDayBirthday() {
+        String birthdate = "02/29/2004";
+
+        assertAge(18, birthdate, LocalDateTime.of(2023, 2, 28, 12, 0));
+        assertAge(19, birthdate, LocalDateTime.of(2023, 3, 1, 12, 0));
+        assertAge(19, birthdate, LocalDateTime.of(2024, 2, 28, 12, 0));
+        assertAge(20, birthdate, LocalDateTime.of(2024, 2, 29, 12, 0));
+    }
+
+    /**
+     * Vérifie qu'une date absente ou invalide donne un âge de -1 et compte comme un enfant.
+     */
+    @Test
+    void testCalculateAge_invalidOrNullDate() {
+        setToday(LocalDateTime.of(2024, 6, 15, 12, 0));
+
+        for (String birthdate : new String[]{null, "", "not a date", "13/45/2000", "2000-06-15"}) {
+            assertEquals(-1, DateUtil.calculateAge(birthdate), "Date : " + birthdate);
+            assertEquals(DateUtil.INVALID_DATE, DateUtil.toEpochDay(birthdate), "Date : " + birthdate);
+        }
+        assertEquals(-1, DateUtil.calculateAge(DateUtil.INVALID_DATE));
+        assertTrue(DateUtil.isChild(DateUtil.INVALID_DATE));
+    }
+
+    /**
+     * Vérifie la limite des 18 ans.
+     */
+    @Test
+    void testIsChild() {
+        setToday(LocalDateTime.of(2024, 6, 15, 12, 0));
+
+        assertTrue(DateUtil.isChild(DateUtil.toEpochDay("06/16/2006")));
+        assertFalse(DateUtil.isChild(DateUtil.toEpochDay("06/15/2006")));
+    }
+
+    /**
+     * Vérifie que la date du jour précalculée est renouvelée au passage de minuit.
+     */
+    @Test
+    void testCalculateAge_refreshedAtMidnight() {
+        MutableClock clock = new MutableClock(LocalDateTime.of(2024, 6, 14, 23, 59, 59).toInstant(ZoneOffset.UTC));
+        DateUtil.setClock(clock);
+        int birthEpochDay = DateUtil.toEpochDay("06/15/2000");
+
+        assertEquals(23, DateUtil.calculateAge(birthEpochDay));
+
+        clock.instant = clock.instant.plusSeconds(1);
+        assertEquals(24, DateUtil.calculateAge(birthEpochDay));
+    }
+
+    private static void assertAge(int expected, String birthdate, LocalDateTime now) {
+        setToday(now);
+        assertEquals(expected, DateUtil.calculateAge(birthdate), birthdate + " le " + now);
+        assertEquals(expected, DateUtil.calculateAge(DateUtil.toEpochDay(birthdate)), birthdate + " le " + now);
+    }
+
+    private static void setToday(LocalDateTime now) {
+        DateUtil.setClock(Clock.fixed(now.atZone(ZONE).toInstant(), ZONE));
+    }
+
+    /**
+     * Horloge dont l'instant courant peut être avancé par le test.
+     */
+    private static class MutableClock extends Clock {
+
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link PageCursor}.
+ */
+class PageCursorTest {
+
+    /**
+     * Vérifie qu'un curseur encodé puis décodé est inchangé, noms nuls, non ASCII ou de plus de 64 Ko compris.
+     */
+    @Test
+    void testEncodeDecode() {
+        String longName = "é".repeat(40_000);
+        for (PageCursor cursor : new PageCursor[]{
+                new PageCursor("Boyd", "John", 42),
+                new PageCursor(null, null, 0),
+                new PageCursor("Zoë", longName, Long.MAX_VALUE)}) {
+            String token = cursor.encode();
+
+            assertTrue(token.matches("[A-Za-z0-9_-]*"));
+            assertEquals(cursor, PageCursor.decode(token));
+        }
+    }
+
+    /**
+     * Vérifie qu'un curseur tronqué, prolongé ou mal formé est refusé.
+     */
+    @Test
+    void testDecode_invalid() {
+        byte[] bytes = Base64.getUrlDecoder().decode(new PageCursor("Boyd", "John", 42).encode());
+        byte[] negativeLength = bytes.clone();
+        negativeLength[0] = (byte) 0x80;
+
+        for (String token : new String[]{
+                "curseur-invalide",
+                "!!",
+                encode(Arrays.copyOf(bytes, bytes.length - 1)),
+                encode(Arrays.copyOf(bytes, bytes.length + 1)),
+                encode(negativeLength)}) {
+            assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(token), token);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
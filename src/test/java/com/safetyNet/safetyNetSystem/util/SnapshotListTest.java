@@ -0,0 +1,184 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link SnapshotList}.
+ */
+class SnapshotListTest {
+
+    private static final int COUNT = 3 * SnapshotList.CHUNK_SIZE + 10;
+
+    /**
+     * Vérifie que la copie conserve l'ordre sur plusieurs blocs, et qu'une liste figée est réutilisée telle quelle.
+     */
+    @Test
+    void testCopyOf() {
+        List<String> elements = strings(COUNT);
+
+        SnapshotList<String> list = SnapshotList.copyOf(elements);
+
+        assertEquals(elements, list);
+        assertEquals(elements, new ArrayList<>(list));
+        assertSame(list, SnapshotList.copyOf(list));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(COUNT));
+    }
+
+    /**
+     * Vérifie les retraits et remplacements par identité, immédiats comme différés jusqu'au gel.
+     */
+    @Test
+    void testRemoveAndReplaceInstance() {
+        List<String> elements = strings(COUNT);
+        List<String> expected = new ArrayList<>(elements);
+        SnapshotList<String> list = SnapshotList.copyOf(elements).edit();
+
+        for (int i = 0; i < 2 * SnapshotList.IMMEDIATE_EDITS; i++) {
+            String removed = elements.get(i * 100);
+            list.removeInstance(removed);
+            expected.remove(removed);
+        }
+        String replaced = elements.get(COUNT - 1);
+        list.replaceInstance(replaced, "replacement");
+        expected.set(expected.size() - 1, "replacement");
+        list.removeInstance(new String(elements.get(1)));  // Égal mais pas identique : sans effet
+        list.add("added");
+        expected.add("added");
+        list.freeze();
+
+        assertEquals(expected, list);
+        assertEquals(expected.size(), list.size());
+    }
+
+    /**
+     * Vérifie qu'une version figée n'est pas affectée par les modifications des versions suivantes.
+     */
+    @Test
+    void testFrozenVersionUnaffectedByLaterEdits() {
+        List<String> elements = strings(COUNT);
+        SnapshotList<String> base = SnapshotList.copyOf(elements);
+
+        SnapshotList<String> first = base.edit();
+        first.removeInstance(elements.get(0));
+        first.replaceInstance(elements.get(SnapshotList.CHUNK_SIZE), "replacement");
+        first.add("added");
+        first.freeze();
+        SnapshotList<String> second = base.edit();
+        second.add("other");
+        second.freeze();
+
+        assertEquals(elements, base);
+        assertEquals("replacement", first.get(SnapshotList.CHUNK_SIZE - 1));
+        assertEquals("added", first.get(COUNT - 1));
+        assertEquals("other", second.get(COUNT));
+        assertEquals(COUNT + 1, second.size());
+    }
+
+    /**
+     * Vérifie qu'une modification ne copie que le bloc touché : les autres sont partagés avec la version précédente.
+     */
+    @Test
+    void testEditSharesUntouchedChunks() throws ReflectiveOperationException {
+        List<String> elements = strings(COUNT);
+        SnapshotList<String> base = SnapshotList.copyOf(elements);
+
+        SnapshotList<String> next = base.edit();
+        next.replaceInstance(elements.get(SnapshotList.CHUNK_SIZE + 1), "replacement");
+        next.freeze();
+
+        Object[] before = chunks(base);
+        Object[] after = chunks(next);
+        assertEquals(4, before.length);
+        assertSame(before[0], after[0]);
+        assertNotSame(before[1], after[1]);
+        assertSame(before[2], after[2]);
+        assertSame(before[3], after[3]);
+    }
+
+    /**
+     * Vérifie qu'une version figée refuse les modifications, et qu'une nouvelle version ne modifie pas
+     * en place les blocs créés par une version précédente.
+     */
+    @Test
+    void testStaleOwnerRejected() {
+        SnapshotList<String> first = SnapshotList.copyOf(strings(10)).edit();
+        first.add("a");
+        first.freeze();
+
+        assertThrows(IllegalStateException.class, () -> first.add("b"));
+        assertThrows(IllegalStateException.class, () -> first.removeInstance(first.get(0)));
+        assertThrows(IllegalStateException.class, () -> first.replaceInstance(first.get(0), "b"));
+
+        SnapshotList<String> second = first.edit();
+        second.add("b");
+        second.removeInstance(first.get(10));
+        second.freeze();
+
+        assertEquals(11, first.size());
+        assertEquals("a", first.get(10));
+        assertEquals("b", second.get(10));
+    }
+
+    /**
+     * Vérifie que des lecteurs concurrents voient toujours une version complète, dans l'ordre,
+     * pendant qu'un écrivain publie des versions successives.
+     */
+    @Test
+    void testConcurrentReadersAndWriter() throws Exception {
+        AtomicReference<SnapshotList<Integer>> published = new AtomicReference<>(SnapshotList.copyOf(List.of()));
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(executor.submit(() -> {
+                    while (!done.get()) {
+                        SnapshotList<Integer> version = published.get();
+                        int expected = 0;
+                        for (Integer element : version) {
+                            assertEquals(expected++, element);
+                        }
+                        assertEquals(version.size(), expected);
+                    }
+                }));
+            }
+            executor.submit(() -> {
+                for (int i = 0; i < COUNT; i++) {
+                    SnapshotList<Integer> next = published.get().edit();
+                    next.add(i);
+                    published.set(next.freeze());
+                }
+                done.set(true);
+            }).get(30, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            done.set(true);
+            executor.shutdownNow();
+        }
+        assertEquals(COUNT, published.get().size());
+    }
+
+    private static List<String> strings(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "element-" + i).toList();
+    }
+
+    private static Object[] chunks(SnapshotList<?> list) throws ReflectiveOperationException {
+        var field = SnapshotList.class.getDeclaredField("chunks");
+        field.setAccessible(true);
+        return (Object[]) field.get(list);
+    }
+}
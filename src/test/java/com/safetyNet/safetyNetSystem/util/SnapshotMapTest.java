@@ -0,0 +1,178 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link SnapshotMap}.
+ */
+class SnapshotMapTest {
+
+    /**
+     * Vérifie les opérations de base, clé nulle comprise.
+     */
+    @Test
+    void testPutGetRemove() {
+        SnapshotMap<String, Integer> map = SnapshotMap.<String, Integer>empty().edit();
+
+        map.put("a", 1);
+        map.put("a", 2);
+        map.put(null, 3);
+        map.remove("b");
+
+        assertEquals(2, map.size());
+        assertEquals(2, map.get("a"));
+        assertEquals(3, map.get(null));
+
+        map.remove("a");
+        Map<String, Integer> entries = new HashMap<>();
+        map.freeze().forEach(entries::put);
+
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put(null, 3);
+        assertEquals(expected, entries);
+        assertEquals(1, map.size());
+    }
+
+    /**
+     * Vérifie qu'une version figée n'est pas affectée par les modifications des versions suivantes,
+     * et que les versions issues d'une même version sont indépendantes.
+     */
+    @Test
+    void testFrozenVersionUnaffectedByLaterEdits() {
+        SnapshotMap<Integer, Integer> base = filled(10_000);
+
+        SnapshotMap<Integer, Integer> first = base.edit();
+        SnapshotMap<Integer, Integer> second = base.edit();
+        first.put(1, -1);
+        first.remove(2);
+        first.put(20_000, 20_000);
+        second.put(1, -2);
+        first.freeze();
+        second.freeze();
+
+        assertEquals(10_000, base.size());
+        assertEquals(1, base.get(1));
+        assertEquals(2, base.get(2));
+        assertNull(base.get(20_000));
+        assertEquals(-1, first.get(1));
+        assertNull(first.get(2));
+        assertEquals(-2, second.get(1));
+        assertEquals(2, second.get(2));
+    }
+
+    /**
+     * Vérifie qu'une modification ne copie que la partition touchée : les autres sont partagées
+     * avec la version précédente.
+     */
+    @Test
+    void testEditSharesUntouchedShards() throws ReflectiveOperationException {
+        SnapshotMap<Integer, Integer> base = filled(10_000);
+
+        SnapshotMap<Integer, Integer> next = base.edit();
+        next.put(1, -1);
+        next.freeze();
+
+        Object[] before = shards(base);
+        Object[] after = shards(next);
+        assertEquals(before.length, after.length);
+        assertTrue(before.length > 1);
+        int shared = 0;
+        for (int i = 0; i < before.length; i++) {
+            if (before[i] == after[i]) {
+                shared++;
+            }
+        }
+        assertEquals(before.length - 1, shared);
+    }
+
+    /**
+     * Vérifie qu'une version figée refuse les modifications, et qu'une nouvelle version ne modifie pas
+     * en place les partitions créées par une version précédente, même déjà modifiées par celle-ci.
+     */
+    @Test
+    void testStaleOwnerRejected() {
+        SnapshotMap<Integer, Integer> first = filled(100).edit();
+        first.put(1, -1);
+        first.freeze();
+
+        assertThrows(IllegalStateException.class, () -> first.put(1, 1));
+        assertThrows(IllegalStateException.class, () -> first.remove(1));
+
+        SnapshotMap<Integer, Integer> second = first.edit();
+        second.put(1, -2);
+        second.remove(50);
+        second.freeze();
+
+        assertEquals(-1, first.get(1));
+        assertEquals(50, first.get(50));
+        assertEquals(-2, second.get(1));
+    }
+
+    /**
+     * Vérifie que des lecteurs concurrents voient toujours une version complète pendant qu'un écrivain
+     * publie des versions successives.
+     */
+    @Test
+    void testConcurrentReadersAndWriter() throws Exception {
+        AtomicReference<SnapshotMap<Integer, Integer>> published = new AtomicReference<>(SnapshotMap.empty());
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(executor.submit(() -> {
+                    while (!done.get()) {
+                        SnapshotMap<Integer, Integer> version = published.get();
+                        int size = version.size();
+                        for (int i = 0; i < size; i++) {
+                            assertEquals(i, version.get(i));
+                        }
+                        assertNull(version.get(size));
+                    }
+                }));
+            }
+            executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    SnapshotMap<Integer, Integer> next = published.get().edit();
+                    next.put(i, i);
+                    published.set(next.freeze());
+                }
+                done.set(true);
+            }).get(30, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            done.set(true);
+            executor.shutdownNow();
+        }
+        assertEquals(5_000, published.get().size());
+    }
+
+    private static SnapshotMap<Integer, Integer> filled(int count) {
+        SnapshotMap<Integer, Integer> map = SnapshotMap.<Integer, Integer>empty().edit();
+        for (int i = 0; i < count; i++) {
+            map.put(i, i);
+        }
+        return map.freeze();
+    }
+
+    private static Object[] shards(SnapshotMap<?, ?> map) throws ReflectiveOperationException {
+        var field = SnapshotMap.class.getDeclaredField("shards");
+        field.setAccessible(true);
+        return (Object[]) field.get(map);
+    }
+}
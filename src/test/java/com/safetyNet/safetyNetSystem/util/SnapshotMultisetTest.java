@@ -0,0 +1,94 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link SnapshotMultiset}.
+ */
+class SnapshotMultisetTest {
+
+    /**
+     * Vérifie qu'un élément reste présent tant qu'il lui reste une occurrence, et que les éléments
+     * distincts sont triés.
+     */
+    @Test
+    void testAddRemoveOccurrences() {
+        SnapshotMultiset<String> multiset = SnapshotMultiset.<String>empty(Comparator.naturalOrder()).edit();
+
+        multiset.add("b");
+        multiset.add("a");
+        multiset.add("b");
+        multiset.remove("b");
+        multiset.remove("c");
+        multiset.freeze();
+
+        assertEquals(List.of("a", "b"), List.copyOf(multiset.elementSet()));
+        assertTrue(multiset.elementSet().contains("b"));
+        assertFalse(multiset.elementSet().contains("c"));
+
+        SnapshotMultiset<String> next = multiset.edit();
+        next.remove("b");
+        next.remove("a");
+        next.freeze();
+
+        assertTrue(next.isEmpty());
+        assertFalse(next.elementSet().contains("b"));
+    }
+
+    /**
+     * Vérifie qu'une version figée, et la vue de ses éléments, ne sont pas affectées par les modifications
+     * des versions suivantes.
+     */
+    @Test
+    void testFrozenVersionUnaffectedByLaterEdits() {
+        SnapshotMultiset<String> base = SnapshotMultiset.<String>empty(Comparator.naturalOrder()).edit();
+        base.add("a");
+        base.add("a");
+        base.add("b");
+        base.freeze();
+        Set<String> elements = base.elementSet();
+
+        SnapshotMultiset<String> next = base.edit();
+        next.remove("b");
+        next.remove("a");
+        next.add("c");
+        next.freeze();
+
+        assertEquals(Set.of("a", "b"), elements);
+        assertEquals(List.of("a", "b"), List.copyOf(base.elementSet()));
+        assertEquals(List.of("a", "c"), List.copyOf(next.elementSet()));
+    }
+
+    /**
+     * Vérifie qu'une version figée refuse les modifications, et qu'une nouvelle version ne modifie pas
+     * en place les compteurs créés par une version précédente.
+     */
+    @Test
+    void testStaleOwnerRejected() {
+        SnapshotMultiset<String> first = SnapshotMultiset.<String>empty(Comparator.naturalOrder()).edit();
+        first.add("a");
+        first.freeze();
+
+        assertThrows(IllegalStateException.class, () -> first.add("a"));
+        assertThrows(IllegalStateException.class, () -> first.add("b"));
+        assertThrows(IllegalStateException.class, () -> first.remove("a"));
+
+        SnapshotMultiset<String> second = first.edit();
+        second.add("a");
+        second.remove("a");
+        second.freeze();
+        SnapshotMultiset<String> third = second.edit();
+        third.remove("a");
+        third.freeze();
+
+        assertEquals(Set.of("a"), first.elementSet());
+        assertEquals(Set.of("a"), second.elementSet());
+        assertTrue(third.isEmpty());
+    }
+}
@@ -0,0 +1,193 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link SnapshotSortedSet}.
+ */
+class SnapshotSortedSetTest {
+
+    private static final int COUNT = 5 * SnapshotSortedSet.CHUNK_SIZE;
+
+    /**
+     * Vérifie que les éléments sont parcourus dans l'ordre, sur plusieurs blocs, et que les doublons sont ignorés.
+     */
+    @Test
+    void testAddRemoveInOrder() {
+        SnapshotSortedSet<Integer> set = SnapshotSortedSet.<Integer>empty(Comparator.naturalOrder()).edit();
+
+        for (int i = COUNT - 1; i >= 0; i--) {
+            assertTrue(set.add(2 * i));
+        }
+        assertFalse(set.add(0));
+        assertTrue(set.remove(2));
+        assertFalse(set.remove(3));
+        set.freeze();
+
+        List<Integer> elements = toList(set.iteratorFrom(null));
+        assertEquals(COUNT - 1, set.size());
+        assertEquals(elements.size(), set.size());
+        assertEquals(0, elements.get(0));
+        assertEquals(4, elements.get(1));
+        for (int i = 1; i < elements.size(); i++) {
+            assertTrue(elements.get(i - 1) < elements.get(i));
+        }
+    }
+
+    /**
+     * Vérifie le parcours à partir d'une borne, présente ou absente, et au-delà du dernier élément.
+     */
+    @Test
+    void testIteratorFrom() {
+        SnapshotSortedSet<Integer> set = filled(COUNT);
+
+        assertEquals(List.of(COUNT - 2, COUNT - 1), toList(set.iteratorFrom(COUNT - 2)));
+        assertEquals(COUNT - 1, toList(set.iteratorFrom(1)).size());
+        assertFalse(set.iteratorFrom(COUNT).hasNext());
+
+        // Un ordre moins fin (par dizaine) place le parcours au début du groupe
+        Comparator<Integer> byTens = Comparator.comparingInt(i -> i / 10);
+        assertEquals(120, set.iteratorFrom(125, byTens).next());
+    }
+
+    /**
+     * Vérifie qu'une version figée n'est pas affectée par les modifications des versions suivantes,
+     * et qu'un itérateur ouvert sur elle n'en voit rien.
+     */
+    @Test
+    void testFrozenVersionUnaffectedByLaterEdits() {
+        SnapshotSortedSet<Integer> base = filled(COUNT);
+        Iterator<Integer> iterator = base.iteratorFrom(null);
+
+        SnapshotSortedSet<Integer> next = base.edit();
+        for (int i = 0; i < COUNT; i += 2) {
+            next.remove(i);
+        }
+        next.add(-1);
+        next.freeze();
+
+        assertEquals(COUNT, toList(iterator).size());
+        assertEquals(COUNT, toList(base.iteratorFrom(null)).size());
+        assertEquals(COUNT / 2 + 1, next.size());
+        assertEquals(-1, next.iteratorFrom(null).next());
+    }
+
+    /**
+     * Vérifie qu'une modification ne copie que le bloc touché : les autres sont partagés avec la version précédente.
+     */
+    @Test
+    void testEditSharesUntouchedChunks() throws ReflectiveOperationException {
+        SnapshotSortedSet<Integer> base = filled(COUNT);
+
+        SnapshotSortedSet<Integer> next = base.edit();
+        next.remove(COUNT - 1);
+        next.freeze();
+
+        Object[] before = chunks(base);
+        Object[] after = chunks(next);
+        assertEquals(before.length, after.length);
+        assertTrue(before.length > 1);
+        for (int i = 0; i < before.length - 1; i++) {
+            assertSame(before[i], after[i]);
+        }
+        assertNotSame(before[before.length - 1], after[after.length - 1]);
+    }
+
+    /**
+     * Vérifie qu'une version figée refuse les modifications, et qu'une nouvelle version ne modifie pas
+     * en place les blocs créés par une version précédente.
+     */
+    @Test
+    void testStaleOwnerRejected() {
+        SnapshotSortedSet<Integer> first = filled(10).edit();
+        first.add(100);
+        first.freeze();
+
+        assertThrows(IllegalStateException.class, () -> first.add(200));
+        assertThrows(IllegalStateException.class, () -> first.remove(100));
+
+        SnapshotSortedSet<Integer> second = first.edit();
+        second.add(50);
+        second.remove(100);
+        second.freeze();
+
+        assertEquals(List.of(9, 100), toList(first.iteratorFrom(9)));
+        assertEquals(List.of(9, 50), toList(second.iteratorFrom(9)));
+    }
+
+    /**
+     * Vérifie que des lecteurs concurrents voient toujours une version complète et triée
+     * pendant qu'un écrivain publie des versions successives, avec découpages de blocs.
+     */
+    @Test
+    void testConcurrentReadersAndWriter() throws Exception {
+        AtomicReference<SnapshotSortedSet<Integer>> published =
+                new AtomicReference<>(SnapshotSortedSet.empty(Comparator.naturalOrder()));
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(executor.submit(() -> {
+                    while (!done.get()) {
+                        SnapshotSortedSet<Integer> version = published.get();
+                        List<Integer> elements = toList(version.iteratorFrom(null));
+                        assertEquals(version.size(), elements.size());
+                        for (int i = 1; i < elements.size(); i++) {
+                            assertTrue(elements.get(i - 1) < elements.get(i));
+                        }
+                    }
+                }));
+            }
+            executor.submit(() -> {
+                // Ajouts alternés aux deux extrémités, pour découper les blocs des deux côtés
+                for (int i = 0; i < COUNT; i++) {
+                    SnapshotSortedSet<Integer> next = published.get().edit();
+                    next.add(i % 2 == 0 ? i : -i);
+                    published.set(next.freeze());
+                }
+                done.set(true);
+            }).get(30, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            done.set(true);
+            executor.shutdownNow();
+        }
+        assertEquals(COUNT, published.get().size());
+    }
+
+    private static SnapshotSortedSet<Integer> filled(int count) {
+        SnapshotSortedSet<Integer> set = SnapshotSortedSet.<Integer>empty(Comparator.naturalOrder()).edit();
+        for (int i = 0; i < count; i++) {
+            set.add(i);
+        }
+        return set.freeze();
+    }
+
+    private static <E> List<E> toList(Iterator<E> iterator) {
+        List<E> elements = new ArrayList<>();
+        iterator.forEachRemaining(elements::add);
+        return elements;
+    }
+
+    private static Object[] chunks(SnapshotSortedSet<?> set) throws ReflectiveOperationException {
+        var field = SnapshotSortedSet.class.getDeclaredField("chunks");
+        field.setAccessible(true);
+        return (Object[]) field.get(set);
+    }
+}
@@ -0,0 +1,103 @@
+package com.safetyNet.safetyNetSystem.util;
+
+import com.safetyNet.safetyNetSystem.dao.FirestationDAO;
+import com.safetyNet.safetyNetSystem.dao.MedicalRecordDAO;
+import com.safetyNet.safetyNetSystem.dao.PersonDAO;
+import com.safetyNet.safetyNetSystem.model.Firestation;
+import com.safetyNet.safetyNetSystem.model.MedicalRecord;
+import com.safetyNet.safetyNetSystem.model.Person;
+import com.safetyNet.safetyNetSystem.service.DataLoaderService;
+import com.safetyNet.safetyNetSystem.service.PersistenceService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests unitaires pour la classe {@link StringDictionary}.
+ */
+class StringDictionaryTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Vérifie que des valeurs égales donnent la même instance, et que null est conservé.
+     */
+    @Test
+    void testIntern() {
+        StringDictionary dictionary = new StringDictionary();
+        String first = new String("Culver");
+
+        assertSame(first, dictionary.intern(first));
+        assertSame(first, dictionary.intern(new String("Culver")));
+        assertNull(dictionary.intern((String) null));
+        assertEquals(1, dictionary.size());
+    }
+
+    /**
+     * Vérifie que seuls les champs répétitifs des entités sont encodés, listes comprises.
+     */
+    @Test
+    void testInternEntities() {
+        StringDictionary dictionary = new StringDictionary();
+        String city = dictionary.intern("Culver");
+        String medication = dictionary.intern("aznol:350mg");
+        Person person = new Person(new String("John"), "Boyd", "1509 Culver St", new String("Culver"), "97451", "841-874-6512", "jaboyd@email.com");
+        MedicalRecord medicalRecord = new MedicalRecord("John", "Boyd", "03/06/1984", new ArrayList<>(List.of(new String("aznol:350mg"))), null);
+
+        dictionary.intern(person);
+        dictionary.intern(medicalRecord);
+
+        assertSame(city, person.getCity());
+        assertSame(medication, medicalRecord.getMedications().get(0));
+        assertNull(medicalRecord.getAllergies());
+        assertNotSame(person.getFirstName(), dictionary.intern(new String("John")));
+    }
+
+    /**
+     * Vérifie que les entités ajoutées par les DAO partagent les instances des entités chargées
+     * depuis le fichier de données.
+     */
+    @Test
+    void testSharedAcrossLoadAndDaoWrites() throws IOException {
+        Path json = directory.resolve("data.json");
+        Files.writeString(json, """
+                {"persons": [{"firstName": "John", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver",
+                              "zip": "97451", "phone": "841-874-6512", "email": "jaboyd@email.com"}],
+                 "firestations": [{"address": "1509 Culver St", "station": "3"}],
+                 "medicalrecords": [{"firstName": "John", "lastName": "Boyd", "birthdate": "03/06/1984",
+                                     "medications": ["aznol:350mg"], "allergies": ["nillacilan"]}]}
+                """);
+        DataLoaderService dataLoaderService = new DataLoaderService(
+                new DataLoaderUtil(false, false, json.toString()), mock(ChangeLog.class));
+        PersistenceService persistenceService = mock(PersistenceService.class);
+        Person loaded = dataLoaderService.getSnapshot().getPersons().get(0);
+        MedicalRecord loadedRecord = dataLoaderService.getSnapshot().getMedicalRecords().get(0);
+
+        new PersonDAO(dataLoaderService, persistenceService).addPerson(new Person("Jacob", "Boyd",
+                new String("1509 Culver St"), new String("Culver"), new String("97451"), "841-874-6513", "drk@email.com"));
+        new FirestationDAO(dataLoaderService, persistenceService).addFirestation(
+                new Firestation(new String("29 15th St"), new String("3")));
+        new MedicalRecordDAO(dataLoaderService, persistenceService).addMedicalRecord(new MedicalRecord("Jacob", "Boyd",
+                "03/06/1989", List.of(new String("aznol:350mg")), List.of(new String("nillacilan"))));
+
+        Person added = dataLoaderService.getSnapshot().getPersons().get(1);
+        Firestation addedFirestation = dataLoaderService.getSnapshot().getFirestations().get(1);
+        MedicalRecord addedRecord = dataLoaderService.getSnapshot().getMedicalRecords().get(1);
+        assertSame(loaded.getAddress(), added.getAddress());
+        assertSame(loaded.getCity(), added.getCity());
+        assertSame(loaded.getZip(), added.getZip());
+        assertSame(loaded.getAddress(), dataLoaderService.getSnapshot().getFirestations().get(0).getAddress());
+        assertSame(dataLoaderService.getSnapshot().getFirestations().get(0).getStation(), addedFirestation.getStation());
+        assertSame(loadedRecord.getMedications().get(0), addedRecord.getMedications().get(0));
+        assertSame(loadedRecord.getAllergies().get(0), addedRecord.getAllergies().get(0));
+    }
+}